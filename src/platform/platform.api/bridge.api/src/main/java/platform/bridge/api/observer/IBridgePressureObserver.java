@@ -0,0 +1,30 @@
+/**
+ * @file IBridgePressureObserver.java
+ * @brief IBridgePressureObserver is an observer for bridge outbound memory pressure events.
+ */
+
+package platform.bridge.api.observer;
+
+/**
+ * Observer for bridge outbound memory pressure events. Bridge layer notifies observers when outbound bytes pending
+ * across all bridge channels of the process exceed the outbound budget and when they fall back below its resume level.
+ * While under pressure the bridge sheds droppable and low priority packets and refuses new service connections.
+ * Observers are notified on an I/O event loop and must not block.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public interface IBridgePressureObserver
+{
+    /**
+     * Notify pressure observers.
+     * 
+     * @param underPressure
+     *            - true if pending outbound bytes exceeded the budget, false if they fell below resume level.
+     * @param pendingBytes
+     *            - outbound bytes pending across all bridge channels at the time of the change.
+     * @param budgetBytes
+     *            - outbound budget in bytes.
+     */
+    void notifyPressureChanged(boolean underPressure, long pendingBytes, long budgetBytes);
+}
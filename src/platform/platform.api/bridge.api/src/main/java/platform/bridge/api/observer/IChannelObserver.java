@@ -29,4 +29,47 @@ public interface IChannelObserver
      *            change.
      */
     void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress);
+
+    /**
+     * Notify observers that a lost client channel is about to be re-established. Does nothing by default.
+     * 
+     * @param proxyName
+     *            - a {@link String} name of the client proxy that is reconnecting.
+     * @param inetSocketAddress
+     *            - a {@link InetSocketAddress} of the remote service.
+     * @param attempt
+     *            - a sequence number of the reconnect attempt, starting with 1.
+     * @param delayMs
+     *            - a delay in milliseconds after which the reconnect attempt will be made.
+     */
+    default void notifyChannelReconnecting(String proxyName, InetSocketAddress inetSocketAddress, int attempt,
+        long delayMs)
+    {}
+
+    /**
+     * Notify observers that client proxy gave up re-establishing a lost channel. Does nothing by default.
+     * 
+     * @param proxyName
+     *            - a {@link String} name of the client proxy.
+     * @param inetSocketAddress
+     *            - a {@link InetSocketAddress} of the remote service.
+     * @param attempts
+     *            - number of failed reconnect attempts.
+     */
+    default void notifyChannelReconnectAbandoned(String proxyName, InetSocketAddress inetSocketAddress, int attempts)
+    {}
+
+    /**
+     * Notify observers that client proxy failed to connect on demand without reconnect enabled, discarding packets
+     * buffered for the connect. Does nothing by default.
+     * 
+     * @param proxyName
+     *            - a {@link String} name of the client proxy.
+     * @param inetSocketAddress
+     *            - a {@link InetSocketAddress} of the remote service.
+     * @param discarded
+     *            - number of discarded buffered packets.
+     */
+    default void notifyChannelConnectFailed(String proxyName, InetSocketAddress inetSocketAddress, int discarded)
+    {}
 }
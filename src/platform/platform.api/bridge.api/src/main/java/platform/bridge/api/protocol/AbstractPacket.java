@@ -6,6 +6,7 @@
 package platform.bridge.api.protocol;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 
 import java.io.UnsupportedEncodingException;
 
@@ -52,6 +53,41 @@ public abstract class AbstractPacket
         throw new UnsupportedOperationException(String.format(ERROR_NO_IMPLEMENTED, ERROR_NO_IMPLEMENTED2));
     }
 
+    /**
+     * Determine whether packet may be discarded when sent to a slow consumer, e.g. a transient effect superseded by
+     * later packets. Packets are not droppable unless concrete packet overrides this method.
+     * 
+     * @return - true if packet may be dropped, false otherwise.
+     */
+    public boolean isDroppable()
+    {
+        return false;
+    }
+
+    /**
+     * Retrieve key of the state this packet carries, e.g. an entity identifier, so that only the latest packet per key
+     * is kept for a slow consumer. Packets are not conflated unless concrete packet overrides this method.
+     * 
+     * @return - an {@link Object} conflation key with proper equals and hash code or null if packet must not be
+     *         conflated.
+     */
+    public Object getConflationKey()
+    {
+        return null;
+    }
+
+    /**
+     * Retrieve priority class of the packet. With priority lanes enabled control packets are written ahead of queued
+     * bulk ones on the same connection. Packets are of {@link EPacketPriority#NORMAL} priority unless concrete packet
+     * overrides this method.
+     * 
+     * @return - an {@link EPacketPriority} of the packet.
+     */
+    public EPacketPriority getPriority()
+    {
+        return EPacketPriority.NORMAL;
+    }
+
     /**
      * 
      * @param buf
@@ -76,27 +112,19 @@ public abstract class AbstractPacket
     }
 
     /**
-     * Attempts to write provided {@link String} to destination {@link ByteBuf}.
+     * Attempts to write provided {@link String} to destination {@link ByteBuf}. String is encoded with the default
+     * string encoding, UTF-8, directly into the buffer, without an intermediate byte array.
      * 
      * @param buf
      *            - destination {@link ByteBuf} to write to.
      * @param string
      *            - source {@link String}.
-     * @throws ProtocolException
-     *             - throw {@link ProtocolException} on encoding error.
      */
-    protected final void writeString(ByteBuf buf, String string) throws ProtocolException
+    protected final void writeString(ByteBuf buf, String string)
     {
-        try
-        {
-            byte[] byteBuf = string.getBytes(ARG_DEFAULT_STRING_ENCODING);
-            writeInt(byteBuf.length, buf);
-            buf.writeBytes(byteBuf);
-        }
-        catch (UnsupportedEncodingException uee)
-        {
-            throw new ProtocolException(String.format(ERROR_ENCODING, ARG_DEFAULT_STRING_ENCODING), uee);
-        }
+        int numBytes = ByteBufUtil.utf8Bytes(string);
+        writeInt(numBytes, buf);
+        ByteBufUtil.reserveAndWriteUtf8(buf, string, numBytes);
     }
 
     /**
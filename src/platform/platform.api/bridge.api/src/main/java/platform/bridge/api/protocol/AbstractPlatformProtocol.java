@@ -25,10 +25,18 @@ public abstract class AbstractPlatformProtocol
     private static final String ERROR_UNKNOWN_PACKET_ID = "Provided concrete packet for id: [%d] has not been registered.";
     private static final String ERROR_INSTANTIATION = "Error instantiating packet with id: [%d].";
     private static final String ERROR_PACKET_ALREADY_REGISTERED = "Provided concrete packet class: [%s] has already been registered.";
+    private static final String ERROR_RESERVED_PACKET_ID = "Provided packet id: [%d] of packet class: [%s] is reserved for base platform packets.";
 
     // Default number of bytes allocated for length header of the frame message.
     public static final int DEFAULT_FRAME_LENGTH_HEADER_SIZE = 2;
 
+    // Ids of base platform packets. Consumer packets must use positive ids.
+    public static final int PACKET_ID_CREDIT = 0;
+
+    // Id of a batch frame carrying several length prefixed packets. It has no packet class, as the platform packet
+    // decoder unpacks batch frames into the packets they carry.
+    public static final int PACKET_ID_BATCH = -1;
+
     // Packet to id and id to packet maps.
     private Map<Integer, Class<? extends AbstractPacket>> idToPacketMap;
     private Map<Class<? extends AbstractPacket>, Integer> packetToIdMap;
@@ -75,21 +83,41 @@ public abstract class AbstractPlatformProtocol
      */
     private void registerBasePlatformPackets()
     {
-        // TODO.
+        putPacket(PACKET_ID_CREDIT, CreditPacket.class);
     }
 
     /**
      * Register a consumer defined packet.
      * 
      * @param packetId
-     *            - a {@link int} unique packet id.
+     *            - a {@link int} unique positive packet id.
      * @param packetClass
      *            - a {@link Class} concrete type of {@link AbstractPacket} that defines a consumer defined packet.
      * @throws ProtocolException
-     *             - throw {@link ProtocolException} if desired packet id already been taken.
+     *             - throw {@link ProtocolException} if desired packet id already been taken or is reserved for base
+     *             platform packets.
      */
     protected final synchronized void registerPacket(int packetId, Class<? extends AbstractPacket> packetClass)
         throws ProtocolException
+    {
+        if (packetId <= 0)
+        {
+            throw new ProtocolException(String.format(ERROR_RESERVED_PACKET_ID, packetId, packetClass.getName()));
+        }
+        putPacket(packetId, packetClass);
+    }
+
+    /**
+     * Map a packet id to a packet class.
+     * 
+     * @param packetId
+     *            - a {@link int} unique packet id.
+     * @param packetClass
+     *            - a {@link Class} concrete type of {@link AbstractPacket}.
+     * @throws ProtocolException
+     *             - throw {@link ProtocolException} if desired packet id already been taken.
+     */
+    private void putPacket(int packetId, Class<? extends AbstractPacket> packetClass) throws ProtocolException
     {
         if (idToPacketMap.containsKey(packetId) || packetToIdMap.containsKey(packetClass))
         {
@@ -0,0 +1,62 @@
+/**
+ * @file CreditPacket.java
+ * @brief Credit packet grants a sender credits for further packets under credit based flow control.
+ */
+
+package platform.bridge.api.protocol;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Credit packet grants a sender credits for further packets under credit based flow control. Receiving service sends
+ * it once it processed a number of packets and sending client may send that many more. It is a base platform packet
+ * registered with every protocol and never delivered to response listeners.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class CreditPacket extends AbstractPacket
+{
+    // Number of granted credits.
+    private int credits;
+
+    /**
+     * Ctor.
+     */
+    public CreditPacket()
+    {}
+
+    /**
+     * Ctor.
+     * 
+     * @param credits
+     *            - number of granted credits.
+     */
+    public CreditPacket(int credits)
+    {
+        this.credits = credits;
+    }
+
+    @Override
+    public void write(ByteBuf buf)
+    {
+        writeInt(credits, buf);
+    }
+
+    @Override
+    public void read(ByteBuf buf)
+    {
+        credits = readInt(buf);
+    }
+
+    @Override
+    public EPacketPriority getPriority()
+    {
+        return EPacketPriority.HIGH;
+    }
+
+    public int getCredits()
+    {
+        return credits;
+    }
+}
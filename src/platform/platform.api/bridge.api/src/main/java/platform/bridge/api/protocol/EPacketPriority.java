@@ -0,0 +1,21 @@
+/**
+ * @file EPacketPriority.java
+ * @brief Packet priority classes used by outbound priority lanes.
+ */
+
+package platform.bridge.api.protocol;
+
+/**
+ * Packet priority classes used by outbound priority lanes, see {@link AbstractPacket#getPriority()}. With lanes enabled
+ * packets of a higher class are written to a connection before queued packets of a lower one, while packets of the same
+ * class keep their order.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum EPacketPriority
+{
+    HIGH, // Control traffic, e.g. inputs, acknowledgements and pings, never queued behind other packets.
+    NORMAL, // Regular state updates.
+    LOW // Bulk transfers, e.g. assets and chunks, written only when no other packets are waiting, shed under pressure.
+}
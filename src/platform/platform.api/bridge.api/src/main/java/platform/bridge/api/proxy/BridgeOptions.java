@@ -22,11 +22,88 @@ public class BridgeOptions
     public static final String KEY_IS_SERVER = "isServer";
     public static final String KEY_CONNECTION_LISTENER_SET = "connectionListenerSet";
 
+    // Client reconnect option keys.
+    public static final String KEY_RECONNECT_ENABLED = "reconnectEnabled";
+    public static final String KEY_RECONNECT_INITIAL_DELAY_MS = "reconnectInitialDelayMs";
+    public static final String KEY_RECONNECT_MAX_DELAY_MS = "reconnectMaxDelayMs";
+    public static final String KEY_RECONNECT_MAX_ATTEMPTS = "reconnectMaxAttempts";
+    public static final String KEY_SEND_BUFFER_SIZE = "sendBufferSize";
+
+    // Client connection life-cycle option keys.
+    public static final String KEY_LAZY_CONNECT = "lazyConnect";
+    public static final String KEY_IDLE_DISCONNECT_SEC = "idleDisconnectSec";
+
+    // Event loop group option keys. Proxies sharing a group name share event loops, a name used by a single proxy acts
+    // as a dedicated group. Proxies without a group name use the provider default group.
+    public static final String KEY_EVENT_LOOP_GROUP = "eventLoopGroup";
+    public static final String KEY_EVENT_LOOP_GROUP_SIZE = "eventLoopGroupSize";
+    public static final String KEY_BOSS_GROUP_SIZE = "bossGroupSize";
+
+    // Socket option keys. Value of socket profile is an ESocketProfile.
+    public static final String KEY_SOCKET_PROFILE = "socketProfile";
+
+    // Service acceptor option keys. Acceptor count above 1 binds that many SO_REUSEPORT server channels on one port.
+    public static final String KEY_ACCEPTOR_COUNT = "acceptorCount";
+
+    // Inbound delivery option keys. Value of inbound mode is an EInboundMode and value of overflow policy is an
+    // EOverflowPolicy. Thread count and queue depth apply to offloaded delivery only.
+    public static final String KEY_INBOUND_MODE = "inboundMode";
+    public static final String KEY_INBOUND_THREADS = "inboundThreads";
+    public static final String KEY_INBOUND_QUEUE_DEPTH = "inboundQueueDepth";
+    public static final String KEY_INBOUND_OVERFLOW_POLICY = "inboundOverflowPolicy";
+
+    // Inbound ring buffer option keys. Ring size is rounded up to a power of two and value of wait strategy is an
+    // EWaitStrategy. Overflow policy applies to the ring buffer as a whole.
+    public static final String KEY_INBOUND_RING_SIZE = "inboundRingSize";
+    public static final String KEY_INBOUND_WAIT_STRATEGY = "inboundWaitStrategy";
+
+    // Service loop rebalance option keys. Rebalancing is enabled by an interval above 0. Watermarks are Double loop
+    // utilisations between 0 and 1, and low watermark must be below high watermark.
+    public static final String KEY_REBALANCE_INTERVAL_MS = "rebalanceIntervalMs";
+    public static final String KEY_REBALANCE_HIGH_WATERMARK = "rebalanceHighWatermark";
+    public static final String KEY_REBALANCE_LOW_WATERMARK = "rebalanceLowWatermark";
+    public static final String KEY_REBALANCE_COOLDOWN_MS = "rebalanceCooldownMs";
+    public static final String KEY_REBALANCE_MAX_MIGRATIONS = "rebalanceMaxMigrations";
+
+    // Service tick option keys. A tick rate above 0 drives the service on fixed ticks, and inbound mode then defaults
+    // to EInboundMode.RING_BUFFER drained once per tick.
+    public static final String KEY_TICK_RATE_HZ = "tickRateHz";
+
+    // Flush option keys. Value of flush policy is an EFlushPolicy. Max writes applies to consolidated flushes and delay
+    // in microseconds to time bounded flushes.
+    public static final String KEY_FLUSH_POLICY = "flushPolicy";
+    public static final String KEY_FLUSH_MAX_WRITES = "flushMaxWrites";
+    public static final String KEY_FLUSH_DELAY_US = "flushDelayUs";
+
+    // Slow consumer option keys. Write buffer watermarks in bytes override those of the socket profile. Value of slow
+    // consumer policy is an ESlowConsumerPolicy and grace period applies to ESlowConsumerPolicy.DISCONNECT.
+    public static final String KEY_WRITE_BUFFER_LOW_WATERMARK = "writeBufferLowWatermark";
+    public static final String KEY_WRITE_BUFFER_HIGH_WATERMARK = "writeBufferHighWatermark";
+    public static final String KEY_SLOW_CONSUMER_POLICY = "slowConsumerPolicy";
+    public static final String KEY_SLOW_CONSUMER_GRACE_MS = "slowConsumerGraceMs";
+
+    // Priority lane option key. Boolean value enables per connection scheduling of packets by their EPacketPriority.
+    public static final String KEY_PRIORITY_LANES = "priorityLanes";
+
+    // Flow control option keys. Credits set the window of packets a client may send before the service grants more and
+    // must be set on both the sending client and the receiving service. Value of flow control policy is an
+    // EFlowControlPolicy and timeout in milliseconds applies to EFlowControlPolicy.BLOCK.
+    public static final String KEY_FLOW_CONTROL_CREDITS = "flowControlCredits";
+    public static final String KEY_FLOW_CONTROL_POLICY = "flowControlPolicy";
+    public static final String KEY_FLOW_CONTROL_TIMEOUT_MS = "flowControlTimeoutMs";
+
+    // Batch send option key. Boolean value packs packets of a batch send into as few frames as the frame length allows.
+    public static final String KEY_PACK_BATCHES = "packBatches";
+
+    // Void promise send option key. Boolean value writes fire-and-forget sends with the channel void promise, so they
+    // allocate no write promise and failed writes are reported through the pipeline exception path of the proxy.
+    public static final String KEY_VOID_PROMISE_SENDS = "voidPromiseSends";
+
     /**
      * Represents individual bridge option.
      * 
      * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
-     *
+     * 
      * @param <T>
      */
     public class BridgeOption<T>
@@ -95,6 +172,16 @@ public class BridgeOptions
         optionsMap.put(key, new BridgeOption<T>(value));
     }
 
+    /**
+     * Compile options into an immutable typed snapshot.
+     * 
+     * @return - a new {@link CompiledBridgeOptions}.
+     */
+    public CompiledBridgeOptions compile()
+    {
+        return new CompiledBridgeOptions(this);
+    }
+
     @SuppressWarnings("rawtypes")
     @Override
     public String toString()
@@ -0,0 +1,190 @@
+/**
+ * @file CompiledBridgeOptions.java
+ * @brief Immutable typed snapshot of bridge options.
+ */
+
+package platform.bridge.api.proxy;
+
+import java.util.Set;
+
+import platform.bridge.api.observer.IConnectionObserver;
+
+/**
+ * Immutable typed snapshot of bridge options. Options are compiled once when a proxy registers so per connection code
+ * reads plain fields instead of looking up and casting map entries. Changes made to the source {@link BridgeOptions}
+ * after compilation are not reflected.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class CompiledBridgeOptions
+{
+    // Value of unset optional time options.
+    public static final int NOT_SET = 0;
+
+    // Default flush options.
+    public static final int DEFAULT_FLUSH_MAX_WRITES = 16;
+    public static final int DEFAULT_FLUSH_DELAY_US = 100;
+
+    // Default slow consumer disconnect grace period.
+    public static final int DEFAULT_SLOW_CONSUMER_GRACE_MS = 5000;
+
+    // Whether options belong to a service.
+    private final boolean server;
+
+    // Read timeout and idle disconnect in seconds or NOT_SET.
+    private final int readTimeoutSec;
+    private final int idleDisconnectSec;
+
+    // Server connection observers, never null.
+    private final IConnectionObserver[] connectionObservers;
+
+    // Socket profile, never null.
+    private final ESocketProfile socketProfile;
+
+    // Flush policy, never null, with writes per consolidated flush and delay of time bounded flush in microseconds.
+    private final EFlushPolicy flushPolicy;
+    private final int flushMaxWrites;
+    private final int flushDelayUs;
+
+    // Write buffer watermarks in bytes or NOT_SET, slow consumer policy or null and disconnect grace period.
+    private final int writeBufferLowWatermark;
+    private final int writeBufferHighWatermark;
+    private final ESlowConsumerPolicy slowConsumerPolicy;
+    private final int slowConsumerGraceMs;
+
+    // Whether packets are scheduled by their priority.
+    private final boolean priorityLanes;
+
+    /**
+     * Ctor.
+     * 
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} to compile.
+     */
+    @SuppressWarnings("unchecked")
+    CompiledBridgeOptions(BridgeOptions bridgeOptions)
+    {
+        server = bridgeOptions.get(BridgeOptions.KEY_IS_SERVER) != null
+            && (Boolean) bridgeOptions.get(BridgeOptions.KEY_IS_SERVER).get();
+        readTimeoutSec = bridgeOptions.get(BridgeOptions.KEY_READ_TIMEOUT_SEC) != null ? (Integer) bridgeOptions.get(
+            BridgeOptions.KEY_READ_TIMEOUT_SEC).get() : NOT_SET;
+        idleDisconnectSec = bridgeOptions.get(BridgeOptions.KEY_IDLE_DISCONNECT_SEC) != null ? (Integer) bridgeOptions
+            .get(BridgeOptions.KEY_IDLE_DISCONNECT_SEC).get() : NOT_SET;
+        socketProfile = bridgeOptions.get(BridgeOptions.KEY_SOCKET_PROFILE) != null ? (ESocketProfile) bridgeOptions
+            .get(BridgeOptions.KEY_SOCKET_PROFILE).get() : ESocketProfile.DEFAULT;
+        flushPolicy = bridgeOptions.get(BridgeOptions.KEY_FLUSH_POLICY) != null ? (EFlushPolicy) bridgeOptions.get(
+            BridgeOptions.KEY_FLUSH_POLICY).get() : EFlushPolicy.READ_CYCLE;
+        flushMaxWrites = bridgeOptions.get(BridgeOptions.KEY_FLUSH_MAX_WRITES) != null ? (Integer) bridgeOptions.get(
+            BridgeOptions.KEY_FLUSH_MAX_WRITES).get() : DEFAULT_FLUSH_MAX_WRITES;
+        flushDelayUs = bridgeOptions.get(BridgeOptions.KEY_FLUSH_DELAY_US) != null ? (Integer) bridgeOptions.get(
+            BridgeOptions.KEY_FLUSH_DELAY_US).get() : DEFAULT_FLUSH_DELAY_US;
+        writeBufferLowWatermark = bridgeOptions.get(BridgeOptions.KEY_WRITE_BUFFER_LOW_WATERMARK) != null
+            ? (Integer) bridgeOptions.get(BridgeOptions.KEY_WRITE_BUFFER_LOW_WATERMARK).get() : NOT_SET;
+        writeBufferHighWatermark = bridgeOptions.get(BridgeOptions.KEY_WRITE_BUFFER_HIGH_WATERMARK) != null
+            ? (Integer) bridgeOptions.get(BridgeOptions.KEY_WRITE_BUFFER_HIGH_WATERMARK).get() : NOT_SET;
+        slowConsumerPolicy = bridgeOptions.get(BridgeOptions.KEY_SLOW_CONSUMER_POLICY) != null
+            ? (ESlowConsumerPolicy) bridgeOptions.get(BridgeOptions.KEY_SLOW_CONSUMER_POLICY).get() : null;
+        slowConsumerGraceMs = bridgeOptions.get(BridgeOptions.KEY_SLOW_CONSUMER_GRACE_MS) != null
+            ? (Integer) bridgeOptions.get(BridgeOptions.KEY_SLOW_CONSUMER_GRACE_MS).get()
+            : DEFAULT_SLOW_CONSUMER_GRACE_MS;
+        priorityLanes = bridgeOptions.get(BridgeOptions.KEY_PRIORITY_LANES) != null
+            && (Boolean) bridgeOptions.get(BridgeOptions.KEY_PRIORITY_LANES).get();
+
+        if (bridgeOptions.get(BridgeOptions.KEY_CONNECTION_LISTENER_SET) != null)
+        {
+            Set<IConnectionObserver> observerSet = (Set<IConnectionObserver>) bridgeOptions.get(
+                BridgeOptions.KEY_CONNECTION_LISTENER_SET).get();
+            connectionObservers = observerSet.toArray(new IConnectionObserver[observerSet.size()]);
+        }
+        else
+        {
+            connectionObservers = new IConnectionObserver[0];
+        }
+    }
+
+    public boolean isServer()
+    {
+        return server;
+    }
+
+    public int getReadTimeoutSec()
+    {
+        return readTimeoutSec;
+    }
+
+    public int getIdleDisconnectSec()
+    {
+        return idleDisconnectSec;
+    }
+
+    /**
+     * Retrieve server connection observers. Returned array must not be modified.
+     * 
+     * @return - an array of {@link IConnectionObserver}, empty if none has been set.
+     */
+    public IConnectionObserver[] getConnectionObservers()
+    {
+        return connectionObservers;
+    }
+
+    public ESocketProfile getSocketProfile()
+    {
+        return socketProfile;
+    }
+
+    public EFlushPolicy getFlushPolicy()
+    {
+        return flushPolicy;
+    }
+
+    public int getFlushMaxWrites()
+    {
+        return flushMaxWrites;
+    }
+
+    public int getFlushDelayUs()
+    {
+        return flushDelayUs;
+    }
+
+    /**
+     * Check whether both write buffer watermarks have been set.
+     * 
+     * @return - true if watermarks of the socket profile should be overridden, false otherwise.
+     */
+    public boolean hasWriteBufferWatermarks()
+    {
+        return writeBufferLowWatermark != NOT_SET && writeBufferHighWatermark != NOT_SET;
+    }
+
+    public int getWriteBufferLowWatermark()
+    {
+        return writeBufferLowWatermark;
+    }
+
+    public int getWriteBufferHighWatermark()
+    {
+        return writeBufferHighWatermark;
+    }
+
+    /**
+     * Retrieve slow consumer policy.
+     * 
+     * @return - an {@link ESlowConsumerPolicy} or null if packets are written to non writable channels as well.
+     */
+    public ESlowConsumerPolicy getSlowConsumerPolicy()
+    {
+        return slowConsumerPolicy;
+    }
+
+    public int getSlowConsumerGraceMs()
+    {
+        return slowConsumerGraceMs;
+    }
+
+    public boolean isPriorityLanesEnabled()
+    {
+        return priorityLanes;
+    }
+}
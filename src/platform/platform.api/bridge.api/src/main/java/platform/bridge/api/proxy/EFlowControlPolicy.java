@@ -0,0 +1,20 @@
+/**
+ * @file EFlowControlPolicy.java
+ * @brief Flow control policies selectable via bridge options.
+ */
+
+package platform.bridge.api.proxy;
+
+/**
+ * Flow control policies selectable via {@link BridgeOptions#KEY_FLOW_CONTROL_POLICY}. Policy determines what happens
+ * to a packet sent by a client proxy which ran out of credits granted by the receiving service.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum EFlowControlPolicy
+{
+    BLOCK, // Sending thread waits for credits up to a timeout, sends from the I/O event loop fail instead.
+    FAIL, // Send fails right away.
+    QUEUE // Packet is queued and sent once credits are granted, send fails if queue is full.
+}
@@ -0,0 +1,21 @@
+/**
+ * @file EFlushPolicy.java
+ * @brief Outbound flush policies selectable via bridge options.
+ */
+
+package platform.bridge.api.proxy;
+
+/**
+ * Outbound flush policies selectable via {@link BridgeOptions#KEY_FLUSH_POLICY}. Policy determines when packets sent
+ * by a proxy are flushed to the socket, trading write syscalls for latency.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum EFlushPolicy
+{
+    READ_CYCLE, // Packets sent on the event loop are flushed at the end of the read cycle, others immediately.
+    IMMEDIATE, // Every packet is flushed immediately.
+    CONSOLIDATED, // Flushes are merged until a number of writes or the end of the read cycle.
+    TIME_BOUNDED // Flushes are merged for at most a configured delay.
+}
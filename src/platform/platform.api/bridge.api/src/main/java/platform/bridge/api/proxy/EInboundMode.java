@@ -0,0 +1,20 @@
+/**
+ * @file EInboundMode.java
+ * @brief Inbound packet delivery modes selectable via bridge options.
+ */
+
+package platform.bridge.api.proxy;
+
+/**
+ * Inbound packet delivery modes selectable via {@link BridgeOptions#KEY_INBOUND_MODE}. Mode determines on which thread
+ * {@link IResponseListener#receive} is invoked.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum EInboundMode
+{
+    DIRECT, // Packets are delivered on the channel I/O event loop.
+    OFFLOAD, // Packets are delivered on a worker pool through one serial queue per session.
+    RING_BUFFER // Packets are published into a ring buffer drained by a single application consumer thread.
+}
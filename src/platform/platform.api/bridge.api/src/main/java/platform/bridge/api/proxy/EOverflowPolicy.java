@@ -0,0 +1,20 @@
+/**
+ * @file EOverflowPolicy.java
+ * @brief Policies applied when a bounded inbound session queue is full.
+ */
+
+package platform.bridge.api.proxy;
+
+/**
+ * Policies applied when a bounded inbound session queue is full, selectable via
+ * {@link BridgeOptions#KEY_INBOUND_OVERFLOW_POLICY}.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum EOverflowPolicy
+{
+    DROP_NEWEST, // Incoming packet is dropped.
+    DROP_OLDEST, // Oldest queued packet is dropped to make room for incoming packet. Ring buffer drops newest instead.
+    DISCONNECT // Session channel is closed.
+}
@@ -0,0 +1,21 @@
+/**
+ * @file ESlowConsumerPolicy.java
+ * @brief Slow consumer policies selectable via bridge options.
+ */
+
+package platform.bridge.api.proxy;
+
+/**
+ * Slow consumer policies selectable via {@link BridgeOptions#KEY_SLOW_CONSUMER_POLICY}. Policy determines what happens
+ * to packets sent to a channel which is not writable, because its outbound buffer grew over the high write buffer
+ * watermark while the peer is not reading fast enough.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum ESlowConsumerPolicy
+{
+    DROP, // Droppable packets are discarded, others are written.
+    CONFLATE, // Only the latest packet per conflation key is kept until channel is writable again, others are written.
+    DISCONNECT // Channel is closed if it does not become writable again within a grace period.
+}
@@ -0,0 +1,20 @@
+/**
+ * @file ESocketProfile.java
+ * @brief Named socket option profiles selectable via bridge options.
+ */
+
+package platform.bridge.api.proxy;
+
+/**
+ * Named socket option profiles selectable via {@link BridgeOptions#KEY_SOCKET_PROFILE}. Profiles tune socket buffers,
+ * write buffer watermarks and, on the native epoll transport, kernel level latency options.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum ESocketProfile
+{
+    DEFAULT, // No delay, keep-alive and linger with OS default buffers.
+    LOW_LATENCY, // Small buffers and watermarks, busy polling, quick ACKs and TCP fast open.
+    THROUGHPUT // Large socket buffers and watermarks for bulk transfers.
+}
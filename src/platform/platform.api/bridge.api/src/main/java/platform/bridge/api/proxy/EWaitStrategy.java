@@ -0,0 +1,20 @@
+/**
+ * @file EWaitStrategy.java
+ * @brief Strategies of a consumer thread waiting for inbound packets.
+ */
+
+package platform.bridge.api.proxy;
+
+/**
+ * Strategies of a consumer thread waiting for inbound packets published into a ring buffer, selectable via
+ * {@link BridgeOptions#KEY_INBOUND_WAIT_STRATEGY}. Strategies trade consumer CPU usage for wake up latency.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum EWaitStrategy
+{
+    BUSY_SPIN, // Consumer spins on its core, lowest latency at a cost of a fully busy core.
+    YIELD, // Consumer yields between checks, low latency while letting other threads run.
+    BLOCK // Consumer parks until a producer wakes it up, no CPU cost while idle.
+}
@@ -0,0 +1,33 @@
+/**
+ * @file IBatchResponseListener.java
+ * @brief Batch response listener receives all packets decoded from a channel in one read cycle at once.
+ */
+
+package platform.bridge.api.proxy;
+
+import java.util.List;
+
+import platform.bridge.api.protocol.AbstractPacket;
+
+/**
+ * Batch response listener receives all packets decoded from a channel in one read cycle at once, so locking or queuing
+ * done per call is paid once per read cycle instead of once per packet. Batches are delivered with
+ * {@link EInboundMode#DIRECT} inbound mode, on the channel I/O event loop at the end of each read cycle. Offloaded
+ * inbound modes keep delivering packets one by one through {@link #receive}.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public interface IBatchResponseListener extends IResponseListener
+{
+    /**
+     * Receive packets decoded from a channel in one read cycle, in order they have been received.
+     * 
+     * @param abstractPackets
+     *            - a {@link List} of received {@link AbstractPacket}s. List is reused by the channel and must not be
+     *            retained or modified after the call returns.
+     * @param senderIdentifier
+     *            - a {@link String} sender identifier.
+     */
+    void receiveBatch(List<AbstractPacket> abstractPackets, String senderIdentifier);
+}
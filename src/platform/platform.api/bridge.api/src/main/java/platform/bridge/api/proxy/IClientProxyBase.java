@@ -5,6 +5,9 @@
 
 package platform.bridge.api.proxy;
 
+import java.util.Collection;
+import java.util.concurrent.CompletionStage;
+
 import platform.bridge.api.protocol.AbstractPacket;
 import platform.core.api.exception.BridgeException;
 
@@ -26,6 +29,27 @@ public interface IClientProxyBase
      */
     void sendPacket(AbstractPacket packet) throws BridgeException;
 
+    /**
+     * Attempt to send a packet via network base implementation to the remote service and observe its completion.
+     * 
+     * @param packet
+     *            - a {@link AbstractPacket} to send.
+     * @return - a {@link CompletionStage} completed once packet has been written to the network, or completed
+     *         exceptionally with a {@link BridgeException} if it could not be sent.
+     */
+    CompletionStage<Void> sendPacketAsync(AbstractPacket packet);
+
+    /**
+     * Attempt to send a batch of packets via network base implementation to the remote service. Packets are sent in
+     * order and flushed once, rather than once per packet.
+     * 
+     * @param packets
+     *            - a {@link Collection} of {@link AbstractPacket}s to send.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} on send error.
+     */
+    void sendPackets(Collection<? extends AbstractPacket> packets) throws BridgeException;
+
     /**
      * Release a client proxy and cleanup.
      * 
@@ -5,6 +5,9 @@
 
 package platform.bridge.api.proxy;
 
+import java.util.Collection;
+import java.util.concurrent.CompletionStage;
+
 import platform.bridge.api.protocol.AbstractPacket;
 import platform.core.api.exception.BridgeException;
 
@@ -28,6 +31,31 @@ public interface IServiceProxyBase
      */
     void sendPacket(AbstractPacket packet, String clientIdentifier) throws BridgeException;
 
+    /**
+     * Attempt to send a response via network base implementation to a client and observe its completion.
+     * 
+     * @param packet
+     *            - a {@link AbstractPacket} to send.
+     * @param clientIdentifier
+     *            - a {@link String} client identifier to send the response to.
+     * @return - a {@link CompletionStage} completed once packet has been written to the network, or completed
+     *         exceptionally with a {@link BridgeException} if it could not be sent.
+     */
+    CompletionStage<Void> sendPacketAsync(AbstractPacket packet, String clientIdentifier);
+
+    /**
+     * Attempt to send a batch of responses via network base implementation to a client. Packets are sent in order and
+     * flushed once, rather than once per packet.
+     * 
+     * @param packets
+     *            - a {@link Collection} of {@link AbstractPacket}s to send.
+     * @param clientIdentifier
+     *            - a {@link String} client identifier to send the responses to.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} on send error.
+     */
+    void sendPackets(Collection<? extends AbstractPacket> packets, String clientIdentifier) throws BridgeException;
+
     /**
      * Release a service proxy and cleanup.
      * 
@@ -18,6 +18,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.protocol.CreditPacket;
 
 /**
  * Test for base protocol handling.
@@ -92,6 +93,32 @@ public class TestPlatformProtocol
         Assert.assertTrue(ex instanceof ProtocolException);
     }
 
+    /**
+     * Test consumer packets cannot take ids reserved for base platform packets.
+     */
+    @Test
+    public void testReservedPacketId()
+    {
+        for (int packetId : new int[] { AbstractPlatformProtocol.PACKET_ID_CREDIT,
+            AbstractPlatformProtocol.PACKET_ID_BATCH })
+        {
+            ex = null;
+            try
+            {
+                new ReservedIdProtocol(packetId);
+            }
+            catch (Exception e)
+            {
+                ex = e;
+            }
+            Assert.assertTrue(ex instanceof ProtocolException);
+        }
+
+        // Base platform packets are still registered.
+        Assert.assertTrue(new TestProtocol2(66).constructPacket(AbstractPlatformProtocol.PACKET_ID_CREDIT)
+            instanceof CreditPacket);
+    }
+
     /**
      * Test construct packet.
      */
@@ -121,4 +148,21 @@ public class TestPlatformProtocol
         Assert.assertNotNull(ex);
         Assert.assertTrue(ex instanceof ProtocolException);
     }
+
+    /**
+     * Test protocol registering a consumer packet with given id.
+     */
+    private static class ReservedIdProtocol extends AbstractPlatformProtocol
+    {
+        /**
+         * Ctor.
+         * 
+         * @param packetId
+         *            - id to register test packet with.
+         */
+        public ReservedIdProtocol(int packetId)
+        {
+            registerPacket(packetId, TestPacket2.class);
+        }
+    }
 }
@@ -14,28 +14,40 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.ServerChannel;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollServerSocketChannel;
-import io.netty.channel.epoll.EpollSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.util.internal.PlatformDependent;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 
 import java.net.Inet4Address;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.UnknownHostException;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.loop.EventLoopGroupStats;
+import platform.bridge.base.loop.ICpuAffinity;
+import platform.bridge.base.loop.LinuxCpuAffinity;
+import platform.bridge.base.loop.LoopPlacement;
+import platform.bridge.base.loop.PlatformEventLoopGroup;
+import platform.bridge.base.loop.PlatformThreadFactory;
+import platform.bridge.base.outbound.ConnectionRefusalHandler;
 import platform.bridge.base.pipeline.PlatformPipelineInitializer;
+import platform.bridge.base.transport.ETransportType;
+import platform.bridge.base.transport.ITransport;
+import platform.bridge.base.transport.SocketProfiles;
+import platform.bridge.base.transport.TransportFactory;
 import platform.core.api.exception.BridgeException;
 
 /**
@@ -51,20 +63,32 @@ public abstract class AbstractBridgeProvider
     protected static final Logger LOG = LoggerFactory.getLogger(AbstractBridgeProvider.class);
 
     // Errors, args, messages.
-    private static final String ARG_WORKER_GROUP = "workerGroup";
     private static final String ARG_PIPELINE_INITIALIZER = "pipelineInitializer";
     private static final String ARG_SERVICE_PORT = "servicePort";
     private static final String ARG_BRIDGE_OPTIONS = "bridgeOptions";
     private static final String ARG_REMOTE_ADDRESS = "remoteAddress";
+    private static final String ARG_TRANSPORT = "transport";
     private static final String ERROR_SOCKET_BIND = "Error binding server socket on [%s].";
     private static final String ERROR_CONNECT = "Error connecting with remote host: [%s].";
     private static final String ERROR_UNKNOWN_HOST = "Cannot retrieve hostname for socket bind.";
     private static final String ERROR_INTERRUPTED_EXCEPTION = "Interrupted exception thrown while blocking.";
     private static final String ERROR_GENERAL_EXCEPTION = "General exception thrown.";
     private static final String ERROR_CHANNEL_EXCEPTION = "Channel exception thrown.";
+    private static final String WARN_REUSEPORT_UNSUPPORTED = "SO_REUSEPORT is not supported by [%s] transport. Binding a single acceptor.";
     protected static final String WARN_OBSERVER_EXCEPTION = "Exception thrown while notifying channel listener. Guarding bridge...";
     private static final String MSG_SERVICE_BOUND = "Successfully bound a service on address: [%s].";
     private static final String MSG_CLIENT_CONNECTED = "Successfully connected with a remote service: [%s].";
+    private static final String MSG_GROUP_CREATED = "Created event loop group [%s] with [%d] threads.";
+    private static final String MSG_GROUP_RELEASED = "Released event loop group [%s].";
+    private static final String MSG_THREAD_PER_CORE = "Thread-per-core mode enabled, pinning loop threads to [%d] cores.";
+    private static final String WARN_AFFINITY_UNSUPPORTED = "CPU affinity is not supported on this host. Loop threads will not be pinned.";
+
+    // System property enabling thread-per-core mode.
+    public static final String PROPERTY_THREAD_PER_CORE = "platform.bridge.threadPerCore";
+
+    // Event loop group names.
+    private static final String DEFAULT_GROUP_NAME = "bridge-default";
+    private static final String BOSS_GROUP_SUFFIX = "-boss";
 
     // Default wait time for channel bind and connect operations in seconds.
     private static final Integer DEFAULT_CHANNEL_WAIT_TIME_SEC = 5;
@@ -72,12 +96,26 @@ public abstract class AbstractBridgeProvider
     // Default worker group size.
     private static final Integer DEFAULT_WORKER_GROUPSIZE = Runtime.getRuntime().availableProcessors();
 
-    // Set of all channel instances created.
-    private Set<Channel> bridgeChannelSet;
+    // Map of all channel instances created, mapping proxy name to its channels.
+    private ConcurrentMap<String, Set<Channel>> bridgeChannelMap;
+
+    // Transport providing event loops and channel types.
+    private final ITransport transport;
+
+    // Default worker group for handling I/O events of proxies without a named group. It also accepts connections for
+    // services without a boss group.
+    private final PlatformEventLoopGroup defaultGroup;
 
-    // Worker group for handling I/O events. No separate acceptor group required since expected number of connections is
-    // low.
-    private EventLoopGroup workerGroup;
+    // Named worker groups, mapping group name to group. Guarded by itself.
+    private final Map<String, PlatformEventLoopGroup> namedGroupMap;
+
+    // Worker and boss groups acquired by each proxy, mapping proxy name to group.
+    private final ConcurrentMap<String, PlatformEventLoopGroup> proxyWorkerGroupMap;
+    private final ConcurrentMap<String, PlatformEventLoopGroup> proxyBossGroupMap;
+
+    // CPU affinity of loop threads in thread-per-core mode or null, and core counter shared by all groups.
+    private final ICpuAffinity cpuAffinity;
+    private final AtomicInteger nextCore;
 
     /**
      * Ctor.
@@ -88,20 +126,192 @@ public abstract class AbstractBridgeProvider
     }
 
     /**
-     * Ctor.
+     * Ctor. Transport is resolved from {@link TransportFactory#PROPERTY_TRANSPORT} system property or defaults to epoll
+     * with NIO fallback.
      * 
      * @param workerGroupSize
      *            - number of threads in event I/O processing group.
      */
     protected AbstractBridgeProvider(int workerGroupSize)
     {
-        bridgeChannelSet = new HashSet<Channel>();
-        workerGroup = generateEventLoopGroup(workerGroupSize);
+        this(workerGroupSize, TransportFactory.resolve());
+    }
+
+    /**
+     * Ctor.
+     * 
+     * @param workerGroupSize
+     *            - number of threads in event I/O processing group.
+     * @param transportType
+     *            - a preferred {@link ETransportType}. Falls back to next supported transport if not available.
+     */
+    protected AbstractBridgeProvider(int workerGroupSize, ETransportType transportType)
+    {
+        this(workerGroupSize, TransportFactory.resolve(transportType));
+    }
+
+    /**
+     * Ctor. Thread-per-core mode is enabled by {@link #PROPERTY_THREAD_PER_CORE} system property.
+     * 
+     * @param workerGroupSize
+     *            - number of threads in event I/O processing group.
+     * @param transport
+     *            - an available {@link ITransport} to use for event loops and channels.
+     */
+    protected AbstractBridgeProvider(int workerGroupSize, ITransport transport)
+    {
+        this(workerGroupSize, transport, Boolean.getBoolean(PROPERTY_THREAD_PER_CORE) ? new LinuxCpuAffinity() : null);
+    }
+
+    /**
+     * Ctor. In thread-per-core mode every loop thread of every group pins itself to the next core, so with the default
+     * group sized to the number of cores each core runs exactly one loop and channel handlers, including consumer logic
+     * scheduled on the channel event loop, never migrate between cores.
+     * 
+     * @param workerGroupSize
+     *            - number of threads in event I/O processing group.
+     * @param transport
+     *            - an available {@link ITransport} to use for event loops and channels.
+     * @param cpuAffinity
+     *            - an {@link ICpuAffinity} enabling thread-per-core mode or null to leave loop threads unpinned.
+     */
+    protected AbstractBridgeProvider(int workerGroupSize, ITransport transport, ICpuAffinity cpuAffinity)
+    {
+        ArgsChecker.errorOnNull(transport, ARG_TRANSPORT);
+
+        if (cpuAffinity != null && !cpuAffinity.isSupported())
+        {
+            LOG.warn(WARN_AFFINITY_UNSUPPORTED);
+            cpuAffinity = null;
+        }
+        else if (cpuAffinity != null)
+        {
+            LOG.info(String.format(MSG_THREAD_PER_CORE, cpuAffinity.getCoreCount()));
+        }
+
+        this.cpuAffinity = cpuAffinity;
+        this.nextCore = new AtomicInteger();
+        this.transport = transport;
+        bridgeChannelMap = new ConcurrentHashMap<String, Set<Channel>>();
+        namedGroupMap = new HashMap<String, PlatformEventLoopGroup>();
+        proxyWorkerGroupMap = new ConcurrentHashMap<String, PlatformEventLoopGroup>();
+        proxyBossGroupMap = new ConcurrentHashMap<String, PlatformEventLoopGroup>();
+        defaultGroup = newEventLoopGroup(DEFAULT_GROUP_NAME, workerGroupSize);
+    }
+
+    /**
+     * Create a new event loop group of this provider transport. Subclasses may override
+     * {@link #newThreadFactory(String)} to customise loop threads.
+     * 
+     * @param groupName
+     *            - a {@link String} group name.
+     * @param numThreads
+     *            - number of event loop threads.
+     * @return - a new {@link PlatformEventLoopGroup}.
+     */
+    private PlatformEventLoopGroup newEventLoopGroup(String groupName, int numThreads)
+    {
+        return new PlatformEventLoopGroup(groupName, transport, numThreads, newThreadFactory(groupName));
+    }
+
+    /**
+     * Create a thread factory for loop threads of a group. Default factory names threads after their group and pins
+     * them to cores in thread-per-core mode.
+     * 
+     * @param groupName
+     *            - a {@link String} group name.
+     * @return - a {@link PlatformThreadFactory}.
+     */
+    protected PlatformThreadFactory newThreadFactory(String groupName)
+    {
+        return new PlatformThreadFactory(groupName, cpuAffinity, nextCore);
+    }
+
+    /**
+     * Check whether loop threads are pinned to cores.
+     * 
+     * @return - true in thread-per-core mode or false otherwise.
+     */
+    public boolean isThreadPerCore()
+    {
+        return cpuAffinity != null;
+    }
+
+    /**
+     * Retrieve placement of an event loop, i.e. of a channel via {@link Channel#eventLoop()}.
+     * 
+     * @param loop
+     *            - an {@link EventExecutor} of one of provider groups.
+     * @return - a {@link LoopPlacement} or null if loop does not belong to this provider.
+     */
+    public LoopPlacement getLoopPlacement(EventExecutor loop)
+    {
+        LoopPlacement placement = defaultGroup.getLoopPlacement(loop);
+        if (placement != null)
+        {
+            return placement;
+        }
+        synchronized (namedGroupMap)
+        {
+            for (PlatformEventLoopGroup group : namedGroupMap.values())
+            {
+                placement = group.getLoopPlacement(loop);
+                if (placement != null)
+                {
+                    return placement;
+                }
+            }
+        }
+        for (PlatformEventLoopGroup group : proxyBossGroupMap.values())
+        {
+            placement = group.getLoopPlacement(loop);
+            if (placement != null)
+            {
+                return placement;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieve placement of all channels created for a proxy, i.e. service acceptors or client connections.
+     * 
+     * @param proxyName
+     *            - a {@link String} proxy name.
+     * @return - a {@link List} of {@link LoopPlacement}, one per channel.
+     */
+    public List<LoopPlacement> getProxyLoopPlacement(String proxyName)
+    {
+        List<LoopPlacement> placementList = new ArrayList<LoopPlacement>();
+        Set<Channel> proxyChannelSet = bridgeChannelMap.get(proxyName);
+        if (proxyChannelSet != null)
+        {
+            for (Channel channel : proxyChannelSet)
+            {
+                if (channel.isRegistered())
+                {
+                    placementList.add(getLoopPlacement(channel.eventLoop()));
+                }
+            }
+        }
+        return placementList;
+    }
+
+    /**
+     * Retrieve transport used by this provider.
+     * 
+     * @return - an {@link ITransport} instance.
+     */
+    public ITransport getTransport()
+    {
+        return transport;
     }
 
     /**
      * Creates and binds a service end-point with the provided service platform stack. This method presumes that service
      * has provided extended {@link PlatformPipelineInitializer} with the service specific stack and protocol handlers.
+     * With {@link BridgeOptions#KEY_ACCEPTOR_COUNT} above 1 several server channels are bound on the same port with
+     * SO_REUSEPORT, each registered with the next boss loop, and the kernel spreads new connections across them.
      * 
      * @param servicePort
      *            - a valid service port to bind the service on or 0 to retrieve a wild-card port.
@@ -121,36 +331,40 @@ public abstract class AbstractBridgeProvider
 
         ArgsChecker.errorOnNull(pipelineInitializer, ARG_PIPELINE_INITIALIZER);
         ArgsChecker.errorOnNull(bridgeOptions, ARG_BRIDGE_OPTIONS);
-        ArgsChecker.errorOnNull(this.workerGroup, ARG_WORKER_GROUP);
         NetworkUtils.validateNetworkPort(servicePort);
 
+        String proxyName = pipelineInitializer.getConsumerProxy().getName();
+        boolean bound = false;
         try
         {
+            PlatformEventLoopGroup workerGroup = acquireWorkerGroup(proxyName, bridgeOptions);
+            PlatformEventLoopGroup bossGroup = acquireBossGroup(proxyName, bridgeOptions);
+
             InetSocketAddress serviceAddress = new InetSocketAddress(Inet4Address.getLocalHost(), servicePort);
-            ServerBootstrap serverBootstrap = createBaseServicePlatformStack(serviceAddress, this.workerGroup,
+            ServerBootstrap serverBootstrap = createBaseServicePlatformStack(serviceAddress,
+                (bossGroup != null ? bossGroup : workerGroup).getEventLoopGroup(), workerGroup.getEventLoopGroup(),
                 pipelineInitializer);
 
-            // Add channel options.
-            serverBootstrap.childAttr(PlatformPipelineInitializer.BRIDGE_OPTIONS_ATR_KEY, bridgeOptions);
+            // Add socket options.
+            SocketProfiles.applyServer(serverBootstrap, SocketProfiles.fromBridgeOptions(bridgeOptions), transport);
 
-            serverBootstrap.childOption(ChannelOption.TCP_NODELAY, true);
-            serverBootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
-            serverBootstrap.childOption(ChannelOption.SO_LINGER, 5);
-
-            // Bind and add listener.
-            ChannelFuture serverBindFuture = serverBootstrap.bind();
-            if (serverBindFuture.await(DEFAULT_CHANNEL_WAIT_TIME_SEC, TimeUnit.SECONDS))
+            // Let the kernel spread connections across several acceptors bound on the same port.
+            int acceptorCount = resolveAcceptorCount(bridgeOptions);
+            if (acceptorCount > 1)
             {
-                LOG.info(String.format(MSG_SERVICE_BOUND, serverBindFuture.channel().localAddress()));
-                bridgeChannelSet.add(serverBindFuture.channel());
+                serverBootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
             }
-            else
+
+            // Bind first acceptor to resolve a wild-card port, remaining acceptors are registered with next loops.
+            int boundPort = bindAcceptor(serverBootstrap, serviceAddress, proxyName);
+            InetSocketAddress boundAddress = new InetSocketAddress(serviceAddress.getAddress(), boundPort);
+            for (int i = 1; i < acceptorCount; i++)
             {
-                LOG.error(String.format(ERROR_SOCKET_BIND, serviceAddress));
-                throw new BridgeException(String.format(ERROR_SOCKET_BIND, serviceAddress));
+                bindAcceptor(serverBootstrap, boundAddress, proxyName);
             }
 
-            return ((InetSocketAddress) serverBindFuture.channel().localAddress()).getPort();
+            bound = true;
+            return boundPort;
         }
         catch (InterruptedException iee)
         {
@@ -169,10 +383,67 @@ public abstract class AbstractBridgeProvider
         }
         finally
         {
+            if (!bound)
+            {
+                releaseBridge(proxyName);
+            }
             LOG.exitMethod();
         }
     }
 
+    /**
+     * Bind a single server channel and track it.
+     * 
+     * @param serverBootstrap
+     *            - a configured {@link ServerBootstrap}.
+     * @param address
+     *            - a local {@link InetSocketAddress} to bind on.
+     * @param proxyName
+     *            - a {@link String} name of the service proxy.
+     * @return - bound port.
+     * @throws InterruptedException
+     *             - throws {@link InterruptedException} if interrupted while waiting for bind.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} on bind failure.
+     */
+    private int bindAcceptor(ServerBootstrap serverBootstrap, InetSocketAddress address, String proxyName)
+        throws InterruptedException, BridgeException
+    {
+        ChannelFuture serverBindFuture = serverBootstrap.bind(address);
+        if (serverBindFuture.await(DEFAULT_CHANNEL_WAIT_TIME_SEC, TimeUnit.SECONDS) && serverBindFuture.isSuccess())
+        {
+            LOG.info(String.format(MSG_SERVICE_BOUND, serverBindFuture.channel().localAddress()));
+            trackBridgeChannel(proxyName, serverBindFuture.channel());
+        }
+        else
+        {
+            LOG.error(String.format(ERROR_SOCKET_BIND, address));
+            throw new BridgeException(String.format(ERROR_SOCKET_BIND, address), serverBindFuture.cause());
+        }
+
+        return ((InetSocketAddress) serverBindFuture.channel().localAddress()).getPort();
+    }
+
+    /**
+     * Retrieve number of server channels to bind for a service. Multiple acceptors require SO_REUSEPORT and are
+     * therefore only supported on native transports.
+     * 
+     * @param bridgeOptions
+     *            - service {@link BridgeOptions}.
+     * @return - number of acceptors to bind.
+     */
+    private int resolveAcceptorCount(BridgeOptions bridgeOptions)
+    {
+        int acceptorCount = bridgeOptions.get(BridgeOptions.KEY_ACCEPTOR_COUNT) != null ? (Integer) bridgeOptions.get(
+            BridgeOptions.KEY_ACCEPTOR_COUNT).get() : 1;
+        if (acceptorCount > 1 && transport.getType() == ETransportType.NIO)
+        {
+            LOG.warn(String.format(WARN_REUSEPORT_UNSUPPORTED, transport.getType()));
+            return 1;
+        }
+        return Math.max(1, acceptorCount);
+    }
+
     /**
      * Creates an outgoing channel and connects with the remote host. This method presumes that client has provided
      * extended {@link PlatformPipelineInitializer} with the client specific stack and protocol handlers.
@@ -196,26 +467,16 @@ public abstract class AbstractBridgeProvider
         ArgsChecker.errorOnNull(pipelineInitializer, ARG_PIPELINE_INITIALIZER);
         ArgsChecker.errorOnNull(bridgeOptions, ARG_BRIDGE_OPTIONS);
         ArgsChecker.errorOnNull(remoteAddress, ARG_REMOTE_ADDRESS);
-        ArgsChecker.errorOnNull(this.workerGroup, ARG_WORKER_GROUP);
 
+        boolean connected = false;
         try
         {
-            Bootstrap clientBootstrap = createBaseClientPlatformStack(remoteAddress, workerGroup, pipelineInitializer);
-
-            // Add bridge options.
-            clientBootstrap.attr(PlatformPipelineInitializer.BRIDGE_OPTIONS_ATR_KEY, bridgeOptions);
-
-            // Add client options.
-            clientBootstrap.option(ChannelOption.TCP_NODELAY, true);
-            clientBootstrap.option(ChannelOption.SO_KEEPALIVE, true);
-            clientBootstrap.option(ChannelOption.SO_LINGER, 5);
-
             // Connect and add listener.
-            ChannelFuture clientConnectFuture = clientBootstrap.connect();
-            if (clientConnectFuture.await(DEFAULT_CHANNEL_WAIT_TIME_SEC, TimeUnit.SECONDS))
+            ChannelFuture clientConnectFuture = connectClientBridge(remoteAddress, pipelineInitializer, bridgeOptions);
+            if (clientConnectFuture.await(DEFAULT_CHANNEL_WAIT_TIME_SEC, TimeUnit.SECONDS)
+                && clientConnectFuture.isSuccess())
             {
                 LOG.info(String.format(MSG_CLIENT_CONNECTED, clientConnectFuture.channel().remoteAddress().toString()));
-                bridgeChannelSet.add(clientConnectFuture.channel());
             }
             else
             {
@@ -223,7 +484,9 @@ public abstract class AbstractBridgeProvider
                 throw new BridgeException(String.format(ERROR_CONNECT, remoteAddress));
             }
 
-            return ((InetSocketAddress) clientConnectFuture.channel().localAddress()).getPort();
+            int localPort = ((InetSocketAddress) clientConnectFuture.channel().localAddress()).getPort();
+            connected = true;
+            return localPort;
         }
         catch (InterruptedException iee)
         {
@@ -237,16 +500,248 @@ public abstract class AbstractBridgeProvider
         }
         finally
         {
+            if (!connected)
+            {
+                releaseEventLoopGroups(pipelineInitializer.getConsumerProxy().getName());
+            }
             LOG.exitMethod();
         }
     }
 
+    /**
+     * Creates an outgoing channel and asynchronously connects it with the remote host. Unlike
+     * {@link #provideClientBridge(SocketAddress, PlatformPipelineInitializer, BridgeOptions)} this method does not block
+     * and may therefore be invoked from an I/O thread, i.e. when re-establishing a lost connection.
+     * 
+     * @param remoteAddress
+     *            - a valid remote host {@link SocketAddress} address.
+     * @param pipelineInitializer
+     *            - an instance of {@link PlatformPipelineInitializer} to initialize platform client stack for outgoing
+     *            connection.
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} options containing consumer specific options.
+     * @return - a {@link ChannelFuture} connect future.
+     */
+    protected ChannelFuture connectClientBridge(final SocketAddress remoteAddress,
+        final PlatformPipelineInitializer pipelineInitializer, final BridgeOptions bridgeOptions)
+    {
+        ArgsChecker.errorOnNull(pipelineInitializer, ARG_PIPELINE_INITIALIZER);
+        ArgsChecker.errorOnNull(bridgeOptions, ARG_BRIDGE_OPTIONS);
+        ArgsChecker.errorOnNull(remoteAddress, ARG_REMOTE_ADDRESS);
+
+        String proxyName = pipelineInitializer.getConsumerProxy().getName();
+        Bootstrap clientBootstrap = createBaseClientPlatformStack(remoteAddress,
+            acquireWorkerGroup(proxyName, bridgeOptions).getEventLoopGroup(), pipelineInitializer);
+
+        // Add socket options.
+        SocketProfiles.applyClient(clientBootstrap, SocketProfiles.fromBridgeOptions(bridgeOptions), transport);
+
+        ChannelFuture clientConnectFuture = clientBootstrap.connect();
+        trackBridgeChannel(proxyName, clientConnectFuture.channel());
+        return clientConnectFuture;
+    }
+
+    /**
+     * Close all channels created for given proxy and release its event loop groups. Closing a service channel unbinds
+     * the service end-point, closing a client channel disconnects it from the remote host.
+     * 
+     * @param proxyName
+     *            - a {@link String} name of the proxy to release channels for.
+     */
+    protected void releaseBridge(String proxyName)
+    {
+        Set<Channel> proxyChannelSet = bridgeChannelMap.remove(proxyName);
+        if (proxyChannelSet != null)
+        {
+            for (Channel channel : proxyChannelSet)
+            {
+                channel.close();
+            }
+        }
+        releaseEventLoopGroups(proxyName);
+    }
+
+    /**
+     * Sample utilisation of all event loop groups since the previous sample.
+     * 
+     * @return - a {@link List} of {@link EventLoopGroupStats}, one per group.
+     */
+    public List<EventLoopGroupStats> getEventLoopGroupStats()
+    {
+        List<EventLoopGroupStats> statsList = new ArrayList<EventLoopGroupStats>();
+        statsList.add(defaultGroup.sample());
+        synchronized (namedGroupMap)
+        {
+            for (PlatformEventLoopGroup group : namedGroupMap.values())
+            {
+                statsList.add(group.sample());
+            }
+        }
+        for (PlatformEventLoopGroup group : proxyBossGroupMap.values())
+        {
+            statsList.add(group.sample());
+        }
+        return statsList;
+    }
+
+    /**
+     * Retrieve worker group serving channels of a registered proxy.
+     * 
+     * @param proxyName
+     *            - a {@link String} proxy name.
+     * @return - proxy worker {@link PlatformEventLoopGroup} or null if proxy has not been registered.
+     */
+    public PlatformEventLoopGroup getProxyWorkerGroup(String proxyName)
+    {
+        return proxyWorkerGroupMap.get(proxyName);
+    }
+
+    /**
+     * Retrieve worker group of given proxy, creating a named group on first use. Proxies without
+     * {@link BridgeOptions#KEY_EVENT_LOOP_GROUP} use the default group. Size of a named group is set by the first proxy
+     * acquiring it.
+     * 
+     * @param proxyName
+     *            - a {@link String} name of the proxy.
+     * @param bridgeOptions
+     *            - proxy {@link BridgeOptions}.
+     * @return - proxy worker {@link PlatformEventLoopGroup}.
+     */
+    private PlatformEventLoopGroup acquireWorkerGroup(String proxyName, BridgeOptions bridgeOptions)
+    {
+        PlatformEventLoopGroup group = proxyWorkerGroupMap.get(proxyName);
+        if (group != null)
+        {
+            return group;
+        }
+
+        synchronized (namedGroupMap)
+        {
+            group = proxyWorkerGroupMap.get(proxyName);
+            if (group != null)
+            {
+                return group;
+            }
+
+            if (bridgeOptions.get(BridgeOptions.KEY_EVENT_LOOP_GROUP) == null)
+            {
+                group = defaultGroup;
+            }
+            else
+            {
+                String groupName = (String) bridgeOptions.get(BridgeOptions.KEY_EVENT_LOOP_GROUP).get();
+                group = namedGroupMap.get(groupName);
+                if (group == null)
+                {
+                    int groupSize = bridgeOptions.get(BridgeOptions.KEY_EVENT_LOOP_GROUP_SIZE) != null ? (Integer) bridgeOptions
+                        .get(BridgeOptions.KEY_EVENT_LOOP_GROUP_SIZE).get() : DEFAULT_WORKER_GROUPSIZE;
+                    group = newEventLoopGroup(groupName, groupSize);
+                    namedGroupMap.put(groupName, group);
+                    LOG.info(String.format(MSG_GROUP_CREATED, groupName, groupSize));
+                }
+            }
+
+            proxyWorkerGroupMap.put(proxyName, group.retain());
+            return group;
+        }
+    }
+
+    /**
+     * Create a dedicated boss group accepting connections for given service proxy if
+     * {@link BridgeOptions#KEY_BOSS_GROUP_SIZE} has been set.
+     * 
+     * @param proxyName
+     *            - a {@link String} name of the service proxy.
+     * @param bridgeOptions
+     *            - service proxy {@link BridgeOptions}.
+     * @return - a boss {@link PlatformEventLoopGroup} or null if service accepts on its worker group.
+     */
+    private PlatformEventLoopGroup acquireBossGroup(String proxyName, BridgeOptions bridgeOptions)
+    {
+        if (bridgeOptions.get(BridgeOptions.KEY_BOSS_GROUP_SIZE) == null)
+        {
+            return null;
+        }
+
+        int groupSize = (Integer) bridgeOptions.get(BridgeOptions.KEY_BOSS_GROUP_SIZE).get();
+        PlatformEventLoopGroup group = newEventLoopGroup(proxyName + BOSS_GROUP_SUFFIX, groupSize);
+        PlatformEventLoopGroup previousGroup = proxyBossGroupMap.put(proxyName, group.retain());
+        if (previousGroup != null)
+        {
+            previousGroup.shutdownGracefully();
+        }
+        LOG.info(String.format(MSG_GROUP_CREATED, group.getName(), groupSize));
+        return group;
+    }
+
+    /**
+     * Release event loop groups acquired by given proxy. Named groups are shut down once no proxy is using them.
+     * 
+     * @param proxyName
+     *            - a {@link String} name of the proxy.
+     */
+    private void releaseEventLoopGroups(String proxyName)
+    {
+        synchronized (namedGroupMap)
+        {
+            PlatformEventLoopGroup workerGroup = proxyWorkerGroupMap.remove(proxyName);
+            if (workerGroup != null && workerGroup.release() && workerGroup != defaultGroup)
+            {
+                namedGroupMap.remove(workerGroup.getName());
+                workerGroup.shutdownGracefully();
+                LOG.info(String.format(MSG_GROUP_RELEASED, workerGroup.getName()));
+            }
+        }
+
+        PlatformEventLoopGroup bossGroup = proxyBossGroupMap.remove(proxyName);
+        if (bossGroup != null)
+        {
+            bossGroup.shutdownGracefully();
+            LOG.info(String.format(MSG_GROUP_RELEASED, bossGroup.getName()));
+        }
+    }
+
+    /**
+     * Keep track of a newly created bridge channel until it is closed.
+     * 
+     * @param proxyName
+     *            - a {@link String} name of the proxy owning the channel.
+     * @param channel
+     *            - a {@link Channel} to track.
+     */
+    private void trackBridgeChannel(String proxyName, final Channel channel)
+    {
+        Set<Channel> proxyChannelSet = bridgeChannelMap.get(proxyName);
+        if (proxyChannelSet == null)
+        {
+            Set<Channel> newChannelSet = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+            proxyChannelSet = bridgeChannelMap.putIfAbsent(proxyName, newChannelSet);
+            if (proxyChannelSet == null)
+            {
+                proxyChannelSet = newChannelSet;
+            }
+        }
+        proxyChannelSet.add(channel);
+
+        final Set<Channel> ownerChannelSet = proxyChannelSet;
+        channel.closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception
+            {
+                ownerChannelSet.remove(channel);
+            }
+        });
+    }
+
     /**
      * Construct a new server service bootstrap. Bootstrap pipeline initializer should have been extended with the
-     * service specific pipeline and protocol.
+     * service specific pipeline and protocol. Accepted connections are refused while outbound budget of the service is
+     * exceeded.
      * 
      * @param address
      *            - a valid local-host {@link SocketAddress}.
+     * @param bossGroup
+     *            - an initialized {@link EventLoopGroup} for accepting connections.
      * @param workerGroup
      *            - an initialized {@link EventLoopGroup} for handling I/O events.
      * @param pipelineInitializer
@@ -256,13 +751,15 @@ public abstract class AbstractBridgeProvider
      * 
      * @return - a ready to bind {@link ServerBootstrap}.
      */
-    private ServerBootstrap createBaseServicePlatformStack(SocketAddress address, EventLoopGroup workerGroup,
-        final PlatformPipelineInitializer pipelineInitializer)
+    private ServerBootstrap createBaseServicePlatformStack(SocketAddress address, EventLoopGroup bossGroup,
+        EventLoopGroup workerGroup, final PlatformPipelineInitializer pipelineInitializer)
     {
         ServerBootstrap serverBootstrap = new ServerBootstrap();
-        serverBootstrap.channel(generateServerChannel());
-        serverBootstrap.group(workerGroup);
+        serverBootstrap.channel(transport.getServerChannelClass());
+        serverBootstrap.group(bossGroup, workerGroup);
         serverBootstrap.localAddress(address);
+        serverBootstrap.handler(new ConnectionRefusalHandler(pipelineInitializer.getConsumerProxy()
+            .getOutboundBudget(), pipelineInitializer.getConsumerProxy().getName()));
         serverBootstrap.childHandler(pipelineInitializer);
         return serverBootstrap;
     }
@@ -286,7 +783,7 @@ public abstract class AbstractBridgeProvider
         final PlatformPipelineInitializer pipelineInitializer)
     {
         Bootstrap bootstrap = new Bootstrap();
-        bootstrap.channel(generateClientChannel());
+        bootstrap.channel(transport.getClientChannelClass());
         bootstrap.group(workerGroup);
         bootstrap.remoteAddress(address);
         bootstrap.handler(pipelineInitializer);
@@ -294,7 +791,7 @@ public abstract class AbstractBridgeProvider
     }
 
     /**
-     * Shut down netty network base layer.
+     * Shut down netty network base layer. Closes all bridge channels and releases event loop threads.
      * 
      * @throws BridgeException
      *             - throws {@link BridgeException} on error.
@@ -302,56 +799,46 @@ public abstract class AbstractBridgeProvider
     protected void doShutdown() throws BridgeException
     {
         LOG.enterMethod();
-        for (Channel channel : this.bridgeChannelSet)
+        for (Set<Channel> proxyChannelSet : this.bridgeChannelMap.values())
         {
-            try
+            for (Channel channel : proxyChannelSet)
             {
-
-                channel.close().syncUninterruptibly();
+                try
+                {
+
+                    channel.close().syncUninterruptibly();
+                }
+                catch (ChannelException ce)
+                {
+                    LOG.error(ERROR_CHANNEL_EXCEPTION, ce);
+                    throw new BridgeException(ERROR_CHANNEL_EXCEPTION, ce);
+                }
             }
-            catch (ChannelException ce)
+        }
+        this.bridgeChannelMap.clear();
+
+        List<Future<?>> terminationList = new ArrayList<Future<?>>();
+        synchronized (namedGroupMap)
+        {
+            for (PlatformEventLoopGroup group : namedGroupMap.values())
             {
-                LOG.error(ERROR_CHANNEL_EXCEPTION, ce);
-                throw new BridgeException(ERROR_CHANNEL_EXCEPTION, ce);
+                terminationList.add(group.shutdownGracefully());
             }
+            namedGroupMap.clear();
+            proxyWorkerGroupMap.clear();
         }
-        this.bridgeChannelSet.clear();
-
-        LOG.enterMethod();
-    }
-
-    /**
-     * Helper method for returning {@link EventLoopGroup} implementation. Attempt to use more efficient epoll on Linux
-     * systems.
-     * 
-     * @param numThreads
-     *            - amount of threads to allocate for returned loop group.
-     * @return implementation of {@link EventLoopGroup}.
-     */
-    private EventLoopGroup generateEventLoopGroup(int numThreads)
-    {
-        return PlatformDependent.isWindows() ? new NioEventLoopGroup(numThreads) : new EpollEventLoopGroup(numThreads);
-    }
+        for (PlatformEventLoopGroup group : proxyBossGroupMap.values())
+        {
+            terminationList.add(group.shutdownGracefully());
+        }
+        proxyBossGroupMap.clear();
+        terminationList.add(defaultGroup.shutdownGracefully());
 
-    /**
-     * Helper method for returning subclass of {@link ServerChannel} class. Attempt to use more efficient epoll on Linux
-     * systems.
-     * 
-     * @return subclass of {@link ServerChannel} . Attempts to use epoll socket channel for higher efficiency.
-     */
-    private Class<? extends ServerChannel> generateServerChannel()
-    {
-        return PlatformDependent.isWindows() ? NioServerSocketChannel.class : EpollServerSocketChannel.class;
-    }
+        for (Future<?> termination : terminationList)
+        {
+            termination.syncUninterruptibly();
+        }
 
-    /**
-     * Helper method for returning subclass of {@link SocketChannel} class. Attempt to use more efficient epoll on Linux
-     * systems.
-     * 
-     * @return subclass of {@link SocketChannel} . Attempts to use epoll socket channel for higher efficiency.
-     */
-    private Class<? extends SocketChannel> generateClientChannel()
-    {
-        return PlatformDependent.isWindows() ? NioSocketChannel.class : EpollSocketChannel.class;
+        LOG.exitMethod();
     }
 }
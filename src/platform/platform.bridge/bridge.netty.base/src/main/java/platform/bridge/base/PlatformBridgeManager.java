@@ -6,10 +6,14 @@
 package platform.bridge.base;
 
 import game.core.util.ArgsChecker;
+import io.netty.channel.ChannelFuture;
 
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import platform.bridge.api.proxy.BridgeOptions;
@@ -30,9 +34,11 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
 {
     // Errors, messages, args.
     private static final String ERROR_PROXY_REGISTERED = "%s proxy: [%s] has already been registered.";
+    private static final String ERROR_PROXY_NOT_REGISTERED = "Proxy: [%s] has not been registered.";
     private static final String PROXY_REGISTER1 = "Service";
     private static final String PROXY_REGISTER2 = "Client";
     private static final String MSG_NEW_PROXY = "Registering new %s proxy: [%s] to host [%s].";
+    private static final String MSG_LAZY_PROXY = "Deferring connect of %s proxy: [%s] until first packet is sent.";
     private static final String ARG_SERVICE_PROXY = "serviceProxy";
     private static final String ARG_CLIENT_PROXY = "clientProxy";
     private static final String ARG_SERVICE_PORT = "servicePort";
@@ -42,6 +48,7 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
     private static final String ARG_REMOTE_HOST = "remoteHostIPv4";
     private static final String ARG_BRIDGE_OPTIONS = "bridgeOptions";
     private static final String ARG_LOCALHOST = "localhost";
+    private static final String ARG_REMOTE_ADDRESS = "remoteAddress";
 
     // Singleton instance.
     private static final PlatformBridgeManager INSTANCE = new PlatformBridgeManager();
@@ -52,6 +59,9 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
     // Guard the proxySet.
     private ReentrantReadWriteLock rwLock;
 
+    // Pipeline templates of registered client proxies, reused on every (re)connect.
+    private ConcurrentMap<String, PlatformPipelineInitializer> clientInitializerMap;
+
     /**
      * Singleton instance getter.
      * 
@@ -70,6 +80,7 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
         super();
         proxySet = new HashSet<String>();
         rwLock = new ReentrantReadWriteLock();
+        clientInitializerMap = new ConcurrentHashMap<String, PlatformPipelineInitializer>();
     }
 
     /**
@@ -150,7 +161,8 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
             ARG_LOCALHOST.concat(":").concat(Integer.toString(servicePort))));
 
         // Attempt to create the whole service stack and bind the service end-point.
-        servicePort = provideServiceBridge(servicePort, new PlatformPipelineInitializer(serviceProxy), bridgeOptions);
+        servicePort = provideServiceBridge(servicePort, new PlatformPipelineInitializer(serviceProxy, bridgeOptions),
+            bridgeOptions);
 
         try
         {
@@ -180,7 +192,8 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
      * @param bridgeOptions
      *            - an instance of {@link BridgeOptions} to provide additional bridge related options.
      * @return - a local client channel network port. Represents an actual port of the client socket that has
-     *         established a connection with a remote host. Usually usage of this port is redundant.
+     *         established a connection with a remote host. Usually usage of this port is redundant. Null if connect
+     *         has been deferred with {@link BridgeOptions#KEY_LAZY_CONNECT}.
      * @throws BridgeException
      *             - throw {@link BridgeException} on client proxy registration or connection error.
      */
@@ -213,9 +226,21 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
         LOG.info(String.format(MSG_NEW_PROXY, PROXY_REGISTER2, clientProxy.getName(),
             remoteHostIPv4.concat(":").concat(Integer.toString(remoteHostPort))));
 
-        // Attempt to create the whole client stack and connect with remote host end-point.
-        int clientLocalPort = provideClientBridge(new InetSocketAddress(remoteHostIPv4, remoteHostPort),
-            new PlatformPipelineInitializer(clientProxy), bridgeOptions);
+        // Attempt to create the whole client stack and connect with remote host end-point unless connect has been
+        // deferred until first use.
+        Integer clientLocalPort = null;
+        PlatformPipelineInitializer pipelineInitializer = new PlatformPipelineInitializer(clientProxy, bridgeOptions);
+        if (bridgeOptions.get(BridgeOptions.KEY_LAZY_CONNECT) != null
+            && (Boolean) bridgeOptions.get(BridgeOptions.KEY_LAZY_CONNECT).get())
+        {
+            LOG.info(String.format(MSG_LAZY_PROXY, PROXY_REGISTER2, clientProxy.getName()));
+        }
+        else
+        {
+            clientLocalPort = provideClientBridge(new InetSocketAddress(remoteHostIPv4, remoteHostPort),
+                pipelineInitializer, bridgeOptions);
+        }
+        clientInitializerMap.put(clientProxy.getName(), pipelineInitializer);
 
         try
         {
@@ -233,7 +258,50 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
     }
 
     /**
-     * Unregister a proxy.
+     * Asynchronously (re)connect an already registered client proxy with its remote host. Used by client proxies to
+     * re-establish a lost connection without blocking the calling I/O thread.
+     * 
+     * @param clientProxy
+     *            - a registered {@link AbstractNettyBridgeAdapter} client proxy.
+     * @param remoteAddress
+     *            - a {@link SocketAddress} of remote host to connect to.
+     * @return - a {@link ChannelFuture} connect future.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if proxy has not been registered.
+     */
+    public ChannelFuture connectProxy(AbstractNettyBridgeAdapter clientProxy, SocketAddress remoteAddress)
+        throws BridgeException
+    {
+        ArgsChecker.errorOnNull(clientProxy, ARG_CLIENT_PROXY);
+        ArgsChecker.errorOnNull(remoteAddress, ARG_REMOTE_ADDRESS);
+
+        boolean contains = false;
+        try
+        {
+            rwLock.readLock().lock();
+            contains = proxySet.contains(clientProxy.getName());
+        }
+        finally
+        {
+            rwLock.readLock().unlock();
+        }
+
+        if (!contains)
+        {
+            LOG.error(String.format(ERROR_PROXY_NOT_REGISTERED, clientProxy));
+            throw new BridgeException(String.format(ERROR_PROXY_NOT_REGISTERED, clientProxy));
+        }
+
+        PlatformPipelineInitializer pipelineInitializer = clientInitializerMap.get(clientProxy.getName());
+        if (pipelineInitializer == null)
+        {
+            pipelineInitializer = new PlatformPipelineInitializer(clientProxy);
+        }
+        return connectClientBridge(remoteAddress, pipelineInitializer, clientProxy.getBridgeOptions());
+    }
+
+    /**
+     * Unregister a proxy. All channels created for the proxy are closed.
      * 
      * @param proxy
      *            - a {@link AbstractNettyBridgeAdapter} proxy to unregister.
@@ -252,5 +320,7 @@ public final class PlatformBridgeManager extends AbstractBridgeProvider
         {
             rwLock.writeLock().unlock();
         }
+        clientInitializerMap.remove(proxy.getName());
+        releaseBridge(proxy.getName());
     }
 }
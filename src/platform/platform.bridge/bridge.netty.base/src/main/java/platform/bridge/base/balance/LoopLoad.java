@@ -0,0 +1,87 @@
+/**
+ * @file LoopLoad.java
+ * @brief Snapshot of load of a service worker loop as seen by the loop rebalancer.
+ */
+
+package platform.bridge.base.balance;
+
+/**
+ * Snapshot of load of a service worker loop as seen by the loop rebalancer. Utilisation is the share of wall time loop
+ * thread spent on CPU during the last rebalance interval, and covers all proxies sharing the loop. Channel count and
+ * read rate cover clients of the balanced service only.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class LoopLoad
+{
+    // Name of loop thread.
+    private final String threadName;
+
+    // Loop utilisation.
+    private final double utilisation;
+
+    // Number of service client channels on the loop.
+    private final int channelCount;
+
+    // Number of pinned service client channels on the loop.
+    private final int pinnedCount;
+
+    // Packets read per second from service clients on the loop.
+    private final double readsPerSecond;
+
+    /**
+     * Ctor.
+     * 
+     * @param threadName
+     *            - a {@link String} name of loop thread.
+     * @param utilisation
+     *            - loop utilisation.
+     * @param channelCount
+     *            - number of service client channels on the loop.
+     * @param pinnedCount
+     *            - number of pinned service client channels on the loop.
+     * @param readsPerSecond
+     *            - packets read per second from service clients on the loop.
+     */
+    public LoopLoad(String threadName, double utilisation, int channelCount, int pinnedCount, double readsPerSecond)
+    {
+        this.threadName = threadName;
+        this.utilisation = utilisation;
+        this.channelCount = channelCount;
+        this.pinnedCount = pinnedCount;
+        this.readsPerSecond = readsPerSecond;
+    }
+
+    public String getThreadName()
+    {
+        return threadName;
+    }
+
+    public double getUtilisation()
+    {
+        return utilisation;
+    }
+
+    public int getChannelCount()
+    {
+        return channelCount;
+    }
+
+    public int getPinnedCount()
+    {
+        return pinnedCount;
+    }
+
+    public double getReadsPerSecond()
+    {
+        return readsPerSecond;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("LoopLoad[thread=%s, utilisation=%.3f, channels=%d, pinned=%d, readsPerSecond=%.1f]",
+            threadName, utilisation, channelCount, pinnedCount, readsPerSecond);
+    }
+}
@@ -0,0 +1,505 @@
+/**
+ * @file LoopRebalancer.java
+ * @brief Loop rebalancer migrates hot client channels of a service proxy from busy worker loops to idle ones.
+ */
+
+package platform.bridge.base.balance;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.PlatformBridgeManager;
+import platform.bridge.base.loop.PlatformEventLoopGroup;
+import platform.bridge.base.proxy.service.ClientActivity;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+
+/**
+ * Loop rebalancer migrates hot client channels of a service proxy from busy worker loops to idle ones. Each run
+ * measures CPU time of every worker loop thread and packets read from every client since the previous run. While the
+ * busiest loop is above the high watermark and the idlest loop is below the low watermark, the hottest client whose
+ * estimated share of source loop time is smaller than the gap between the two loops is moved with
+ * {@link NettyServiceProxy#migrateClient(String, EventLoop)}. Share of a client is estimated from its part of source
+ * loop reads. The gap between watermarks, the share check, a per client cooldown and a cap on migrations per run
+ * prevent channels from flapping between loops. Pinned clients, e.g. room members, are never moved.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class LoopRebalancer
+{
+    // Errors, args, messages.
+    private static final String ARG_SERVICE_PROXY = "serviceProxy";
+    private static final String ARG_COOLDOWN = "cooldownMs";
+    private static final String ARG_MAX_MIGRATIONS = "maxMigrations";
+    private static final String ARG_INTERVAL = "intervalMs";
+    private static final String ERROR_WATERMARKS = "Low watermark: [%s] must be below high watermark: [%s].";
+    private static final String ERROR_REBALANCE = "Rebalancing loops of service: [%s] failed.";
+    private static final String WARN_MIGRATE = "Cannot migrate client: [%s] of service: [%s].";
+    private static final String MSG_MIGRATE = "Migrating client: [%s] of service: [%s] from: [%s] to: [%s].";
+
+    // Default rebalance values.
+    private static final double DEFAULT_HIGH_WATERMARK = 0.75;
+    private static final double DEFAULT_LOW_WATERMARK = 0.5;
+    private static final int DEFAULT_COOLDOWN_MS = 5000;
+    private static final int DEFAULT_MAX_MIGRATIONS = 4;
+
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(LoopRebalancer.class);
+
+    // Balanced service proxy.
+    private final NettyServiceProxy serviceProxy;
+
+    // Utilisation a loop must exceed to give away clients and utilisation a loop must stay under to receive them.
+    private final double highWatermark;
+    private final double lowWatermark;
+
+    // Minimum time between two migrations of a client in nanoseconds.
+    private final long cooldownNanos;
+
+    // Maximum number of migrations per run.
+    private final int maxMigrations;
+
+    // Number of completed migrations.
+    private final AtomicLong migrationCount;
+
+    // State of the previous run, guarded by this.
+    private final Map<EventExecutor, Long> lastCpuTimeMap;
+    private Map<String, Long> lastReadCountMap;
+    private long lastRunNanos;
+
+    // Load of service worker loops as of the last run.
+    private volatile Map<EventLoop, LoopLoad> loopLoadMap;
+
+    // Periodic run or null if not started.
+    private ScheduledFuture<?> scheduledFuture;
+
+    /**
+     * Ctor.
+     * 
+     * @param serviceProxy
+     *            - a {@link NettyServiceProxy} to balance.
+     * @param highWatermark
+     *            - utilisation above which a loop gives away clients.
+     * @param lowWatermark
+     *            - utilisation below which a loop receives clients, must be below high watermark.
+     * @param cooldownMs
+     *            - minimum time between two migrations of a client in milliseconds.
+     * @param maxMigrations
+     *            - maximum number of migrations per run.
+     */
+    public LoopRebalancer(NettyServiceProxy serviceProxy, double highWatermark, double lowWatermark, long cooldownMs,
+        int maxMigrations)
+    {
+        ArgsChecker.errorOnNull(serviceProxy, ARG_SERVICE_PROXY);
+        ArgsChecker.errorOnLessThan0(cooldownMs, ARG_COOLDOWN);
+        ArgsChecker.errorOnLessThan0(maxMigrations, ARG_MAX_MIGRATIONS);
+        if (lowWatermark < 0 || lowWatermark >= highWatermark)
+        {
+            LOG.error(String.format(ERROR_WATERMARKS, lowWatermark, highWatermark));
+            throw new IllegalArgumentException(String.format(ERROR_WATERMARKS, lowWatermark, highWatermark));
+        }
+
+        this.serviceProxy = serviceProxy;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMs);
+        this.maxMigrations = maxMigrations;
+        this.migrationCount = new AtomicLong();
+        this.lastCpuTimeMap = new HashMap<EventExecutor, Long>();
+        this.lastReadCountMap = new HashMap<String, Long>();
+        this.loopLoadMap = Collections.emptyMap();
+
+        // Loop load is measured with loop thread CPU time.
+        PlatformEventLoopGroup.enableCpuTime();
+    }
+
+    /**
+     * Create a loop rebalancer from bridge options if rebalancing has been enabled.
+     * 
+     * @param serviceProxy
+     *            - a {@link NettyServiceProxy} to balance.
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} service bridge options.
+     * @return - a new {@link LoopRebalancer} or null if {@link BridgeOptions#KEY_REBALANCE_INTERVAL_MS} is not set.
+     */
+    public static LoopRebalancer fromBridgeOptions(NettyServiceProxy serviceProxy, BridgeOptions bridgeOptions)
+    {
+        if (getIntervalMs(bridgeOptions) <= 0)
+        {
+            return null;
+        }
+
+        double highWatermark = bridgeOptions.get(BridgeOptions.KEY_REBALANCE_HIGH_WATERMARK) != null ? (Double) bridgeOptions
+            .get(BridgeOptions.KEY_REBALANCE_HIGH_WATERMARK).get() : DEFAULT_HIGH_WATERMARK;
+        double lowWatermark = bridgeOptions.get(BridgeOptions.KEY_REBALANCE_LOW_WATERMARK) != null ? (Double) bridgeOptions
+            .get(BridgeOptions.KEY_REBALANCE_LOW_WATERMARK).get() : DEFAULT_LOW_WATERMARK;
+        int cooldownMs = bridgeOptions.get(BridgeOptions.KEY_REBALANCE_COOLDOWN_MS) != null ? (Integer) bridgeOptions
+            .get(BridgeOptions.KEY_REBALANCE_COOLDOWN_MS).get() : DEFAULT_COOLDOWN_MS;
+        int maxMigrations = bridgeOptions.get(BridgeOptions.KEY_REBALANCE_MAX_MIGRATIONS) != null ? (Integer) bridgeOptions
+            .get(BridgeOptions.KEY_REBALANCE_MAX_MIGRATIONS).get() : DEFAULT_MAX_MIGRATIONS;
+
+        return new LoopRebalancer(serviceProxy, highWatermark, lowWatermark, cooldownMs, maxMigrations);
+    }
+
+    /**
+     * Retrieve rebalance interval from bridge options.
+     * 
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} service bridge options.
+     * @return - rebalance interval in milliseconds or 0 if rebalancing has not been enabled.
+     */
+    public static int getIntervalMs(BridgeOptions bridgeOptions)
+    {
+        return bridgeOptions.get(BridgeOptions.KEY_REBALANCE_INTERVAL_MS) != null ? (Integer) bridgeOptions.get(
+            BridgeOptions.KEY_REBALANCE_INTERVAL_MS).get() : 0;
+    }
+
+    /**
+     * Start running the rebalancer periodically on the global executor, off the balanced loops.
+     * 
+     * @param intervalMs
+     *            - interval between runs in milliseconds.
+     */
+    public synchronized void start(long intervalMs)
+    {
+        ArgsChecker.errorOnLessThan0(intervalMs, ARG_INTERVAL);
+        if (scheduledFuture != null)
+        {
+            return;
+        }
+
+        rebalance();
+        scheduledFuture = GlobalEventExecutor.INSTANCE.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    rebalance();
+                }
+                catch (RuntimeException re)
+                {
+                    LOG.error(String.format(ERROR_REBALANCE, serviceProxy.getName()), re);
+                }
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop periodic runs.
+     */
+    public synchronized void stop()
+    {
+        if (scheduledFuture != null)
+        {
+            scheduledFuture.cancel(false);
+            scheduledFuture = null;
+        }
+    }
+
+    /**
+     * Measure loop load since the previous run and start migrations of hot clients. The first run only takes the
+     * baseline measurement.
+     * 
+     * @return - number of migrations started.
+     */
+    public synchronized int rebalance()
+    {
+        PlatformEventLoopGroup group = PlatformBridgeManager.getInstance().getProxyWorkerGroup(serviceProxy.getName());
+        if (group == null)
+        {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        long wallNanos = lastRunNanos != 0 ? now - lastRunNanos : 0;
+        lastRunNanos = now;
+
+        // Utilisation of each loop since the previous run.
+        Map<EventLoop, LoopState> loopStateMap = new LinkedHashMap<EventLoop, LoopState>();
+        for (EventExecutor loop : group.getEventLoopGroup())
+        {
+            long cpuNanos = group.getLoopCpuTimeNanos(loop);
+            Long lastCpuNanos = lastCpuTimeMap.put(loop, cpuNanos);
+
+            double utilisation = 0;
+            if (cpuNanos >= 0 && lastCpuNanos != null && lastCpuNanos >= 0 && wallNanos > 0)
+            {
+                utilisation = Math.min(1.0, (cpuNanos - lastCpuNanos) / (double) wallNanos);
+            }
+            Thread thread = group.getLoopThread(loop);
+            loopStateMap.put((EventLoop) loop, new LoopState(thread != null ? thread.getName() : null, utilisation));
+        }
+
+        // Reads of each client since the previous run, clients that disconnected drop out of the read count map.
+        Map<String, Long> readCountMap = new HashMap<String, Long>();
+        for (ClientActivity activity : serviceProxy.getClientActivity())
+        {
+            LoopState loopState = loopStateMap.get(activity.getEventLoop());
+            if (loopState != null)
+            {
+                long readCount = activity.getReadCount();
+                Long lastReadCount = lastReadCountMap.get(activity.getSenderIdentifier());
+                readCountMap.put(activity.getSenderIdentifier(), readCount);
+                loopState.add(activity, lastReadCount != null ? readCount - lastReadCount : readCount);
+            }
+        }
+        lastReadCountMap = readCountMap;
+
+        Map<EventLoop, LoopLoad> loadMap = new LinkedHashMap<EventLoop, LoopLoad>();
+        for (Map.Entry<EventLoop, LoopState> entry : loopStateMap.entrySet())
+        {
+            loadMap.put(entry.getKey(), entry.getValue().toLoopLoad(wallNanos));
+        }
+        loopLoadMap = Collections.unmodifiableMap(loadMap);
+
+        return wallNanos > 0 ? migrate(loopStateMap, now) : 0;
+    }
+
+    /**
+     * Move hot clients from the busiest to the idlest loop while loops are outside watermarks.
+     * 
+     * @param loopStateMap
+     *            - a {@link Map} of measured loop state.
+     * @param now
+     *            - current time in nanoseconds.
+     * @return - number of migrations started.
+     */
+    private int migrate(Map<EventLoop, LoopState> loopStateMap, long now)
+    {
+        int migrations = 0;
+        while (migrations < maxMigrations)
+        {
+            EventLoop sourceLoop = null;
+            EventLoop targetLoop = null;
+            for (Map.Entry<EventLoop, LoopState> entry : loopStateMap.entrySet())
+            {
+                if (sourceLoop == null || entry.getValue().utilisation > loopStateMap.get(sourceLoop).utilisation)
+                {
+                    sourceLoop = entry.getKey();
+                }
+                if (targetLoop == null || entry.getValue().utilisation < loopStateMap.get(targetLoop).utilisation)
+                {
+                    targetLoop = entry.getKey();
+                }
+            }
+
+            if (sourceLoop == null || sourceLoop == targetLoop)
+            {
+                break;
+            }
+            LoopState source = loopStateMap.get(sourceLoop);
+            LoopState target = loopStateMap.get(targetLoop);
+            if (source.utilisation < highWatermark || target.utilisation > lowWatermark || source.readCount <= 0)
+            {
+                break;
+            }
+
+            ClientLoad candidate = source.findCandidate(source.utilisation - target.utilisation, now);
+            if (candidate == null)
+            {
+                break;
+            }
+
+            // Account the move right away, so further candidates of this run see estimated load.
+            double share = source.utilisation * candidate.readCount / source.readCount;
+            source.remove(candidate, share);
+            target.add(candidate, share);
+
+            migrate(candidate.activity, sourceLoop, targetLoop);
+            migrations++;
+        }
+        return migrations;
+    }
+
+    /**
+     * Start migration of a client to a target loop.
+     * 
+     * @param activity
+     *            - a {@link ClientActivity} of the client.
+     * @param sourceLoop
+     *            - an {@link EventLoop} client is currently registered with.
+     * @param targetLoop
+     *            - an {@link EventLoop} to move the client to.
+     */
+    private void migrate(final ClientActivity activity, EventLoop sourceLoop, EventLoop targetLoop)
+    {
+        LOG.debug(String.format(MSG_MIGRATE, activity.getSenderIdentifier(), serviceProxy.getName(), sourceLoop,
+            targetLoop));
+        serviceProxy.migrateClient(activity.getSenderIdentifier(), targetLoop).addListener(new FutureListener<Void>() {
+            @Override
+            public void operationComplete(Future<Void> future) throws Exception
+            {
+                if (future.isSuccess())
+                {
+                    migrationCount.incrementAndGet();
+                }
+                else
+                {
+                    // Client may have disconnected since it was measured.
+                    LOG.warn(String.format(WARN_MIGRATE, activity.getSenderIdentifier(), serviceProxy.getName()),
+                        future.cause());
+                }
+            }
+        });
+    }
+
+    /**
+     * Retrieve number of completed migrations.
+     * 
+     * @return - number of clients moved to another loop so far.
+     */
+    public long getMigrationCount()
+    {
+        return migrationCount.get();
+    }
+
+    /**
+     * Retrieve load of service worker loops as of the last run.
+     * 
+     * @return - an unmodifiable {@link Map} of {@link LoopLoad} per worker {@link EventLoop}, empty before first run.
+     */
+    public Map<EventLoop, LoopLoad> getLoopLoad()
+    {
+        return loopLoadMap;
+    }
+
+    /**
+     * Retrieve utilisation a loop must exceed to give away clients.
+     * 
+     * @return - high watermark as a share of wall time the loop thread spent on CPU.
+     */
+    public double getHighWatermark()
+    {
+        return highWatermark;
+    }
+
+    /**
+     * Retrieve utilisation a loop must stay under to receive clients.
+     * 
+     * @return - low watermark as a share of wall time the loop thread spent on CPU.
+     */
+    public double getLowWatermark()
+    {
+        return lowWatermark;
+    }
+
+    /**
+     * Reads of a client since the previous run.
+     */
+    private static final class ClientLoad
+    {
+        private final ClientActivity activity;
+        private final long readCount;
+
+        private ClientLoad(ClientActivity activity, long readCount)
+        {
+            this.activity = activity;
+            this.readCount = readCount;
+        }
+    }
+
+    /**
+     * Measured and estimated state of a loop during a run.
+     */
+    private final class LoopState
+    {
+        private final String threadName;
+        private final List<ClientLoad> clientLoadList;
+        private double utilisation;
+        private long readCount;
+        private int pinnedCount;
+
+        private LoopState(String threadName, double utilisation)
+        {
+            this.threadName = threadName;
+            this.utilisation = utilisation;
+            this.clientLoadList = new ArrayList<ClientLoad>();
+        }
+
+        private void add(ClientActivity activity, long clientReadCount)
+        {
+            clientLoadList.add(new ClientLoad(activity, clientReadCount));
+            readCount += clientReadCount;
+            if (activity.isPinned())
+            {
+                pinnedCount++;
+            }
+        }
+
+        private void add(ClientLoad clientLoad, double share)
+        {
+            clientLoadList.add(clientLoad);
+            readCount += clientLoad.readCount;
+            utilisation += share;
+        }
+
+        private void remove(ClientLoad clientLoad, double share)
+        {
+            clientLoadList.remove(clientLoad);
+            readCount -= clientLoad.readCount;
+            utilisation -= share;
+        }
+
+        /**
+         * Find the hottest movable client whose estimated share is smaller than given gap, so moving it narrows the
+         * gap instead of moving the hot spot.
+         */
+        private ClientLoad findCandidate(double gap, long now)
+        {
+            Collections.sort(clientLoadList, new Comparator<ClientLoad>() {
+                @Override
+                public int compare(ClientLoad first, ClientLoad second)
+                {
+                    return Long.compare(second.readCount, first.readCount);
+                }
+            });
+
+            Iterator<ClientLoad> it = clientLoadList.iterator();
+            while (it.hasNext())
+            {
+                ClientLoad clientLoad = it.next();
+                ClientActivity activity = clientLoad.activity;
+                if (clientLoad.readCount <= 0)
+                {
+                    break;
+                }
+                long lastMigrationNanos = activity.getLastMigrationNanos();
+                if (activity.isPinned() || (lastMigrationNanos != 0 && now - lastMigrationNanos < cooldownNanos))
+                {
+                    continue;
+                }
+                if (utilisation * clientLoad.readCount / readCount < gap)
+                {
+                    return clientLoad;
+                }
+            }
+            return null;
+        }
+
+        private LoopLoad toLoopLoad(long wallNanos)
+        {
+            return new LoopLoad(threadName, utilisation, clientLoadList.size(), pinnedCount,
+                wallNanos > 0 ? readCount * (double) TimeUnit.SECONDS.toNanos(1) / wallNanos : 0);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/**
+ * @file CreditGate.java
+ * @brief Credit gate limits packets a client proxy sends to the credits granted by the receiving service.
+ */
+
+package platform.bridge.base.flow;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.EFlowControlPolicy;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Credit gate limits packets a client proxy sends to the credits granted by the receiving service. Each sent packet
+ * consumes a credit and service grants credits back once its response listener processed packets, so a fast sender
+ * cannot overrun the inbound queue of a slow receiver even though TCP itself would accept the data. A connection
+ * starts with the full credit window. Once credits run out {@link EFlowControlPolicy} of the gate applies. Credits,
+ * stalls and time spent stalled are exposed for monitoring. Gate is thread safe.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class CreditGate
+{
+    // Errors, args, messages.
+    private static final String ERROR_WINDOW = "Flow control credit window must be at least 1, got: [%d].";
+    private static final String ARG_POLICY = "policy";
+    private static final String ARG_TIMEOUT_MS = "timeoutMs";
+    private static final String ARG_QUEUE_SIZE = "queueSize";
+    private static final String ERROR_NO_CREDITS = "Cannot send a message to remote service as no flow control credits are left.";
+    private static final String ERROR_CREDIT_TIMEOUT = "Cannot send a message to remote service as no flow control credits have been granted within: [%d] ms.";
+    private static final String ERROR_BLOCK_ON_LOOP = "Cannot wait for flow control credits on the I/O event loop.";
+    private static final String ERROR_QUEUE_FULL = "Cannot queue a message for remote service as flow control queue is full.";
+    private static final String ERROR_CLOSED = "Cannot send a message to remote service as flow control gate has been closed.";
+
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(CreditGate.class);
+
+    // Default flow control options.
+    public static final EFlowControlPolicy DEFAULT_POLICY = EFlowControlPolicy.BLOCK;
+    public static final int DEFAULT_TIMEOUT_MS = 5000;
+
+    // Credit window of a connection.
+    private final int window;
+
+    // Applied policy.
+    private final EFlowControlPolicy policy;
+
+    // Maximum time to wait for credits in milliseconds.
+    private final long timeoutMs;
+
+    // Maximum number of queued packets.
+    private final int queueSize;
+
+    // Sends waiting for credits, guarded by gate lock.
+    private final Queue<PendingSend> queue;
+
+    // Time the queue became non empty, guarded by gate lock.
+    private long queueStallStart;
+
+    // Credits left, guarded by gate lock. May fall below 0 while packets buffered during reconnect are drained.
+    private int credits;
+
+    // A flag determining whether gate has been closed, guarded by gate lock.
+    private boolean closed;
+
+    // Stalls, time spent stalled, failed sends and received grants.
+    private final LongAdder stalls;
+    private final LongAdder stallNanos;
+    private final LongAdder failed;
+    private final LongAdder granted;
+
+    /**
+     * Ctor.
+     * 
+     * @param window
+     *            - number of packets a connection may send before service grants more.
+     * @param policy
+     *            - an {@link EFlowControlPolicy} to apply once credits run out.
+     * @param timeoutMs
+     *            - maximum time to wait for credits in milliseconds with {@link EFlowControlPolicy#BLOCK}.
+     * @param queueSize
+     *            - maximum number of packets queued with {@link EFlowControlPolicy#QUEUE}.
+     */
+    public CreditGate(int window, EFlowControlPolicy policy, long timeoutMs, int queueSize)
+    {
+        if (window < 1)
+        {
+            String msg = String.format(ERROR_WINDOW, window);
+            LOG.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        ArgsChecker.errorOnNull(policy, ARG_POLICY);
+        ArgsChecker.errorOnLessThan0(timeoutMs, ARG_TIMEOUT_MS);
+        ArgsChecker.errorOnLessThan0(queueSize, ARG_QUEUE_SIZE);
+
+        this.window = window;
+        this.policy = policy;
+        this.timeoutMs = timeoutMs;
+        this.queueSize = queueSize;
+        this.queue = new ArrayDeque<PendingSend>();
+        this.credits = window;
+        this.stalls = new LongAdder();
+        this.stallNanos = new LongAdder();
+        this.failed = new LongAdder();
+        this.granted = new LongAdder();
+    }
+
+    /**
+     * Create a credit gate from client bridge options if flow control has been enabled. Packets are queued up to the
+     * send buffer size or, if none has been configured, up to the credit window.
+     * 
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} client bridge options.
+     * @return - a new {@link CreditGate} or null if flow control has not been enabled.
+     */
+    public static CreditGate fromBridgeOptions(BridgeOptions bridgeOptions)
+    {
+        if (bridgeOptions.get(BridgeOptions.KEY_FLOW_CONTROL_CREDITS) == null)
+        {
+            return null;
+        }
+
+        int window = (Integer) bridgeOptions.get(BridgeOptions.KEY_FLOW_CONTROL_CREDITS).get();
+        EFlowControlPolicy policy = bridgeOptions.get(BridgeOptions.KEY_FLOW_CONTROL_POLICY) != null
+            ? (EFlowControlPolicy) bridgeOptions.get(BridgeOptions.KEY_FLOW_CONTROL_POLICY).get() : DEFAULT_POLICY;
+        int timeoutMs = bridgeOptions.get(BridgeOptions.KEY_FLOW_CONTROL_TIMEOUT_MS) != null ? (Integer) bridgeOptions
+            .get(BridgeOptions.KEY_FLOW_CONTROL_TIMEOUT_MS).get() : DEFAULT_TIMEOUT_MS;
+        int queueSize = bridgeOptions.get(BridgeOptions.KEY_SEND_BUFFER_SIZE) != null ? (Integer) bridgeOptions.get(
+            BridgeOptions.KEY_SEND_BUFFER_SIZE).get() : window;
+
+        return new CreditGate(window, policy, timeoutMs, queueSize);
+    }
+
+    /**
+     * Acquire a credit for a fire-and-forget packet about to be sent. If no credits are left, policy of the gate
+     * applies.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} about to be sent.
+     * @param mayBlock
+     *            - false if caller runs on the I/O event loop and must not wait for credits.
+     * @return - true if packet should be sent right away, false if it has been queued.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if packet can be neither sent nor queued.
+     */
+    public boolean acquire(AbstractPacket packet, boolean mayBlock) throws BridgeException
+    {
+        return acquire(packet, null, mayBlock);
+    }
+
+    /**
+     * Acquire a credit for a packet about to be sent. If no credits are left, policy of the gate applies. A queued
+     * packet is queued together with its completion and both are released by a later grant.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} about to be sent.
+     * @param completion
+     *            - a {@link CompletableFuture} of the send or null for a fire-and-forget send.
+     * @param mayBlock
+     *            - false if caller runs on the I/O event loop and must not wait for credits.
+     * @return - true if packet should be sent right away, false if it has been queued.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if packet can be neither sent nor queued.
+     */
+    public synchronized boolean acquire(AbstractPacket packet, CompletableFuture<Void> completion, boolean mayBlock)
+        throws BridgeException
+    {
+        if (closed)
+        {
+            throw new BridgeException(ERROR_CLOSED);
+        }
+        if (credits > 0 && queue.isEmpty())
+        {
+            credits--;
+            return true;
+        }
+
+        if (policy == EFlowControlPolicy.QUEUE)
+        {
+            if (queue.size() >= queueSize)
+            {
+                failed.increment();
+                throw new BridgeException(ERROR_QUEUE_FULL);
+            }
+            if (queue.isEmpty())
+            {
+                stalls.increment();
+                queueStallStart = System.nanoTime();
+            }
+            queue.add(new PendingSend(packet, completion));
+            return false;
+        }
+
+        if (policy == EFlowControlPolicy.FAIL || !mayBlock)
+        {
+            failed.increment();
+            throw new BridgeException(policy == EFlowControlPolicy.FAIL ? ERROR_NO_CREDITS : ERROR_BLOCK_ON_LOOP);
+        }
+
+        stalls.increment();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try
+        {
+            while (credits <= 0 && !closed)
+            {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0)
+                {
+                    failed.increment();
+                    throw new BridgeException(String.format(ERROR_CREDIT_TIMEOUT, timeoutMs));
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            }
+        }
+        catch (InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            failed.increment();
+            throw new BridgeException(String.format(ERROR_CREDIT_TIMEOUT, timeoutMs), ie);
+        }
+        finally
+        {
+            stallNanos.add(System.nanoTime() - start);
+        }
+
+        if (closed)
+        {
+            throw new BridgeException(ERROR_CLOSED);
+        }
+        credits--;
+        return true;
+    }
+
+    /**
+     * Consume a credit regardless of credits left, e.g. for a packet buffered during reconnect.
+     */
+    public synchronized void consume()
+    {
+        credits--;
+    }
+
+    /**
+     * Add credits granted by the service and release waiting senders.
+     * 
+     * @param grantedCredits
+     *            - number of granted credits.
+     * @return - a {@link List} of queued {@link PendingSend}s that may now be sent, in order they have been queued.
+     */
+    public synchronized List<PendingSend> grant(int grantedCredits)
+    {
+        granted.add(grantedCredits);
+        credits += grantedCredits;
+        notifyAll();
+        return drain();
+    }
+
+    /**
+     * Restore full credit window for a new connection. Credits in flight on a previous connection are lost with it.
+     * 
+     * @return - a {@link List} of queued {@link PendingSend}s that may now be sent, in order they have been queued.
+     */
+    public synchronized List<PendingSend> reset()
+    {
+        credits = window;
+        notifyAll();
+        return drain();
+    }
+
+    /**
+     * Close the gate, discarding queued packets and failing waiting and further sends.
+     * 
+     * @return - a {@link List} of discarded {@link PendingSend}s, so that their completions can be failed.
+     */
+    public synchronized List<PendingSend> close()
+    {
+        closed = true;
+        List<PendingSend> discarded = new ArrayList<PendingSend>(queue);
+        queue.clear();
+        notifyAll();
+        return discarded;
+    }
+
+    /**
+     * Take queued sends covered by credits. Caller must hold gate lock.
+     * 
+     * @return - a {@link List} of {@link PendingSend}s to send.
+     */
+    private List<PendingSend> drain()
+    {
+        if (queue.isEmpty() || credits <= 0)
+        {
+            return Collections.emptyList();
+        }
+        List<PendingSend> sends = new ArrayList<PendingSend>(Math.min(credits, queue.size()));
+        while (credits > 0 && !queue.isEmpty())
+        {
+            sends.add(queue.poll());
+            credits--;
+        }
+        if (queue.isEmpty())
+        {
+            stallNanos.add(System.nanoTime() - queueStallStart);
+        }
+        return sends;
+    }
+
+    public int getWindow()
+    {
+        return window;
+    }
+
+    public EFlowControlPolicy getPolicy()
+    {
+        return policy;
+    }
+
+    public synchronized int getCredits()
+    {
+        return credits;
+    }
+
+    public synchronized int getQueued()
+    {
+        return queue.size();
+    }
+
+    public long getStalls()
+    {
+        return stalls.sum();
+    }
+
+    public long getStallNanos()
+    {
+        return stallNanos.sum();
+    }
+
+    public long getFailed()
+    {
+        return failed.sum();
+    }
+
+    public long getGranted()
+    {
+        return granted.sum();
+    }
+}
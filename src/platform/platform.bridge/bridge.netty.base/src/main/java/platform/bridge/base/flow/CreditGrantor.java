@@ -0,0 +1,229 @@
+/**
+ * @file CreditGrantor.java
+ * @brief Credit grantor grants flow control credits to senders of a service as its response listener processes packets.
+ */
+
+package platform.bridge.base.flow;
+
+import io.netty.channel.Channel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.protocol.CreditPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.IBatchResponseListener;
+import platform.bridge.api.proxy.IResponseListener;
+
+/**
+ * Credit grantor grants flow control credits to senders of a service as its response listener processes packets. It
+ * wraps the response listener, so a packet counts as processed once the listener returned from it, whether the listener
+ * runs on the I/O event loop, on an inbound executor or drains a ring buffer. Credits are granted to a session in
+ * batches of half the credit window with a {@link CreditPacket}, so a sender never runs out of credits while its
+ * packets have all been processed. Packets of a read cycle are passed on to an {@link IBatchResponseListener} and
+ * counted as a whole, or delivered packet by packet to other listeners. Grantor is thread safe.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class CreditGrantor implements IBatchResponseListener
+{
+    // Wrapped response listener.
+    private final IResponseListener responseListener;
+
+    // Number of processed packets granted at once.
+    private final int batch;
+
+    // Granting sessions by sender identifier.
+    private final Map<String, Session> sessionMap;
+
+    // Granted credits.
+    private final LongAdder granted;
+
+    /**
+     * Ctor.
+     * 
+     * @param responseListener
+     *            - an {@link IResponseListener} to wrap.
+     * @param window
+     *            - credit window of senders.
+     */
+    public CreditGrantor(IResponseListener responseListener, int window)
+    {
+        this.responseListener = responseListener;
+        this.batch = Math.max(1, window / 2);
+        this.sessionMap = new ConcurrentHashMap<String, Session>();
+        this.granted = new LongAdder();
+    }
+
+    /**
+     * Create a credit grantor from service bridge options if flow control has been enabled.
+     * 
+     * @param responseListener
+     *            - an {@link IResponseListener} of the proxy.
+     * @return - a new {@link CreditGrantor} or null if proxy is not a service or flow control has not been enabled.
+     */
+    public static CreditGrantor fromBridgeOptions(IResponseListener responseListener)
+    {
+        BridgeOptions bridgeOptions = responseListener.getBridgeOptions();
+        if (bridgeOptions.get(BridgeOptions.KEY_FLOW_CONTROL_CREDITS) == null
+            || bridgeOptions.get(BridgeOptions.KEY_IS_SERVER) == null
+            || !(Boolean) bridgeOptions.get(BridgeOptions.KEY_IS_SERVER).get())
+        {
+            return null;
+        }
+        return new CreditGrantor(responseListener, (Integer) bridgeOptions.get(BridgeOptions.KEY_FLOW_CONTROL_CREDITS)
+            .get());
+    }
+
+    /**
+     * Start granting credits to a session if not already granting. Called from the session I/O event loop for every
+     * received packet.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} session identifier.
+     * @param channel
+     *            - a session {@link Channel} to send credits on.
+     */
+    public void track(String senderIdentifier, Channel channel)
+    {
+        if (!sessionMap.containsKey(senderIdentifier))
+        {
+            sessionMap.putIfAbsent(senderIdentifier, new Session(channel));
+        }
+    }
+
+    /**
+     * Stop granting credits to a closed session.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} session identifier.
+     */
+    public void removeSession(String senderIdentifier)
+    {
+        sessionMap.remove(senderIdentifier);
+    }
+
+    @Override
+    public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+    {
+        try
+        {
+            responseListener.receive(abstractPacket, senderIdentifier);
+        }
+        finally
+        {
+            processed(senderIdentifier, 1);
+        }
+    }
+
+    @Override
+    public void receiveBatch(List<AbstractPacket> abstractPackets, String senderIdentifier)
+    {
+        int count = abstractPackets.size();
+        try
+        {
+            if (responseListener instanceof IBatchResponseListener)
+            {
+                ((IBatchResponseListener) responseListener).receiveBatch(abstractPackets, senderIdentifier);
+            }
+            else
+            {
+                for (AbstractPacket abstractPacket : abstractPackets)
+                {
+                    responseListener.receive(abstractPacket, senderIdentifier);
+                }
+            }
+        }
+        finally
+        {
+            processed(senderIdentifier, count);
+        }
+    }
+
+    /**
+     * Count processed packets of a session and grant credits once a batch has been processed.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} session identifier.
+     * @param count
+     *            - number of processed packets.
+     */
+    private void processed(String senderIdentifier, int count)
+    {
+        Session session = sessionMap.get(senderIdentifier);
+        if (session == null || session.processed.addAndGet(count) < batch)
+        {
+            return;
+        }
+
+        int credits = session.processed.getAndSet(0);
+        if (credits > 0)
+        {
+            granted.add(credits);
+            session.channel.writeAndFlush(new CreditPacket(credits), session.channel.voidPromise());
+        }
+    }
+
+    @Override
+    public BridgeOptions getBridgeOptions()
+    {
+        return responseListener.getBridgeOptions();
+    }
+
+    @Override
+    public String getName()
+    {
+        return responseListener.getName();
+    }
+
+    @Override
+    public AbstractPlatformProtocol getProtocol()
+    {
+        return responseListener.getProtocol();
+    }
+
+    @Override
+    public Set<IChannelObserver> getChannelObserverSet()
+    {
+        return responseListener.getChannelObserverSet();
+    }
+
+    public int getBatch()
+    {
+        return batch;
+    }
+
+    public long getGranted()
+    {
+        return granted.sum();
+    }
+
+    /**
+     * Granting session.
+     */
+    private static class Session
+    {
+        private final Channel channel;
+        private final AtomicInteger processed;
+
+        /**
+         * Ctor.
+         * 
+         * @param channel
+         *            - a session {@link Channel}.
+         */
+        public Session(Channel channel)
+        {
+            this.channel = channel;
+            this.processed = new AtomicInteger();
+        }
+    }
+}
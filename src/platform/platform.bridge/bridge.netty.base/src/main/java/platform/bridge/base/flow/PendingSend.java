@@ -0,0 +1,51 @@
+/**
+ * @file PendingSend.java
+ * @brief Pending send is a packet held back from the channel together with the completion of its send.
+ */
+
+package platform.bridge.base.flow;
+
+import java.util.concurrent.CompletableFuture;
+
+import platform.bridge.api.protocol.AbstractPacket;
+
+/**
+ * Pending send is a packet held back from the channel, buffered during reconnect or queued for flow control credits,
+ * together with the completion of its send. Each send gets its own pending send, so the same packet instance may be
+ * pending several times and every send still completes.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class PendingSend
+{
+    // Packet to send.
+    private final AbstractPacket packet;
+
+    // Completion of the send or null for a fire-and-forget send.
+    private final CompletableFuture<Void> completion;
+
+    /**
+     * Ctor.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} to send.
+     * @param completion
+     *            - a {@link CompletableFuture} to complete with the write or null for a fire-and-forget send.
+     */
+    public PendingSend(AbstractPacket packet, CompletableFuture<Void> completion)
+    {
+        this.packet = packet;
+        this.completion = completion;
+    }
+
+    public AbstractPacket getPacket()
+    {
+        return packet;
+    }
+
+    public CompletableFuture<Void> getCompletion()
+    {
+        return completion;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * @file IInboundDispatcher.java
+ * @brief Inbound dispatcher delivers decoded packets to a response listener off the channel I/O event loop.
+ */
+
+package platform.bridge.base.inbound;
+
+import platform.bridge.api.protocol.AbstractPacket;
+
+/**
+ * Inbound dispatcher delivers decoded packets to a response listener off the channel I/O event loop. Packets of one
+ * session are delivered in the order they have been dispatched and never concurrently with each other.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public interface IInboundDispatcher
+{
+    /**
+     * Dispatch a packet received on a session. Called from the session I/O event loop.
+     * 
+     * @param packet
+     *            - a received {@link AbstractPacket}.
+     * @param senderIdentifier
+     *            - a {@link String} session identifier.
+     * @return - false if session should be disconnected as its queue overflowed, true otherwise.
+     */
+    public boolean dispatch(AbstractPacket packet, String senderIdentifier);
+
+    /**
+     * Release per-session state once a session channel has closed. Packets already queued are still delivered.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} session identifier.
+     */
+    public void removeSession(String senderIdentifier);
+
+    /**
+     * Retrieve a snapshot of dispatcher queue and latency statistics.
+     * 
+     * @return - an {@link InboundStats} snapshot.
+     */
+    public InboundStats getStats();
+
+    /**
+     * Shut down dispatcher and its worker threads, if any. Packets still queued are discarded.
+     */
+    public void shutdown();
+}
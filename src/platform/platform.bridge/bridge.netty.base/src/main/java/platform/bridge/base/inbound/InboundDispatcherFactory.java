@@ -0,0 +1,97 @@
+/**
+ * @file InboundDispatcherFactory.java
+ * @brief Inbound dispatcher factory creates an inbound dispatcher for the inbound mode selected in bridge options.
+ */
+
+package platform.bridge.base.inbound;
+
+import game.core.util.ArgsChecker;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.EInboundMode;
+import platform.bridge.api.proxy.EOverflowPolicy;
+import platform.bridge.api.proxy.EWaitStrategy;
+import platform.bridge.api.proxy.IResponseListener;
+
+/**
+ * Inbound dispatcher factory creates an inbound dispatcher for the inbound mode selected in bridge options. In
+ * {@link EInboundMode#DIRECT} mode no dispatcher is created and packets are delivered on the I/O event loop, in
+ * {@link EInboundMode#RING_BUFFER} mode packets are only delivered once the application drains the ring buffer.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class InboundDispatcherFactory
+{
+    // Args.
+    private static final String ARG_RESPONSE_LISTENER = "responseListener";
+
+    // Default inbound options.
+    public static final EInboundMode DEFAULT_INBOUND_MODE = EInboundMode.DIRECT;
+    public static final int DEFAULT_INBOUND_QUEUE_DEPTH = 1024;
+    public static final EOverflowPolicy DEFAULT_OVERFLOW_POLICY = EOverflowPolicy.DISCONNECT;
+    public static final int DEFAULT_INBOUND_RING_SIZE = 65536;
+    public static final EWaitStrategy DEFAULT_WAIT_STRATEGY = EWaitStrategy.BLOCK;
+
+    /**
+     * Private constructor.
+     */
+    private InboundDispatcherFactory()
+    {}
+
+    /**
+     * Create an inbound dispatcher for a response listener as configured by its bridge options.
+     * 
+     * @param responseListener
+     *            - an {@link IResponseListener} to deliver packets to.
+     * @return - a new {@link IInboundDispatcher} or null if packets should be delivered directly on the I/O event loop.
+     */
+    public static IInboundDispatcher create(IResponseListener responseListener)
+    {
+        ArgsChecker.errorOnNull(responseListener, ARG_RESPONSE_LISTENER);
+
+        BridgeOptions opts = responseListener.getBridgeOptions();
+        EInboundMode mode = opts.get(BridgeOptions.KEY_INBOUND_MODE) != null ? (EInboundMode) opts.get(
+            BridgeOptions.KEY_INBOUND_MODE).get() : getDefaultInboundMode(opts);
+
+        if (mode == EInboundMode.DIRECT)
+        {
+            return null;
+        }
+
+        EOverflowPolicy overflowPolicy = opts.get(BridgeOptions.KEY_INBOUND_OVERFLOW_POLICY) != null ? (EOverflowPolicy) opts
+            .get(BridgeOptions.KEY_INBOUND_OVERFLOW_POLICY).get() : DEFAULT_OVERFLOW_POLICY;
+
+        if (mode == EInboundMode.RING_BUFFER)
+        {
+            int ringSize = opts.get(BridgeOptions.KEY_INBOUND_RING_SIZE) != null ? (Integer) opts.get(
+                BridgeOptions.KEY_INBOUND_RING_SIZE).get() : DEFAULT_INBOUND_RING_SIZE;
+            EWaitStrategy waitStrategy = opts.get(BridgeOptions.KEY_INBOUND_WAIT_STRATEGY) != null ? (EWaitStrategy) opts
+                .get(BridgeOptions.KEY_INBOUND_WAIT_STRATEGY).get() : DEFAULT_WAIT_STRATEGY;
+
+            return new InboundRingBuffer(responseListener.getName(), responseListener, ringSize, waitStrategy,
+                overflowPolicy);
+        }
+
+        int threads = opts.get(BridgeOptions.KEY_INBOUND_THREADS) != null ? (Integer) opts.get(
+            BridgeOptions.KEY_INBOUND_THREADS).get() : Runtime.getRuntime().availableProcessors();
+        int queueDepth = opts.get(BridgeOptions.KEY_INBOUND_QUEUE_DEPTH) != null ? (Integer) opts.get(
+            BridgeOptions.KEY_INBOUND_QUEUE_DEPTH).get() : DEFAULT_INBOUND_QUEUE_DEPTH;
+
+        return new OrderedSessionExecutor(responseListener.getName(), responseListener, threads, queueDepth,
+            overflowPolicy);
+    }
+
+    /**
+     * Retrieve inbound mode used when none has been configured. Tick driven services gather packets in a ring buffer
+     * drained by the tick thread.
+     * 
+     * @param opts
+     *            - a {@link BridgeOptions} of the response listener.
+     * @return - a default {@link EInboundMode}.
+     */
+    private static EInboundMode getDefaultInboundMode(BridgeOptions opts)
+    {
+        return opts.get(BridgeOptions.KEY_TICK_RATE_HZ) != null && (Integer) opts.get(BridgeOptions.KEY_TICK_RATE_HZ)
+            .get() > 0 ? EInboundMode.RING_BUFFER : DEFAULT_INBOUND_MODE;
+    }
+}
@@ -0,0 +1,350 @@
+/**
+ * @file InboundRingBuffer.java
+ * @brief Inbound ring buffer hands packets off from I/O event loops to a single application consumer thread.
+ */
+
+package platform.bridge.base.inbound;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.EOverflowPolicy;
+import platform.bridge.api.proxy.EWaitStrategy;
+import platform.bridge.api.proxy.IResponseListener;
+
+/**
+ * Inbound ring buffer hands packets off from I/O event loops to a single application consumer thread, such as a game
+ * simulation thread. Slots are preallocated, producers claim a slot with a single CAS and publish it by stamping the
+ * slot with its sequence, so publishing neither locks nor allocates. Consumer drains published packets in batches and
+ * delivers them to the response listener on its own thread. Packets of one producer, and so of one session, are
+ * delivered in publish order.
+ * 
+ * Only one thread may consume at a time. A full buffer drops incoming packets, or signals a disconnect of their session
+ * with {@link EOverflowPolicy#DISCONNECT} policy, as producers must not wait on the consumer.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class InboundRingBuffer implements IInboundDispatcher
+{
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(InboundRingBuffer.class);
+
+    // Errors, args, messages.
+    private static final String ARG_NAME = "name";
+    private static final String ARG_RESPONSE_LISTENER = "responseListener";
+    private static final String ARG_RING_SIZE = "ringSize";
+    private static final String ARG_WAIT_STRATEGY = "waitStrategy";
+    private static final String ARG_OVERFLOW_POLICY = "overflowPolicy";
+    private static final String ARG_MAX_BATCH = "maxBatch";
+    private static final String WARN_RECEIVE = "Response listener: [%s] failed to receive packet from session: [%s].";
+    private static final String WARN_OVERFLOW = "Inbound ring buffer of: [%s] overflowed at size: [%d].";
+
+    // Maximum ring size.
+    private static final int MAX_RING_SIZE = 1 << 30;
+
+    // Upper bound of a single park in block wait strategy.
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Latency percentile reported in stats.
+    private static final double STATS_PERCENTILE = 0.99;
+
+    // Dispatcher name.
+    private final String name;
+
+    // Upstream response listener.
+    private final IResponseListener responseListener;
+
+    // Consumer wait strategy and overflow policy.
+    private final EWaitStrategy waitStrategy;
+    private final EOverflowPolicy overflowPolicy;
+
+    // Preallocated slots. A slot is published once its sequence is stamped with the sequence it has been claimed at.
+    private final int mask;
+    private final AbstractPacket[] packets;
+    private final String[] senderIdentifiers;
+    private final long[] publishNanos;
+    private final AtomicLongArray sequences;
+
+    // Next sequence to claim by producers and next sequence to consume.
+    private final AtomicLong tail;
+    private final AtomicLong head;
+
+    // Consumer thread parked in block wait strategy or null.
+    private volatile Thread parkedConsumer;
+
+    // A flag determining whether ring buffer has been shut down.
+    private volatile boolean shutdown;
+
+    // Counters.
+    private final LongAdder dropped;
+    private final LongAdder disconnects;
+    private final AtomicLong delivered;
+
+    // Queue latency.
+    private final LatencyHistogram latency;
+
+    /**
+     * Ctor.
+     * 
+     * @param name
+     *            - a {@link String} dispatcher name.
+     * @param responseListener
+     *            - an {@link IResponseListener} to deliver packets to.
+     * @param ringSize
+     *            - number of slots, rounded up to a power of two.
+     * @param waitStrategy
+     *            - an {@link EWaitStrategy} of the consumer.
+     * @param overflowPolicy
+     *            - an {@link EOverflowPolicy} applied when ring buffer is full.
+     */
+    public InboundRingBuffer(String name, IResponseListener responseListener, int ringSize,
+        EWaitStrategy waitStrategy, EOverflowPolicy overflowPolicy)
+    {
+        ArgsChecker.errorOnNull(name, ARG_NAME);
+        ArgsChecker.errorOnNull(responseListener, ARG_RESPONSE_LISTENER);
+        ArgsChecker.errorOnNull(waitStrategy, ARG_WAIT_STRATEGY);
+        ArgsChecker.errorOnNull(overflowPolicy, ARG_OVERFLOW_POLICY);
+        ArgsChecker.errorOnLessThan0(ringSize, ARG_RING_SIZE);
+
+        int capacity = 1;
+        while (capacity < ringSize && capacity < MAX_RING_SIZE)
+        {
+            capacity <<= 1;
+        }
+
+        this.name = name;
+        this.responseListener = responseListener;
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+        this.mask = capacity - 1;
+        this.packets = new AbstractPacket[capacity];
+        this.senderIdentifiers = new String[capacity];
+        this.publishNanos = new long[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+        {
+            sequences.set(i, i - capacity);
+        }
+        this.tail = new AtomicLong();
+        this.head = new AtomicLong();
+        this.dropped = new LongAdder();
+        this.disconnects = new LongAdder();
+        this.delivered = new AtomicLong();
+        this.latency = new LatencyHistogram();
+    }
+
+    @Override
+    public boolean dispatch(AbstractPacket packet, String senderIdentifier)
+    {
+        long sequence;
+        do
+        {
+            sequence = tail.get();
+            if (sequence - head.get() > mask)
+            {
+                if (overflowPolicy == EOverflowPolicy.DISCONNECT)
+                {
+                    disconnects.increment();
+                    LOG.warn(String.format(WARN_OVERFLOW, name, mask + 1));
+                    return false;
+                }
+                dropped.increment();
+                return true;
+            }
+        }
+        while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        packets[index] = packet;
+        senderIdentifiers[index] = senderIdentifier;
+        publishNanos[index] = System.nanoTime();
+
+        // A blocking consumer needs a full fence between publish and parked consumer check.
+        if (waitStrategy == EWaitStrategy.BLOCK)
+        {
+            sequences.set(index, sequence);
+        }
+        else
+        {
+            sequences.lazySet(index, sequence);
+        }
+
+        if (parkedConsumer != null)
+        {
+            LockSupport.unpark(parkedConsumer);
+        }
+        return true;
+    }
+
+    /**
+     * Deliver up to given amount of published packets to the response listener on calling thread without waiting.
+     * 
+     * @param maxBatch
+     *            - maximum number of packets to deliver.
+     * @return - number of delivered packets.
+     */
+    public int drain(int maxBatch)
+    {
+        ArgsChecker.errorOnLessThan0(maxBatch, ARG_MAX_BATCH);
+
+        long sequence = head.get();
+        int count = 0;
+        while (count < maxBatch)
+        {
+            int index = (int) sequence & mask;
+            if (sequences.get(index) != sequence)
+            {
+                break;
+            }
+
+            AbstractPacket packet = packets[index];
+            String senderIdentifier = senderIdentifiers[index];
+            latency.record(System.nanoTime() - publishNanos[index]);
+            packets[index] = null;
+            senderIdentifiers[index] = null;
+
+            // Release slot to producers before delivery so a slow listener does not hold it.
+            sequence++;
+            head.lazySet(sequence);
+            count++;
+
+            // Guard for application level stupidity.
+            try
+            {
+                responseListener.receive(packet, senderIdentifier);
+            }
+            catch (Exception e)
+            {
+                LOG.warn(String.format(WARN_RECEIVE, responseListener.getName(), senderIdentifier), e);
+            }
+        }
+
+        if (count > 0)
+        {
+            delivered.addAndGet(count);
+        }
+        return count;
+    }
+
+    /**
+     * Wait for published packets using the configured wait strategy and deliver up to given amount of them to the
+     * response listener on calling thread.
+     * 
+     * @param maxBatch
+     *            - maximum number of packets to deliver.
+     * @param timeout
+     *            - maximum time to wait for a packet.
+     * @param timeUnit
+     *            - a {@link TimeUnit} of timeout.
+     * @return - number of delivered packets, 0 if timeout elapsed or ring buffer has been shut down.
+     * @throws InterruptedException
+     *             - throws {@link InterruptedException} if consumer thread is interrupted while waiting.
+     */
+    public int drain(int maxBatch, long timeout, TimeUnit timeUnit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        while (!isPublished(head.get()))
+        {
+            if (shutdown)
+            {
+                return 0;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+            {
+                return 0;
+            }
+
+            switch (waitStrategy)
+            {
+                case BUSY_SPIN:
+                    break;
+                case YIELD:
+                    Thread.yield();
+                    break;
+                default:
+                    parkedConsumer = Thread.currentThread();
+                    // Re-check after announcing consumer so a packet published in between is not missed.
+                    if (!isPublished(head.get()))
+                    {
+                        LockSupport.parkNanos(this, Math.min(remaining, MAX_PARK_NANOS));
+                    }
+                    parkedConsumer = null;
+                    break;
+            }
+
+            if (Thread.interrupted())
+            {
+                throw new InterruptedException();
+            }
+        }
+
+        return drain(maxBatch);
+    }
+
+    /**
+     * Retrieve number of packets published but not yet consumed.
+     * 
+     * @return - number of queued packets.
+     */
+    public long size()
+    {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * Retrieve number of slots.
+     * 
+     * @return - ring buffer capacity.
+     */
+    public int capacity()
+    {
+        return mask + 1;
+    }
+
+    @Override
+    public void removeSession(String senderIdentifier)
+    {}
+
+    @Override
+    public InboundStats getStats()
+    {
+        long consumed = delivered.get();
+        long queued = size();
+        return new InboundStats(name, 0, queued, consumed + queued, consumed, dropped.sum(), disconnects.sum(),
+            latency.getMeanNanos(), latency.getPercentileNanos(STATS_PERCENTILE), latency.getMaxNanos());
+    }
+
+    @Override
+    public void shutdown()
+    {
+        shutdown = true;
+        Thread consumer = parkedConsumer;
+        if (consumer != null)
+        {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Check whether slot of given sequence has been published.
+     * 
+     * @param sequence
+     *            - a sequence to check.
+     * @return - true if published, false otherwise.
+     */
+    private boolean isPublished(long sequence)
+    {
+        return sequences.get((int) sequence & mask) == sequence;
+    }
+}
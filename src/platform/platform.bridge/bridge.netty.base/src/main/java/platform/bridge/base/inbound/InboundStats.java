@@ -0,0 +1,135 @@
+/**
+ * @file InboundStats.java
+ * @brief Snapshot of inbound dispatcher queue and latency statistics.
+ */
+
+package platform.bridge.base.inbound;
+
+/**
+ * Snapshot of inbound dispatcher queue and latency statistics. Queue latency is the time a packet spent queued between
+ * dispatch on the I/O event loop and start of its delivery to the response listener. Counters are cumulative since
+ * dispatcher creation.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class InboundStats
+{
+    // Dispatcher name.
+    private final String name;
+
+    // Number of sessions with queue state.
+    private final int sessionCount;
+
+    // Packets currently queued.
+    private final long queued;
+
+    // Packets dispatched, delivered and dropped, and sessions disconnected on overflow.
+    private final long dispatched;
+    private final long delivered;
+    private final long dropped;
+    private final long disconnects;
+
+    // Queue latency in nanoseconds.
+    private final long meanLatencyNanos;
+    private final long p99LatencyNanos;
+    private final long maxLatencyNanos;
+
+    /**
+     * Ctor.
+     * 
+     * @param name
+     *            - a {@link String} dispatcher name.
+     * @param sessionCount
+     *            - number of sessions with queue state.
+     * @param queued
+     *            - packets currently queued.
+     * @param dispatched
+     *            - packets dispatched.
+     * @param delivered
+     *            - packets delivered to response listener.
+     * @param dropped
+     *            - packets dropped on overflow.
+     * @param disconnects
+     *            - sessions disconnected on overflow.
+     * @param meanLatencyNanos
+     *            - mean queue latency in nanoseconds.
+     * @param p99LatencyNanos
+     *            - 99th percentile queue latency in nanoseconds.
+     * @param maxLatencyNanos
+     *            - maximum queue latency in nanoseconds.
+     */
+    public InboundStats(String name, int sessionCount, long queued, long dispatched, long delivered, long dropped,
+        long disconnects, long meanLatencyNanos, long p99LatencyNanos, long maxLatencyNanos)
+    {
+        this.name = name;
+        this.sessionCount = sessionCount;
+        this.queued = queued;
+        this.dispatched = dispatched;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.disconnects = disconnects;
+        this.meanLatencyNanos = meanLatencyNanos;
+        this.p99LatencyNanos = p99LatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getSessionCount()
+    {
+        return sessionCount;
+    }
+
+    public long getQueued()
+    {
+        return queued;
+    }
+
+    public long getDispatched()
+    {
+        return dispatched;
+    }
+
+    public long getDelivered()
+    {
+        return delivered;
+    }
+
+    public long getDropped()
+    {
+        return dropped;
+    }
+
+    public long getDisconnects()
+    {
+        return disconnects;
+    }
+
+    public long getMeanLatencyNanos()
+    {
+        return meanLatencyNanos;
+    }
+
+    public long getP99LatencyNanos()
+    {
+        return p99LatencyNanos;
+    }
+
+    public long getMaxLatencyNanos()
+    {
+        return maxLatencyNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "%s[sessions=%d, queued=%d, dispatched=%d, delivered=%d, dropped=%d, disconnects=%d, latencyUs(mean=%.1f, p99=%.1f, max=%.1f)]",
+            name, sessionCount, queued, dispatched, delivered, dropped, disconnects, meanLatencyNanos / 1000.0,
+            p99LatencyNanos / 1000.0, maxLatencyNanos / 1000.0);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * @file LatencyHistogram.java
+ * @brief Lock free power of two latency histogram.
+ */
+
+package platform.bridge.base.inbound;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free power of two latency histogram. Bucket n counts samples of n significant bits, a range of [2^(n-1), 2^n)
+ * nanoseconds, so percentiles are reported as the upper bound of their bucket and are accurate to within a factor of
+ * two. Recording is safe from any thread and does not allocate.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class LatencyHistogram
+{
+    // Number of buckets, one per bit length of a non-negative long.
+    private static final int BUCKET_COUNT = Long.SIZE;
+
+    // Sample count per bucket.
+    private final AtomicLongArray buckets;
+
+    // Sample count, sum and maximum.
+    private final LongAdder count;
+    private final LongAdder sumNanos;
+    private final AtomicLong maxNanos;
+
+    /**
+     * Ctor.
+     */
+    public LatencyHistogram()
+    {
+        buckets = new AtomicLongArray(BUCKET_COUNT);
+        count = new LongAdder();
+        sumNanos = new LongAdder();
+        maxNanos = new AtomicLong();
+    }
+
+    /**
+     * Record a latency sample.
+     * 
+     * @param nanos
+     *            - latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos)
+    {
+        if (nanos < 0)
+        {
+            nanos = 0;
+        }
+
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+        count.increment();
+        sumNanos.add(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos))
+        {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Retrieve number of recorded samples.
+     * 
+     * @return - sample count.
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * Retrieve mean latency.
+     * 
+     * @return - mean latency in nanoseconds or 0 if nothing has been recorded.
+     */
+    public long getMeanNanos()
+    {
+        long n = count.sum();
+        return n > 0 ? sumNanos.sum() / n : 0;
+    }
+
+    /**
+     * Retrieve maximum latency.
+     * 
+     * @return - maximum latency in nanoseconds.
+     */
+    public long getMaxNanos()
+    {
+        return maxNanos.get();
+    }
+
+    /**
+     * Retrieve latency at given percentile.
+     * 
+     * @param percentile
+     *            - a percentile in range (0, 1].
+     * @return - upper bound of the bucket holding given percentile in nanoseconds, capped at maximum latency.
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += snapshot[i];
+            if (seen >= rank)
+            {
+                long upper = i == 0 ? 0 : -1L >>> (Long.SIZE - i);
+                return Math.min(upper, maxNanos.get());
+            }
+        }
+
+        return maxNanos.get();
+    }
+}
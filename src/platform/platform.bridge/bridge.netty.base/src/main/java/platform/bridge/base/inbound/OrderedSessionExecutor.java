@@ -0,0 +1,368 @@
+/**
+ * @file OrderedSessionExecutor.java
+ * @brief Ordered session executor delivers inbound packets on a worker pool with one serial queue per session.
+ */
+
+package platform.bridge.base.inbound;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.EOverflowPolicy;
+import platform.bridge.api.proxy.IResponseListener;
+
+/**
+ * Ordered session executor delivers inbound packets on a worker pool with one serial queue per session. A session
+ * queue is scheduled on the pool only while it holds packets and at most once at a time, so packets of a session are
+ * delivered in order and never concurrently, while different sessions are delivered in parallel. A scheduled queue
+ * delivers a bounded batch and then yields its worker to other sessions. Queue depth is bounded per session and an
+ * overflow is resolved by the configured {@link EOverflowPolicy}.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class OrderedSessionExecutor implements IInboundDispatcher
+{
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(OrderedSessionExecutor.class);
+
+    // Errors, args, messages.
+    private static final String ARG_NAME = "name";
+    private static final String ARG_RESPONSE_LISTENER = "responseListener";
+    private static final String ARG_THREADS = "threads";
+    private static final String ARG_QUEUE_DEPTH = "queueDepth";
+    private static final String ARG_OVERFLOW_POLICY = "overflowPolicy";
+    private static final String WARN_RECEIVE = "Response listener: [%s] failed to receive packet from session: [%s].";
+    private static final String WARN_OVERFLOW = "Inbound queue of session: [%s] on: [%s] overflowed at depth: [%d].";
+
+    // Maximum packets delivered per scheduling of a session queue before yielding the worker.
+    private static final int DRAIN_BATCH = 64;
+
+    // Initial capacity of a session queue.
+    private static final int INITIAL_QUEUE_CAPACITY = 16;
+
+    // Latency percentile reported in stats.
+    private static final double STATS_PERCENTILE = 0.99;
+
+    // Dispatcher name.
+    private final String name;
+
+    // Upstream response listener.
+    private final IResponseListener responseListener;
+
+    // Maximum queued packets per session and overflow policy.
+    private final int queueDepth;
+    private final EOverflowPolicy overflowPolicy;
+
+    // Worker pool.
+    private final ExecutorService workerPool;
+
+    // Session queue map.
+    private final Map<String, SessionQueue> sessionQueueMap;
+
+    // Counters.
+    private final LongAdder queued;
+    private final LongAdder dispatched;
+    private final LongAdder delivered;
+    private final LongAdder dropped;
+    private final LongAdder disconnects;
+
+    // Queue latency.
+    private final LatencyHistogram latency;
+
+    /**
+     * Ctor.
+     * 
+     * @param name
+     *            - a {@link String} dispatcher name, used to name worker threads.
+     * @param responseListener
+     *            - an {@link IResponseListener} to deliver packets to.
+     * @param threads
+     *            - number of worker threads.
+     * @param queueDepth
+     *            - maximum number of queued packets per session.
+     * @param overflowPolicy
+     *            - an {@link EOverflowPolicy} applied when a session queue is full.
+     */
+    public OrderedSessionExecutor(String name, IResponseListener responseListener, int threads, int queueDepth,
+        EOverflowPolicy overflowPolicy)
+    {
+        ArgsChecker.errorOnNull(name, ARG_NAME);
+        ArgsChecker.errorOnNull(responseListener, ARG_RESPONSE_LISTENER);
+        ArgsChecker.errorOnNull(overflowPolicy, ARG_OVERFLOW_POLICY);
+        ArgsChecker.errorOnLessThan0(threads, ARG_THREADS);
+        ArgsChecker.errorOnLessThan0(queueDepth, ARG_QUEUE_DEPTH);
+
+        this.name = name;
+        this.responseListener = responseListener;
+        this.queueDepth = Math.max(1, queueDepth);
+        this.overflowPolicy = overflowPolicy;
+        this.workerPool = Executors.newFixedThreadPool(Math.max(1, threads), new DefaultThreadFactory(name
+            + "-inbound"));
+        this.sessionQueueMap = new ConcurrentHashMap<String, SessionQueue>();
+        this.queued = new LongAdder();
+        this.dispatched = new LongAdder();
+        this.delivered = new LongAdder();
+        this.dropped = new LongAdder();
+        this.disconnects = new LongAdder();
+        this.latency = new LatencyHistogram();
+    }
+
+    @Override
+    public boolean dispatch(AbstractPacket packet, String senderIdentifier)
+    {
+        SessionQueue sessionQueue = sessionQueueMap.get(senderIdentifier);
+        if (sessionQueue == null)
+        {
+            SessionQueue newQueue = new SessionQueue(senderIdentifier);
+            sessionQueue = sessionQueueMap.putIfAbsent(senderIdentifier, newQueue);
+            if (sessionQueue == null)
+            {
+                sessionQueue = newQueue;
+            }
+        }
+
+        boolean schedule = false;
+        synchronized (sessionQueue)
+        {
+            if (sessionQueue.size == queueDepth)
+            {
+                switch (overflowPolicy)
+                {
+                    case DROP_NEWEST:
+                        dropped.increment();
+                        return true;
+                    case DROP_OLDEST:
+                        sessionQueue.poll();
+                        queued.decrement();
+                        dropped.increment();
+                        break;
+                    default:
+                        disconnects.increment();
+                        LOG.warn(String.format(WARN_OVERFLOW, senderIdentifier, name, queueDepth));
+                        return false;
+                }
+            }
+
+            sessionQueue.offer(packet, System.nanoTime());
+            queued.increment();
+            dispatched.increment();
+
+            if (!sessionQueue.scheduled)
+            {
+                sessionQueue.scheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (schedule)
+        {
+            schedule(sessionQueue);
+        }
+        return true;
+    }
+
+    @Override
+    public void removeSession(String senderIdentifier)
+    {
+        sessionQueueMap.remove(senderIdentifier);
+    }
+
+    @Override
+    public InboundStats getStats()
+    {
+        return new InboundStats(name, sessionQueueMap.size(), queued.sum(), dispatched.sum(), delivered.sum(),
+            dropped.sum(), disconnects.sum(), latency.getMeanNanos(), latency.getPercentileNanos(STATS_PERCENTILE),
+            latency.getMaxNanos());
+    }
+
+    @Override
+    public void shutdown()
+    {
+        workerPool.shutdownNow();
+        sessionQueueMap.clear();
+    }
+
+    /**
+     * Schedule a session queue on the worker pool. A queue rejected by a shut down pool is discarded.
+     * 
+     * @param sessionQueue
+     *            - a {@link SessionQueue} to schedule.
+     */
+    private void schedule(SessionQueue sessionQueue)
+    {
+        try
+        {
+            workerPool.execute(sessionQueue);
+        }
+        catch (RejectedExecutionException ree)
+        {
+            synchronized (sessionQueue)
+            {
+                queued.add(-sessionQueue.size);
+                dropped.add(sessionQueue.size);
+                sessionQueue.clear();
+            }
+        }
+    }
+
+    /**
+     * Serial queue of a single session. Packets and their enqueue times are held in a ring buffer grown on demand up to
+     * the session queue depth. Queue state is guarded by the queue instance monitor.
+     * 
+     * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+     *
+     */
+    private final class SessionQueue implements Runnable
+    {
+        // Session identifier.
+        private final String senderIdentifier;
+
+        // Ring buffer of queued packets and their enqueue times.
+        private AbstractPacket[] packets;
+        private long[] enqueueNanos;
+        private int head;
+        private int size;
+
+        // A flag determining whether queue has been scheduled on the worker pool.
+        private boolean scheduled;
+
+        /**
+         * Ctor.
+         * 
+         * @param senderIdentifier
+         *            - a {@link String} session identifier.
+         */
+        private SessionQueue(String senderIdentifier)
+        {
+            this.senderIdentifier = senderIdentifier;
+            int capacity = Math.min(INITIAL_QUEUE_CAPACITY, queueDepth);
+            this.packets = new AbstractPacket[capacity];
+            this.enqueueNanos = new long[capacity];
+        }
+
+        @Override
+        public void run()
+        {
+            for (int i = 0; i < DRAIN_BATCH; i++)
+            {
+                AbstractPacket packet = null;
+                long enqueued = 0;
+                synchronized (this)
+                {
+                    if (size == 0)
+                    {
+                        scheduled = false;
+                        return;
+                    }
+
+                    enqueued = enqueueNanos[head];
+                    packet = poll();
+                }
+
+                queued.decrement();
+                latency.record(System.nanoTime() - enqueued);
+                delivered.increment();
+
+                // Guard for application level stupidity.
+                try
+                {
+                    responseListener.receive(packet, senderIdentifier);
+                }
+                catch (Exception e)
+                {
+                    LOG.warn(String.format(WARN_RECEIVE, responseListener.getName(), senderIdentifier), e);
+                }
+            }
+
+            synchronized (this)
+            {
+                if (size == 0)
+                {
+                    scheduled = false;
+                    return;
+                }
+            }
+
+            // Batch exhausted, yield worker to other sessions.
+            schedule(this);
+        }
+
+        /**
+         * Append a packet. Caller must hold the queue monitor and make sure queue is not full.
+         * 
+         * @param packet
+         *            - an {@link AbstractPacket} to append.
+         * @param nanos
+         *            - packet enqueue time.
+         */
+        private void offer(AbstractPacket packet, long nanos)
+        {
+            if (size == packets.length)
+            {
+                grow();
+            }
+
+            int tail = (head + size) % packets.length;
+            packets[tail] = packet;
+            enqueueNanos[tail] = nanos;
+            size++;
+        }
+
+        /**
+         * Remove head packet. Caller must hold the queue monitor and make sure queue is not empty.
+         * 
+         * @return - removed head {@link AbstractPacket}.
+         */
+        private AbstractPacket poll()
+        {
+            AbstractPacket packet = packets[head];
+            packets[head] = null;
+            head = (head + 1) % packets.length;
+            size--;
+            return packet;
+        }
+
+        /**
+         * Discard all queued packets. Caller must hold the queue monitor.
+         */
+        private void clear()
+        {
+            while (size > 0)
+            {
+                poll();
+            }
+            scheduled = false;
+        }
+
+        /**
+         * Double ring buffer capacity up to queue depth, unwrapping queued packets to start of the new buffer.
+         */
+        private void grow()
+        {
+            int capacity = Math.min(packets.length * 2, queueDepth);
+            AbstractPacket[] newPackets = new AbstractPacket[capacity];
+            long[] newEnqueueNanos = new long[capacity];
+            for (int i = 0; i < size; i++)
+            {
+                int index = (head + i) % packets.length;
+                newPackets[i] = packets[index];
+                newEnqueueNanos[i] = enqueueNanos[index];
+            }
+
+            packets = newPackets;
+            enqueueNanos = newEnqueueNanos;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/**
+ * @file InterestGrid.java
+ * @brief Interest grid indexes service clients by position for area-of-interest fan-out.
+ */
+
+package platform.bridge.base.interest;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Interest grid indexes service clients by position for area-of-interest fan-out. World plane is split into square
+ * cells of a uniform size, and a client, keyed by its {@link NettyServiceProxy} client identifier, is a member of the
+ * cell containing its position. Clients interested in a cell are members of the cells within the configured number of
+ * cells around it, so with a cell size equal to view distance and a view of one cell an update is sent to the 3x3
+ * cells around its origin. Recipient set of a cell is computed once and reused by every update originating in the
+ * cell until a client enters or leaves the cells around it, and is handed to
+ * {@link NettyServiceProxy#broadcast(AbstractPacket, java.util.Collection)} as is.
+ * 
+ * Grid is not thread safe and is meant to be owned by a single thread, e.g. a room loop or a tick listener. Application
+ * removes clients with {@link #remove(String)}, also when they disconnect.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class InterestGrid
+{
+    // Errors, args, messages.
+    private static final String ARG_SENDER_IDENTIFIER = "senderIdentifier";
+    private static final String ARG_SERVICE_PROXY = "serviceProxy";
+    private static final String ARG_PACKET = "packet";
+    private static final String ERROR_CELL_SIZE = "Cell size: [%f] must be a positive number.";
+    private static final String ERROR_VIEW_CELLS = "View cells: [%d] must not be negative.";
+
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(InterestGrid.class);
+
+    // Size of a cell side in world units.
+    private final double cellSize;
+
+    // Number of cells around a cell that see it.
+    private final int viewCells;
+
+    // Non empty cells by cell key.
+    private final Map<Long, Cell> cellMap;
+
+    // Client positions by client identifier.
+    private final Map<String, Position> positionMap;
+
+    /**
+     * Ctor.
+     * 
+     * @param cellSize
+     *            - size of a cell side in world units, typically view distance.
+     * @param viewCells
+     *            - number of cells around a cell whose members receive its updates.
+     */
+    public InterestGrid(double cellSize, int viewCells)
+    {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize))
+        {
+            LOG.error(String.format(ERROR_CELL_SIZE, cellSize));
+            throw new IllegalArgumentException(String.format(ERROR_CELL_SIZE, cellSize));
+        }
+        if (viewCells < 0)
+        {
+            LOG.error(String.format(ERROR_VIEW_CELLS, viewCells));
+            throw new IllegalArgumentException(String.format(ERROR_VIEW_CELLS, viewCells));
+        }
+
+        this.cellSize = cellSize;
+        this.viewCells = viewCells;
+        this.cellMap = new HashMap<Long, Cell>();
+        this.positionMap = new HashMap<String, Position>();
+    }
+
+    /**
+     * Add a client or update its position. Moving within a cell only records the position.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @param x
+     *            - x coordinate in world units.
+     * @param y
+     *            - y coordinate in world units.
+     */
+    public void update(String senderIdentifier, double x, double y)
+    {
+        ArgsChecker.errorOnNull(senderIdentifier, ARG_SENDER_IDENTIFIER);
+
+        int cellX = toCell(x);
+        int cellY = toCell(y);
+        Position position = positionMap.get(senderIdentifier);
+        if (position == null)
+        {
+            position = new Position(cellX, cellY);
+            positionMap.put(senderIdentifier, position);
+            enter(senderIdentifier, cellX, cellY);
+        }
+        else if (position.cellX != cellX || position.cellY != cellY)
+        {
+            leave(senderIdentifier, position.cellX, position.cellY);
+            enter(senderIdentifier, cellX, cellY);
+            position.cellX = cellX;
+            position.cellY = cellY;
+        }
+        position.x = x;
+        position.y = y;
+    }
+
+    /**
+     * Remove a client from the grid.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @return - true if client was in the grid, false otherwise.
+     */
+    public boolean remove(String senderIdentifier)
+    {
+        Position position = positionMap.remove(senderIdentifier);
+        if (position == null)
+        {
+            return false;
+        }
+        leave(senderIdentifier, position.cellX, position.cellY);
+        return true;
+    }
+
+    /**
+     * Retrieve recipients of an update originating at a position, being members of the cells around its cell.
+     * 
+     * @param x
+     *            - x coordinate in world units.
+     * @param y
+     *            - y coordinate in world units.
+     * @return - an unmodifiable {@link Set} of client identifiers, valid until the next grid change.
+     */
+    public Set<String> getRecipients(double x, double y)
+    {
+        int cellX = toCell(x);
+        int cellY = toCell(y);
+        Cell cell = cellMap.get(cellKey(cellX, cellY));
+        if (cell != null)
+        {
+            if (cell.recipientSet == null)
+            {
+                cell.recipientSet = Collections.unmodifiableSet(collectRecipients(cellX, cellY));
+            }
+            return cell.recipientSet;
+        }
+
+        // No members to cache it for, but clients around may still see the position.
+        return Collections.unmodifiableSet(collectRecipients(cellX, cellY));
+    }
+
+    /**
+     * Retrieve recipients of an update originating from a client.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @return - an unmodifiable {@link Set} of client identifiers, including the client, or an empty set if client is
+     *         not in the grid.
+     */
+    public Set<String> getRecipients(String senderIdentifier)
+    {
+        Position position = positionMap.get(senderIdentifier);
+        return position != null ? getRecipients(position.x, position.y) : Collections.<String> emptySet();
+    }
+
+    /**
+     * Find clients within a distance of a position.
+     * 
+     * @param x
+     *            - x coordinate in world units.
+     * @param y
+     *            - y coordinate in world units.
+     * @param radius
+     *            - distance in world units.
+     * @return - a {@link List} of client identifiers.
+     */
+    public List<String> query(double x, double y, double radius)
+    {
+        List<String> resultList = new ArrayList<String>();
+        double radiusSquared = radius * radius;
+        for (int cellX = toCell(x - radius), maxX = toCell(x + radius); cellX <= maxX; cellX++)
+        {
+            for (int cellY = toCell(y - radius), maxY = toCell(y + radius); cellY <= maxY; cellY++)
+            {
+                Cell cell = cellMap.get(cellKey(cellX, cellY));
+                if (cell == null)
+                {
+                    continue;
+                }
+                for (String senderIdentifier : cell.memberSet)
+                {
+                    Position position = positionMap.get(senderIdentifier);
+                    double dx = position.x - x;
+                    double dy = position.y - y;
+                    if (dx * dx + dy * dy <= radiusSquared)
+                    {
+                        resultList.add(senderIdentifier);
+                    }
+                }
+            }
+        }
+        return resultList;
+    }
+
+    /**
+     * Broadcast a packet to recipients of an update originating from a client, encoding it once.
+     * 
+     * @param serviceProxy
+     *            - a {@link NettyServiceProxy} serving the clients.
+     * @param packet
+     *            - an {@link AbstractPacket} to broadcast.
+     * @param senderIdentifier
+     *            - a {@link String} identifier of the originating client.
+     * @return - number of connected clients the packet has been written to.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if packet cannot be encoded.
+     */
+    public int broadcast(NettyServiceProxy serviceProxy, AbstractPacket packet, String senderIdentifier)
+        throws BridgeException
+    {
+        ArgsChecker.errorOnNull(serviceProxy, ARG_SERVICE_PROXY);
+        ArgsChecker.errorOnNull(packet, ARG_PACKET);
+
+        Set<String> recipientSet = getRecipients(senderIdentifier);
+        return recipientSet.isEmpty() ? 0 : serviceProxy.broadcast(packet, recipientSet);
+    }
+
+    public int getClientCount()
+    {
+        return positionMap.size();
+    }
+
+    public int getCellCount()
+    {
+        return cellMap.size();
+    }
+
+    public double getCellSize()
+    {
+        return cellSize;
+    }
+
+    public int getViewCells()
+    {
+        return viewCells;
+    }
+
+    /**
+     * Add a client to a cell and invalidate recipients of the cells seeing it.
+     */
+    private void enter(String senderIdentifier, int cellX, int cellY)
+    {
+        long key = cellKey(cellX, cellY);
+        Cell cell = cellMap.get(key);
+        if (cell == null)
+        {
+            cell = new Cell();
+            cellMap.put(key, cell);
+        }
+        cell.memberSet.add(senderIdentifier);
+        invalidateAround(cellX, cellY);
+    }
+
+    /**
+     * Remove a client from a cell and invalidate recipients of the cells seeing it.
+     */
+    private void leave(String senderIdentifier, int cellX, int cellY)
+    {
+        long key = cellKey(cellX, cellY);
+        Cell cell = cellMap.get(key);
+        cell.memberSet.remove(senderIdentifier);
+        if (cell.memberSet.isEmpty())
+        {
+            cellMap.remove(key);
+        }
+        invalidateAround(cellX, cellY);
+    }
+
+    /**
+     * Drop cached recipients of the cells around a cell.
+     */
+    private void invalidateAround(int cellX, int cellY)
+    {
+        for (int x = cellX - viewCells; x <= cellX + viewCells; x++)
+        {
+            for (int y = cellY - viewCells; y <= cellY + viewCells; y++)
+            {
+                Cell cell = cellMap.get(cellKey(x, y));
+                if (cell != null)
+                {
+                    cell.recipientSet = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collect members of the cells around a cell.
+     */
+    private Set<String> collectRecipients(int cellX, int cellY)
+    {
+        Set<String> recipientSet = new HashSet<String>();
+        for (int x = cellX - viewCells; x <= cellX + viewCells; x++)
+        {
+            for (int y = cellY - viewCells; y <= cellY + viewCells; y++)
+            {
+                Cell cell = cellMap.get(cellKey(x, y));
+                if (cell != null)
+                {
+                    recipientSet.addAll(cell.memberSet);
+                }
+            }
+        }
+        return recipientSet;
+    }
+
+    /**
+     * Map a world coordinate to a cell coordinate.
+     */
+    private int toCell(double coordinate)
+    {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Pack cell coordinates into a single key.
+     */
+    private static long cellKey(int cellX, int cellY)
+    {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Grid cell.
+     */
+    private static class Cell
+    {
+        // Clients positioned in the cell.
+        private final Set<String> memberSet = new HashSet<String>();
+
+        // Cached recipients of updates originating in the cell or null if stale.
+        private Set<String> recipientSet;
+    }
+
+    /**
+     * Client position.
+     */
+    private static class Position
+    {
+        private int cellX;
+        private int cellY;
+        private double x;
+        private double y;
+
+        /**
+         * Ctor.
+         * 
+         * @param cellX
+         *            - cell x coordinate.
+         * @param cellY
+         *            - cell y coordinate.
+         */
+        public Position(int cellX, int cellY)
+        {
+            this.cellX = cellX;
+            this.cellY = cellY;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * @file EventLoopGroupStats.java
+ * @brief Snapshot of event loop group utilisation.
+ */
+
+package platform.bridge.base.loop;
+
+/**
+ * Snapshot of event loop group utilisation. Utilisation is the share of wall time event loop threads spent on CPU
+ * since the previous sample, where 0 is an idle loop and 1 is a fully busy loop.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class EventLoopGroupStats
+{
+    // Group name.
+    private final String name;
+
+    // Number of event loop threads.
+    private final int threadCount;
+
+    // Number of proxies using the group.
+    private final int proxyCount;
+
+    // Average and busiest loop utilisation.
+    private final double utilisation;
+    private final double maxLoopUtilisation;
+
+    /**
+     * Ctor.
+     * 
+     * @param name
+     *            - a {@link String} group name.
+     * @param threadCount
+     *            - number of event loop threads.
+     * @param proxyCount
+     *            - number of proxies using the group.
+     * @param utilisation
+     *            - average utilisation of group loops.
+     * @param maxLoopUtilisation
+     *            - utilisation of the busiest group loop.
+     */
+    public EventLoopGroupStats(String name, int threadCount, int proxyCount, double utilisation,
+        double maxLoopUtilisation)
+    {
+        this.name = name;
+        this.threadCount = threadCount;
+        this.proxyCount = proxyCount;
+        this.utilisation = utilisation;
+        this.maxLoopUtilisation = maxLoopUtilisation;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getThreadCount()
+    {
+        return threadCount;
+    }
+
+    public int getProxyCount()
+    {
+        return proxyCount;
+    }
+
+    public double getUtilisation()
+    {
+        return utilisation;
+    }
+
+    public double getMaxLoopUtilisation()
+    {
+        return maxLoopUtilisation;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s[threads=%d, proxies=%d, utilisation=%.2f, maxLoopUtilisation=%.2f]", name,
+            threadCount, proxyCount, utilisation, maxLoopUtilisation);
+    }
+}
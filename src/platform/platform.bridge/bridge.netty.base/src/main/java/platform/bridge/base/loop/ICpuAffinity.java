@@ -0,0 +1,39 @@
+/**
+ * @file ICpuAffinity.java
+ * @brief CPU affinity strategy used for pinning event loop threads to cores.
+ */
+
+package platform.bridge.base.loop;
+
+/**
+ * CPU affinity strategy used for pinning event loop threads to cores. Implementations pin the calling thread, as
+ * threads are pinned from within themselves once they start.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public interface ICpuAffinity
+{
+    /**
+     * Check whether affinity can be set on this host.
+     * 
+     * @return - true if threads can be pinned or false otherwise.
+     */
+    boolean isSupported();
+
+    /**
+     * Retrieve number of cores threads can be pinned to.
+     * 
+     * @return - number of cores.
+     */
+    int getCoreCount();
+
+    /**
+     * Pin the calling thread to a core.
+     * 
+     * @param core
+     *            - a core index between 0 and {@link #getCoreCount()} - 1.
+     * @return - true if thread has been pinned or false otherwise.
+     */
+    boolean pinCurrentThread(int core);
+}
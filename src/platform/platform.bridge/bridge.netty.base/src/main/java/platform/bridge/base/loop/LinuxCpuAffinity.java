@@ -0,0 +1,104 @@
+/**
+ * @file LinuxCpuAffinity.java
+ * @brief Linux CPU affinity using taskset on the native thread id.
+ */
+
+package platform.bridge.base.loop;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Linux CPU affinity using taskset on the native thread id. Native id of the calling thread is resolved through
+ * /proc/thread-self, so no native library is required. Pinning forks a process and should therefore only be done once
+ * per thread, i.e. when an event loop thread starts.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class LinuxCpuAffinity implements ICpuAffinity
+{
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(LinuxCpuAffinity.class);
+
+    // Errors, args, messages.
+    private static final String WARN_PIN_FAILED = "Failed pinning thread [%s] to core [%d].";
+    private static final String MSG_PINNED = "Pinned thread [%s] to core [%d].";
+
+    // Paths.
+    private static final String THREAD_SELF = "/proc/thread-self";
+    private static final File DEV_NULL = new File("/dev/null");
+    private static final String[] TASKSET_PATHS = { "/usr/bin/taskset", "/bin/taskset" };
+
+    // Resolved taskset executable or null if not found.
+    private final String taskset;
+
+    /**
+     * Ctor.
+     */
+    public LinuxCpuAffinity()
+    {
+        String found = null;
+        for (String path : TASKSET_PATHS)
+        {
+            if (new File(path).canExecute())
+            {
+                found = path;
+                break;
+            }
+        }
+        this.taskset = found;
+    }
+
+    @Override
+    public boolean isSupported()
+    {
+        return taskset != null && System.getProperty("os.name").toLowerCase().contains("linux")
+            && new File(THREAD_SELF).exists();
+    }
+
+    @Override
+    public int getCoreCount()
+    {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public boolean pinCurrentThread(int core)
+    {
+        String threadName = Thread.currentThread().getName();
+        try
+        {
+            // Resolves to /proc/<pid>/task/<tid>.
+            Path threadPath = Paths.get(THREAD_SELF).toRealPath();
+            String tid = threadPath.getFileName().toString();
+
+            // Discard taskset output, as closing an unread pipe could fail its writes and with them the pinning.
+            Process process = new ProcessBuilder(taskset, "-p", "-c", String.valueOf(core), tid)
+                .redirectErrorStream(true).redirectOutput(Redirect.to(DEV_NULL)).start();
+            if (process.waitFor() == 0)
+            {
+                LOG.info(String.format(MSG_PINNED, threadName, core));
+                return true;
+            }
+        }
+        catch (IOException ioe)
+        {
+            LOG.warn(String.format(WARN_PIN_FAILED, threadName, core), ioe);
+            return false;
+        }
+        catch (InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        LOG.warn(String.format(WARN_PIN_FAILED, threadName, core));
+        return false;
+    }
+}
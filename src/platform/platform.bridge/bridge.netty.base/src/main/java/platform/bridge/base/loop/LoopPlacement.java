@@ -0,0 +1,63 @@
+/**
+ * @file LoopPlacement.java
+ * @brief Placement of an event loop: its group, thread and core.
+ */
+
+package platform.bridge.base.loop;
+
+/**
+ * Placement of an event loop: its group, thread and core. Used for reporting where proxies and channels are served.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class LoopPlacement
+{
+    // Group name.
+    private final String groupName;
+
+    // Loop thread name or null if loop thread has not started yet.
+    private final String threadName;
+
+    // Core the loop thread is pinned to or PlatformThreadFactory.NO_CORE.
+    private final int core;
+
+    /**
+     * Ctor.
+     * 
+     * @param groupName
+     *            - a {@link String} group name.
+     * @param threadName
+     *            - a {@link String} loop thread name.
+     * @param core
+     *            - a pinned core or {@link PlatformThreadFactory#NO_CORE}.
+     */
+    public LoopPlacement(String groupName, String threadName, int core)
+    {
+        this.groupName = groupName;
+        this.threadName = threadName;
+        this.core = core;
+    }
+
+    public String getGroupName()
+    {
+        return groupName;
+    }
+
+    public String getThreadName()
+    {
+        return threadName;
+    }
+
+    public int getCore()
+    {
+        return core;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s/%s@%s", groupName, threadName, core != PlatformThreadFactory.NO_CORE ? "core-"
+            + core : "unpinned");
+    }
+}
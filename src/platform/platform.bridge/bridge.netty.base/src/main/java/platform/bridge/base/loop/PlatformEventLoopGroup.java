@@ -0,0 +1,280 @@
+/**
+ * @file PlatformEventLoopGroup.java
+ * @brief Named event loop group shared by one or more bridge proxies.
+ */
+
+package platform.bridge.base.loop;
+
+import game.core.util.ArgsChecker;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import platform.bridge.base.transport.ITransport;
+
+/**
+ * Named event loop group shared by one or more bridge proxies. Group keeps a reference count of proxies using it so it
+ * can be shut down once the last proxy has been released, and samples CPU time of its loop threads to report
+ * utilisation.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class PlatformEventLoopGroup
+{
+    // Errors, args, messages.
+    private static final String ARG_NAME = "name";
+    private static final String ARG_TRANSPORT = "transport";
+    private static final String ARG_NUM_THREADS = "numThreads";
+    private static final String ARG_THREAD_FACTORY = "threadFactory";
+
+    // Thread bean for sampling loop thread CPU time.
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    // A flag determining whether thread CPU time measurement has been requested by a loop load consumer.
+    private static volatile boolean cpuTimeRequested;
+
+    // Group name.
+    private final String name;
+
+    // Number of event loop threads.
+    private final int threadCount;
+
+    // Factory of loop threads.
+    private final PlatformThreadFactory threadFactory;
+
+    // Underlying netty event loop group.
+    private final EventLoopGroup eventLoopGroup;
+
+    // Event loop to its thread mapping, filled in once each loop thread has started.
+    private final ConcurrentMap<EventExecutor, Thread> loopThreadMap;
+
+    // Number of proxies using this group.
+    private final AtomicInteger referenceCount;
+
+    // Previous sample state, guarded by this.
+    private final Map<EventExecutor, Long> lastCpuTimeMap;
+    private final ConcurrentMap<EventExecutor, Double> loopUtilisationMap;
+    private long lastSampleNanos;
+
+    /**
+     * Ctor.
+     * 
+     * @param name
+     *            - a {@link String} group name, also used as loop thread name prefix.
+     * @param transport
+     *            - an {@link ITransport} to create event loops with.
+     * @param numThreads
+     *            - number of event loop threads.
+     */
+    public PlatformEventLoopGroup(String name, ITransport transport, int numThreads)
+    {
+        this(name, transport, numThreads, new PlatformThreadFactory(name, null, null));
+    }
+
+    /**
+     * Ctor.
+     * 
+     * @param name
+     *            - a {@link String} group name.
+     * @param transport
+     *            - an {@link ITransport} to create event loops with.
+     * @param numThreads
+     *            - number of event loop threads.
+     * @param threadFactory
+     *            - a {@link PlatformThreadFactory} creating loop threads.
+     */
+    public PlatformEventLoopGroup(String name, ITransport transport, int numThreads,
+        PlatformThreadFactory threadFactory)
+    {
+        ArgsChecker.errorOnNull(name, ARG_NAME);
+        ArgsChecker.errorOnNull(transport, ARG_TRANSPORT);
+        ArgsChecker.errorOnLessThan0(numThreads, ARG_NUM_THREADS);
+        ArgsChecker.errorOnNull(threadFactory, ARG_THREAD_FACTORY);
+
+        this.name = name;
+        this.threadCount = numThreads;
+        this.threadFactory = threadFactory;
+        this.eventLoopGroup = transport.newEventLoopGroup(numThreads, threadFactory);
+        this.loopThreadMap = new ConcurrentHashMap<EventExecutor, Thread>();
+        this.referenceCount = new AtomicInteger();
+        this.lastCpuTimeMap = new HashMap<EventExecutor, Long>();
+        this.loopUtilisationMap = new ConcurrentHashMap<EventExecutor, Double>();
+        this.lastSampleNanos = System.nanoTime();
+
+        // Starts each loop thread and records it.
+        for (final EventExecutor loop : eventLoopGroup)
+        {
+            loop.execute(new Runnable() {
+                @Override
+                public void run()
+                {
+                    loopThreadMap.put(loop, Thread.currentThread());
+                }
+            });
+        }
+    }
+
+    /**
+     * Register another proxy using this group.
+     * 
+     * @return - this group.
+     */
+    public PlatformEventLoopGroup retain()
+    {
+        referenceCount.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Unregister a proxy using this group.
+     * 
+     * @return - true if no proxies are using this group anymore or false otherwise.
+     */
+    public boolean release()
+    {
+        return referenceCount.decrementAndGet() <= 0;
+    }
+
+    /**
+     * Enable thread CPU time measurement, which loop utilisation is sampled with. It is a JVM wide setting, so it is
+     * only enabled once a consumer of loop load, such as group sampling or loop rebalancing, is in use.
+     */
+    public static void enableCpuTime()
+    {
+        if (cpuTimeRequested)
+        {
+            return;
+        }
+        cpuTimeRequested = true;
+        if (THREAD_MX_BEAN.isThreadCpuTimeSupported() && !THREAD_MX_BEAN.isThreadCpuTimeEnabled())
+        {
+            THREAD_MX_BEAN.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    /**
+     * Sample utilisation of group loops since the previous sample.
+     * 
+     * @return - an {@link EventLoopGroupStats} snapshot.
+     */
+    public synchronized EventLoopGroupStats sample()
+    {
+        enableCpuTime();
+        long now = System.nanoTime();
+        long wallNanos = now - lastSampleNanos;
+        lastSampleNanos = now;
+
+        double total = 0;
+        double max = 0;
+        for (Map.Entry<EventExecutor, Thread> entry : loopThreadMap.entrySet())
+        {
+            long cpuNanos = THREAD_MX_BEAN.getThreadCpuTime(entry.getValue().getId());
+            Long lastCpuNanos = lastCpuTimeMap.put(entry.getKey(), cpuNanos);
+
+            double loopUtilisation = 0;
+            if (cpuNanos >= 0 && lastCpuNanos != null && lastCpuNanos >= 0 && wallNanos > 0)
+            {
+                loopUtilisation = Math.min(1.0, (cpuNanos - lastCpuNanos) / (double) wallNanos);
+            }
+            loopUtilisationMap.put(entry.getKey(), loopUtilisation);
+            total += loopUtilisation;
+            max = Math.max(max, loopUtilisation);
+        }
+
+        return new EventLoopGroupStats(name, threadCount, referenceCount.get(), loopThreadMap.isEmpty() ? 0 : total
+            / loopThreadMap.size(), max);
+    }
+
+    /**
+     * Retrieve utilisation of a group loop as of the last sample.
+     * 
+     * @param loop
+     *            - an {@link EventExecutor} of this group.
+     * @return - loop utilisation or 0 if loop has not been sampled yet.
+     */
+    public double getLoopUtilisation(EventExecutor loop)
+    {
+        Double loopUtilisation = loopUtilisationMap.get(loop);
+        return loopUtilisation != null ? loopUtilisation : 0;
+    }
+
+    /**
+     * Retrieve thread running given group loop.
+     * 
+     * @param loop
+     *            - an {@link EventExecutor} of this group.
+     * @return - loop {@link Thread} or null if loop thread has not started yet.
+     */
+    public Thread getLoopThread(EventExecutor loop)
+    {
+        return loopThreadMap.get(loop);
+    }
+
+    /**
+     * Retrieve CPU time consumed by thread of a group loop so far. Unlike {@link #sample()} this does not reset any
+     * state, so callers may compute their own utilisation over their own intervals.
+     * 
+     * @param loop
+     *            - an {@link EventExecutor} of this group.
+     * @return - CPU time in nanoseconds or -1 if loop thread has not started yet or CPU time is not supported or
+     *         enabled.
+     */
+    public long getLoopCpuTimeNanos(EventExecutor loop)
+    {
+        Thread thread = loopThreadMap.get(loop);
+        return thread != null ? THREAD_MX_BEAN.getThreadCpuTime(thread.getId()) : -1;
+    }
+
+    /**
+     * Retrieve placement of a loop of this group.
+     * 
+     * @param loop
+     *            - an {@link EventExecutor} to retrieve placement for.
+     * @return - a {@link LoopPlacement} or null if loop does not belong to this group.
+     */
+    public LoopPlacement getLoopPlacement(EventExecutor loop)
+    {
+        if (loop == null || loop.parent() != eventLoopGroup)
+        {
+            return null;
+        }
+
+        Thread thread = loopThreadMap.get(loop);
+        return new LoopPlacement(name, thread != null ? thread.getName() : null,
+            thread != null ? threadFactory.getCore(thread) : PlatformThreadFactory.NO_CORE);
+    }
+
+    /**
+     * Shut down group event loops.
+     * 
+     * @return - a termination {@link Future}.
+     */
+    public Future<?> shutdownGracefully()
+    {
+        return eventLoopGroup.shutdownGracefully();
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getThreadCount()
+    {
+        return threadCount;
+    }
+
+    public EventLoopGroup getEventLoopGroup()
+    {
+        return eventLoopGroup;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * @file PlatformThreadFactory.java
+ * @brief Event loop thread factory with descriptive names and optional CPU affinity.
+ */
+
+package platform.bridge.base.loop;
+
+import game.core.util.ArgsChecker;
+import io.netty.util.concurrent.FastThreadLocalThread;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Event loop thread factory with descriptive names and optional CPU affinity. Threads are named
+ * [group name]-loop-[index]. When an affinity is set each thread pins itself to the next core on start, cores being
+ * handed out round robin from a counter that may be shared between factories so groups do not stack on the same cores.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class PlatformThreadFactory implements ThreadFactory
+{
+    // Errors, args, messages.
+    private static final String ARG_GROUP_NAME = "groupName";
+    private static final String LOOP_THREAD_FORMAT = "%s-loop-%d";
+
+    // Core value of threads that are not pinned.
+    public static final int NO_CORE = -1;
+
+    // Group name used as thread name prefix.
+    private final String groupName;
+
+    // Optional CPU affinity and core counter.
+    private final ICpuAffinity cpuAffinity;
+    private final AtomicInteger nextCore;
+
+    // Thread index counter.
+    private final AtomicInteger nextIndex;
+
+    // Pinned thread to core mapping.
+    private final ConcurrentMap<Thread, Integer> threadCoreMap;
+
+    /**
+     * Ctor.
+     * 
+     * @param groupName
+     *            - a {@link String} group name used as thread name prefix.
+     * @param cpuAffinity
+     *            - an {@link ICpuAffinity} to pin threads with or null to leave threads unpinned.
+     * @param nextCore
+     *            - an {@link AtomicInteger} core counter or null to start at core 0.
+     */
+    public PlatformThreadFactory(String groupName, ICpuAffinity cpuAffinity, AtomicInteger nextCore)
+    {
+        ArgsChecker.errorOnNull(groupName, ARG_GROUP_NAME);
+
+        this.groupName = groupName;
+        this.cpuAffinity = cpuAffinity;
+        this.nextCore = nextCore != null ? nextCore : new AtomicInteger();
+        this.nextIndex = new AtomicInteger();
+        this.threadCoreMap = new ConcurrentHashMap<Thread, Integer>();
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable)
+    {
+        final int core = cpuAffinity != null ? nextCore.getAndIncrement() % cpuAffinity.getCoreCount() : NO_CORE;
+        return new FastThreadLocalThread(new Runnable() {
+            @Override
+            public void run()
+            {
+                if (core != NO_CORE && cpuAffinity.pinCurrentThread(core))
+                {
+                    threadCoreMap.put(Thread.currentThread(), core);
+                }
+                try
+                {
+                    runnable.run();
+                }
+                finally
+                {
+                    threadCoreMap.remove(Thread.currentThread());
+                }
+            }
+        }, String.format(LOOP_THREAD_FORMAT, groupName, nextIndex.getAndIncrement()));
+    }
+
+    /**
+     * Retrieve core a thread of this factory is pinned to.
+     * 
+     * @param thread
+     *            - a {@link Thread} created by this factory.
+     * @return - core index or {@link #NO_CORE} if thread is not pinned.
+     */
+    public int getCore(Thread thread)
+    {
+        Integer core = threadCoreMap.get(thread);
+        return core != null ? core : NO_CORE;
+    }
+
+    /**
+     * Check whether threads of this factory are pinned to cores.
+     * 
+     * @return - true if affinity has been set or false otherwise.
+     */
+    public boolean isPinning()
+    {
+        return cpuAffinity != null;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * @file ConnectionRefusalHandler.java
+ * @brief Connection refusal handler refuses connections accepted by a service while its outbound budget is exceeded.
+ */
+
+package platform.bridge.base.outbound;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * Connection refusal handler refuses connections accepted by a service while its {@link OutboundBudget} is under
+ * pressure, as each new client would only add to pending outbound bytes. Handler is placed in the pipeline of the
+ * service server channel, where accepted channels are read before they are registered and initialised, so a refused
+ * channel is closed without ever getting a platform pipeline. Each refusal is counted by the budget and logged.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+@Sharable
+public final class ConnectionRefusalHandler extends ChannelInboundHandlerAdapter
+{
+    // Errors, args, messages.
+    private static final String ARG_BUDGET = "budget";
+    private static final String ARG_PROXY_NAME = "proxyName";
+    private static final String WARN_CONNECTION_REFUSED = "Refusing connection from: [%s] to proxy: [%s] as outbound budget is exceeded.";
+
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionRefusalHandler.class);
+
+    // Budget deciding on refusals.
+    private final OutboundBudget budget;
+
+    // Name of the accepting service proxy.
+    private final String proxyName;
+
+    /**
+     * Ctor.
+     * 
+     * @param budget
+     *            - an {@link OutboundBudget} of the accepting service proxy.
+     * @param proxyName
+     *            - a {@link String} name of the accepting service proxy.
+     */
+    public ConnectionRefusalHandler(OutboundBudget budget, String proxyName)
+    {
+        ArgsChecker.errorOnNull(budget, ARG_BUDGET);
+        ArgsChecker.errorOnNull(proxyName, ARG_PROXY_NAME);
+        this.budget = budget;
+        this.proxyName = proxyName;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+    {
+        if (msg instanceof Channel && budget.refuseConnection())
+        {
+            Channel child = (Channel) msg;
+            LOG.warn(String.format(WARN_CONNECTION_REFUSED, child.remoteAddress(), proxyName));
+            child.unsafe().closeForcibly();
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+}
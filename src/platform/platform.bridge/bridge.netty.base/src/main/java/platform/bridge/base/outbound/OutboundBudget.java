@@ -0,0 +1,323 @@
+/**
+ * @file OutboundBudget.java
+ * @brief Outbound budget accounts outbound bytes pending across all bridge channels of the process.
+ */
+
+package platform.bridge.base.outbound;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import platform.bridge.api.observer.IBridgePressureObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.EPacketPriority;
+
+/**
+ * Outbound budget accounts outbound bytes pending across all bridge channels of the process. Per channel write buffer
+ * watermarks bound a single slow peer, while the budget bounds the sum over all of them, so thousands of moderately
+ * backed up channels cannot exhaust memory during a network incident. Bytes are reserved once a packet is encoded and
+ * released once it has been written to the socket or failed.
+ * 
+ * Once pending bytes exceed the budget the bridge is under pressure: droppable and {@link EPacketPriority#LOW} packets
+ * are shed and services refuse new connections until pending bytes fall below the resume level, three quarters of the
+ * budget. Pressure changes are reported to registered {@link IBridgePressureObserver}s. Budget of 0 disables accounting
+ * for channels opened afterwards. Initial budget of the process wide instance is read from
+ * {@link #PROPERTY_OUTBOUND_BUDGET_BYTES} system property. Proxies account with the process wide instance unless they
+ * are given their own with
+ * {@link platform.bridge.base.proxy.AbstractNettyBridgeAdapter#setOutboundBudget(OutboundBudget)}.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class OutboundBudget
+{
+    // Errors, args, messages.
+    private static final String ARG_BUDGET_BYTES = "budgetBytes";
+    private static final String ARG_PRESSURE_OBSERVER = "pressureObserver";
+    private static final String WARN_PRESSURE_ON = "Outbound bytes pending: [%d] exceeded budget: [%d]. Shedding droppable and low priority packets and refusing connections.";
+    private static final String MSG_PRESSURE_OFF = "Outbound bytes pending: [%d] fell below resume level of budget: [%d].";
+    private static final String WARN_OBSERVER_NOTIFY = "Error notifying pressure observer with pressure change event.";
+
+    // System property setting initial budget in bytes.
+    public static final String PROPERTY_OUTBOUND_BUDGET_BYTES = "platform.bridge.outboundBudgetBytes";
+
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(OutboundBudget.class);
+
+    // Process wide instance.
+    private static final OutboundBudget INSTANCE = new OutboundBudget(Math.max(0, Long.getLong(
+        PROPERTY_OUTBOUND_BUDGET_BYTES, 0L)));
+
+    // Budget and resume level in bytes, budget of 0 disables accounting.
+    private volatile long budgetBytes;
+    private volatile long resumeBytes;
+
+    // Outbound bytes pending across all accounted channels.
+    private final AtomicLong pendingBytes;
+
+    // A flag determining whether bridge is under pressure.
+    private final AtomicBoolean underPressure;
+
+    // Pressure observers.
+    private final List<IBridgePressureObserver> pressureObserverList;
+
+    // Packets shed, connections refused and pressure periods.
+    private final LongAdder shed;
+    private final LongAdder refused;
+    private final LongAdder pressureCount;
+
+    /**
+     * Ctor.
+     * 
+     * @param budgetBytes
+     *            - initial budget in bytes or 0 to disable accounting.
+     */
+    public OutboundBudget(long budgetBytes)
+    {
+        this.pendingBytes = new AtomicLong();
+        this.underPressure = new AtomicBoolean();
+        this.pressureObserverList = new CopyOnWriteArrayList<IBridgePressureObserver>();
+        this.shed = new LongAdder();
+        this.refused = new LongAdder();
+        this.pressureCount = new LongAdder();
+        setBudgetBytes(budgetBytes);
+    }
+
+    /**
+     * Retrieve process wide instance.
+     * 
+     * @return - process wide {@link OutboundBudget}, used by proxies which have not been given their own.
+     */
+    public static OutboundBudget getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Set the budget. Takes effect for accounting of channels opened afterwards and for pressure checks right away.
+     * 
+     * @param budgetBytes
+     *            - budget in bytes or 0 to disable accounting.
+     */
+    public void setBudgetBytes(long budgetBytes)
+    {
+        ArgsChecker.errorOnLessThan0(budgetBytes, ARG_BUDGET_BYTES);
+
+        this.resumeBytes = budgetBytes / 4 * 3;
+        this.budgetBytes = budgetBytes;
+        if (budgetBytes == 0)
+        {
+            leavePressure(pendingBytes.get());
+        }
+    }
+
+    /**
+     * Register a pressure observer.
+     * 
+     * @param pressureObserver
+     *            - an {@link IBridgePressureObserver} to notify of pressure changes.
+     */
+    public void addPressureObserver(IBridgePressureObserver pressureObserver)
+    {
+        ArgsChecker.errorOnNull(pressureObserver, ARG_PRESSURE_OBSERVER);
+        pressureObserverList.add(pressureObserver);
+    }
+
+    /**
+     * Unregister a pressure observer.
+     * 
+     * @param pressureObserver
+     *            - an {@link IBridgePressureObserver} to remove.
+     */
+    public void removePressureObserver(IBridgePressureObserver pressureObserver)
+    {
+        pressureObserverList.remove(pressureObserver);
+    }
+
+    /**
+     * Check whether outbound bytes of new channels should be accounted.
+     * 
+     * @return - true if a budget has been set, false otherwise.
+     */
+    public boolean isEnabled()
+    {
+        return budgetBytes > 0;
+    }
+
+    /**
+     * Check whether bridge is under pressure.
+     * 
+     * @return - true if pending outbound bytes exceeded the budget and have not fallen below resume level yet.
+     */
+    public boolean isUnderPressure()
+    {
+        return underPressure.get();
+    }
+
+    /**
+     * Determine whether a packet should be shed, counting it if so.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} about to be sent.
+     * @return - true if bridge is under pressure and packet is droppable or of low priority, false if packet should be
+     *         sent.
+     */
+    public boolean shed(AbstractPacket packet)
+    {
+        if (underPressure.get() && (packet.isDroppable() || packet.getPriority() == EPacketPriority.LOW))
+        {
+            shed.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determine whether a new service connection should be refused, counting it if so.
+     * 
+     * @return - true if bridge is under pressure, false otherwise.
+     */
+    public boolean refuseConnection()
+    {
+        if (underPressure.get())
+        {
+            refused.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reserve bytes of an outbound write.
+     * 
+     * @param bytes
+     *            - number of bytes written.
+     */
+    void reserve(long bytes)
+    {
+        long pending = pendingBytes.addAndGet(bytes);
+        long budget = budgetBytes;
+        if (budget > 0 && pending > budget && underPressure.compareAndSet(false, true))
+        {
+            pressureCount.increment();
+            LOG.warn(String.format(WARN_PRESSURE_ON, pending, budget));
+            notifyPressureObservers(true, pending, budget);
+        }
+    }
+
+    /**
+     * Release bytes of a completed or failed outbound write.
+     * 
+     * @param bytes
+     *            - number of bytes released.
+     */
+    void release(long bytes)
+    {
+        long pending = pendingBytes.addAndGet(-bytes);
+        if (pending < resumeBytes || budgetBytes == 0)
+        {
+            leavePressure(pending);
+        }
+    }
+
+    /**
+     * Leave pressure if under pressure.
+     * 
+     * @param pending
+     *            - currently pending bytes.
+     */
+    private void leavePressure(long pending)
+    {
+        if (underPressure.compareAndSet(true, false))
+        {
+            LOG.info(String.format(MSG_PRESSURE_OFF, pending, budgetBytes));
+            notifyPressureObservers(false, pending, budgetBytes);
+        }
+    }
+
+    /**
+     * Notify pressure observers of a pressure change.
+     */
+    private void notifyPressureObservers(boolean pressure, long pending, long budget)
+    {
+        for (IBridgePressureObserver pressureObserver : pressureObserverList)
+        {
+            // Guard for application level stupidity.
+            try
+            {
+                pressureObserver.notifyPressureChanged(pressure, pending, budget);
+            }
+            catch (Exception e)
+            {
+                LOG.warn(WARN_OBSERVER_NOTIFY, e);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the budget.
+     * 
+     * @return - budget in bytes, 0 if accounting is disabled.
+     */
+    public long getBudgetBytes()
+    {
+        return budgetBytes;
+    }
+
+    /**
+     * Retrieve the resume level, three quarters of the budget.
+     * 
+     * @return - number of bytes pending bytes must fall below to leave pressure.
+     */
+    public long getResumeBytes()
+    {
+        return resumeBytes;
+    }
+
+    /**
+     * Retrieve outbound bytes pending across all accounted channels.
+     * 
+     * @return - bytes reserved and not yet released.
+     */
+    public long getPendingBytes()
+    {
+        return pendingBytes.get();
+    }
+
+    /**
+     * Retrieve number of packets shed under pressure.
+     * 
+     * @return - number of packets shed so far.
+     */
+    public long getShed()
+    {
+        return shed.sum();
+    }
+
+    /**
+     * Retrieve number of service connections refused under pressure.
+     * 
+     * @return - number of connections refused so far.
+     */
+    public long getRefused()
+    {
+        return refused.sum();
+    }
+
+    /**
+     * Retrieve number of times the budget has been exceeded.
+     * 
+     * @return - number of pressure periods entered so far.
+     */
+    public long getPressureCount()
+    {
+        return pressureCount.sum();
+    }
+}
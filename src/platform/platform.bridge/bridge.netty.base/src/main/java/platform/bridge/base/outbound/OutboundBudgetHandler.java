@@ -0,0 +1,148 @@
+/**
+ * @file OutboundBudgetHandler.java
+ * @brief Outbound budget handler accounts encoded outbound bytes of a channel with the outbound budget of its proxy.
+ */
+
+package platform.bridge.base.outbound;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound budget handler accounts encoded outbound bytes of a channel with the {@link OutboundBudget} of its proxy.
+ * Bytes of a write are reserved when it enters the handler. They are released as the outbound buffer of the channel
+ * drains: after each flush, on writability changes and, while flushed bytes are still waiting for the socket, on a
+ * short timer. Bytes left on close are released with the channel, so pending bytes always return to zero. Writes keep
+ * their own promise, so sends with void promises stay free of per write allocations. Handler keeps per channel state
+ * and must be placed at the head of the pipeline, so it sees encoded frames.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class OutboundBudgetHandler extends ChannelDuplexHandler
+{
+    // Delay between checks of flushed bytes still waiting for the socket.
+    private static final long DRAIN_CHECK_MS = 10;
+
+    // Accounted budget.
+    private final OutboundBudget budget;
+
+    // Bytes of the channel reserved with the budget, accessed on channel event loop only.
+    private long accounted;
+
+    // A flag determining whether a drain check is scheduled, accessed on channel event loop only.
+    private boolean drainCheckScheduled;
+
+    // Context of the handler, set once added.
+    private ChannelHandlerContext ctx;
+
+    // Reusable drain check.
+    private final Runnable drainCheck = new Runnable() {
+        @Override
+        public void run()
+        {
+            drainCheckScheduled = false;
+            drained();
+        }
+    };
+
+    /**
+     * Ctor.
+     * 
+     * @param budget
+     *            - an {@link OutboundBudget} to account bytes with.
+     */
+    public OutboundBudgetHandler(OutboundBudget budget)
+    {
+        this.budget = budget;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception
+    {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception
+    {
+        int bytes = msg instanceof ByteBuf ? ((ByteBuf) msg).readableBytes() : 0;
+        if (bytes > 0)
+        {
+            budget.reserve(bytes);
+            accounted += bytes;
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception
+    {
+        ctx.flush();
+        drained();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+    {
+        drained();
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception
+    {
+        releaseAll();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception
+    {
+        releaseAll();
+    }
+
+    /**
+     * Release bytes which have left the outbound buffer of the channel. Buffered bytes include per message overhead,
+     * so accounted bytes are only released once the buffer holds less than them. While flushed bytes still wait for
+     * the socket, a drain check is scheduled, as the transport writes them without passing through the pipeline.
+     */
+    private void drained()
+    {
+        if (accounted == 0)
+        {
+            return;
+        }
+
+        ChannelOutboundBuffer outboundBuffer = ctx.channel().unsafe().outboundBuffer();
+        long pending = outboundBuffer != null ? outboundBuffer.totalPendingWriteBytes() : 0;
+        if (pending < accounted)
+        {
+            budget.release(accounted - pending);
+            accounted = pending;
+        }
+
+        if (accounted > 0 && !drainCheckScheduled && ctx.channel().isActive())
+        {
+            drainCheckScheduled = true;
+            ctx.executor().schedule(drainCheck, DRAIN_CHECK_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Release all accounted bytes once channel is gone.
+     */
+    private void releaseAll()
+    {
+        if (accounted > 0)
+        {
+            budget.release(accounted);
+            accounted = 0;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ * @file PriorityLaneHandler.java
+ * @brief Priority lane handler schedules packets written to a channel by their priority class.
+ */
+
+package platform.bridge.base.outbound;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.protocol.EPacketPriority;
+import platform.bridge.api.proxy.ESlowConsumerPolicy;
+import platform.bridge.base.pipeline.encoder.PlatformPacketEncoder;
+
+/**
+ * Priority lane handler schedules packets written to a channel by their {@link EPacketPriority}, so control traffic is
+ * not stuck behind bulk transfers on the same connection:
+ * <ul>
+ * <li>{@link EPacketPriority#HIGH} packets are always written right away.</li>
+ * <li>{@link EPacketPriority#NORMAL} packets are queued while channel is not writable or other normal packets are
+ * queued.</li>
+ * <li>{@link EPacketPriority#LOW} packets are queued while channel is not writable or any normal or low packets are
+ * queued.</li>
+ * </ul>
+ * Queued packets are written normal lane first on flush and once channel is writable again, for as long as it stays
+ * writable. Outbound buffer of the channel therefore never holds more than the high write buffer watermark of lower
+ * priority bytes, which bounds head-of-line delay of a control packet to the time it takes to send those, while the
+ * rest of the bulk waits in its lane. Packets are bounded by the frame length, so a large payload is sent as a series
+ * of packets and control packets interleave between them. Packets within a lane keep their order, packets of different
+ * lanes may be reordered. Already encoded buffers, e.g. broadcasts, are written as usual.
+ * 
+ * Queued packets are encoded as they enter a lane, so their bytes are known: they are reserved with the
+ * {@link OutboundBudget} of the proxy while queued, and once lanes hold more than the high write buffer watermark of
+ * the channel the slow consumer policy applies to further queued packets. {@link ESlowConsumerPolicy#DROP} discards
+ * droppable packets and {@link ESlowConsumerPolicy#DISCONNECT} closes the channel, while without a discarding policy
+ * packets are still queued, as the outbound buffer of the channel would hold them without lanes, and are only bounded
+ * by the budget.
+ * 
+ * Handler keeps per channel state and must be placed above the packet encoder, so it sees packets before they are
+ * encoded, and below the slow consumer handler.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class PriorityLaneHandler extends ChannelDuplexHandler
+{
+    // Errors, args, messages.
+    private static final String ARG_PROTOCOL = "protocol";
+    private static final String ARG_COUNTERS = "counters";
+    private static final String ARG_BUDGET = "budget";
+    private static final String WARN_DISCONNECT = "Closing channel: [%s] as its priority lanes hold: [%d] bytes.";
+
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(PriorityLaneHandler.class);
+
+    // Protocol queued packets are encoded with.
+    private final AbstractPlatformProtocol protocol;
+
+    // Slow consumer policy applied once lanes overflow or null if none has been set.
+    private final ESlowConsumerPolicy policy;
+
+    // Counters shared by all channels of the proxy.
+    private final SlowConsumerCounters counters;
+
+    // Budget queued bytes are reserved with or null if budget was disabled when channel was opened.
+    private final OutboundBudget budget;
+
+    // Queued normal and low priority packets and their promises.
+    private final Queue<PendingWrite> normalLane;
+    private final Queue<PendingWrite> lowLane;
+
+    // Encoded bytes of queued packets.
+    private long queuedBytes;
+
+    /**
+     * Ctor.
+     * 
+     * @param protocol
+     *            - an {@link AbstractPlatformProtocol} to encode queued packets with.
+     * @param policy
+     *            - an {@link ESlowConsumerPolicy} to apply once lanes overflow or null if none has been set.
+     * @param counters
+     *            - a {@link SlowConsumerCounters} to record policy actions with.
+     * @param budget
+     *            - an {@link OutboundBudget} to reserve queued bytes with, if enabled.
+     */
+    public PriorityLaneHandler(AbstractPlatformProtocol protocol, ESlowConsumerPolicy policy,
+        SlowConsumerCounters counters, OutboundBudget budget)
+    {
+        ArgsChecker.errorOnNull(protocol, ARG_PROTOCOL);
+        ArgsChecker.errorOnNull(counters, ARG_COUNTERS);
+        ArgsChecker.errorOnNull(budget, ARG_BUDGET);
+
+        this.protocol = protocol;
+        this.policy = policy;
+        this.counters = counters;
+        this.budget = budget.isEnabled() ? budget : null;
+        this.normalLane = new ArrayDeque<PendingWrite>();
+        this.lowLane = new ArrayDeque<PendingWrite>();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception
+    {
+        if (msg instanceof AbstractPacket)
+        {
+            AbstractPacket packet = (AbstractPacket) msg;
+            EPacketPriority priority = packet.getPriority();
+            boolean writable = ctx.channel().isWritable();
+            if (priority == EPacketPriority.NORMAL && (!writable || !normalLane.isEmpty()))
+            {
+                queue(ctx, packet, promise, normalLane);
+                return;
+            }
+            if (priority == EPacketPriority.LOW && (!writable || !normalLane.isEmpty() || !lowLane.isEmpty()))
+            {
+                queue(ctx, packet, promise, lowLane);
+                return;
+            }
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception
+    {
+        writeQueued(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+    {
+        if (ctx.channel().isWritable() && (!normalLane.isEmpty() || !lowLane.isEmpty()))
+        {
+            writeQueued(ctx);
+            ctx.flush();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception
+    {
+        discardQueued();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception
+    {
+        discardQueued();
+    }
+
+    /**
+     * Retrieve number of queued packets.
+     * 
+     * @return - number of normal and low priority packets waiting in their lanes.
+     */
+    public int getQueued()
+    {
+        return normalLane.size() + lowLane.size();
+    }
+
+    /**
+     * Retrieve number of queued bytes.
+     * 
+     * @return - encoded bytes of normal and low priority packets waiting in their lanes.
+     */
+    public long getQueuedBytes()
+    {
+        return queuedBytes;
+    }
+
+    /**
+     * Encode a packet into a lane, applying slow consumer policy if lanes overflow.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of this handler.
+     * @param packet
+     *            - an {@link AbstractPacket} to queue.
+     * @param promise
+     *            - a {@link ChannelPromise} of the write.
+     * @param lane
+     *            - a {@link Queue} to queue packet into.
+     */
+    private void queue(ChannelHandlerContext ctx, AbstractPacket packet, ChannelPromise promise,
+        Queue<PendingWrite> lane)
+    {
+        if (queuedBytes >= ctx.channel().config().getWriteBufferHighWaterMark())
+        {
+            if (policy == ESlowConsumerPolicy.DROP && packet.isDroppable())
+            {
+                counters.recordDropped();
+                promise.trySuccess();
+                return;
+            }
+            if (policy == ESlowConsumerPolicy.DISCONNECT)
+            {
+                counters.recordDisconnected();
+                LOG.warn(String.format(WARN_DISCONNECT, ctx.channel().id().asLongText(), queuedBytes));
+                promise.tryFailure(new ClosedChannelException());
+                ctx.close();
+                return;
+            }
+        }
+
+        ByteBuf encoded = ctx.alloc().buffer();
+        try
+        {
+            PlatformPacketEncoder.encodePacket(protocol, packet, encoded);
+        }
+        catch (RuntimeException re)
+        {
+            // Unknown or failing packet fails its write, as it would in the packet encoder.
+            encoded.release();
+            promise.tryFailure(re);
+            return;
+        }
+
+        int bytes = encoded.readableBytes();
+        queuedBytes += bytes;
+        if (budget != null)
+        {
+            budget.reserve(bytes);
+        }
+        lane.add(new PendingWrite(encoded, bytes, promise));
+    }
+
+    /**
+     * Write queued packets, normal lane first, for as long as channel stays writable.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of this handler.
+     */
+    private void writeQueued(ChannelHandlerContext ctx)
+    {
+        writeLane(ctx, normalLane);
+        if (normalLane.isEmpty())
+        {
+            writeLane(ctx, lowLane);
+        }
+    }
+
+    /**
+     * Write queued packets of a lane for as long as channel stays writable.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of this handler.
+     * @param lane
+     *            - a {@link Queue} of queued packets.
+     */
+    private void writeLane(ChannelHandlerContext ctx, Queue<PendingWrite> lane)
+    {
+        PendingWrite pending;
+        while (ctx.channel().isWritable() && (pending = lane.poll()) != null)
+        {
+            dequeued(pending);
+            ctx.write(pending.encoded, pending.promise);
+        }
+    }
+
+    /**
+     * Fail queued packets of a closed channel.
+     */
+    private void discardQueued()
+    {
+        PendingWrite pending;
+        while ((pending = normalLane.poll()) != null || (pending = lowLane.poll()) != null)
+        {
+            dequeued(pending);
+            pending.encoded.release();
+            pending.promise.tryFailure(new ClosedChannelException());
+        }
+    }
+
+    /**
+     * Account a packet leaving its lane. Bytes of a written packet are reserved again by the budget handler.
+     * 
+     * @param pending
+     *            - a dequeued {@link PendingWrite}.
+     */
+    private void dequeued(PendingWrite pending)
+    {
+        queuedBytes -= pending.bytes;
+        if (budget != null)
+        {
+            budget.release(pending.bytes);
+        }
+    }
+
+    /**
+     * Queued encoded packet and its write promise.
+     */
+    private static class PendingWrite
+    {
+        private final ByteBuf encoded;
+        private final int bytes;
+        private final ChannelPromise promise;
+
+        /**
+         * Ctor.
+         * 
+         * @param encoded
+         *            - a {@link ByteBuf} queued encoded packet.
+         * @param bytes
+         *            - number of encoded bytes.
+         * @param promise
+         *            - a {@link ChannelPromise} of the write.
+         */
+        public PendingWrite(ByteBuf encoded, int bytes, ChannelPromise promise)
+        {
+            this.encoded = encoded;
+            this.bytes = bytes;
+            this.promise = promise;
+        }
+    }
+}
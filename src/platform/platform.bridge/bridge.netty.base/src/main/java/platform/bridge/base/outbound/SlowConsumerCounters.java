@@ -0,0 +1,73 @@
+/**
+ * @file SlowConsumerCounters.java
+ * @brief Counters of slow consumer policy actions taken for channels of a proxy.
+ */
+
+package platform.bridge.base.outbound;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of slow consumer policy actions taken for channels of a proxy. Counters are live, cumulative since proxy
+ * creation and updated from the event loops of its channels.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class SlowConsumerCounters
+{
+    // Times a channel became non writable.
+    private final LongAdder unwritable = new LongAdder();
+
+    // Packets dropped, packets superseded by a later packet with same conflation key and channels disconnected.
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    public void recordUnwritable()
+    {
+        unwritable.increment();
+    }
+
+    public void recordDropped()
+    {
+        dropped.increment();
+    }
+
+    public void recordConflated()
+    {
+        conflated.increment();
+    }
+
+    public void recordDisconnected()
+    {
+        disconnected.increment();
+    }
+
+    public long getUnwritable()
+    {
+        return unwritable.sum();
+    }
+
+    public long getDropped()
+    {
+        return dropped.sum();
+    }
+
+    public long getConflated()
+    {
+        return conflated.sum();
+    }
+
+    public long getDisconnected()
+    {
+        return disconnected.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("unwritable: [%d], dropped: [%d], conflated: [%d], disconnected: [%d]", getUnwritable(),
+            getDropped(), getConflated(), getDisconnected());
+    }
+}
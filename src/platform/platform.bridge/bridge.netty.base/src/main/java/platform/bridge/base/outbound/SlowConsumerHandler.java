@@ -0,0 +1,246 @@
+/**
+ * @file SlowConsumerHandler.java
+ * @brief Slow consumer handler applies slow consumer policy to packets written to a non writable channel.
+ */
+
+package platform.bridge.base.outbound;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.ESlowConsumerPolicy;
+
+/**
+ * Slow consumer handler applies slow consumer policy to packets written to a non writable channel. Channel becomes non
+ * writable once its outbound buffer grows over the high write buffer watermark and writable again once it drains below
+ * the low one, so the policy bounds memory held for a peer that does not read fast enough:
+ * <ul>
+ * <li>{@link ESlowConsumerPolicy#DROP} discards droppable packets.</li>
+ * <li>{@link ESlowConsumerPolicy#CONFLATE} holds back packets with a conflation key, keeping only the latest one per
+ * key, and writes them once channel is writable again. Packets without a key are written right away and may therefore
+ * overtake held back ones.</li>
+ * <li>{@link ESlowConsumerPolicy#DISCONNECT} closes the channel if it stays non writable for the grace period.</li>
+ * </ul>
+ * Other packets are written as usual. Handler keeps per channel state and must be placed above the packet encoder, so
+ * it sees packets before they are encoded.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class SlowConsumerHandler extends ChannelDuplexHandler
+{
+    // Errors, args, messages.
+    private static final String ARG_POLICY = "policy";
+    private static final String ARG_GRACE_MS = "graceMs";
+    private static final String ARG_COUNTERS = "counters";
+    private static final String WARN_DISCONNECT = "Closing channel: [%s] as it has not been writable for: [%d] ms.";
+
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(SlowConsumerHandler.class);
+
+    // Applied policy.
+    private final ESlowConsumerPolicy policy;
+
+    // Disconnect grace period in milliseconds.
+    private final long graceMs;
+
+    // Counters shared by all channels of the proxy.
+    private final SlowConsumerCounters counters;
+
+    // Held back packets and their promises by conflation key, in order of first arrival.
+    private final Map<Object, PendingWrite> conflatedMap;
+
+    // Scheduled disconnect or null if none is pending.
+    private ScheduledFuture<?> disconnectFuture;
+
+    /**
+     * Ctor.
+     * 
+     * @param policy
+     *            - an {@link ESlowConsumerPolicy} to apply.
+     * @param graceMs
+     *            - disconnect grace period in milliseconds.
+     * @param counters
+     *            - a {@link SlowConsumerCounters} to record policy actions with.
+     */
+    public SlowConsumerHandler(ESlowConsumerPolicy policy, long graceMs, SlowConsumerCounters counters)
+    {
+        ArgsChecker.errorOnNull(policy, ARG_POLICY);
+        ArgsChecker.errorOnLessThan0(graceMs, ARG_GRACE_MS);
+        ArgsChecker.errorOnNull(counters, ARG_COUNTERS);
+
+        this.policy = policy;
+        this.graceMs = graceMs;
+        this.counters = counters;
+        this.conflatedMap = new LinkedHashMap<Object, PendingWrite>();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception
+    {
+        if (!ctx.channel().isWritable() && msg instanceof AbstractPacket)
+        {
+            AbstractPacket packet = (AbstractPacket) msg;
+            if (policy == ESlowConsumerPolicy.DROP && packet.isDroppable())
+            {
+                counters.recordDropped();
+                promise.trySuccess();
+                return;
+            }
+            if (policy == ESlowConsumerPolicy.CONFLATE && packet.getConflationKey() != null)
+            {
+                PendingWrite superseded = conflatedMap.get(packet.getConflationKey());
+                if (superseded != null)
+                {
+                    counters.recordConflated();
+                    superseded.promise.trySuccess();
+                    superseded.packet = packet;
+                    superseded.promise = promise;
+                }
+                else
+                {
+                    conflatedMap.put(packet.getConflationKey(), new PendingWrite(packet, promise));
+                }
+                return;
+            }
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+    {
+        if (ctx.channel().isWritable())
+        {
+            cancelDisconnect();
+            writeConflated(ctx);
+        }
+        else
+        {
+            counters.recordUnwritable();
+            if (policy == ESlowConsumerPolicy.DISCONNECT && disconnectFuture == null)
+            {
+                scheduleDisconnect(ctx);
+            }
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception
+    {
+        cancelDisconnect();
+        discardConflated();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception
+    {
+        cancelDisconnect();
+        discardConflated();
+    }
+
+    /**
+     * Schedule closing of the channel unless it becomes writable within grace period.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of this handler.
+     */
+    private void scheduleDisconnect(final ChannelHandlerContext ctx)
+    {
+        disconnectFuture = ctx.executor().schedule(new Runnable() {
+            @Override
+            public void run()
+            {
+                disconnectFuture = null;
+                if (!ctx.channel().isWritable() && ctx.channel().isActive())
+                {
+                    counters.recordDisconnected();
+                    LOG.warn(String.format(WARN_DISCONNECT, ctx.channel().id().asLongText(), graceMs));
+                    ctx.close();
+                }
+            }
+        }, graceMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancel a pending disconnect if any.
+     */
+    private void cancelDisconnect()
+    {
+        if (disconnectFuture != null)
+        {
+            disconnectFuture.cancel(false);
+            disconnectFuture = null;
+        }
+    }
+
+    /**
+     * Write and flush held back packets.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of this handler.
+     */
+    private void writeConflated(ChannelHandlerContext ctx)
+    {
+        if (conflatedMap.isEmpty())
+        {
+            return;
+        }
+        for (Iterator<PendingWrite> it = conflatedMap.values().iterator(); it.hasNext();)
+        {
+            PendingWrite pending = it.next();
+            it.remove();
+            ctx.write(pending.packet, pending.promise);
+        }
+        ctx.flush();
+    }
+
+    /**
+     * Fail held back packets of a closed channel.
+     */
+    private void discardConflated()
+    {
+        for (PendingWrite pending : conflatedMap.values())
+        {
+            pending.promise.tryFailure(new ClosedChannelException());
+        }
+        conflatedMap.clear();
+    }
+
+    /**
+     * Held back packet and its write promise.
+     */
+    private static class PendingWrite
+    {
+        private AbstractPacket packet;
+        private ChannelPromise promise;
+
+        /**
+         * Ctor.
+         * 
+         * @param packet
+         *            - a held back {@link AbstractPacket}.
+         * @param promise
+         *            - a {@link ChannelPromise} of the write.
+         */
+        public PendingWrite(AbstractPacket packet, ChannelPromise promise)
+        {
+            this.packet = packet;
+            this.promise = promise;
+        }
+    }
+}
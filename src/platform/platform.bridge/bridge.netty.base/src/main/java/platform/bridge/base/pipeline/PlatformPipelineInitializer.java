@@ -9,32 +9,45 @@ import game.core.log.Logger;
 import game.core.log.LoggerFactory;
 import game.core.util.ArgsChecker;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.util.AttributeKey;
 
 import java.net.InetSocketAddress;
-import java.util.Set;
+import java.net.SocketAddress;
 import java.util.concurrent.TimeUnit;
 
 import platform.bridge.api.observer.IConnectionObserver;
 import platform.bridge.api.observer.IConnectionObserver.EConnectionState;
 import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.CompiledBridgeOptions;
+import platform.bridge.api.proxy.EFlushPolicy;
 import platform.bridge.base.pipeline.decoder.PlatformPacketDecoder;
 import platform.bridge.base.pipeline.encoder.PlatformPacketEncoder;
+import platform.bridge.base.outbound.OutboundBudget;
+import platform.bridge.base.outbound.OutboundBudgetHandler;
+import platform.bridge.base.outbound.PriorityLaneHandler;
+import platform.bridge.base.outbound.SlowConsumerHandler;
+import platform.bridge.base.pipeline.flush.TimeBoundedFlushHandler;
 import platform.bridge.base.proxy.AbstractNettyBridgeAdapter;
-import platform.core.api.exception.BridgeException;
 
 /**
  * PlatformPipelineInitializer. Provides network stack initialization logic for new connections. Consumer must provide
  * valid parameters for initializing base platform network stack and may provide additional consumer specific data
- * handlers.
+ * handlers. Initializer is a per proxy pipeline template: bridge options are compiled and stateless handlers are
+ * created once at construction and shared by all channels of the proxy, so only stateful handlers are allocated per
+ * connection.
  * 
  * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
  *
  */
+@Sharable
 public final class PlatformPipelineInitializer extends ChannelInitializer<Channel>
 {
     // Logger.
@@ -47,25 +60,42 @@ public final class PlatformPipelineInitializer extends ChannelInitializer<Channe
     private static final String ARG_BRIDGE_OPTIONS = "bridgeOptions";
     private static final String ARG_CONSUMER_PROXY = "consumerProxy";
     private static final String ARG_CONSUMER_PROTOCOL = "consumerProtocol";
-    private static final String ERROR_NO_CHANNEL_OPTIONS = "Cannot retrieve channel options attribute from channel.";
-
-    // Channel attribute keys.
-    private static final String BRIDGE_OPTIONS_KEY = "bridgeOptionsKey";
-    public static final AttributeKey<BridgeOptions> BRIDGE_OPTIONS_ATR_KEY = AttributeKey.newInstance(BRIDGE_OPTIONS_KEY);
 
     // Handler names.
+    private static final String HANDLER_OUTBOUND_BUDGET = "handler_outbound_budget";
+    private static final String HANDLER_FLUSH = "handler_flush";
     private static final String HANDLER_TIMEOUT = "handler_timeout";
+    private static final String HANDLER_IDLE = "handler_idle";
     private static final String HANDLER_FRAME_DECODER = "handler_frame_decoder";
     private static final String HANDLER_FRAME_ENCODER = "handler_frame_encoder";
     private static final String HANDLER_PACKET_DECODER = "handler_packet_decoder";
     private static final String HANDLER_PACKET_ENCODER = "handler_packet_encoder";
+    private static final String HANDLER_PRIORITY_LANES = "handler_priority_lanes";
+    private static final String HANDLER_SLOW_CONSUMER = "handler_slow_consumer";
     private static final String HANDLER_PROXY = "handler_proxy";
 
+    // Maximum frame length in bytes.
+    public static final int MAX_FRAME_LENGTH = 1024;
+
     // In/Out packet data end-point.
     private AbstractNettyBridgeAdapter consumerProxy;
 
+    // Compiled consumer options.
+    private final CompiledBridgeOptions options;
+
+    // Frame length header size of consumer protocol.
+    private final int frameLengthHeaderSize;
+
+    // Stateless handlers shared by all channels of the consumer.
+    private final LengthFieldPrepender frameEncoder;
+    private final PlatformPacketDecoder packetDecoder;
+    private final PlatformPacketEncoder packetEncoder;
+
+    // Write buffer watermarks overriding those of the socket profile or null.
+    private final WriteBufferWaterMark writeBufferWaterMark;
+
     /**
-     * Ctor.
+     * Ctor. Uses bridge options provided by the consumer proxy.
      * 
      * @param consumerProxy
      *            - an implementation of {@link AbstractNettyBridgeAdapter} that will define actual consumer end-point.
@@ -73,11 +103,34 @@ public final class PlatformPipelineInitializer extends ChannelInitializer<Channe
      *            optionally additional pipeline in and out handlers.
      */
     public PlatformPipelineInitializer(AbstractNettyBridgeAdapter consumerProxy)
+    {
+        this(consumerProxy, consumerProxy != null ? consumerProxy.getBridgeOptions() : null);
+    }
+
+    /**
+     * Ctor.
+     * 
+     * @param consumerProxy
+     *            - an implementation of {@link AbstractNettyBridgeAdapter} that will define actual consumer end-point.
+     *            All incoming packets will be routed to it. Proxy should contain consumer specific protocol object and
+     *            optionally additional pipeline in and out handlers.
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} consumer options, compiled at construction.
+     */
+    public PlatformPipelineInitializer(AbstractNettyBridgeAdapter consumerProxy, BridgeOptions bridgeOptions)
     {
         ArgsChecker.errorOnNull(consumerProxy, ARG_CONSUMER_PROXY);
         ArgsChecker.errorOnNull(consumerProxy.getProtocol(), ARG_CONSUMER_PROTOCOL);
+        ArgsChecker.errorOnNull(bridgeOptions, ARG_BRIDGE_OPTIONS);
 
         this.consumerProxy = consumerProxy;
+        this.options = bridgeOptions.compile();
+        this.frameLengthHeaderSize = consumerProxy.getProtocol().getFrameLengthHeaderSize();
+        this.frameEncoder = new LengthFieldPrepender(frameLengthHeaderSize, 0);
+        this.packetDecoder = new PlatformPacketDecoder(consumerProxy.getProtocol());
+        this.packetEncoder = new PlatformPacketEncoder(consumerProxy.getProtocol());
+        this.writeBufferWaterMark = options.hasWriteBufferWatermarks() ? new WriteBufferWaterMark(options
+            .getWriteBufferLowWatermark(), options.getWriteBufferHighWatermark()) : null;
     }
 
     /**
@@ -85,87 +138,113 @@ public final class PlatformPipelineInitializer extends ChannelInitializer<Channe
      * outgoing data.
      */
     @Override
-    @SuppressWarnings("unchecked")
     protected void initChannel(Channel ch) throws Exception
     {
-        LOG.enterMethod();
-
-        BridgeOptions options = ch.attr(BRIDGE_OPTIONS_ATR_KEY).get();
-        if (options == null)
+        if (LOG.isDebugEnabled())
         {
-            throw new BridgeException(ERROR_NO_CHANNEL_OPTIONS);
+            // Only socket channels have an inet address, log any other address, e.g. of an embedded channel, as is.
+            SocketAddress hostAddress = ch.remoteAddress() != null ? ch.remoteAddress() : ch.localAddress();
+            LOG.debug(String.format(MSG_NEW_CONNECTION_FORMAT, options.isServer() ? MSG_NEW_CONNECTION1
+                : MSG_NEW_CONNECTION2, hostAddress instanceof InetSocketAddress ? ((InetSocketAddress) hostAddress)
+                .getAddress() : hostAddress));
         }
 
-        String hostAddress = null;
-        if (ch.remoteAddress() != null)
-        {
-            hostAddress = ((InetSocketAddress) ch.remoteAddress()).getAddress().toString();
-        }
-        else if (ch.localAddress() != null)
-        {
-            hostAddress = ((InetSocketAddress) ch.localAddress()).getAddress().toString();
-        }
-        LOG.info(String.format(MSG_NEW_CONNECTION_FORMAT,
-            (Boolean) options.get(BridgeOptions.KEY_IS_SERVER).get() ? MSG_NEW_CONNECTION1 : MSG_NEW_CONNECTION2,
-            hostAddress));
-
         // Notify server connection listeners if any.
-        if ((Boolean) options.get(BridgeOptions.KEY_IS_SERVER).get()
-            && options.get(BridgeOptions.KEY_CONNECTION_LISTENER_SET) != null)
+        if (options.isServer())
         {
-            for (IConnectionObserver listener : (Set<IConnectionObserver>) options.get(
-                BridgeOptions.KEY_CONNECTION_LISTENER_SET).get())
+            for (IConnectionObserver listener : options.getConnectionObservers())
             {
                 listener.notifyConnectionState(ch.id().asLongText(), EConnectionState.ONLINE);
             }
         }
 
+        if (writeBufferWaterMark != null)
+        {
+            ch.config().setWriteBufferWaterMark(writeBufferWaterMark);
+        }
+
         // Initialize base platform pipeline with non consumer modifiable handler chain.
-        initBasePlatformPipeline(ch, options);
+        initBasePlatformPipeline(ch.pipeline());
 
         // Add actual data consumer end-point.
         ch.pipeline().addLast(HANDLER_PROXY, consumerProxy);
-
-        LOG.exitMethod();
     }
 
     /**
      * Initialize base platform network pipeline. This consists of low level connection handlers as well as basic data
      * decoders and encoders. User defined data handlers are applied higher in the pipeline. Platform pipeline:
-     * ([timeout handler]) --> [frame decoder] --> [packet decoder] --> ([SSL handler]) --> ([ServiceInfo handler])
+     * ([outbound budget handler]) --> ([flush handler]) --> ([timeout handler]) --> ([idle handler]) --> [frame
+     * decoder] --> [packet decoder] --> ([priority lane handler]) --> ([slow consumer handler]) --> ([SSL handler])
+     * --> ([ServiceInfo handler])
      * 
-     * @param ch
-     *            - a {@link Channel} instance to apply pipeline to.
-     * @param options
-     *            - a {@link BridgeOptions} defining consumer specific configuration for given channel.
+     * @param pipeline
+     *            - a {@link ChannelPipeline} of a new channel.
      */
-    private void initBasePlatformPipeline(Channel ch, BridgeOptions options)
+    private void initBasePlatformPipeline(ChannelPipeline pipeline)
     {
-        LOG.enterMethod(ARG_BRIDGE_OPTIONS, options);
+        // Add outbound budget handler at the head so it accounts bytes until they reach the socket.
+        OutboundBudget outboundBudget = consumerProxy.getOutboundBudget();
+        if (outboundBudget.isEnabled())
+        {
+            pipeline.addLast(HANDLER_OUTBOUND_BUDGET, new OutboundBudgetHandler(outboundBudget));
+        }
+
+        // Add flush handler, which keeps per channel state, next to the head so it sees every flush before the socket.
+        if (options.getFlushPolicy() == EFlushPolicy.CONSOLIDATED)
+        {
+            pipeline.addLast(HANDLER_FLUSH, new FlushConsolidationHandler(options.getFlushMaxWrites(), true));
+        }
+        else if (options.getFlushPolicy() == EFlushPolicy.TIME_BOUNDED)
+        {
+            pipeline.addLast(HANDLER_FLUSH, new TimeBoundedFlushHandler(options.getFlushDelayUs(),
+                TimeUnit.MICROSECONDS));
+        }
 
         // Enable read timeout handler for incoming connections.
-        if ((Boolean) options.get(BridgeOptions.KEY_IS_SERVER).get()
-            && options.get(BridgeOptions.KEY_READ_TIMEOUT_SEC) != null)
+        if (options.isServer() && options.getReadTimeoutSec() != CompiledBridgeOptions.NOT_SET)
+        {
+            pipeline.addLast(HANDLER_TIMEOUT, new ReadTimeoutHandler(options.getReadTimeoutSec(), TimeUnit.SECONDS));
+        }
+
+        // Enable idle handler for outgoing connections that should be closed when not in use.
+        if (!options.isServer() && options.getIdleDisconnectSec() != CompiledBridgeOptions.NOT_SET)
         {
-            ch.pipeline().addLast(
-                HANDLER_TIMEOUT,
-                new ReadTimeoutHandler((Integer) options.get(BridgeOptions.KEY_READ_TIMEOUT_SEC).get(),
-                    TimeUnit.SECONDS));
+            pipeline.addLast(HANDLER_IDLE, new IdleStateHandler(0, 0, options.getIdleDisconnectSec(),
+                TimeUnit.SECONDS));
         }
 
-        // Add frame decoder and encoder.
-        ch.pipeline().addLast(
-            HANDLER_FRAME_DECODER,
-            new LengthFieldBasedFrameDecoder(1024, 0, this.consumerProxy.getProtocol().getFrameLengthHeaderSize(), 0,
-                consumerProxy.getProtocol().getFrameLengthHeaderSize()));
-        ch.pipeline().addLast(HANDLER_FRAME_ENCODER,
-            new LengthFieldPrepender(consumerProxy.getProtocol().getFrameLengthHeaderSize(), 0));
+        // Add frame decoder, which keeps per channel state, and shared frame encoder.
+        pipeline.addLast(HANDLER_FRAME_DECODER, new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0,
+            frameLengthHeaderSize, 0, frameLengthHeaderSize));
+        pipeline.addLast(HANDLER_FRAME_ENCODER, frameEncoder);
+
+        // Add shared packet decoder and encoder.
+        pipeline.addLast(HANDLER_PACKET_DECODER, packetDecoder);
+        pipeline.addLast(HANDLER_PACKET_ENCODER, packetEncoder);
+
+        // Add priority lane handler, which keeps per channel state, above packet encoder so it schedules packets.
+        if (options.isPriorityLanesEnabled())
+        {
+            pipeline.addLast(HANDLER_PRIORITY_LANES, new PriorityLaneHandler(consumerProxy.getProtocol(), options
+                .getSlowConsumerPolicy(), consumerProxy.getSlowConsumerCounters(), outboundBudget));
+        }
 
-        // Add packet decoder and encoder.
-        ch.pipeline().addLast(HANDLER_PACKET_DECODER, new PlatformPacketDecoder(consumerProxy.getProtocol()));
-        ch.pipeline().addLast(HANDLER_PACKET_ENCODER, new PlatformPacketEncoder(consumerProxy.getProtocol()));
+        // Add slow consumer handler, which keeps per channel state, above packet encoder so it sees packets.
+        if (options.getSlowConsumerPolicy() != null)
+        {
+            pipeline.addLast(HANDLER_SLOW_CONSUMER, new SlowConsumerHandler(options.getSlowConsumerPolicy(), options
+                .getSlowConsumerGraceMs(), consumerProxy.getSlowConsumerCounters()));
+        }
+    }
 
-        LOG.exitMethod();
+    /**
+     * Retrieve compiled consumer options.
+     * 
+     * @return - a {@link CompiledBridgeOptions} snapshot.
+     */
+    public CompiledBridgeOptions getOptions()
+    {
+        return options;
     }
 
     /**
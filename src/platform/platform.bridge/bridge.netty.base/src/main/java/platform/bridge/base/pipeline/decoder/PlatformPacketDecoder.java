@@ -9,6 +9,7 @@ import game.core.log.Logger;
 import game.core.log.LoggerFactory;
 import game.core.util.ArgsChecker;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
 
@@ -20,12 +21,14 @@ import platform.bridge.api.protocol.AbstractPacket;
 import platform.bridge.api.protocol.AbstractPlatformProtocol;
 
 /**
- * Platform Packet decoder. Pipeline will create a new instance of packet decoder for each connection. This decoder
- * converts incoming messages to consumer specific packets if protocol provided supports them.
+ * Platform Packet decoder. Decoder is stateless, a single instance is shared by all connections of a consumer. This
+ * decoder converts incoming messages to consumer specific packets if protocol provided supports them. A batch frame is
+ * unpacked into the packets it carries.
  * 
  * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
  *
  */
+@Sharable
 public final class PlatformPacketDecoder extends MessageToMessageDecoder<ByteBuf>
 {
     // Logger.
@@ -57,6 +60,34 @@ public final class PlatformPacketDecoder extends MessageToMessageDecoder<ByteBuf
         // Get message id.
         int messageId = AbstractPacket.readInt(in);
 
+        // Unpack length prefixed packets of a batch frame.
+        if (messageId == AbstractPlatformProtocol.PACKET_ID_BATCH)
+        {
+            while (in.isReadable())
+            {
+                ByteBuf packetIn = in.readSlice(in.readUnsignedShort());
+                decodePacket(AbstractPacket.readInt(packetIn), packetIn, out);
+            }
+            return;
+        }
+
+        decodePacket(messageId, in, out);
+    }
+
+    /**
+     * Decode a single packet.
+     * 
+     * @param messageId
+     *            - an already read message id.
+     * @param in
+     *            - a {@link ByteBuf} holding the packet, which must be read completely.
+     * @param out
+     *            - a {@link List} to add decoded packet to.
+     * @throws ProtocolException
+     *             - throws {@link ProtocolException} if packet is unknown or not read completely.
+     */
+    private void decodePacket(int messageId, ByteBuf in, List<Object> out) throws ProtocolException
+    {
         // Create and populate concrete packet if available.
         AbstractPacket packet = null;
         if (consumerProtocol.packetRegistered(messageId))
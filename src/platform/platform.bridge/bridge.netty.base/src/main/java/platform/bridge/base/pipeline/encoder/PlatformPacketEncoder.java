@@ -7,27 +7,38 @@ package platform.bridge.base.pipeline.encoder;
 
 import game.core.util.ArgsChecker;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import javax.xml.ws.ProtocolException;
 
 import platform.bridge.api.protocol.AbstractPacket;
 import platform.bridge.api.protocol.AbstractPlatformProtocol;
 
 /**
- * Platform Packet encoder. Pipeline will create a new instance of packet decoder for each connection. This encoder
- * converts consumer specific packets to outgoing {@link ByteBuf} messages if protocol provided supports them.
+ * Platform Packet encoder. Encoder is stateless, a single instance is shared by all connections of a consumer. This
+ * encoder converts consumer specific packets to outgoing {@link ByteBuf} messages if protocol provided supports them.
  * 
  * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
  *
  */
+@Sharable
 public class PlatformPacketEncoder extends MessageToByteEncoder<AbstractPacket>
 {
     // Errors, args, messages.
     private static final String WARN_UNKNOWN_MESSAGE = "Sending unknown message with class: [%s] for protocol: [%s].";
     private static final String ARG_CONSUMER_PROTOCOL = "consumerProtocol";
 
+    // Encoded size of the batch frame id and of the length prefix of each packet in a batch frame.
+    public static final int BATCH_ID_SIZE = 5;
+    public static final int BATCH_LENGTH_SIZE = 2;
+
     // Consumer specific protocol instance. It defines in and out supported message types.
     private AbstractPlatformProtocol consumerProtocol;
 
@@ -45,13 +56,113 @@ public class PlatformPacketEncoder extends MessageToByteEncoder<AbstractPacket>
 
     @Override
     public void encode(ChannelHandlerContext ctx, AbstractPacket msg, ByteBuf out) throws Exception
+    {
+        encodePacket(consumerProtocol, msg, out);
+    }
+
+    /**
+     * Encode a packet outside of a pipeline, e.g. once for a broadcast to many channels. Encoded packet still passes
+     * the frame encoder of each channel it is written to.
+     * 
+     * @param consumerProtocol
+     *            - an {@link AbstractPlatformProtocol} supporting the packet.
+     * @param msg
+     *            - an {@link AbstractPacket} to encode.
+     * @param out
+     *            - a {@link ByteBuf} to encode packet into.
+     * @throws ProtocolException
+     *             - throws {@link ProtocolException} if packet is not registered with protocol.
+     */
+    public static void encodePacket(AbstractPlatformProtocol consumerProtocol, AbstractPacket msg, ByteBuf out)
+        throws ProtocolException
     {
         if (!consumerProtocol.packetRegistered(msg.getClass()))
         {
             throw new ProtocolException(String.format(WARN_UNKNOWN_MESSAGE, msg.getClass().getName(),
-                this.consumerProtocol));
+                consumerProtocol));
         }
         AbstractPacket.writeInt(consumerProtocol.getPacketId(msg.getClass()), out);
         msg.write(out);
     }
+
+    /**
+     * Encode packets of a batch send outside of a pipeline, packed into as few batch frames as maximum frame length
+     * allows. A batch frame starts with {@link AbstractPlatformProtocol#PACKET_ID_BATCH} followed by the packets, each
+     * prefixed with its encoded length, and is unpacked into separate packets by the packet decoder. A packet too large
+     * to share a frame is encoded as a regular frame of its own. Encoded frames still pass the frame encoder of the
+     * channel they are written to.
+     * 
+     * @param consumerProtocol
+     *            - an {@link AbstractPlatformProtocol} supporting the packets.
+     * @param packets
+     *            - a {@link Collection} of {@link AbstractPacket}s to encode, in order.
+     * @param allocator
+     *            - a {@link ByteBufAllocator} to allocate frames with.
+     * @param maxFrameLength
+     *            - maximum frame length in bytes, without the frame length header.
+     * @return - a {@link List} of encoded frames in packet order, owned by the caller.
+     * @throws ProtocolException
+     *             - throws {@link ProtocolException} if a packet is not registered with protocol.
+     */
+    public static List<ByteBuf> encodeBatch(AbstractPlatformProtocol consumerProtocol,
+        Collection<? extends AbstractPacket> packets, ByteBufAllocator allocator, int maxFrameLength)
+        throws ProtocolException
+    {
+        List<ByteBuf> frames = new ArrayList<ByteBuf>();
+        ByteBuf packetBuf = allocator.buffer();
+        ByteBuf frame = null;
+        try
+        {
+            for (AbstractPacket packet : packets)
+            {
+                packetBuf.clear();
+                encodePacket(consumerProtocol, packet, packetBuf);
+                int packetLength = packetBuf.readableBytes();
+
+                // Close current frame if packet does not fit into it.
+                if (frame != null && frame.readableBytes() + BATCH_LENGTH_SIZE + packetLength > maxFrameLength)
+                {
+                    frames.add(frame);
+                    frame = null;
+                }
+
+                if (BATCH_ID_SIZE + BATCH_LENGTH_SIZE + packetLength > maxFrameLength)
+                {
+                    frames.add(packetBuf.copy());
+                    continue;
+                }
+
+                if (frame == null)
+                {
+                    frame = allocator.buffer();
+                    AbstractPacket.writeInt(AbstractPlatformProtocol.PACKET_ID_BATCH, frame);
+                }
+                frame.writeShort(packetLength);
+                frame.writeBytes(packetBuf);
+            }
+
+            if (frame != null)
+            {
+                frames.add(frame);
+                frame = null;
+            }
+            return frames;
+        }
+        catch (RuntimeException re)
+        {
+            if (frame != null)
+            {
+                frame.release();
+            }
+            for (ByteBuf encoded : frames)
+            {
+                encoded.release();
+            }
+            throw re;
+        }
+        finally
+        {
+            packetBuf.release();
+        }
+    }
 }
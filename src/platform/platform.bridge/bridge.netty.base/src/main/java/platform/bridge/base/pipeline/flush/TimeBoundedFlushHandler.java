@@ -0,0 +1,128 @@
+/**
+ * @file TimeBoundedFlushHandler.java
+ * @brief Time bounded flush handler merges flushes of a channel for at most a configured delay.
+ */
+
+package platform.bridge.base.pipeline.flush;
+
+import game.core.util.ArgsChecker;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time bounded flush handler merges flushes of a channel for at most a configured delay. First flush after the last
+ * actual flush schedules one on the channel loop after the delay, and flushes issued meanwhile are absorbed by it, so a
+ * burst of sends costs a single write syscall while no packet waits longer than the delay. Pending writes are flushed
+ * right away when channel becomes unwritable, is closed or handler is removed. Handler keeps per channel state and
+ * must be placed as close to the head of the pipeline as possible.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class TimeBoundedFlushHandler extends ChannelDuplexHandler
+{
+    // Errors, args, messages.
+    private static final String ARG_DELAY = "delay";
+    private static final String ARG_TIME_UNIT = "timeUnit";
+
+    // Maximum delay of a flush in nanoseconds.
+    private final long delayNanos;
+
+    // Context of this handler, set once added.
+    private ChannelHandlerContext ctx;
+
+    // Scheduled flush or null if no flush is pending.
+    private ScheduledFuture<?> flushFuture;
+
+    // Scheduled flush task.
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run()
+        {
+            flushFuture = null;
+            ctx.flush();
+        }
+    };
+
+    /**
+     * Ctor.
+     * 
+     * @param delay
+     *            - maximum delay of a flush.
+     * @param timeUnit
+     *            - a {@link TimeUnit} of the delay.
+     */
+    public TimeBoundedFlushHandler(long delay, TimeUnit timeUnit)
+    {
+        ArgsChecker.errorOnLessThan0(delay, ARG_DELAY);
+        ArgsChecker.errorOnNull(timeUnit, ARG_TIME_UNIT);
+
+        this.delayNanos = timeUnit.toNanos(delay);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception
+    {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception
+    {
+        flushPending(ctx);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception
+    {
+        if (flushFuture == null)
+        {
+            flushFuture = ctx.executor().schedule(flushTask, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+    {
+        // Outbound buffer is over its high water mark, waiting longer only grows it.
+        if (!ctx.channel().isWritable())
+        {
+            flushPending(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception
+    {
+        flushPending(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception
+    {
+        flushPending(ctx);
+        ctx.close(promise);
+    }
+
+    /**
+     * Flush right away if a flush is pending.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of this handler.
+     */
+    private void flushPending(ChannelHandlerContext ctx)
+    {
+        if (flushFuture != null)
+        {
+            flushFuture.cancel(false);
+            flushFuture = null;
+            ctx.flush();
+        }
+    }
+}
@@ -9,17 +9,37 @@ package platform.bridge.base.proxy;
 import game.core.log.Logger;
 import game.core.log.LoggerFactory;
 import game.core.util.ArgsChecker;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
 import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.protocol.CreditPacket;
 import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.IBatchResponseListener;
 import platform.bridge.api.proxy.IResponseListener;
 import platform.bridge.base.PlatformBridgeManager;
+import platform.bridge.base.flow.CreditGrantor;
+import platform.bridge.base.inbound.IInboundDispatcher;
+import platform.bridge.base.inbound.InboundDispatcherFactory;
+import platform.bridge.base.inbound.InboundStats;
+import platform.bridge.base.outbound.OutboundBudget;
+import platform.bridge.base.outbound.SlowConsumerCounters;
+import platform.bridge.base.pipeline.PlatformPipelineInitializer;
+import platform.bridge.base.pipeline.encoder.PlatformPacketEncoder;
 import platform.bridge.base.util.PlatformBridgeUtil;
 import platform.core.api.exception.BridgeException;
 
@@ -37,7 +57,32 @@ public abstract class AbstractNettyBridgeAdapter extends ChannelInboundHandlerAd
 
     // Args, messages, errors.
     private static final String ARG_CHANNEL_OPTIONS = "channelOptions";
+    private static final String ARG_OUTBOUND_BUDGET = "outboundBudget";
     private static final String WARN_CHANNEL_OBSERVER_NOTIFY = "Error notifying channel observer with channel life-cycle change event.";
+    private static final String WARN_RECONNECT_OBSERVER_NOTIFY = "Error notifying channel observer with channel reconnect event.";
+    private static final String WARN_CONNECT_OBSERVER_NOTIFY = "Error notifying channel observer with failed channel connect.";
+    private static final String WARN_INBOUND_OVERFLOW = "Closing channel: [%s] of proxy: [%s] as its inbound queue overflowed.";
+    private static final String ERROR_BATCH_ENCODE = "Cannot encode batch of: [%d] packets of proxy: [%s].";
+    private static final String WARN_SEND_FAILED = "Sending a message on channel: [%s] failed.";
+    private static final String WARN_CHANNEL_EXCEPTION = "Exception caught on channel: [%s] of proxy: [%s].";
+    private static final String ERROR_SEND_FAILED = "Cannot send a message as channel write failed.";
+    private static final String ERROR_BATCH_SEND = "Cannot send batch of: [%d] packets of proxy: [%s] as channel event loop is shutting down.";
+
+    // Channel attribute holding packets decoded in current read cycle for a batch response listener.
+    private static final AttributeKey<InboundBatch> ATTR_INBOUND_BATCH = AttributeKey.valueOf(InboundBatch.class
+        .getName());
+
+    // Shared listener of fire-and-forget sends, logs failed writes no caller waits for.
+    private static final ChannelFutureListener SEND_FAILURE_LISTENER = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future)
+        {
+            if (!future.isSuccess())
+            {
+                LOG.warn(String.format(WARN_SEND_FAILED, future.channel()), future.cause());
+            }
+        }
+    };
 
     // A flag determining whether data proxy has been initialized or not.
     private AtomicBoolean initialized;
@@ -45,22 +90,47 @@ public abstract class AbstractNettyBridgeAdapter extends ChannelInboundHandlerAd
     // Upstream response listener.
     protected IResponseListener responseListener;
 
+    // Inbound dispatcher or null if packets are delivered directly on the I/O event loop.
+    private volatile IInboundDispatcher inboundDispatcher;
+
+    // Credit grantor wrapping upstream response listener or null if proxy does not grant flow control credits.
+    private volatile CreditGrantor creditGrantor;
+
+    // Slow consumer policy counters of proxy channels.
+    private final SlowConsumerCounters slowConsumerCounters;
+
+    // Outbound budget accounting proxy channels.
+    private volatile OutboundBudget outboundBudget;
+
+    // A flag determining whether batch sends are packed into batch frames.
+    private volatile boolean packBatches;
+
+    // A flag determining whether fire-and-forget sends are written with the channel void promise.
+    private volatile boolean voidPromiseSends;
+
     /**
      * Constructor.
      */
     protected AbstractNettyBridgeAdapter()
     {
         initialized = new AtomicBoolean();
+        slowConsumerCounters = new SlowConsumerCounters();
+        outboundBudget = OutboundBudget.getInstance();
     }
 
     /**
-     * Initialize netty bridge adapter by registering it with netty network base.
+     * Initialize netty bridge adapter by registering it with netty network base. A client proxy with
+     * {@link BridgeOptions#KEY_LAZY_CONNECT} option only records the target and connects on first use. If an offloaded
+     * {@link BridgeOptions#KEY_INBOUND_MODE} has been selected, inbound dispatcher is created before registration. A
+     * service with {@link BridgeOptions#KEY_FLOW_CONTROL_CREDITS} grants credits as its response listener processes
+     * packets.
      * 
      * @param serviceIPv4Address
      *            - a {@link String} service IPv4 address to register netty bridge adapter with. Required only if
      *            registering a client proxy.
      * @param servicePort
      *            - a {@link Integer} service port to register netty bridge adapter with.
+     * @return - an {@link Integer} local channel port or null if connect has been deferred.
      * @throws BridgeException
      *             - throws {@link BridgeException} on netty bridge adapter initialization failure.
      */
@@ -73,8 +143,23 @@ public abstract class AbstractNettyBridgeAdapter extends ChannelInboundHandlerAd
 
         if (!initialized.get())
         {
-            localPort = PlatformBridgeManager.getInstance().registerProxy(this, servicePort, serviceIPv4Address,
-                getBridgeOptions());
+            packBatches = getBridgeOptions().get(BridgeOptions.KEY_PACK_BATCHES) != null
+                && (Boolean) getBridgeOptions().get(BridgeOptions.KEY_PACK_BATCHES).get();
+            voidPromiseSends = getBridgeOptions().get(BridgeOptions.KEY_VOID_PROMISE_SENDS) != null
+                && (Boolean) getBridgeOptions().get(BridgeOptions.KEY_VOID_PROMISE_SENDS).get();
+            creditGrantor = CreditGrantor.fromBridgeOptions(responseListener);
+            inboundDispatcher = InboundDispatcherFactory.create(creditGrantor != null ? creditGrantor
+                : responseListener);
+            try
+            {
+                localPort = PlatformBridgeManager.getInstance().registerProxy(this, servicePort, serviceIPv4Address,
+                    getBridgeOptions());
+            }
+            catch (BridgeException | RuntimeException e)
+            {
+                shutdownInboundDispatcher();
+                throw e;
+            }
             initialized.set(true);
         }
 
@@ -93,6 +178,357 @@ public abstract class AbstractNettyBridgeAdapter extends ChannelInboundHandlerAd
         {
             PlatformBridgeManager.getInstance().unregisterProxy(this);
             initialized.set(false);
+            shutdownInboundDispatcher();
+        }
+    }
+
+    /**
+     * Deliver a received packet to upstream response listener, either directly on the I/O event loop or through the
+     * inbound dispatcher. An {@link IBatchResponseListener} delivered directly receives packets once per read cycle,
+     * with {@link #completeInbound(ChannelHandlerContext)}. A channel whose inbound queue overflowed with disconnect
+     * policy is closed. Flow control credits are consumed by the proxy and never delivered.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of channel packet has been received on.
+     * @param packet
+     *            - a received {@link AbstractPacket}.
+     * @param senderIdentifier
+     *            - a {@link String} session identifier.
+     */
+    protected final void deliverInbound(ChannelHandlerContext ctx, AbstractPacket packet, String senderIdentifier)
+    {
+        if (packet instanceof CreditPacket)
+        {
+            receiveCredits(ctx, ((CreditPacket) packet).getCredits());
+            return;
+        }
+
+        IResponseListener listener = responseListener;
+        CreditGrantor grantor = creditGrantor;
+        if (grantor != null)
+        {
+            grantor.track(senderIdentifier, ctx.channel());
+            listener = grantor;
+        }
+
+        IInboundDispatcher dispatcher = inboundDispatcher;
+        if (dispatcher == null && responseListener instanceof IBatchResponseListener)
+        {
+            InboundBatch batch = ctx.channel().attr(ATTR_INBOUND_BATCH).get();
+            if (batch == null)
+            {
+                batch = new InboundBatch(senderIdentifier);
+                ctx.channel().attr(ATTR_INBOUND_BATCH).set(batch);
+            }
+            batch.packets.add(packet);
+        }
+        else if (dispatcher == null)
+        {
+            listener.receive(packet, senderIdentifier);
+        }
+        else if (!dispatcher.dispatch(packet, senderIdentifier))
+        {
+            LOG.warn(String.format(WARN_INBOUND_OVERFLOW, senderIdentifier, getName()));
+            ctx.close();
+        }
+    }
+
+    /**
+     * Complete a read cycle of a channel by handing packets decoded in it to an {@link IBatchResponseListener}. Called
+     * from the channel I/O event loop on read complete. Does nothing for per packet listeners.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of channel whose read cycle completed.
+     */
+    protected final void completeInbound(ChannelHandlerContext ctx)
+    {
+        InboundBatch batch = ctx.channel().attr(ATTR_INBOUND_BATCH).get();
+        if (batch == null || batch.packets.isEmpty())
+        {
+            return;
+        }
+
+        CreditGrantor grantor = creditGrantor;
+        IBatchResponseListener listener = grantor != null ? grantor : (IBatchResponseListener) responseListener;
+        try
+        {
+            listener.receiveBatch(batch.packets, batch.senderIdentifier);
+        }
+        finally
+        {
+            batch.packets.clear();
+        }
+    }
+
+    /**
+     * Release inbound dispatcher and credit grantor state of a closed session.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} session identifier.
+     */
+    protected final void releaseInboundSession(String senderIdentifier)
+    {
+        CreditGrantor grantor = creditGrantor;
+        if (grantor != null)
+        {
+            grantor.removeSession(senderIdentifier);
+        }
+
+        IInboundDispatcher dispatcher = inboundDispatcher;
+        if (dispatcher != null)
+        {
+            dispatcher.removeSession(senderIdentifier);
+        }
+    }
+
+    /**
+     * Receive flow control credits granted by the remote end. Proxies which do not send under flow control ignore them.
+     * 
+     * @param ctx
+     *            - a {@link ChannelHandlerContext} of channel credits have been received on.
+     * @param credits
+     *            - number of granted credits.
+     */
+    protected void receiveCredits(ChannelHandlerContext ctx, int credits)
+    {}
+
+    /**
+     * Retrieve flow control credit grantor.
+     * 
+     * @return - a {@link CreditGrantor} or null if proxy does not grant flow control credits.
+     */
+    public CreditGrantor getCreditGrantor()
+    {
+        return creditGrantor;
+    }
+
+    /**
+     * Retrieve inbound queue and latency statistics.
+     * 
+     * @return - an {@link InboundStats} snapshot or null if packets are delivered directly on the I/O event loop.
+     */
+    public InboundStats getInboundStats()
+    {
+        IInboundDispatcher dispatcher = inboundDispatcher;
+        return dispatcher != null ? dispatcher.getStats() : null;
+    }
+
+    /**
+     * Determine whether a packet should be shed instead of sent, as outbound budget of the proxy is exceeded.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} about to be sent.
+     * @return - true if bridge is under pressure and packet is droppable or of low priority, false if packet should be
+     *         sent.
+     */
+    protected final boolean shedOnPressure(AbstractPacket packet)
+    {
+        return outboundBudget.shed(packet);
+    }
+
+    /**
+     * Write a message no caller waits for. With {@link BridgeOptions#KEY_VOID_PROMISE_SENDS} the message is written
+     * with the channel void promise, so the send allocates neither a promise nor a listener and a failed write is
+     * reported to {@link #exceptionCaught(ChannelHandlerContext, Throwable)}. Otherwise a failed write is logged by a
+     * shared listener.
+     * 
+     * @param ch
+     *            - a {@link Channel} to write to.
+     * @param msg
+     *            - a packet or encoded frame to write.
+     * @param flush
+     *            - true to flush the channel after the write, false to leave it to a later flush.
+     */
+    protected final void writeAndForget(Channel ch, Object msg, boolean flush)
+    {
+        if (voidPromiseSends)
+        {
+            if (flush)
+            {
+                ch.writeAndFlush(msg, ch.voidPromise());
+            }
+            else
+            {
+                ch.write(msg, ch.voidPromise());
+            }
+            return;
+        }
+
+        ChannelFuture writeFuture = flush ? ch.writeAndFlush(msg) : ch.write(msg);
+        writeFuture.addListener(SEND_FAILURE_LISTENER);
+    }
+
+    /**
+     * Create a listener completing a send completion once its write completes.
+     * 
+     * @param completion
+     *            - a {@link CompletableFuture} of the send.
+     * @return - a new {@link ChannelFutureListener} to add to the write future.
+     */
+    protected static ChannelFutureListener newCompletionListener(final CompletableFuture<Void> completion)
+    {
+        return new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future)
+            {
+                if (future.isSuccess())
+                {
+                    completion.complete(null);
+                }
+                else
+                {
+                    completion.completeExceptionally(new BridgeException(ERROR_SEND_FAILED, future.cause()));
+                }
+            }
+        };
+    }
+
+    /**
+     * Write a batch of packets to a channel and flush it once. Packets are written in a single task on the channel
+     * event loop, or inline if called on it, instead of in a task per packet. With
+     * {@link BridgeOptions#KEY_PACK_BATCHES} packets are encoded on the calling thread into as few frames as the frame
+     * length allows, and being already encoded they bypass priority lanes and slow consumer policies of the channel.
+     * 
+     * @param ch
+     *            - a {@link Channel} to write to.
+     * @param packets
+     *            - a {@link List} of {@link AbstractPacket}s to write, in order.
+     * @param flush
+     *            - true to flush the channel after the last packet, false to leave it to a later flush.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if packets cannot be encoded or channel event loop is shutting down.
+     */
+    protected final void writeBatch(final Channel ch, List<? extends AbstractPacket> packets, final boolean flush)
+        throws BridgeException
+    {
+        if (packets.isEmpty())
+        {
+            return;
+        }
+
+        final List<?> messages;
+        if (packBatches)
+        {
+            try
+            {
+                messages = PlatformPacketEncoder.encodeBatch(getProtocol(), packets, ch.alloc(),
+                    PlatformPipelineInitializer.MAX_FRAME_LENGTH - getProtocol().getFrameLengthHeaderSize());
+            }
+            catch (Exception e)
+            {
+                String msg = String.format(ERROR_BATCH_ENCODE, packets.size(), getName());
+                LOG.error(msg, e);
+                throw new BridgeException(msg, e);
+            }
+        }
+        else
+        {
+            messages = packets;
+        }
+
+        if (ch.eventLoop().inEventLoop())
+        {
+            writeMessages(ch, messages, flush);
+            return;
+        }
+
+        try
+        {
+            ch.eventLoop().execute(new Runnable() {
+                @Override
+                public void run()
+                {
+                    writeMessages(ch, messages, flush);
+                }
+            });
+        }
+        catch (RuntimeException re)
+        {
+            for (Object msg : messages)
+            {
+                ReferenceCountUtil.release(msg);
+            }
+            throw new BridgeException(String.format(ERROR_BATCH_SEND, packets.size(), getName()), re);
+        }
+    }
+
+    /**
+     * Write packets or encoded frames of a batch to a channel from its event loop.
+     * 
+     * @param ch
+     *            - a {@link Channel} to write to.
+     * @param messages
+     *            - a {@link List} of packets or encoded frames to write.
+     * @param flush
+     *            - true to flush the channel after the last message.
+     */
+    private static void writeMessages(Channel ch, List<?> messages, boolean flush)
+    {
+        for (Object msg : messages)
+        {
+            ch.write(msg, ch.voidPromise());
+        }
+        if (flush)
+        {
+            ch.flush();
+        }
+    }
+
+    /**
+     * Retrieve counters of slow consumer policy actions taken for channels of this proxy.
+     * 
+     * @return - live {@link SlowConsumerCounters}, all zero if {@link BridgeOptions#KEY_SLOW_CONSUMER_POLICY} is not
+     *         set.
+     */
+    public SlowConsumerCounters getSlowConsumerCounters()
+    {
+        return slowConsumerCounters;
+    }
+
+    /**
+     * Retrieve outbound budget accounting channels of this proxy.
+     * 
+     * @return - an {@link OutboundBudget}, the process wide one unless another has been set.
+     */
+    public OutboundBudget getOutboundBudget()
+    {
+        return outboundBudget;
+    }
+
+    /**
+     * Set outbound budget accounting channels of this proxy, e.g. to budget a group of proxies apart from the rest of
+     * the process. Must be set before proxy is initialized, channels opened before keep the budget they were opened
+     * with.
+     * 
+     * @param outboundBudget
+     *            - an {@link OutboundBudget} to account proxy channels with.
+     */
+    public void setOutboundBudget(OutboundBudget outboundBudget)
+    {
+        ArgsChecker.errorOnNull(outboundBudget, ARG_OUTBOUND_BUDGET);
+        this.outboundBudget = outboundBudget;
+    }
+
+    /**
+     * Retrieve inbound dispatcher.
+     * 
+     * @return - an {@link IInboundDispatcher} or null if packets are delivered directly on the I/O event loop.
+     */
+    protected final IInboundDispatcher getInboundDispatcher()
+    {
+        return inboundDispatcher;
+    }
+
+    /**
+     * Shut down inbound dispatcher if one has been created.
+     */
+    private void shutdownInboundDispatcher()
+    {
+        IInboundDispatcher dispatcher = inboundDispatcher;
+        inboundDispatcher = null;
+        if (dispatcher != null)
+        {
+            dispatcher.shutdown();
         }
     }
 
@@ -147,9 +583,111 @@ public abstract class AbstractNettyBridgeAdapter extends ChannelInboundHandlerAd
         }
     }
 
+    /**
+     * Helper method to notify channel observers with a channel reconnect event.
+     * 
+     * @param channelObserverSet
+     *            - a {@link Set} of {@link IChannelObserver} observers to notify.
+     * @param inetSocketAddress
+     *            - a {@link InetSocketAddress} remote address that is being reconnected to.
+     * @param attempt
+     *            - a reconnect attempt sequence number.
+     * @param delayMs
+     *            - a delay before reconnect attempt in milliseconds or a negative value if reconnect has been
+     *            abandoned.
+     */
+    protected final void notifyChannelReconnectEvent(Set<IChannelObserver> channelObserverSet,
+        InetSocketAddress inetSocketAddress, int attempt, long delayMs)
+    {
+        // Guard for application level stupidity.
+        try
+        {
+            if (channelObserverSet != null)
+            {
+                for (IChannelObserver channelObserver : channelObserverSet)
+                {
+                    if (delayMs < 0)
+                    {
+                        channelObserver.notifyChannelReconnectAbandoned(getName(), inetSocketAddress, attempt);
+                    }
+                    else
+                    {
+                        channelObserver.notifyChannelReconnecting(getName(), inetSocketAddress, attempt, delayMs);
+                    }
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.warn(WARN_RECONNECT_OBSERVER_NOTIFY, e);
+        }
+    }
+
+    /**
+     * Helper method to notify channel observers with a failed on demand connect.
+     * 
+     * @param channelObserverSet
+     *            - a {@link Set} of {@link IChannelObserver} observers to notify.
+     * @param inetSocketAddress
+     *            - a {@link InetSocketAddress} remote address that could not be connected to.
+     * @param discarded
+     *            - number of discarded buffered packets.
+     */
+    protected final void notifyChannelConnectFailed(Set<IChannelObserver> channelObserverSet,
+        InetSocketAddress inetSocketAddress, int discarded)
+    {
+        // Guard for application level stupidity.
+        try
+        {
+            if (channelObserverSet != null)
+            {
+                for (IChannelObserver channelObserver : channelObserverSet)
+                {
+                    channelObserver.notifyChannelConnectFailed(getName(), inetSocketAddress, discarded);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.warn(WARN_CONNECT_OBSERVER_NOTIFY, e);
+        }
+    }
+
+    /**
+     * Log exceptions reaching the proxy at the end of the pipeline, including failed writes of sends with void
+     * promises, which the channel reports here instead of through a write future. Closing a failed channel is left to
+     * the transport, as with failed writes of sends with a promise.
+     */
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception
+    {
+        LOG.warn(String.format(WARN_CHANNEL_EXCEPTION, ctx.channel(), getName()), cause);
+    }
+
     @Override
     public final String toString()
     {
         return getName();
     }
+
+    /**
+     * Packets decoded from a channel in current read cycle, reused across read cycles.
+     */
+    private static class InboundBatch
+    {
+        private final String senderIdentifier;
+        private final List<AbstractPacket> packets;
+
+        /**
+         * Ctor.
+         * 
+         * @param senderIdentifier
+         *            - a {@link String} session identifier of the channel.
+         */
+        public InboundBatch(String senderIdentifier)
+        {
+            this.senderIdentifier = senderIdentifier;
+            this.packets = new ArrayList<AbstractPacket>();
+        }
+    }
 }
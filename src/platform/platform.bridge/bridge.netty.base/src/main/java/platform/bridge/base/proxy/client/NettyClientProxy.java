@@ -5,38 +5,95 @@
 
 package platform.bridge.base.proxy.client;
 
+import game.core.util.ArgsChecker;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import io.netty.handler.timeout.IdleStateEvent;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import platform.bridge.api.protocol.AbstractPacket;
 import platform.bridge.api.protocol.AbstractPlatformProtocol;
 import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.EFlowControlPolicy;
 import platform.bridge.api.proxy.IClientProxyBase;
 import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.PlatformBridgeManager;
+import platform.bridge.base.flow.CreditGate;
+import platform.bridge.base.flow.PendingSend;
 import platform.bridge.base.proxy.AbstractNettyBridgeAdapter;
 import platform.core.api.exception.BridgeException;
 
 /**
- * Netty client proxy defines netty specific client proxy functionality.
+ * Netty client proxy defines netty specific client proxy functionality. If reconnect has been enabled in bridge options,
+ * a lost connection is re-established with jittered exponential backoff and packets sent during the outage are
+ * buffered up to the configured send buffer size. With lazy connect the channel is only opened on first send and, if
+ * an idle period has been configured, closed again once unused for that period and re-opened on next send. With
+ * {@link BridgeOptions#KEY_FLOW_CONTROL_CREDITS} sends are limited to credits granted by the remote service.
  * 
  * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
  *
  */
+@Sharable
 public final class NettyClientProxy extends AbstractNettyBridgeAdapter implements IClientProxyBase
 {
     // Errors, args, messages.
     private static final String ERROR_MSG_SEND = "Cannot send a message to remote service as channel is not active.";
+    private static final String ERROR_MSG_SHED = "Message to remote service has been shed as outbound budget is exceeded.";
+    private static final String ERROR_MSG_DISCARDED = "Message to remote service has been discarded before it could be sent.";
+    private static final String ERROR_SEND_BUFFER_FULL = "Cannot buffer a message for remote service as send buffer is full.";
+    private static final String WARN_RECONNECT_FAILED = "Reconnect attempt: [%d] with remote service: [%s] failed.";
+    private static final String WARN_RECONNECT_ABANDONED = "Abandoning reconnect with remote service: [%s] after [%d] attempts. Discarding [%d] buffered packets.";
+    private static final String WARN_CONNECT_FAILED = "On demand connect with remote service: [%s] failed. Discarding [%d] buffered packets.";
+    private static final String MSG_IDLE_DISCONNECT = "Closing idle channel with remote service: [%s].";
+    private static final String ARG_PACKETS = "packets";
+
+    // Default amount of packets buffered while connecting on demand if no send buffer size has been configured.
+    private static final int DEFAULT_ON_DEMAND_SEND_BUFFER_SIZE = 64;
 
     // A flag determining if channel is active (socket has connected).
     private AtomicBoolean channelConnected;
 
+    // A flag determining if proxy has been released and should no longer reconnect.
+    private AtomicBoolean released;
+
+    // A flag determining if a connect or reconnect is in progress.
+    private AtomicBoolean connecting;
+
+    // A flag determining if channel is being closed because it was idle.
+    private volatile boolean idleClosing;
+
+    // A flag determining if a disconnected channel should be connected on next send (lazy or idle disconnect mode).
+    private boolean connectOnDemand;
+
     // Client channel.
-    private Channel channel;
+    private volatile Channel channel;
+
+    // Remote service address.
+    private InetSocketAddress remoteAddress;
+
+    // Reconnect backoff or null if reconnect has not been enabled.
+    private ReconnectBackoff reconnectBackoff;
+
+    // Flow control credit gate or null if flow control has not been enabled.
+    private volatile CreditGate creditGate;
+
+    // Sends buffered while reconnecting, each with its completion, and maximum amount of them.
+    private Queue<PendingSend> pendingPacketQueue;
+    private int sendBufferSize;
 
     /**
      * Constructor.
@@ -45,6 +102,9 @@ public final class NettyClientProxy extends AbstractNettyBridgeAdapter implement
     {
         super();
         channelConnected = new AtomicBoolean();
+        released = new AtomicBoolean();
+        connecting = new AtomicBoolean();
+        pendingPacketQueue = new ArrayDeque<PendingSend>();
     }
 
     @Override
@@ -52,67 +112,518 @@ public final class NettyClientProxy extends AbstractNettyBridgeAdapter implement
         throws BridgeException
     {
         this.responseListener = responseListener;
+        this.remoteAddress = new InetSocketAddress(serviceIPv4Address, servicePort);
+
+        BridgeOptions bridgeOptions = responseListener.getBridgeOptions();
+        reconnectBackoff = ReconnectBackoff.fromBridgeOptions(bridgeOptions);
+        creditGate = CreditGate.fromBridgeOptions(bridgeOptions);
+        connectOnDemand = (bridgeOptions.get(BridgeOptions.KEY_LAZY_CONNECT) != null && (Boolean) bridgeOptions.get(
+            BridgeOptions.KEY_LAZY_CONNECT).get()) || bridgeOptions.get(BridgeOptions.KEY_IDLE_DISCONNECT_SEC) != null;
+        sendBufferSize = bridgeOptions.get(BridgeOptions.KEY_SEND_BUFFER_SIZE) != null ? (Integer) bridgeOptions.get(
+            BridgeOptions.KEY_SEND_BUFFER_SIZE).get() : connectOnDemand ? DEFAULT_ON_DEMAND_SEND_BUFFER_SIZE : 0;
+
+        released.set(false);
         super.initialize(serviceIPv4Address, servicePort);
     }
 
     @Override
     public void release() throws BridgeException
     {
+        released.set(true);
+        if (creditGate != null)
+        {
+            failDiscarded(creditGate.close());
+        }
         super.release();
-        channel.disconnect();
+        if (channel != null)
+        {
+            channel.disconnect();
+        }
+
+        failDiscarded(takePending());
     }
 
     /**
-     * Attempt to send a packet through the downstream pipeline to a remote service.
+     * Attempt to send a packet through the downstream pipeline to a remote service. While the channel is being
+     * re-established packets are buffered if send buffer has been configured. In lazy or idle disconnect mode a
+     * disconnected channel is connected on demand and packets are buffered until connect completes. Droppable and low
+     * priority packets are shed while outbound budget of the process is exceeded. Under flow control a packet for
+     * which no credits are left is handled by {@link BridgeOptions#KEY_FLOW_CONTROL_POLICY}: sending thread waits for
+     * credits, send fails or packet is queued until credits are granted. A failed write is only logged.
      * 
      * @param packet
      *            - a source {@link AbstractPacket} packet to send.
      * @throws BridgeException
-     *             - throws {@link BridgeException} on send failure.
+     *             - throws {@link BridgeException} on send failure or if no flow control credits could be acquired.
      */
     public final void sendPacket(AbstractPacket packet) throws BridgeException
     {
-        if (channelConnected.get())
+        send(packet, null);
+    }
+
+    /**
+     * Send a packet like {@link #sendPacket(AbstractPacket)} and observe its completion. Returned stage completes once
+     * the packet has been written to the network, including packets buffered during reconnect or queued for flow
+     * control credits, which complete once they are eventually written. A packet which cannot be sent, is shed or is
+     * discarded from a buffer completes exceptionally. With {@link EFlowControlPolicy#BLOCK} the calling thread still
+     * waits for credits. Completion is signalled on the channel I/O event loop, so dependent stages should not block.
+     * 
+     * @param packet
+     *            - a source {@link AbstractPacket} packet to send.
+     * @return - a {@link CompletionStage} of the send.
+     */
+    @Override
+    public final CompletionStage<Void> sendPacketAsync(AbstractPacket packet)
+    {
+        CompletableFuture<Void> completion = new CompletableFuture<Void>();
+        try
+        {
+            send(packet, completion);
+        }
+        catch (BridgeException be)
+        {
+            completion.completeExceptionally(be);
+        }
+        return completion;
+    }
+
+    /**
+     * Send a packet, optionally completing a completion with its write.
+     * 
+     * @param packet
+     *            - a source {@link AbstractPacket} packet to send.
+     * @param completion
+     *            - a {@link CompletableFuture} to complete with the write or null for a fire-and-forget send.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} on send failure or if no flow control credits could be acquired.
+     */
+    private void send(AbstractPacket packet, CompletableFuture<Void> completion) throws BridgeException
+    {
+        if (shedOnPressure(packet))
+        {
+            if (completion != null)
+            {
+                completion.completeExceptionally(new BridgeException(ERROR_MSG_SHED));
+            }
+            return;
+        }
+
+        if (!channelConnected.get())
         {
-            channel.writeAndFlush(packet).addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws BridgeException
+            // Re-check under lock as channel may just have been re-established.
+            boolean buffered = false;
+            synchronized (pendingPacketQueue)
+            {
+                if (!channelConnected.get())
                 {
-                    if (!future.isSuccess())
-                    {
-                        throw new BridgeException(ERROR_MSG_SEND, future.cause());
-                    }
+                    bufferPacket(packet, completion);
+                    buffered = true;
+                }
+            }
+
+            if (buffered)
+            {
+                if (connectOnDemand && connecting.compareAndSet(false, true))
+                {
+                    connect();
                 }
-            });
+                return;
+            }
+        }
+
+        // Wait for, fail on or queue behind missing flow control credits. Sends from the I/O event loop never wait. A
+        // queued packet is queued with its completion, which completes once a grant releases it.
+        CreditGate gate = creditGate;
+        if (gate != null && !gate.acquire(packet, completion, !channel.eventLoop().inEventLoop()))
+        {
+            return;
+        }
+
+        if (completion != null)
+        {
+            channel.writeAndFlush(packet).addListener(newCompletionListener(completion));
         }
         else
+        {
+            writeAndForget(channel, packet, true);
+        }
+    }
+
+    /**
+     * Attempt to send a batch of packets to a remote service. Packets are shed, buffered or checked for flow control
+     * credits one by one in order, as with {@link #sendPacket(AbstractPacket)}, and those to send are written in a
+     * single task on the channel event loop with a single flush, so a batch costs one flush instead of one per packet.
+     * With {@link BridgeOptions#KEY_PACK_BATCHES} the batch is packed into as few frames as the frame length allows.
+     * 
+     * @param packets
+     *            - a {@link Collection} of {@link AbstractPacket}s to send, in order.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} on send failure or if no flow control credits could be acquired for
+     *             a packet. Packets preceding the failed one are still sent.
+     */
+    @Override
+    public final void sendPackets(Collection<? extends AbstractPacket> packets) throws BridgeException
+    {
+        ArgsChecker.errorOnNull(packets, ARG_PACKETS);
+        Channel ch = channel;
+        if (!channelConnected.get() || ch == null)
+        {
+            for (AbstractPacket packet : packets)
+            {
+                sendPacket(packet);
+            }
+            return;
+        }
+
+        CreditGate gate = creditGate;
+        boolean mayBlock = !ch.eventLoop().inEventLoop();
+        List<AbstractPacket> sendList = new ArrayList<AbstractPacket>(packets.size());
+        try
+        {
+            for (AbstractPacket packet : packets)
+            {
+                if (!shedOnPressure(packet) && (gate == null || gate.acquire(packet, mayBlock)))
+                {
+                    sendList.add(packet);
+                }
+            }
+        }
+        catch (BridgeException be)
+        {
+            // Packets which already consumed credits are sent, so no credits are lost.
+            writeBatch(ch, sendList, true);
+            throw be;
+        }
+        writeBatch(ch, sendList, true);
+    }
+
+    /**
+     * Buffer a packet while channel is down. Caller must hold the pending packet queue lock.
+     * 
+     * @param packet
+     *            - a {@link AbstractPacket} to buffer.
+     * @param completion
+     *            - a {@link CompletableFuture} of the send or null for a fire-and-forget send.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if packet cannot be buffered.
+     */
+    private void bufferPacket(AbstractPacket packet, CompletableFuture<Void> completion) throws BridgeException
+    {
+        if ((reconnectBackoff == null && !connectOnDemand) || released.get() || sendBufferSize == 0)
         {
             throw new BridgeException(ERROR_MSG_SEND);
         }
+
+        if (pendingPacketQueue.size() >= sendBufferSize)
+        {
+            throw new BridgeException(ERROR_SEND_BUFFER_FULL);
+        }
+        pendingPacketQueue.add(new PendingSend(packet, completion));
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
     {
-        responseListener.receive(AbstractPacket.class.cast(msg), ctx.channel().id().asLongText());
+        deliverInbound(ctx, AbstractPacket.class.cast(msg), ctx.channel().id().asLongText());
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception
+    {
+        completeInbound(ctx);
     }
 
     @Override
     public final void channelActive(ChannelHandlerContext ctx) throws Exception
     {
         channel = ctx.channel();
-        channelConnected.set(true);
+        connecting.set(false);
+
+        // New connection starts with full credit window, packets queued for credits go first.
+        CreditGate gate = creditGate;
+        if (gate != null)
+        {
+            writeAll(gate.reset());
+        }
+
+        // Drain packets buffered during reconnect before any new packet can be written. They consume credits even if
+        // none are left, as they have already been accepted.
+        synchronized (pendingPacketQueue)
+        {
+            PendingSend pending = null;
+            while ((pending = pendingPacketQueue.poll()) != null)
+            {
+                if (gate != null)
+                {
+                    gate.consume();
+                }
+                writeDeferred(pending);
+            }
+            channelConnected.set(true);
+        }
+        channel.flush();
+
+        if (reconnectBackoff != null)
+        {
+            reconnectBackoff.reset();
+        }
 
         notifyChannelLifecycleEvent(responseListener.getChannelObserverSet(), Boolean.TRUE,
             (InetSocketAddress) ctx.channel().remoteAddress());
     }
 
+    @Override
+    protected void receiveCredits(ChannelHandlerContext ctx, int credits)
+    {
+        CreditGate gate = creditGate;
+        if (gate != null && writeAll(gate.grant(credits)))
+        {
+            ctx.channel().flush();
+        }
+    }
+
+    /**
+     * Write sends released by the credit gate without flushing them.
+     * 
+     * @param sends
+     *            - a {@link List} of {@link PendingSend}s to write.
+     * @return - true if any packet has been written, false otherwise.
+     */
+    private boolean writeAll(List<PendingSend> sends)
+    {
+        for (PendingSend pending : sends)
+        {
+            writeDeferred(pending);
+        }
+        return !sends.isEmpty();
+    }
+
+    /**
+     * Write a buffered or queued send without flushing it, completing its completion with the write.
+     * 
+     * @param pending
+     *            - a {@link PendingSend} to write.
+     */
+    private void writeDeferred(PendingSend pending)
+    {
+        CompletableFuture<Void> completion = pending.getCompletion();
+        if (completion != null)
+        {
+            channel.write(pending.getPacket()).addListener(newCompletionListener(completion));
+        }
+        else
+        {
+            writeAndForget(channel, pending.getPacket(), false);
+        }
+    }
+
+    /**
+     * Take all sends buffered while reconnecting.
+     * 
+     * @return - a {@link List} of taken {@link PendingSend}s, in order they have been buffered.
+     */
+    private List<PendingSend> takePending()
+    {
+        synchronized (pendingPacketQueue)
+        {
+            List<PendingSend> pendingList = new ArrayList<PendingSend>(pendingPacketQueue);
+            pendingPacketQueue.clear();
+            return pendingList;
+        }
+    }
+
+    /**
+     * Fail completions of sends discarded before they could be sent.
+     * 
+     * @param discarded
+     *            - a {@link List} of discarded {@link PendingSend}s.
+     */
+    private static void failDiscarded(List<PendingSend> discarded)
+    {
+        for (PendingSend pending : discarded)
+        {
+            if (pending.getCompletion() != null)
+            {
+                pending.getCompletion().completeExceptionally(new BridgeException(ERROR_MSG_DISCARDED));
+            }
+        }
+    }
+
+    /**
+     * Retrieve flow control credit gate.
+     * 
+     * @return - a {@link CreditGate} with current credits and stall metrics or null if flow control has not been
+     *         enabled.
+     */
+    public CreditGate getCreditGate()
+    {
+        return creditGate;
+    }
+
     @Override
     public final void channelInactive(ChannelHandlerContext ctx) throws Exception
     {
-        channelConnected.set(false);
+        // A channel closed for idleness may only go inactive after a send already connected a new one.
+        if (ctx.channel() == channel)
+        {
+            channelConnected.set(false);
+        }
+        releaseInboundSession(ctx.channel().id().asLongText());
         notifyChannelLifecycleEvent(responseListener.getChannelObserverSet(), Boolean.FALSE,
             (InetSocketAddress) ctx.channel().remoteAddress());
+
+        // Idle channel stays closed until next send.
+        if (idleClosing)
+        {
+            idleClosing = false;
+            return;
+        }
+
+        if (reconnectBackoff != null && !released.get())
+        {
+            connecting.set(true);
+            scheduleReconnect(ctx.channel().eventLoop());
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception
+    {
+        if (evt instanceof IdleStateEvent)
+        {
+            LOG.info(String.format(MSG_IDLE_DISCONNECT, remoteAddress));
+
+            // Mark channel down under lock first, so that sends from now on are buffered and connect on demand rather
+            // than being written to the closing channel.
+            synchronized (pendingPacketQueue)
+            {
+                idleClosing = true;
+                channelConnected.set(false);
+            }
+            ctx.close();
+        }
+        else
+        {
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+
+    /**
+     * Connect a disconnected channel on demand. On failure either reconnect with backoff if enabled or discard
+     * buffered packets so that next send attempts a new connect.
+     */
+    private void connect()
+    {
+        try
+        {
+            PlatformBridgeManager.getInstance().connectProxy(this, remoteAddress).addListener(
+                new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception
+                    {
+                        if (!future.isSuccess())
+                        {
+                            onDemandConnectFailed(future.channel().eventLoop());
+                        }
+                    }
+                });
+        }
+        catch (BridgeException be)
+        {
+            LOG.warn(String.format(WARN_CONNECT_FAILED, remoteAddress, 0), be);
+            connecting.set(false);
+        }
+    }
+
+    /**
+     * Handle failed on demand connect. Without reconnect, buffered packets are discarded: completions of their sends
+     * fail and channel observers are notified, as fire-and-forget senders could not learn of the loss otherwise.
+     * 
+     * @param eventLoop
+     *            - an {@link EventLoop} to schedule reconnect attempts on.
+     */
+    private void onDemandConnectFailed(EventLoop eventLoop)
+    {
+        if (reconnectBackoff != null && !released.get())
+        {
+            scheduleReconnect(eventLoop);
+            return;
+        }
+
+        List<PendingSend> discarded = takePending();
+        failDiscarded(discarded);
+        LOG.warn(String.format(WARN_CONNECT_FAILED, remoteAddress, discarded.size()));
+        notifyChannelConnectFailed(responseListener.getChannelObserverSet(), remoteAddress, discarded.size());
+        connecting.set(false);
+    }
+
+    /**
+     * Schedule next reconnect attempt on given event loop or abandon reconnect if attempts have been exhausted.
+     * 
+     * @param eventLoop
+     *            - an {@link EventLoop} to schedule reconnect attempt on.
+     */
+    private void scheduleReconnect(final EventLoop eventLoop)
+    {
+        if (!reconnectBackoff.hasNext())
+        {
+            List<PendingSend> discarded = takePending();
+            failDiscarded(discarded);
+            LOG.warn(String.format(WARN_RECONNECT_ABANDONED, remoteAddress, reconnectBackoff.getAttempt(),
+                discarded.size()));
+            notifyChannelReconnectEvent(responseListener.getChannelObserverSet(), remoteAddress,
+                reconnectBackoff.getAttempt(), -1);
+            connecting.set(false);
+            return;
+        }
+
+        long delayMs = reconnectBackoff.nextDelayMs();
+        notifyChannelReconnectEvent(responseListener.getChannelObserverSet(), remoteAddress,
+            reconnectBackoff.getAttempt(), delayMs);
+
+        eventLoop.schedule(new Runnable() {
+            @Override
+            public void run()
+            {
+                reconnect(eventLoop);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Attempt to reconnect with remote service. On failure next attempt is scheduled.
+     * 
+     * @param eventLoop
+     *            - an {@link EventLoop} to schedule further reconnect attempts on.
+     */
+    private void reconnect(final EventLoop eventLoop)
+    {
+        if (released.get())
+        {
+            return;
+        }
+
+        try
+        {
+            PlatformBridgeManager.getInstance().connectProxy(this, remoteAddress).addListener(
+                new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception
+                    {
+                        if (!future.isSuccess() && !released.get())
+                        {
+                            LOG.warn(String.format(WARN_RECONNECT_FAILED, reconnectBackoff.getAttempt(),
+                                remoteAddress));
+                            scheduleReconnect(eventLoop);
+                        }
+                    }
+                });
+        }
+        catch (BridgeException be)
+        {
+            LOG.warn(String.format(WARN_RECONNECT_FAILED, reconnectBackoff.getAttempt(), remoteAddress), be);
+            scheduleReconnect(eventLoop);
+        }
     }
 
     @Override
@@ -0,0 +1,134 @@
+/**
+ * @file ReconnectBackoff.java
+ * @brief Reconnect backoff provides jittered exponential delays between client reconnect attempts.
+ */
+
+package platform.bridge.base.proxy.client;
+
+import game.core.util.ArgsChecker;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import platform.bridge.api.proxy.BridgeOptions;
+
+/**
+ * Reconnect backoff provides jittered exponential delays between client reconnect attempts. Each delay doubles the
+ * previous one up to a maximum delay, and a random jitter of up to half of the delay is subtracted so that clients
+ * which lost connection at the same time do not reconnect in lock-step. Instance is thread safe, as a reconnect chain
+ * advances it on the event loop of the lost channel while a successful connect resets it on the loop of the new one.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class ReconnectBackoff
+{
+    // Args.
+    private static final String ARG_INITIAL_DELAY = "initialDelayMs";
+    private static final String ARG_MAX_DELAY = "maxDelayMs";
+    private static final String ARG_MAX_ATTEMPTS = "maxAttempts";
+
+    // Default backoff values.
+    private static final int DEFAULT_INITIAL_DELAY_MS = 100;
+    private static final int DEFAULT_MAX_DELAY_MS = 30000;
+    private static final int DEFAULT_MAX_ATTEMPTS = 0;
+
+    // Initial and maximum delay between reconnect attempts in milliseconds.
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+
+    // Maximum number of reconnect attempts or 0 for unlimited.
+    private final int maxAttempts;
+
+    // Number of attempts since last successful connect.
+    private final AtomicInteger attempt;
+
+    /**
+     * Constructor.
+     * 
+     * @param initialDelayMs
+     *            - a delay before first reconnect attempt in milliseconds.
+     * @param maxDelayMs
+     *            - a maximum delay between reconnect attempts in milliseconds.
+     * @param maxAttempts
+     *            - maximum number of reconnect attempts or 0 for unlimited attempts.
+     */
+    public ReconnectBackoff(long initialDelayMs, long maxDelayMs, int maxAttempts)
+    {
+        ArgsChecker.errorOnLessThan0(initialDelayMs, ARG_INITIAL_DELAY);
+        ArgsChecker.errorOnLessThan0(maxDelayMs, ARG_MAX_DELAY);
+        ArgsChecker.errorOnLessThan0(maxAttempts, ARG_MAX_ATTEMPTS);
+
+        this.initialDelayMs = Math.max(1, initialDelayMs);
+        this.maxDelayMs = Math.max(this.initialDelayMs, maxDelayMs);
+        this.maxAttempts = maxAttempts;
+        this.attempt = new AtomicInteger();
+    }
+
+    /**
+     * Create a reconnect backoff from bridge options if reconnect has been enabled.
+     * 
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} client bridge options.
+     * @return - a new {@link ReconnectBackoff} or null if reconnect has not been enabled.
+     */
+    public static ReconnectBackoff fromBridgeOptions(BridgeOptions bridgeOptions)
+    {
+        if (bridgeOptions.get(BridgeOptions.KEY_RECONNECT_ENABLED) == null
+            || !(Boolean) bridgeOptions.get(BridgeOptions.KEY_RECONNECT_ENABLED).get())
+        {
+            return null;
+        }
+
+        int initialDelayMs = bridgeOptions.get(BridgeOptions.KEY_RECONNECT_INITIAL_DELAY_MS) != null ? (Integer) bridgeOptions
+            .get(BridgeOptions.KEY_RECONNECT_INITIAL_DELAY_MS).get() : DEFAULT_INITIAL_DELAY_MS;
+        int maxDelayMs = bridgeOptions.get(BridgeOptions.KEY_RECONNECT_MAX_DELAY_MS) != null ? (Integer) bridgeOptions
+            .get(BridgeOptions.KEY_RECONNECT_MAX_DELAY_MS).get() : DEFAULT_MAX_DELAY_MS;
+        int maxAttempts = bridgeOptions.get(BridgeOptions.KEY_RECONNECT_MAX_ATTEMPTS) != null ? (Integer) bridgeOptions
+            .get(BridgeOptions.KEY_RECONNECT_MAX_ATTEMPTS).get() : DEFAULT_MAX_ATTEMPTS;
+
+        return new ReconnectBackoff(initialDelayMs, maxDelayMs, maxAttempts);
+    }
+
+    /**
+     * Check whether another reconnect attempt is allowed.
+     * 
+     * @return - true if another attempt may be made or false if attempts have been exhausted.
+     */
+    public boolean hasNext()
+    {
+        return maxAttempts == 0 || attempt.get() < maxAttempts;
+    }
+
+    /**
+     * Advance to next reconnect attempt and retrieve its delay.
+     * 
+     * @return - a delay in milliseconds to wait before next reconnect attempt.
+     */
+    public long nextDelayMs()
+    {
+        // Cap the shift to avoid overflow on long outages.
+        long delay = Math.min(maxDelayMs, initialDelayMs << Math.min(attempt.getAndIncrement(), 30));
+
+        long halfDelay = delay / 2;
+        return delay - (halfDelay > 0 ? ThreadLocalRandom.current().nextLong(halfDelay + 1) : 0);
+    }
+
+    /**
+     * Retrieve number of attempts made since last reset.
+     * 
+     * @return - number of reconnect attempts.
+     */
+    public int getAttempt()
+    {
+        return attempt.get();
+    }
+
+    /**
+     * Reset backoff after a successful connect.
+     */
+    public void reset()
+    {
+        attempt.set(0);
+    }
+}
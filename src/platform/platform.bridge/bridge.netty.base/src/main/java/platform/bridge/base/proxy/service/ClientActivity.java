@@ -0,0 +1,95 @@
+/**
+ * @file ClientActivity.java
+ * @brief Activity of a service client channel used to balance clients across event loops.
+ */
+
+package platform.bridge.base.proxy.service;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.AttributeKey;
+
+/**
+ * Activity of a service client channel used to balance clients across event loops. Read count is only written by the
+ * loop serving the channel and may be read from any thread. A pinned client, e.g. a room member, must stay on its loop.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class ClientActivity
+{
+    // Channel attribute holding client activity.
+    static final AttributeKey<ClientActivity> ATTR_KEY = AttributeKey.valueOf(ClientActivity.class.getName());
+
+    // Client identifier.
+    private final String senderIdentifier;
+
+    // Client channel.
+    private final Channel channel;
+
+    // Number of packets read from the client.
+    private volatile long readCount;
+
+    // A flag determining whether client must stay on its loop.
+    private volatile boolean pinned;
+
+    // Time of last migration in nanoseconds or 0 if client has never been migrated.
+    private volatile long lastMigrationNanos;
+
+    /**
+     * Ctor.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @param channel
+     *            - a client {@link Channel}.
+     */
+    ClientActivity(String senderIdentifier, Channel channel)
+    {
+        this.senderIdentifier = senderIdentifier;
+        this.channel = channel;
+    }
+
+    /**
+     * Count a packet read. Called on the loop serving the channel only.
+     */
+    void read()
+    {
+        readCount++;
+    }
+
+    void setPinned(boolean pinned)
+    {
+        this.pinned = pinned;
+    }
+
+    void migrated()
+    {
+        lastMigrationNanos = System.nanoTime();
+    }
+
+    public String getSenderIdentifier()
+    {
+        return senderIdentifier;
+    }
+
+    public EventLoop getEventLoop()
+    {
+        return channel.eventLoop();
+    }
+
+    public long getReadCount()
+    {
+        return readCount;
+    }
+
+    public boolean isPinned()
+    {
+        return pinned;
+    }
+
+    public long getLastMigrationNanos()
+    {
+        return lastMigrationNanos;
+    }
+}
@@ -5,36 +5,68 @@
 
 package platform.bridge.base.proxy.service;
 
+import game.core.util.ArgsChecker;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 
 import java.net.Inet4Address;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 
 import platform.bridge.api.protocol.AbstractPacket;
 import platform.bridge.api.protocol.AbstractPlatformProtocol;
 import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.CompiledBridgeOptions;
+import platform.bridge.api.proxy.EFlushPolicy;
+import platform.bridge.api.proxy.ESlowConsumerPolicy;
 import platform.bridge.api.proxy.IResponseListener;
 import platform.bridge.api.proxy.IServiceProxyBase;
+import platform.bridge.base.balance.LoopRebalancer;
+import platform.bridge.base.inbound.IInboundDispatcher;
+import platform.bridge.base.inbound.InboundRingBuffer;
+import platform.bridge.base.pipeline.encoder.PlatformPacketEncoder;
 import platform.bridge.base.proxy.AbstractNettyBridgeAdapter;
+import platform.bridge.base.tick.TickScheduler;
 import platform.core.api.exception.BridgeException;
 
 /**
- * Netty service proxy defines netty specific service proxy functionality.
+ * Netty service proxy defines netty specific service proxy functionality. A single proxy instance is shared by the
+ * pipelines of all accepted client channels.
  * 
  * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
  *
  */
+@Sharable
 public final class NettyServiceProxy extends AbstractNettyBridgeAdapter implements IServiceProxyBase
 {
     // Errors, args, messages.
     private static final String ERROR_MSG_SEND = "Cannot send response to client as channel is not active.";
+    private static final String ERROR_MSG_SHED = "Response to client has been shed as outbound budget is exceeded.";
     private static final String ERROR_UNKNOWN_HOST = "Unknown local host while retrieving local host address.";
+    private static final String ERROR_MIGRATE_UNKNOWN_CLIENT = "Cannot migrate client: [%s] as it is not connected.";
+    private static final String WARN_MIGRATE_FAILED = "Migrating client: [%s] of service: [%s] failed. Closing channel.";
+    private static final String ERROR_BROADCAST_ENCODE = "Cannot encode broadcast packet: [%s] of service: [%s].";
+    private static final String ARG_PACKET = "packet";
+    private static final String ARG_SENDER_IDENTIFIERS = "senderIdentifiers";
+    private static final String ARG_PACKETS = "packets";
 
     // Client channel map.
     private Map<String, Channel> clientChannelMap;
@@ -42,21 +74,59 @@ public final class NettyServiceProxy extends AbstractNettyBridgeAdapter implemen
     // Actual service port this service is listening on.
     private Integer activeServicePort;
 
+    // Loop rebalancer or null if rebalancing has not been enabled.
+    private volatile LoopRebalancer loopRebalancer;
+
+    // Flush policy of packets sent by the service.
+    private volatile EFlushPolicy flushPolicy;
+
+    // Slow consumer policy or null if packets are written to non writable channels as well.
+    private volatile ESlowConsumerPolicy slowConsumerPolicy;
+
+    // Tick scheduler or null if service is not tick driven.
+    private volatile TickScheduler tickScheduler;
+
+    // Client channels written since the last tick flush.
+    private final Set<Channel> dirtyChannelSet;
+
+    // A flag determining whether the service has been released, client channels activated afterwards are closed.
+    private volatile boolean released;
+
     /**
      * Constructor.
      */
     public NettyServiceProxy()
     {
         super();
-        clientChannelMap = new HashMap<String, Channel>();
+        clientChannelMap = new ConcurrentHashMap<String, Channel>();
+        dirtyChannelSet = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+        flushPolicy = EFlushPolicy.READ_CYCLE;
     }
 
     @Override
     public void initialize(Integer servicePort, IResponseListener responseListener) throws BridgeException
     {
         this.responseListener = responseListener;
+        released = false;
         activeServicePort = super.initialize(null, servicePort);
 
+        CompiledBridgeOptions options = getBridgeOptions().compile();
+        flushPolicy = options.getFlushPolicy();
+        slowConsumerPolicy = options.getSlowConsumerPolicy();
+
+        loopRebalancer = LoopRebalancer.fromBridgeOptions(this, getBridgeOptions());
+        if (loopRebalancer != null)
+        {
+            loopRebalancer.start(LoopRebalancer.getIntervalMs(getBridgeOptions()));
+        }
+
+        int tickRateHz = TickScheduler.getTickRateHz(getBridgeOptions());
+        if (tickRateHz > 0)
+        {
+            tickScheduler = new TickScheduler(this, tickRateHz);
+            tickScheduler.start();
+        }
+
         try
         {
             notifyChannelLifecycleEvent(responseListener.getChannelObserverSet(), Boolean.TRUE, new InetSocketAddress(
@@ -72,6 +142,18 @@ public final class NettyServiceProxy extends AbstractNettyBridgeAdapter implemen
     @Override
     public void release() throws BridgeException
     {
+        if (loopRebalancer != null)
+        {
+            loopRebalancer.stop();
+            loopRebalancer = null;
+        }
+        if (tickScheduler != null)
+        {
+            tickScheduler.stop();
+            tickScheduler = null;
+        }
+        dirtyChannelSet.clear();
+        released = true;
         super.release();
         for (Channel channel : clientChannelMap.values())
         {
@@ -93,49 +175,592 @@ public final class NettyServiceProxy extends AbstractNettyBridgeAdapter implemen
     @Override
     public final void sendPacket(AbstractPacket packet, String senderIdentifier) throws BridgeException
     {
-        Channel ch = null;
-        ch = clientChannelMap.get(senderIdentifier);
-        if (ch != null)
+        Channel ch = clientChannelMap.get(senderIdentifier);
+
+        write(ch, packet, isFlushRequested(ch), null);
+    }
+
+    /**
+     * Send a packet to a client like {@link #sendPacket(AbstractPacket, String)} and observe its completion. Returned
+     * stage completes once the packet has been written to the network, which for packets left to a later flush is
+     * only once that flush happens. A packet to a client which is not connected or shed under outbound pressure
+     * completes exceptionally. Completion is signalled on the client I/O event loop, so dependent stages should not
+     * block.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} to send.
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @return - a {@link CompletionStage} of the send.
+     */
+    @Override
+    public final CompletionStage<Void> sendPacketAsync(AbstractPacket packet, String senderIdentifier)
+    {
+        CompletableFuture<Void> completion = new CompletableFuture<Void>();
+        Channel ch = clientChannelMap.get(senderIdentifier);
+        try
         {
-            ch.write(packet).addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws BridgeException
+            write(ch, packet, isFlushRequested(ch), completion);
+        }
+        catch (BridgeException be)
+        {
+            completion.completeExceptionally(be);
+        }
+        return completion;
+    }
+
+    /**
+     * Send a batch of packets to a client. Droppable and low priority packets are shed one by one while outbound budget
+     * of the process is exceeded and the rest is written in a single task on the client loop, or inline if called on
+     * it, and flushed once where {@link #sendPacket(AbstractPacket, String)} would flush a single packet. With
+     * {@link BridgeOptions#KEY_PACK_BATCHES} the batch is packed into as few frames as the frame length allows.
+     * 
+     * @param packets
+     *            - a {@link Collection} of {@link AbstractPacket}s to send, in order.
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if client is not connected or packets cannot be encoded.
+     */
+    @Override
+    public final void sendPackets(Collection<? extends AbstractPacket> packets, String senderIdentifier)
+        throws BridgeException
+    {
+        ArgsChecker.errorOnNull(packets, ARG_PACKETS);
+        Channel ch = clientChannelMap.get(senderIdentifier);
+        if (ch == null)
+        {
+            throw new BridgeException(ERROR_MSG_SEND);
+        }
+
+        List<AbstractPacket> sendList = new ArrayList<AbstractPacket>(packets.size());
+        for (AbstractPacket packet : packets)
+        {
+            if (!shedOnPressure(packet))
+            {
+                sendList.add(packet);
+            }
+        }
+
+        boolean flush = isFlushRequested(ch);
+        writeBatch(ch, sendList, flush);
+        if (!flush && tickScheduler != null && !sendList.isEmpty())
+        {
+            dirtyChannelSet.add(ch);
+        }
+    }
+
+    /**
+     * Determine whether a packet sent to a client channel should request a flush.
+     * 
+     * @param ch
+     *            - a client {@link Channel} or null if client is not connected.
+     * @return - true to request a flush with the write, false to leave it to a later flush.
+     */
+    private boolean isFlushRequested(Channel ch)
+    {
+        // Tick driven services flush at the end of each tick.
+        if (tickScheduler != null)
+        {
+            return false;
+        }
+
+        // Packets written on the loop are flushed on read complete, packets written by offloaded listeners are not.
+        if (flushPolicy == EFlushPolicy.READ_CYCLE)
+        {
+            return ch == null || !ch.eventLoop().inEventLoop();
+        }
+
+        // Other policies request a flush with every packet and the pipeline flush handler merges them.
+        return true;
+    }
+
+    /**
+     * Send a packet to a client, flushing it immediately if requested. Logic running on the client loop outside of a
+     * read, e.g. in a scheduled task, must flush as no read complete follows. Packets of a tick driven service which
+     * are not flushed immediately are flushed at the end of the tick. A requested flush is subject to
+     * {@link BridgeOptions#KEY_FLUSH_POLICY} of the service.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} to send.
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @param flush
+     *            - true to flush the packet immediately, false to leave it to next flush.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if client is not connected.
+     */
+    public final void sendPacket(AbstractPacket packet, String senderIdentifier, boolean flush)
+        throws BridgeException
+    {
+        write(clientChannelMap.get(senderIdentifier), packet, flush, null);
+    }
+
+    /**
+     * Write a packet to a client channel. Droppable and low priority packets are shed while outbound budget of the
+     * process is exceeded. Without a completion a failed write is only logged, see
+     * {@link #writeAndForget(Channel, Object, boolean)}.
+     * 
+     * @param ch
+     *            - a client {@link Channel} or null if client is not connected.
+     * @param packet
+     *            - an {@link AbstractPacket} to write.
+     * @param flush
+     *            - true to flush the packet immediately.
+     * @param completion
+     *            - a {@link CompletableFuture} to complete with the write or null for a fire-and-forget send.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if client is not connected.
+     */
+    private void write(Channel ch, AbstractPacket packet, boolean flush, CompletableFuture<Void> completion)
+        throws BridgeException
+    {
+        if (ch == null)
+        {
+            throw new BridgeException(ERROR_MSG_SEND);
+        }
+
+        if (shedOnPressure(packet))
+        {
+            if (completion != null)
+            {
+                completion.completeExceptionally(new BridgeException(ERROR_MSG_SHED));
+            }
+            return;
+        }
+
+        if (completion != null)
+        {
+            ChannelFuture writeFuture = flush ? ch.writeAndFlush(packet) : ch.write(packet);
+            writeFuture.addListener(newCompletionListener(completion));
+        }
+        else
+        {
+            writeAndForget(ch, packet, flush);
+        }
+        if (!flush && tickScheduler != null)
+        {
+            dirtyChannelSet.add(ch);
+        }
+    }
+
+    /**
+     * Broadcast a packet to a group of clients. Packet is encoded once and every client channel is written a retained
+     * duplicate of the encoded buffer, so fan-out costs no serialisation per client. Channels are written in one task
+     * per event loop, inline for channels of the calling loop, and each loop flushes its channels once per broadcast,
+     * or leaves them to the tick flush of a tick driven service. Clients that are not connected are skipped. Under
+     * {@link ESlowConsumerPolicy#DROP} a droppable packet is not written to non writable channels, while other slow
+     * consumer policies do not apply to broadcasts as the packet is already encoded. Droppable and low priority packets
+     * are shed while outbound budget of the process is exceeded.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} to broadcast.
+     * @param senderIdentifiers
+     *            - a {@link Collection} of client identifiers. Must not be modified during the call.
+     * @return - number of connected clients the packet has been written to.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if packet cannot be encoded with service protocol.
+     */
+    public int broadcast(AbstractPacket packet, Collection<String> senderIdentifiers) throws BridgeException
+    {
+        ArgsChecker.errorOnNull(packet, ARG_PACKET);
+        ArgsChecker.errorOnNull(senderIdentifiers, ARG_SENDER_IDENTIFIERS);
+        if (shedOnPressure(packet))
+        {
+            return 0;
+        }
+
+        // Group connected client channels by their loop.
+        Map<EventLoop, List<Channel>> loopChannelMap = new HashMap<EventLoop, List<Channel>>();
+        Channel anyChannel = null;
+        int count = 0;
+        for (String senderIdentifier : senderIdentifiers)
+        {
+            Channel ch = clientChannelMap.get(senderIdentifier);
+            if (ch != null)
+            {
+                List<Channel> channelList = loopChannelMap.get(ch.eventLoop());
+                if (channelList == null)
                 {
-                    if (!future.isSuccess())
-                    {
-                        throw new BridgeException(ERROR_MSG_SEND, future.cause());
-                    }
+                    channelList = new ArrayList<Channel>();
+                    loopChannelMap.put(ch.eventLoop(), channelList);
                 }
-            });
+                channelList.add(ch);
+                anyChannel = ch;
+                count++;
+            }
         }
-        else
+        if (anyChannel == null)
         {
-            throw new BridgeException(ERROR_MSG_SEND);
+            return 0;
+        }
+
+        final boolean droppable = slowConsumerPolicy == ESlowConsumerPolicy.DROP && packet.isDroppable();
+        ByteBuf encoded = anyChannel.alloc().buffer();
+        try
+        {
+            PlatformPacketEncoder.encodePacket(getProtocol(), packet, encoded);
+        }
+        catch (Exception e)
+        {
+            encoded.release();
+            String msg = String.format(ERROR_BROADCAST_ENCODE, packet.getClass().getName(), getName());
+            LOG.error(msg, e);
+            throw new BridgeException(msg, e);
+        }
+
+        try
+        {
+            for (Map.Entry<EventLoop, List<Channel>> entry : loopChannelMap.entrySet())
+            {
+                EventLoop loop = entry.getKey();
+                if (loop.inEventLoop())
+                {
+                    writeBroadcast(encoded, entry.getValue(), droppable);
+                    continue;
+                }
+
+                // Each loop task holds its own reference, so buffer outlives this call.
+                final ByteBuf loopEncoded = encoded.retain();
+                final List<Channel> channelList = entry.getValue();
+                try
+                {
+                    loop.execute(new Runnable() {
+                        @Override
+                        public void run()
+                        {
+                            try
+                            {
+                                writeBroadcast(loopEncoded, channelList, droppable);
+                            }
+                            finally
+                            {
+                                loopEncoded.release();
+                            }
+                        }
+                    });
+                }
+                catch (RuntimeException re)
+                {
+                    // Loop is shutting down, its channels are closing anyway.
+                    loopEncoded.release();
+                    count -= channelList.size();
+                }
+            }
+        }
+        finally
+        {
+            encoded.release();
+        }
+        return count;
+    }
+
+    /**
+     * Write an encoded broadcast packet to channels of the calling loop and flush each once.
+     * 
+     * @param encoded
+     *            - an encoded {@link ByteBuf}, not released by this method.
+     * @param channelList
+     *            - a {@link List} of client {@link Channel}s of the calling loop.
+     * @param droppable
+     *            - true to skip non writable channels.
+     */
+    private void writeBroadcast(ByteBuf encoded, List<Channel> channelList, boolean droppable)
+    {
+        boolean tickDriven = tickScheduler != null;
+        for (Channel ch : channelList)
+        {
+            if (droppable && !ch.isWritable())
+            {
+                getSlowConsumerCounters().recordDropped();
+                continue;
+            }
+            ch.write(encoded.retainedDuplicate(), ch.voidPromise());
+            if (tickDriven)
+            {
+                dirtyChannelSet.add(ch);
+            }
+            else
+            {
+                ch.flush();
+            }
         }
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
     {
-        responseListener.receive(AbstractPacket.class.cast(msg), ctx.channel().id().asLongText());
+        ClientActivity activity = ctx.channel().attr(ClientActivity.ATTR_KEY).get();
+        if (activity != null)
+        {
+            activity.read();
+        }
+        deliverInbound(ctx, AbstractPacket.class.cast(msg), ctx.channel().id().asLongText());
     }
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception
     {
-        ctx.channel().flush();
+        try
+        {
+            completeInbound(ctx);
+        }
+        finally
+        {
+            if (tickScheduler == null)
+            {
+                ctx.channel().flush();
+            }
+        }
     }
 
     @Override
     public final void channelActive(ChannelHandlerContext ctx) throws Exception
     {
-        clientChannelMap.put(ctx.channel().id().asLongText(), ctx.channel());
+        String senderIdentifier = ctx.channel().id().asLongText();
+        ctx.channel().attr(ClientActivity.ATTR_KEY).set(new ClientActivity(senderIdentifier, ctx.channel()));
+        clientChannelMap.put(senderIdentifier, ctx.channel());
+
+        // Client accepted before release may only become active after release closed client channels.
+        if (released)
+        {
+            ctx.close();
+        }
     }
 
     @Override
     public final void channelInactive(ChannelHandlerContext ctx) throws Exception
     {
-        clientChannelMap.remove(ctx.channel().id().asLongText());
+        String senderIdentifier = ctx.channel().id().asLongText();
+        clientChannelMap.remove(senderIdentifier);
+        dirtyChannelSet.remove(ctx.channel());
+        releaseInboundSession(senderIdentifier);
+    }
+
+    /**
+     * Retrieve event loop serving a client. Consumer logic executed on this loop runs on the same thread, and in
+     * thread-per-core mode on the same core, as the client I/O.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @return - client {@link EventLoop} or null if client is not connected.
+     */
+    public EventLoop getClientEventLoop(String senderIdentifier)
+    {
+        Channel ch = clientChannelMap.get(senderIdentifier);
+        return ch != null ? ch.eventLoop() : null;
+    }
+
+    /**
+     * Check whether a client channel accepts writes without growing its outbound buffer over the high write buffer
+     * watermark. Application may use it to skip or thin out updates for a slow client.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @return - true if client is connected and writable, false otherwise.
+     */
+    public boolean isClientWritable(String senderIdentifier)
+    {
+        Channel ch = clientChannelMap.get(senderIdentifier);
+        return ch != null && ch.isWritable();
+    }
+
+    /**
+     * Retrieve inbound ring buffer a single application consumer thread, such as a game simulation thread, drains to
+     * receive packets of this service.
+     * 
+     * @return - an {@link InboundRingBuffer} or null if {@link BridgeOptions#KEY_INBOUND_MODE} is not ring buffer.
+     */
+    public InboundRingBuffer getInboundRingBuffer()
+    {
+        IInboundDispatcher dispatcher = getInboundDispatcher();
+        return dispatcher instanceof InboundRingBuffer ? (InboundRingBuffer) dispatcher : null;
+    }
+
+    /**
+     * Migrate a client channel to another event loop of the same transport. Channel is deregistered from its current
+     * loop in a task on that loop, so no read of the channel is in progress, and then registered with target loop.
+     * Channel stays connected and its pipeline is preserved. A channel which fails to register with target loop is
+     * closed.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @param targetLoop
+     *            - an {@link EventLoop} to serve the client from.
+     * @return - a {@link Future} completed once client is served by target loop.
+     */
+    public Future<Void> migrateClient(final String senderIdentifier, final EventLoop targetLoop)
+    {
+        final Promise<Void> promise = targetLoop.newPromise();
+        final Channel ch = clientChannelMap.get(senderIdentifier);
+        if (ch == null)
+        {
+            return promise.setFailure(new BridgeException(String.format(ERROR_MIGRATE_UNKNOWN_CLIENT,
+                senderIdentifier)));
+        }
+
+        ch.eventLoop().execute(new Runnable() {
+            @Override
+            public void run()
+            {
+                if (ch.eventLoop() == targetLoop || !ch.isRegistered())
+                {
+                    promise.trySuccess(null);
+                    return;
+                }
+
+                ch.deregister().addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture deregisterFuture) throws Exception
+                    {
+                        if (!deregisterFuture.isSuccess())
+                        {
+                            promise.tryFailure(deregisterFuture.cause());
+                            return;
+                        }
+
+                        targetLoop.register(ch).addListener(new ChannelFutureListener() {
+                            @Override
+                            public void operationComplete(ChannelFuture registerFuture) throws Exception
+                            {
+                                if (registerFuture.isSuccess())
+                                {
+                                    ClientActivity activity = ch.attr(ClientActivity.ATTR_KEY).get();
+                                    if (activity != null)
+                                    {
+                                        activity.migrated();
+                                    }
+                                    promise.trySuccess(null);
+                                }
+                                else
+                                {
+                                    LOG.warn(String.format(WARN_MIGRATE_FAILED, senderIdentifier, getName()),
+                                        registerFuture.cause());
+                                    promise.tryFailure(registerFuture.cause());
+
+                                    // Unregistered channel fires no inactive event, so forget it here.
+                                    clientChannelMap.remove(senderIdentifier);
+                                    releaseInboundSession(senderIdentifier);
+                                    ch.unsafe().closeForcibly();
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * Pin a client to its current loop so that load balancing does not migrate it, or unpin it.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @param pinned
+     *            - true to pin the client, false to unpin it.
+     */
+    public void setClientPinned(String senderIdentifier, boolean pinned)
+    {
+        Channel ch = clientChannelMap.get(senderIdentifier);
+        ClientActivity activity = ch != null ? ch.attr(ClientActivity.ATTR_KEY).get() : null;
+        if (activity != null)
+        {
+            activity.setPinned(pinned);
+        }
+    }
+
+    /**
+     * Flush all client channels written since the previous call, with a single task per event loop. Called by the
+     * tick scheduler at the end of each tick.
+     * 
+     * @return - number of flushed channels.
+     */
+    public int flushDirtyChannels()
+    {
+        if (dirtyChannelSet.isEmpty())
+        {
+            return 0;
+        }
+
+        int count = 0;
+        Map<EventLoop, List<Channel>> loopChannelMap = new HashMap<EventLoop, List<Channel>>();
+        Iterator<Channel> it = dirtyChannelSet.iterator();
+        while (it.hasNext())
+        {
+            Channel ch = it.next();
+            it.remove();
+
+            List<Channel> channelList = loopChannelMap.get(ch.eventLoop());
+            if (channelList == null)
+            {
+                channelList = new ArrayList<Channel>();
+                loopChannelMap.put(ch.eventLoop(), channelList);
+            }
+            channelList.add(ch);
+            count++;
+        }
+
+        // Flush tasks queue behind writes already submitted to the loops.
+        for (Map.Entry<EventLoop, List<Channel>> entry : loopChannelMap.entrySet())
+        {
+            final List<Channel> channelList = entry.getValue();
+            entry.getKey().execute(new Runnable() {
+                @Override
+                public void run()
+                {
+                    for (Channel ch : channelList)
+                    {
+                        ch.flush();
+                    }
+                }
+            });
+        }
+        return count;
+    }
+
+    /**
+     * Retrieve tick scheduler of this service.
+     * 
+     * @return - a {@link TickScheduler} or null if {@link BridgeOptions#KEY_TICK_RATE_HZ} is not set.
+     */
+    public TickScheduler getTickScheduler()
+    {
+        return tickScheduler;
+    }
+
+    /**
+     * Retrieve loop rebalancer of this service.
+     * 
+     * @return - a {@link LoopRebalancer} or null if {@link BridgeOptions#KEY_REBALANCE_INTERVAL_MS} is not set.
+     */
+    public LoopRebalancer getLoopRebalancer()
+    {
+        return loopRebalancer;
+    }
+
+    /**
+     * Retrieve activity of all connected clients.
+     * 
+     * @return - a {@link List} of {@link ClientActivity}.
+     */
+    public List<ClientActivity> getClientActivity()
+    {
+        List<ClientActivity> activityList = new ArrayList<ClientActivity>(clientChannelMap.size());
+        for (Channel ch : clientChannelMap.values())
+        {
+            ClientActivity activity = ch.attr(ClientActivity.ATTR_KEY).get();
+            if (activity != null)
+            {
+                activityList.add(activity);
+            }
+        }
+        return activityList;
+    }
+
+    public Integer getActiveServicePort()
+    {
+        return activeServicePort;
     }
 
     @Override
@@ -0,0 +1,220 @@
+/**
+ * @file Room.java
+ * @brief Room groups clients of a service proxy on a single event loop.
+ */
+
+package platform.bridge.base.room;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.Promise;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Room groups clients of a service proxy on a single event loop. Joining client channel is migrated and pinned to room
+ * loop, so its packets are received and room logic submitted with {@link #execute(Runnable)} runs on one thread, and
+ * room state needs no locking as long as it is only touched from room loop. Application removes members with
+ * {@link #leave(String)}, also when they disconnect.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class Room
+{
+    // Room name.
+    private final String name;
+
+    // Manager owning the room.
+    private final RoomManager roomManager;
+
+    // Service proxy serving room members.
+    private final NettyServiceProxy serviceProxy;
+
+    // Loop serving the room.
+    private final EventLoop eventLoop;
+
+    // Room members. Accessed on room loop only.
+    private final Set<String> memberSet;
+
+    // Number of room members, readable from any thread.
+    private volatile int memberCount;
+
+    /**
+     * Ctor.
+     * 
+     * @param name
+     *            - a {@link String} room name.
+     * @param roomManager
+     *            - a {@link RoomManager} owning the room.
+     * @param serviceProxy
+     *            - a {@link NettyServiceProxy} serving room members.
+     * @param eventLoop
+     *            - an {@link EventLoop} serving the room.
+     */
+    Room(String name, RoomManager roomManager, NettyServiceProxy serviceProxy, EventLoop eventLoop)
+    {
+        this.name = name;
+        this.roomManager = roomManager;
+        this.serviceProxy = serviceProxy;
+        this.eventLoop = eventLoop;
+        this.memberSet = new LinkedHashSet<String>();
+    }
+
+    /**
+     * Join a client to the room, migrating its channel to room loop.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     * @return - a {@link Future} completed on room loop once client is a room member.
+     */
+    public Future<Void> join(final String senderIdentifier)
+    {
+        final Promise<Void> promise = eventLoop.newPromise();
+
+        // Pin up front, so a rebalance running meanwhile does not move joining client off room loop.
+        serviceProxy.setClientPinned(senderIdentifier, true);
+
+        // Migration future belongs to room loop, so its listener runs there.
+        serviceProxy.migrateClient(senderIdentifier, eventLoop).addListener(
+            new GenericFutureListener<Future<Void>>() {
+                @Override
+                public void operationComplete(Future<Void> future) throws Exception
+                {
+                    if (!future.isSuccess())
+                    {
+                        serviceProxy.setClientPinned(senderIdentifier, false);
+                        promise.tryFailure(future.cause());
+                        return;
+                    }
+
+                    memberSet.add(senderIdentifier);
+                    memberCount = memberSet.size();
+                    promise.trySuccess(null);
+                }
+            });
+        return promise;
+    }
+
+    /**
+     * Remove a client from the room and unpin it. Client channel stays on room loop until migrated elsewhere.
+     * 
+     * @param senderIdentifier
+     *            - a {@link String} client identifier.
+     */
+    public void leave(final String senderIdentifier)
+    {
+        execute(new Runnable() {
+            @Override
+            public void run()
+            {
+                if (memberSet.remove(senderIdentifier))
+                {
+                    serviceProxy.setClientPinned(senderIdentifier, false);
+                }
+                memberCount = memberSet.size();
+            }
+        });
+    }
+
+    /**
+     * Run room logic on room loop.
+     * 
+     * @param task
+     *            - a {@link Runnable} to run.
+     */
+    public void execute(Runnable task)
+    {
+        eventLoop.execute(task);
+    }
+
+    /**
+     * Send a packet to a room member and flush it.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} to send.
+     * @param senderIdentifier
+     *            - a {@link String} member identifier.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if member is not connected.
+     */
+    public void send(AbstractPacket packet, String senderIdentifier) throws BridgeException
+    {
+        serviceProxy.sendPacket(packet, senderIdentifier, true);
+    }
+
+    /**
+     * Broadcast a packet to all room members, encoding it once. Must be called on room loop.
+     * 
+     * @param packet
+     *            - an {@link AbstractPacket} to broadcast.
+     * @return - number of connected members the packet has been written to.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if packet cannot be encoded.
+     */
+    public int broadcast(AbstractPacket packet) throws BridgeException
+    {
+        return serviceProxy.broadcast(packet, memberSet);
+    }
+
+    /**
+     * Check whether calling thread is room loop.
+     * 
+     * @return - true if called on room loop, false otherwise.
+     */
+    public boolean inRoomLoop()
+    {
+        return eventLoop.inEventLoop();
+    }
+
+    /**
+     * Retrieve room members. Must be called on room loop.
+     * 
+     * @return - an unmodifiable {@link Set} of member identifiers.
+     */
+    public Set<String> getMembers()
+    {
+        return Collections.unmodifiableSet(memberSet);
+    }
+
+    /**
+     * Retrieve number of room members.
+     * 
+     * @return - member count.
+     */
+    public int getMemberCount()
+    {
+        return memberCount;
+    }
+
+    /**
+     * Remove the room from its manager. Member channels stay on room loop.
+     */
+    public void close()
+    {
+        roomManager.removeRoom(name);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public EventLoop getEventLoop()
+    {
+        return eventLoop;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s[members=%d]", name, memberCount);
+    }
+}
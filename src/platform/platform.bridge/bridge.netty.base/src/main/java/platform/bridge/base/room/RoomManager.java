@@ -0,0 +1,175 @@
+/**
+ * @file RoomManager.java
+ * @brief Room manager places rooms of a service proxy on its worker loops by load.
+ */
+
+package platform.bridge.base.room;
+
+import game.core.util.ArgsChecker;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import platform.bridge.base.PlatformBridgeManager;
+import platform.bridge.base.loop.PlatformEventLoopGroup;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Room manager places rooms of a service proxy on its worker loops by load. Load of a loop is the number of its rooms
+ * plus the number of their members, and a new room is placed on the least loaded loop. Ties are broken by sampled loop
+ * utilisation, see {@link PlatformBridgeManager#getEventLoopGroupStats()}.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class RoomManager
+{
+    // Errors, args, messages.
+    private static final String ARG_SERVICE_PROXY = "serviceProxy";
+    private static final String ARG_ROOM_NAME = "roomName";
+    private static final String ERROR_ROOM_EXISTS = "Room: [%s] already exists.";
+    private static final String ERROR_PROXY_NOT_REGISTERED = "Service proxy: [%s] has not been registered.";
+
+    // Service proxy serving room members.
+    private final NettyServiceProxy serviceProxy;
+
+    // Room map, mapping room name to room.
+    private final Map<String, Room> roomMap;
+
+    /**
+     * Ctor.
+     * 
+     * @param serviceProxy
+     *            - an initialized {@link NettyServiceProxy} serving room members.
+     */
+    public RoomManager(NettyServiceProxy serviceProxy)
+    {
+        ArgsChecker.errorOnNull(serviceProxy, ARG_SERVICE_PROXY);
+
+        this.serviceProxy = serviceProxy;
+        this.roomMap = new ConcurrentHashMap<String, Room>();
+    }
+
+    /**
+     * Create a room on the least loaded worker loop of the service proxy.
+     * 
+     * @param roomName
+     *            - a unique {@link String} room name.
+     * @return - a new {@link Room}.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if room exists or service proxy has not been registered.
+     */
+    public synchronized Room createRoom(String roomName) throws BridgeException
+    {
+        ArgsChecker.errorOnNull(roomName, ARG_ROOM_NAME);
+
+        if (roomMap.containsKey(roomName))
+        {
+            throw new BridgeException(String.format(ERROR_ROOM_EXISTS, roomName));
+        }
+
+        PlatformEventLoopGroup group = getWorkerGroup();
+        EventLoop selectedLoop = null;
+        int selectedLoad = Integer.MAX_VALUE;
+        for (Map.Entry<EventLoop, Integer> entry : getLoopLoad().entrySet())
+        {
+            int load = entry.getValue();
+            if (load < selectedLoad
+                || (load == selectedLoad && group.getLoopUtilisation(entry.getKey()) < group
+                    .getLoopUtilisation(selectedLoop)))
+            {
+                selectedLoop = entry.getKey();
+                selectedLoad = load;
+            }
+        }
+
+        Room room = new Room(roomName, this, serviceProxy, selectedLoop);
+        roomMap.put(roomName, room);
+        return room;
+    }
+
+    /**
+     * Retrieve a room.
+     * 
+     * @param roomName
+     *            - a {@link String} room name.
+     * @return - a {@link Room} or null if room does not exist.
+     */
+    public Room getRoom(String roomName)
+    {
+        return roomMap.get(roomName);
+    }
+
+    /**
+     * Retrieve all rooms.
+     * 
+     * @return - a {@link Collection} of {@link Room}.
+     */
+    public Collection<Room> getRooms()
+    {
+        return new ArrayList<Room>(roomMap.values());
+    }
+
+    /**
+     * Remove a room. Member channels stay on room loop.
+     * 
+     * @param roomName
+     *            - a {@link String} room name.
+     * @return - removed {@link Room} or null if room does not exist.
+     */
+    public synchronized Room removeRoom(String roomName)
+    {
+        return roomMap.remove(roomName);
+    }
+
+    /**
+     * Retrieve load of each worker loop of the service proxy.
+     * 
+     * @return - a {@link Map} of worker {@link EventLoop} to its rooms plus room members.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if service proxy has not been registered.
+     */
+    public Map<EventLoop, Integer> getLoopLoad() throws BridgeException
+    {
+        Map<EventLoop, Integer> loadMap = new LinkedHashMap<EventLoop, Integer>();
+        for (EventExecutor executor : getWorkerGroup().getEventLoopGroup())
+        {
+            loadMap.put((EventLoop) executor, 0);
+        }
+
+        List<Room> rooms = new ArrayList<Room>(roomMap.values());
+        for (Room room : rooms)
+        {
+            Integer load = loadMap.get(room.getEventLoop());
+            if (load != null)
+            {
+                loadMap.put(room.getEventLoop(), load + 1 + room.getMemberCount());
+            }
+        }
+        return loadMap;
+    }
+
+    /**
+     * Retrieve worker group of the service proxy.
+     * 
+     * @return - a {@link PlatformEventLoopGroup}.
+     * @throws BridgeException
+     *             - throws {@link BridgeException} if service proxy has not been registered.
+     */
+    private PlatformEventLoopGroup getWorkerGroup() throws BridgeException
+    {
+        PlatformEventLoopGroup group = PlatformBridgeManager.getInstance().getProxyWorkerGroup(serviceProxy.getName());
+        if (group == null)
+        {
+            throw new BridgeException(String.format(ERROR_PROXY_NOT_REGISTERED, serviceProxy.getName()));
+        }
+        return group;
+    }
+}
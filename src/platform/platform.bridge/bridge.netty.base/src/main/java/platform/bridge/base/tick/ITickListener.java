@@ -0,0 +1,26 @@
+/**
+ * @file ITickListener.java
+ * @brief Tick listener runs simulation logic once per service tick.
+ */
+
+package platform.bridge.base.tick;
+
+/**
+ * Tick listener runs simulation logic once per service tick. It is called on the tick thread after inbound packets
+ * gathered since the previous tick have been delivered, and packets it sends are flushed once at the end of the tick.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public interface ITickListener
+{
+    /**
+     * Run one tick.
+     * 
+     * @param tick
+     *            - tick number, starting at 1.
+     * @param deltaNanos
+     *            - time since start of the previous tick in nanoseconds.
+     */
+    public void onTick(long tick, long deltaNanos);
+}
@@ -0,0 +1,324 @@
+/**
+ * @file TickScheduler.java
+ * @brief Tick scheduler drives a service proxy on fixed ticks with drain, simulate and flush phases.
+ */
+
+package platform.bridge.base.tick;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.inbound.InboundRingBuffer;
+import platform.bridge.base.inbound.LatencyHistogram;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+
+/**
+ * Tick scheduler drives a service proxy on fixed ticks with drain, simulate and flush phases. Each tick runs on the
+ * tick thread and first delivers inbound packets gathered in the service inbound ring buffer since the previous tick,
+ * then runs registered {@link ITickListener}s and finally flushes every client channel written during the tick once,
+ * so network syscalls follow simulation steps instead of individual packets.
+ * 
+ * A tick that takes longer than the tick period is an overrun. Overruns are counted and logged, and ticks that could
+ * not start on time are skipped rather than run back to back, so the schedule recovers without bursts.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class TickScheduler
+{
+    // Errors, args, messages.
+    private static final String ARG_SERVICE_PROXY = "serviceProxy";
+    private static final String ARG_TICK_LISTENER = "tickListener";
+    private static final String ERROR_TICK_RATE = "Tick rate: [%d] must be between 1 and 1000 Hz.";
+    private static final String WARN_TICK_LISTENER = "Tick listener of service: [%s] failed on tick: [%d].";
+    private static final String WARN_OVERRUN = "Tick: [%d] of service: [%s] overran by: [%d] us, overruns: [%d].";
+    private static final String WARN_STOP = "Interrupted while stopping tick thread of service: [%s].";
+
+    // Maximum tick rate.
+    private static final int MAX_TICK_RATE_HZ = 1000;
+
+    // Minimum time between two overrun warnings.
+    private static final long OVERRUN_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Time to wait for tick thread on stop.
+    private static final long STOP_TIMEOUT_MS = 1000;
+
+    // Tick duration percentile reported in stats.
+    private static final double STATS_PERCENTILE = 0.99;
+
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(TickScheduler.class);
+
+    // Driven service proxy.
+    private final NettyServiceProxy serviceProxy;
+
+    // Tick period in nanoseconds.
+    private final long periodNanos;
+
+    // Tick listeners.
+    private final List<ITickListener> tickListenerList;
+
+    // Counters.
+    private final AtomicLong tickCount;
+    private final AtomicLong overrunCount;
+    private final AtomicLong skippedCount;
+    private final AtomicLong drained;
+    private final AtomicLong flushed;
+
+    // Tick duration.
+    private final LatencyHistogram tickDuration;
+
+    // Tick thread or null if not started.
+    private volatile Thread tickThread;
+
+    // A flag determining whether tick thread should keep running.
+    private volatile boolean running;
+
+    // Time of the last overrun warning, accessed on tick thread only.
+    private long lastOverrunLogNanos;
+
+    /**
+     * Ctor.
+     * 
+     * @param serviceProxy
+     *            - a {@link NettyServiceProxy} to drive.
+     * @param tickRateHz
+     *            - number of ticks per second.
+     */
+    public TickScheduler(NettyServiceProxy serviceProxy, int tickRateHz)
+    {
+        ArgsChecker.errorOnNull(serviceProxy, ARG_SERVICE_PROXY);
+        if (tickRateHz < 1 || tickRateHz > MAX_TICK_RATE_HZ)
+        {
+            LOG.error(String.format(ERROR_TICK_RATE, tickRateHz));
+            throw new IllegalArgumentException(String.format(ERROR_TICK_RATE, tickRateHz));
+        }
+
+        this.serviceProxy = serviceProxy;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / tickRateHz;
+        this.tickListenerList = new CopyOnWriteArrayList<ITickListener>();
+        this.tickCount = new AtomicLong();
+        this.overrunCount = new AtomicLong();
+        this.skippedCount = new AtomicLong();
+        this.drained = new AtomicLong();
+        this.flushed = new AtomicLong();
+        this.tickDuration = new LatencyHistogram();
+    }
+
+    /**
+     * Retrieve tick rate from bridge options.
+     * 
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} service bridge options.
+     * @return - tick rate in Hz or 0 if service is not tick driven.
+     */
+    public static int getTickRateHz(BridgeOptions bridgeOptions)
+    {
+        return bridgeOptions.get(BridgeOptions.KEY_TICK_RATE_HZ) != null ? (Integer) bridgeOptions.get(
+            BridgeOptions.KEY_TICK_RATE_HZ).get() : 0;
+    }
+
+    /**
+     * Register a tick listener. Listeners run in registration order.
+     * 
+     * @param tickListener
+     *            - an {@link ITickListener} to run every tick.
+     */
+    public void addTickListener(ITickListener tickListener)
+    {
+        ArgsChecker.errorOnNull(tickListener, ARG_TICK_LISTENER);
+        tickListenerList.add(tickListener);
+    }
+
+    /**
+     * Unregister a tick listener.
+     * 
+     * @param tickListener
+     *            - an {@link ITickListener} to remove.
+     */
+    public void removeTickListener(ITickListener tickListener)
+    {
+        tickListenerList.remove(tickListener);
+    }
+
+    /**
+     * Start the tick thread.
+     */
+    public synchronized void start()
+    {
+        if (tickThread != null)
+        {
+            return;
+        }
+
+        running = true;
+        tickThread = new DefaultThreadFactory(serviceProxy.getName() + "-tick", true).newThread(new Runnable() {
+            @Override
+            public void run()
+            {
+                runTicks();
+            }
+        });
+        tickThread.start();
+    }
+
+    /**
+     * Stop the tick thread after its current tick. Waits for the thread unless called from a tick listener.
+     */
+    public synchronized void stop()
+    {
+        if (tickThread == null)
+        {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(tickThread);
+        if (tickThread != Thread.currentThread())
+        {
+            try
+            {
+                tickThread.join(STOP_TIMEOUT_MS);
+            }
+            catch (InterruptedException ie)
+            {
+                LOG.warn(String.format(WARN_STOP, serviceProxy.getName()), ie);
+                Thread.currentThread().interrupt();
+            }
+        }
+        tickThread = null;
+    }
+
+    /**
+     * Check whether calling thread is the tick thread.
+     * 
+     * @return - true if called from a tick phase, false otherwise.
+     */
+    public boolean inTickThread()
+    {
+        return Thread.currentThread() == tickThread;
+    }
+
+    /**
+     * Retrieve a snapshot of tick timing statistics.
+     * 
+     * @return - a {@link TickStats} snapshot.
+     */
+    public TickStats getStats()
+    {
+        return new TickStats(serviceProxy.getName(), periodNanos, tickCount.get(), overrunCount.get(),
+            skippedCount.get(), drained.get(), flushed.get(), tickDuration.getMeanNanos(),
+            tickDuration.getPercentileNanos(STATS_PERCENTILE), tickDuration.getMaxNanos());
+    }
+
+    public long getPeriodNanos()
+    {
+        return periodNanos;
+    }
+
+    /**
+     * Run ticks on fixed deadlines until stopped.
+     */
+    private void runTicks()
+    {
+        long deadline = System.nanoTime();
+        long lastTickNanos = deadline;
+        while (running)
+        {
+            long start = System.nanoTime();
+            long tick = tickCount.incrementAndGet();
+            runTick(tick, start - lastTickNanos);
+            lastTickNanos = start;
+
+            long end = System.nanoTime();
+            long duration = end - start;
+            tickDuration.record(duration);
+            if (duration > periodNanos)
+            {
+                reportOverrun(tick, duration, end);
+            }
+
+            // Skip deadlines already missed instead of running late ticks back to back.
+            deadline += periodNanos;
+            if (end - deadline > 0)
+            {
+                long missed = (end - deadline) / periodNanos + 1;
+                skippedCount.addAndGet(missed);
+                deadline += missed * periodNanos;
+            }
+
+            long wait;
+            while (running && (wait = deadline - System.nanoTime()) > 0)
+            {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    /**
+     * Run drain, simulate and flush phases of a tick.
+     * 
+     * @param tick
+     *            - tick number.
+     * @param deltaNanos
+     *            - time since start of the previous tick in nanoseconds.
+     */
+    private void runTick(long tick, long deltaNanos)
+    {
+        // Drain only what has been gathered so far, packets arriving meanwhile belong to next tick.
+        InboundRingBuffer inbound = serviceProxy.getInboundRingBuffer();
+        if (inbound != null)
+        {
+            long gathered = inbound.size();
+            if (gathered > 0)
+            {
+                drained.addAndGet(inbound.drain((int) Math.min(gathered, Integer.MAX_VALUE)));
+            }
+        }
+
+        for (ITickListener tickListener : tickListenerList)
+        {
+            // Guard for application level stupidity.
+            try
+            {
+                tickListener.onTick(tick, deltaNanos);
+            }
+            catch (Exception e)
+            {
+                LOG.warn(String.format(WARN_TICK_LISTENER, serviceProxy.getName(), tick), e);
+            }
+        }
+
+        flushed.addAndGet(serviceProxy.flushDirtyChannels());
+    }
+
+    /**
+     * Count an overrun and log it, at most once per log interval.
+     * 
+     * @param tick
+     *            - overrun tick number.
+     * @param duration
+     *            - tick duration in nanoseconds.
+     * @param now
+     *            - current time in nanoseconds.
+     */
+    private void reportOverrun(long tick, long duration, long now)
+    {
+        long overruns = overrunCount.incrementAndGet();
+        if (lastOverrunLogNanos == 0 || now - lastOverrunLogNanos >= OVERRUN_LOG_INTERVAL_NANOS)
+        {
+            lastOverrunLogNanos = now;
+            LOG.warn(String.format(WARN_OVERRUN, tick, serviceProxy.getName(),
+                TimeUnit.NANOSECONDS.toMicros(duration - periodNanos), overruns));
+        }
+    }
+}
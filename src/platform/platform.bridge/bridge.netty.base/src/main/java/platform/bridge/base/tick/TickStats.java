@@ -0,0 +1,134 @@
+/**
+ * @file TickStats.java
+ * @brief Snapshot of tick scheduler timing statistics.
+ */
+
+package platform.bridge.base.tick;
+
+/**
+ * Snapshot of tick scheduler timing statistics. Tick duration covers drain, simulate and flush phases of a tick, and a
+ * tick overruns when it takes longer than the tick period. Counters are cumulative since scheduler start.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class TickStats
+{
+    // Scheduler name.
+    private final String name;
+
+    // Tick period in nanoseconds.
+    private final long periodNanos;
+
+    // Ticks run, ticks overrun and ticks skipped to recover from overruns.
+    private final long tickCount;
+    private final long overrunCount;
+    private final long skippedCount;
+
+    // Inbound packets drained and channels flushed.
+    private final long drained;
+    private final long flushed;
+
+    // Tick duration in nanoseconds.
+    private final long meanTickNanos;
+    private final long p99TickNanos;
+    private final long maxTickNanos;
+
+    /**
+     * Ctor.
+     * 
+     * @param name
+     *            - a {@link String} scheduler name.
+     * @param periodNanos
+     *            - tick period in nanoseconds.
+     * @param tickCount
+     *            - ticks run.
+     * @param overrunCount
+     *            - ticks which took longer than tick period.
+     * @param skippedCount
+     *            - ticks skipped to recover from overruns.
+     * @param drained
+     *            - inbound packets drained.
+     * @param flushed
+     *            - channel flushes.
+     * @param meanTickNanos
+     *            - mean tick duration in nanoseconds.
+     * @param p99TickNanos
+     *            - 99th percentile tick duration in nanoseconds.
+     * @param maxTickNanos
+     *            - maximum tick duration in nanoseconds.
+     */
+    public TickStats(String name, long periodNanos, long tickCount, long overrunCount, long skippedCount,
+        long drained, long flushed, long meanTickNanos, long p99TickNanos, long maxTickNanos)
+    {
+        this.name = name;
+        this.periodNanos = periodNanos;
+        this.tickCount = tickCount;
+        this.overrunCount = overrunCount;
+        this.skippedCount = skippedCount;
+        this.drained = drained;
+        this.flushed = flushed;
+        this.meanTickNanos = meanTickNanos;
+        this.p99TickNanos = p99TickNanos;
+        this.maxTickNanos = maxTickNanos;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getPeriodNanos()
+    {
+        return periodNanos;
+    }
+
+    public long getTickCount()
+    {
+        return tickCount;
+    }
+
+    public long getOverrunCount()
+    {
+        return overrunCount;
+    }
+
+    public long getSkippedCount()
+    {
+        return skippedCount;
+    }
+
+    public long getDrained()
+    {
+        return drained;
+    }
+
+    public long getFlushed()
+    {
+        return flushed;
+    }
+
+    public long getMeanTickNanos()
+    {
+        return meanTickNanos;
+    }
+
+    public long getP99TickNanos()
+    {
+        return p99TickNanos;
+    }
+
+    public long getMaxTickNanos()
+    {
+        return maxTickNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "%s[periodUs=%.1f, ticks=%d, overruns=%d, skipped=%d, drained=%d, flushed=%d, tickUs(mean=%.1f, p99=%.1f, max=%.1f)]",
+            name, periodNanos / 1000.0, tickCount, overrunCount, skippedCount, drained, flushed,
+            meanTickNanos / 1000.0, p99TickNanos / 1000.0, maxTickNanos / 1000.0);
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * @file ETransportType.java
+ * @brief Enumeration of network transports supported by the bridge.
+ */
+
+package platform.bridge.base.transport;
+
+/**
+ * Enumeration of network transports supported by the bridge. Native transports are only available on Linux and fall
+ * back to the next transport in order IO_URING --> EPOLL --> NIO when not supported by the host.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum ETransportType
+{
+    NIO, // Java NIO selector based transport, available everywhere.
+    EPOLL, // Linux native epoll transport.
+    IO_URING // Linux native io_uring transport, requires kernel 5.9 or newer.
+}
@@ -0,0 +1,62 @@
+/**
+ * @file EpollTransport.java
+ * @brief Linux native epoll transport.
+ */
+
+package platform.bridge.base.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Linux native epoll transport. Available when the native epoll library can be loaded.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class EpollTransport implements ITransport
+{
+    @Override
+    public ETransportType getType()
+    {
+        return ETransportType.EPOLL;
+    }
+
+    @Override
+    public boolean isAvailable()
+    {
+        try
+        {
+            return Epoll.isAvailable();
+        }
+        catch (LinkageError le)
+        {
+            return false;
+        }
+    }
+
+    @Override
+    public EventLoopGroup newEventLoopGroup(int numThreads, ThreadFactory threadFactory)
+    {
+        return new EpollEventLoopGroup(numThreads, threadFactory);
+    }
+
+    @Override
+    public Class<? extends ServerChannel> getServerChannelClass()
+    {
+        return EpollServerSocketChannel.class;
+    }
+
+    @Override
+    public Class<? extends SocketChannel> getClientChannelClass()
+    {
+        return EpollSocketChannel.class;
+    }
+}
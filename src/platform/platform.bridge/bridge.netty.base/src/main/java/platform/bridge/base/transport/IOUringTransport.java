@@ -0,0 +1,63 @@
+/**
+ * @file IOUringTransport.java
+ * @brief Linux native io_uring transport.
+ */
+
+package platform.bridge.base.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Linux native io_uring transport. Available when the native io_uring library can be loaded and the running kernel
+ * supports io_uring.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class IOUringTransport implements ITransport
+{
+    @Override
+    public ETransportType getType()
+    {
+        return ETransportType.IO_URING;
+    }
+
+    @Override
+    public boolean isAvailable()
+    {
+        try
+        {
+            return IOUring.isAvailable();
+        }
+        catch (LinkageError le)
+        {
+            return false;
+        }
+    }
+
+    @Override
+    public EventLoopGroup newEventLoopGroup(int numThreads, ThreadFactory threadFactory)
+    {
+        return new IOUringEventLoopGroup(numThreads, threadFactory);
+    }
+
+    @Override
+    public Class<? extends ServerChannel> getServerChannelClass()
+    {
+        return IOUringServerSocketChannel.class;
+    }
+
+    @Override
+    public Class<? extends SocketChannel> getClientChannelClass()
+    {
+        return IOUringSocketChannel.class;
+    }
+}
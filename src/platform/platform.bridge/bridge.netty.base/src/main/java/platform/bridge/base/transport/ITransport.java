@@ -0,0 +1,62 @@
+/**
+ * @file ITransport.java
+ * @brief Transport strategy providing event loops and channel types for a concrete network transport.
+ */
+
+package platform.bridge.base.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.socket.SocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Transport strategy providing event loops and channel types for a concrete network transport. Bridge provider uses a
+ * single transport for all of its event loop groups and channels, as channels can only be registered with event loops
+ * of the same transport.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public interface ITransport
+{
+    /**
+     * Retrieve transport type.
+     * 
+     * @return - an {@link ETransportType} of this transport.
+     */
+    ETransportType getType();
+
+    /**
+     * Check whether this transport is supported by the host.
+     * 
+     * @return - true if transport can be used or false otherwise.
+     */
+    boolean isAvailable();
+
+    /**
+     * Create a new event loop group of this transport.
+     * 
+     * @param numThreads
+     *            - amount of threads to allocate for returned loop group.
+     * @param threadFactory
+     *            - a {@link ThreadFactory} creating event loop threads.
+     * @return - a new {@link EventLoopGroup}.
+     */
+    EventLoopGroup newEventLoopGroup(int numThreads, ThreadFactory threadFactory);
+
+    /**
+     * Retrieve server channel class of this transport.
+     * 
+     * @return - subclass of {@link ServerChannel}.
+     */
+    Class<? extends ServerChannel> getServerChannelClass();
+
+    /**
+     * Retrieve client channel class of this transport.
+     * 
+     * @return - subclass of {@link SocketChannel}.
+     */
+    Class<? extends SocketChannel> getClientChannelClass();
+}
@@ -0,0 +1,54 @@
+/**
+ * @file NioTransport.java
+ * @brief Java NIO transport.
+ */
+
+package platform.bridge.base.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Java NIO transport. Available on every platform and used as the last fallback.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class NioTransport implements ITransport
+{
+    @Override
+    public ETransportType getType()
+    {
+        return ETransportType.NIO;
+    }
+
+    @Override
+    public boolean isAvailable()
+    {
+        return true;
+    }
+
+    @Override
+    public EventLoopGroup newEventLoopGroup(int numThreads, ThreadFactory threadFactory)
+    {
+        return new NioEventLoopGroup(numThreads, threadFactory);
+    }
+
+    @Override
+    public Class<? extends ServerChannel> getServerChannelClass()
+    {
+        return NioServerSocketChannel.class;
+    }
+
+    @Override
+    public Class<? extends SocketChannel> getClientChannelClass()
+    {
+        return NioSocketChannel.class;
+    }
+}
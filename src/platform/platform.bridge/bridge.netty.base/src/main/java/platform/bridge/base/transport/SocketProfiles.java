@@ -0,0 +1,142 @@
+/**
+ * @file SocketProfiles.java
+ * @brief Applies socket profile options to server and client bootstraps.
+ */
+
+package platform.bridge.base.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.ESocketProfile;
+
+/**
+ * Applies socket profile options to server and client bootstraps. Options common to all transports are always applied,
+ * epoll specific options are applied only when running on the native epoll transport.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class SocketProfiles
+{
+    // Linger time on close in seconds.
+    private static final int SO_LINGER_SEC = 5;
+
+    // Low latency profile values.
+    private static final int LOW_LATENCY_BUFFER_SIZE = 64 * 1024;
+    private static final WriteBufferWaterMark LOW_LATENCY_WATER_MARK = new WriteBufferWaterMark(8 * 1024, 32 * 1024);
+    private static final int LOW_LATENCY_BUSY_POLL_US = 50;
+    private static final int LOW_LATENCY_FASTOPEN_QUEUE = 256;
+
+    // Throughput profile values.
+    private static final int THROUGHPUT_BUFFER_SIZE = 1024 * 1024;
+    private static final WriteBufferWaterMark THROUGHPUT_WATER_MARK = new WriteBufferWaterMark(256 * 1024,
+        1024 * 1024);
+
+    /**
+     * Private constructor.
+     */
+    private SocketProfiles()
+    {}
+
+    /**
+     * Retrieve socket profile from bridge options.
+     * 
+     * @param bridgeOptions
+     *            - a {@link BridgeOptions} consumer options.
+     * @return - selected {@link ESocketProfile} or {@link ESocketProfile#DEFAULT} if none has been set.
+     */
+    public static ESocketProfile fromBridgeOptions(BridgeOptions bridgeOptions)
+    {
+        return bridgeOptions.get(BridgeOptions.KEY_SOCKET_PROFILE) != null ? (ESocketProfile) bridgeOptions.get(
+            BridgeOptions.KEY_SOCKET_PROFILE).get() : ESocketProfile.DEFAULT;
+    }
+
+    /**
+     * Apply socket profile to a server bootstrap. Listening socket receives fast open and receive buffer options, while
+     * accepted sockets receive the remaining options.
+     * 
+     * @param serverBootstrap
+     *            - a {@link ServerBootstrap} to configure.
+     * @param profile
+     *            - an {@link ESocketProfile} to apply.
+     * @param transport
+     *            - an {@link ITransport} used by the bootstrap.
+     */
+    public static void applyServer(ServerBootstrap serverBootstrap, ESocketProfile profile, ITransport transport)
+    {
+        // Allow a released service to bind on the same port again.
+        serverBootstrap.option(ChannelOption.SO_REUSEADDR, true);
+
+        serverBootstrap.childOption(ChannelOption.TCP_NODELAY, true);
+        serverBootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
+        serverBootstrap.childOption(ChannelOption.SO_LINGER, SO_LINGER_SEC);
+
+        boolean epoll = transport.getType() == ETransportType.EPOLL;
+        switch (profile)
+        {
+            case LOW_LATENCY:
+                // Receive buffer must be set on the listening socket to take effect for accepted sockets.
+                serverBootstrap.option(ChannelOption.SO_RCVBUF, LOW_LATENCY_BUFFER_SIZE);
+                serverBootstrap.childOption(ChannelOption.SO_SNDBUF, LOW_LATENCY_BUFFER_SIZE);
+                serverBootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, LOW_LATENCY_WATER_MARK);
+                if (epoll)
+                {
+                    serverBootstrap.option(EpollChannelOption.TCP_FASTOPEN, LOW_LATENCY_FASTOPEN_QUEUE);
+                    serverBootstrap.childOption(EpollChannelOption.SO_BUSY_POLL, LOW_LATENCY_BUSY_POLL_US);
+                    serverBootstrap.childOption(EpollChannelOption.TCP_QUICKACK, true);
+                }
+                break;
+            case THROUGHPUT:
+                serverBootstrap.option(ChannelOption.SO_RCVBUF, THROUGHPUT_BUFFER_SIZE);
+                serverBootstrap.childOption(ChannelOption.SO_SNDBUF, THROUGHPUT_BUFFER_SIZE);
+                serverBootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, THROUGHPUT_WATER_MARK);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Apply socket profile to a client bootstrap.
+     * 
+     * @param bootstrap
+     *            - a {@link Bootstrap} to configure.
+     * @param profile
+     *            - an {@link ESocketProfile} to apply.
+     * @param transport
+     *            - an {@link ITransport} used by the bootstrap.
+     */
+    public static void applyClient(Bootstrap bootstrap, ESocketProfile profile, ITransport transport)
+    {
+        bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
+        bootstrap.option(ChannelOption.SO_LINGER, SO_LINGER_SEC);
+
+        boolean epoll = transport.getType() == ETransportType.EPOLL;
+        switch (profile)
+        {
+            case LOW_LATENCY:
+                bootstrap.option(ChannelOption.SO_RCVBUF, LOW_LATENCY_BUFFER_SIZE);
+                bootstrap.option(ChannelOption.SO_SNDBUF, LOW_LATENCY_BUFFER_SIZE);
+                bootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK, LOW_LATENCY_WATER_MARK);
+                if (epoll)
+                {
+                    bootstrap.option(EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+                    bootstrap.option(EpollChannelOption.SO_BUSY_POLL, LOW_LATENCY_BUSY_POLL_US);
+                    bootstrap.option(EpollChannelOption.TCP_QUICKACK, true);
+                }
+                break;
+            case THROUGHPUT:
+                bootstrap.option(ChannelOption.SO_RCVBUF, THROUGHPUT_BUFFER_SIZE);
+                bootstrap.option(ChannelOption.SO_SNDBUF, THROUGHPUT_BUFFER_SIZE);
+                bootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK, THROUGHPUT_WATER_MARK);
+                break;
+            default:
+                break;
+        }
+    }
+}
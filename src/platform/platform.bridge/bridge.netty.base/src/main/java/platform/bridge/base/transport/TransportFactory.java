@@ -0,0 +1,109 @@
+/**
+ * @file TransportFactory.java
+ * @brief Transport factory resolves a preferred transport to one supported by the host.
+ */
+
+package platform.bridge.base.transport;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+
+/**
+ * Transport factory resolves a preferred transport to one supported by the host. If preferred transport is not
+ * available, next transport in order IO_URING --> EPOLL --> NIO is attempted.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class TransportFactory
+{
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(TransportFactory.class);
+
+    // Args, messages, errors.
+    private static final String ARG_TRANSPORT_TYPE = "transportType";
+    private static final String MSG_TRANSPORT_SELECTED = "Using [%s] bridge transport.";
+    private static final String WARN_TRANSPORT_FALLBACK = "Bridge transport [%s] is not available. Falling back to [%s].";
+    private static final String WARN_UNKNOWN_TRANSPORT = "Unknown bridge transport [%s] configured. Using default [%s].";
+
+    // System property for overriding the transport.
+    public static final String PROPERTY_TRANSPORT = "platform.bridge.transport";
+
+    // Default preferred transport.
+    public static final ETransportType DEFAULT_TRANSPORT_TYPE = ETransportType.EPOLL;
+
+    /**
+     * Private constructor.
+     */
+    private TransportFactory()
+    {}
+
+    /**
+     * Resolve transport preferred by {@link #PROPERTY_TRANSPORT} system property or default transport if property has
+     * not been set.
+     * 
+     * @return - an available {@link ITransport}.
+     */
+    public static ITransport resolve()
+    {
+        String property = System.getProperty(PROPERTY_TRANSPORT);
+        if (property == null)
+        {
+            return resolve(DEFAULT_TRANSPORT_TYPE);
+        }
+
+        try
+        {
+            return resolve(ETransportType.valueOf(property.trim().toUpperCase()));
+        }
+        catch (IllegalArgumentException iae)
+        {
+            LOG.warn(String.format(WARN_UNKNOWN_TRANSPORT, property, DEFAULT_TRANSPORT_TYPE));
+            return resolve(DEFAULT_TRANSPORT_TYPE);
+        }
+    }
+
+    /**
+     * Resolve preferred transport to one available on the host.
+     * 
+     * @param preferredType
+     *            - a preferred {@link ETransportType}.
+     * @return - an available {@link ITransport}.
+     */
+    public static ITransport resolve(ETransportType preferredType)
+    {
+        ArgsChecker.errorOnNull(preferredType, ARG_TRANSPORT_TYPE);
+
+        ITransport transport = create(preferredType);
+        while (!transport.isAvailable())
+        {
+            ITransport fallback = create(ETransportType.values()[transport.getType().ordinal() - 1]);
+            LOG.warn(String.format(WARN_TRANSPORT_FALLBACK, transport.getType(), fallback.getType()));
+            transport = fallback;
+        }
+
+        LOG.info(String.format(MSG_TRANSPORT_SELECTED, transport.getType()));
+        return transport;
+    }
+
+    /**
+     * Create transport of given type.
+     * 
+     * @param type
+     *            - an {@link ETransportType} to create transport for.
+     * @return - an {@link ITransport} instance.
+     */
+    private static ITransport create(ETransportType type)
+    {
+        switch (type)
+        {
+            case IO_URING:
+                return new IOUringTransport();
+            case EPOLL:
+                return new EpollTransport();
+            default:
+                return new NioTransport();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * @file BatchSendBenchmark.java
+ * @brief Compares single packet sends with batch sends of small packets from a client proxy.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoPacket;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoProtocol;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.proxy.client.NettyClientProxy;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Compares single packet sends with batch sends of small packets from a client proxy to a service in the same process:
+ * one {@link NettyClientProxy#sendPacket(AbstractPacket)} per packet, {@link NettyClientProxy#sendPackets} with one
+ * flush per batch and batch sends packed into batch frames. Reported are delivered packets per second and write system
+ * calls per packet, taken from the process I/O counters on Linux. Counters cover both ends of the connection, so
+ * they include writes of any other process activity as well. Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.BatchSendBenchmark [packets] [batchSize] [payloadSize]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class BatchSendBenchmark
+{
+    // Benchmark proxy names.
+    private static final String BATCH_SERVICE_NAME = "benchmarkBatchService";
+    private static final String BATCH_CLIENT_NAME = "benchmarkBatchClient";
+
+    // Default workload.
+    private static final int DEFAULT_PACKETS = 500000;
+    private static final int DEFAULT_BATCH_SIZE = 32;
+    private static final int DEFAULT_PAYLOAD_SIZE = 16;
+
+    // Process I/O counters and write system call counter in them.
+    private static final String PROC_SELF_IO = "/proc/self/io";
+    private static final String SYSCW = "syscw:";
+
+    // Maximum time to wait for a workload to complete in seconds.
+    private static final int WORKLOAD_TIMEOUT_SEC = 120;
+
+    // Benchmark modes.
+    private static final String MODE_SINGLE = "single";
+    private static final String MODE_BATCH = "batch";
+    private static final String MODE_PACKED = "batch-packed";
+
+    /**
+     * Private constructor.
+     */
+    private BatchSendBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional packets, batch size and payload size.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int packets = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PACKETS;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BATCH_SIZE;
+        int payloadSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PAYLOAD_SIZE;
+
+        BridgeOptions serviceOptions = new BridgeOptions();
+        serviceOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        BatchListener serviceListener = new BatchListener(serviceOptions, BATCH_SERVICE_NAME);
+        NettyServiceProxy serviceProxy = new NettyServiceProxy();
+        serviceProxy.initialize(0, serviceListener);
+        try
+        {
+            System.out.println(String.format("Batch workload: %d packets in batches of %d, payload %d bytes.",
+                packets, batchSize, payloadSize));
+
+            // Warm up once, then measure.
+            byte[] payload = new byte[payloadSize];
+            int runId = 0;
+            for (int run = 0; run < 2; run++)
+            {
+                for (String mode : new String[] { MODE_SINGLE, MODE_BATCH, MODE_PACKED })
+                {
+                    String report = runSends(serviceProxy, serviceListener, mode, runId++, packets, batchSize,
+                        payload);
+                    if (run > 0)
+                    {
+                        System.out.println(report);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            serviceProxy.release();
+        }
+    }
+
+    /**
+     * Send workload packets from a new client proxy in given mode.
+     * 
+     * @return - a formatted report line.
+     */
+    private static String runSends(NettyServiceProxy serviceProxy, BatchListener serviceListener, String mode,
+        int runId, int packets, int batchSize, byte[] payload) throws Exception
+    {
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        clientOptions.set(BridgeOptions.KEY_PACK_BATCHES, MODE_PACKED.equals(mode));
+        BatchListener clientListener = new BatchListener(clientOptions, BATCH_CLIENT_NAME + runId);
+        NettyClientProxy clientProxy = new NettyClientProxy();
+        clientProxy.initialize(Inet4Address.getLocalHost().getHostAddress(), serviceProxy.getActiveServicePort(),
+            clientListener);
+        try
+        {
+            if (!clientListener.connected.await(5, TimeUnit.SECONDS))
+            {
+                throw new BridgeException("Benchmark client failed to connect.");
+            }
+
+            long expected = serviceListener.received.get() + packets;
+            long writesBefore = readWriteSyscalls();
+            long start = System.nanoTime();
+            List<AbstractPacket> batch = new ArrayList<AbstractPacket>(batchSize);
+            for (int i = 0; i < packets; i++)
+            {
+                AbstractPacket packet = new EchoPacket(System.nanoTime(), payload);
+                if (MODE_SINGLE.equals(mode))
+                {
+                    clientProxy.sendPacket(packet);
+                    continue;
+                }
+                batch.add(packet);
+                if (batch.size() == batchSize || i == packets - 1)
+                {
+                    clientProxy.sendPackets(batch);
+                    batch = new ArrayList<AbstractPacket>(batchSize);
+                }
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WORKLOAD_TIMEOUT_SEC);
+            while (serviceListener.received.get() < expected)
+            {
+                if (System.nanoTime() > deadline)
+                {
+                    throw new BridgeException("Benchmark workload timed out.");
+                }
+                Thread.sleep(1);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            long writesAfter = readWriteSyscalls();
+
+            String syscalls = writesBefore < 0 || writesAfter < 0 ? "n/a" : String.format("%.3f",
+                (writesAfter - writesBefore) / (double) packets);
+            return String.format("%-24s %12.0f packets/s   write syscalls %8s /packet", mode, packets
+                / (elapsedNanos / 1e9), syscalls);
+        }
+        finally
+        {
+            clientProxy.release();
+        }
+    }
+
+    /**
+     * Read number of write system calls of the process.
+     * 
+     * @return - number of write system calls or -1 if process I/O counters are not available.
+     */
+    private static long readWriteSyscalls()
+    {
+        if (!new File(PROC_SELF_IO).canRead())
+        {
+            return -1;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(PROC_SELF_IO)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.startsWith(SYSCW))
+                {
+                    return Long.parseLong(line.substring(SYSCW.length()).trim());
+                }
+            }
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            // Counters not available.
+        }
+        return -1;
+    }
+
+    /**
+     * Batch response listener, counts inbound packets and observes connect of its proxy.
+     */
+    private static class BatchListener implements IResponseListener, IChannelObserver
+    {
+        private final BridgeOptions options;
+        private final String name;
+        private final EchoProtocol protocol = new EchoProtocol();
+        private final AtomicLong received = new AtomicLong();
+        private final CountDownLatch connected = new CountDownLatch(1);
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - proxy {@link BridgeOptions}.
+         * @param name
+         *            - a {@link String} unique proxy name.
+         */
+        public BatchListener(BridgeOptions options, String name)
+        {
+            this.options = options;
+            this.name = name;
+        }
+
+        @Override
+        public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+        {
+            received.incrementAndGet();
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return name;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return Collections.<IChannelObserver> singleton(this);
+        }
+
+        @Override
+        public void notifyChannelStateChanged(boolean isChannelUp, String proxyName,
+            InetSocketAddress inetSocketAddress)
+        {
+            if (isChannelUp)
+            {
+                connected.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,581 @@
+/**
+ * @file BenchmarkSupport.java
+ * @brief Shared echo workload and reporting used by bridge benchmarks.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.AbstractBridgeProvider;
+import platform.bridge.base.loop.ICpuAffinity;
+import platform.bridge.base.pipeline.PlatformPipelineInitializer;
+import platform.bridge.base.proxy.AbstractNettyBridgeAdapter;
+import platform.bridge.base.transport.ETransportType;
+import platform.bridge.base.transport.TransportFactory;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Shared echo workload and reporting used by bridge benchmarks. Workload binds an echo service on a wild-card port and
+ * drives a number of client connections, each keeping a fixed window of echo packets in flight. Every packet carries
+ * its send time so round-trip latency is recorded per packet. Benchmarks are run manually via their main methods and
+ * are not picked up by the test runner.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class BenchmarkSupport
+{
+    // Benchmark proxy names.
+    private static final String ECHO_SERVICE_NAME = "benchmarkEchoService";
+    private static final String ECHO_CLIENT_NAME = "benchmarkEchoClient";
+
+    // Maximum time to wait for a workload to complete in seconds.
+    private static final int WORKLOAD_TIMEOUT_SEC = 120;
+
+    /**
+     * Private constructor.
+     */
+    private BenchmarkSupport()
+    {}
+
+    /**
+     * Run echo workload against a new echo service bound by given provider.
+     * 
+     * @param provider
+     *            - a {@link BenchmarkProvider} to bind service and connect clients with.
+     * @param config
+     *            - a {@link WorkloadConfig} workload configuration.
+     * @return - a {@link WorkloadResult} of the run.
+     * @throws Exception
+     *             - throws {@link Exception} on bind, connect or timeout.
+     */
+    public static WorkloadResult runEchoWorkload(BenchmarkProvider provider, WorkloadConfig config) throws Exception
+    {
+        BridgeOptions serviceOptions = config.serviceOptions != null ? config.serviceOptions : new BridgeOptions();
+        serviceOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        int port = provider.bindService(new EchoServiceHandler(serviceOptions), serviceOptions);
+
+        BridgeOptions clientOptions = config.clientOptions != null ? config.clientOptions : new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(config.connections);
+        List<EchoClientHandler> clients = new ArrayList<EchoClientHandler>(config.connections);
+        InetSocketAddress serviceAddress = new InetSocketAddress(Inet4Address.getLocalHost(), port);
+        for (int i = 0; i < config.connections; i++)
+        {
+            EchoClientHandler client = new EchoClientHandler(clientOptions, config, startLatch, doneLatch);
+            clients.add(client);
+            ChannelFuture connectFuture = provider.connectClient(serviceAddress, client, clientOptions);
+            if (!connectFuture.await(5, TimeUnit.SECONDS) || !connectFuture.isSuccess())
+            {
+                throw new BridgeException("Benchmark client failed to connect: " + connectFuture.cause());
+            }
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        if (!doneLatch.await(WORKLOAD_TIMEOUT_SEC, TimeUnit.SECONDS))
+        {
+            throw new BridgeException("Benchmark workload timed out.");
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        provider.releaseAll();
+
+        int total = config.connections * config.messagesPerConnection;
+        long[] samples = new long[total];
+        int offset = 0;
+        for (EchoClientHandler client : clients)
+        {
+            System.arraycopy(client.latencies, 0, samples, offset, client.latencies.length);
+            offset += client.latencies.length;
+        }
+        return new WorkloadResult(total, elapsedNanos, samples);
+    }
+
+    /**
+     * Echo workload configuration.
+     */
+    public static final class WorkloadConfig
+    {
+        // Number of client connections.
+        public int connections = 8;
+
+        // Number of echo round trips per connection.
+        public int messagesPerConnection = 50000;
+
+        // Number of packets kept in flight per connection.
+        public int window = 16;
+
+        // Size of echo packet payload in bytes. Must fit the platform frame limit.
+        public int payloadSize = 64;
+
+        // Optional service and client bridge options.
+        public BridgeOptions serviceOptions;
+        public BridgeOptions clientOptions;
+    }
+
+    /**
+     * Echo workload result with throughput and latency percentiles.
+     */
+    public static final class WorkloadResult
+    {
+        private final int messages;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+
+        /**
+         * Ctor.
+         * 
+         * @param messages
+         *            - number of completed round trips.
+         * @param elapsedNanos
+         *            - workload duration in nanoseconds.
+         * @param latencies
+         *            - round trip latencies in nanoseconds.
+         */
+        public WorkloadResult(int messages, long elapsedNanos, long[] latencies)
+        {
+            this.messages = messages;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(this.sortedLatencies);
+        }
+
+        /**
+         * Retrieve round trips per second.
+         * 
+         * @return - throughput in messages per second.
+         */
+        public double getThroughput()
+        {
+            return messages / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Retrieve latency percentile in microseconds.
+         * 
+         * @param percentile
+         *            - a percentile between 0 and 100.
+         * @return - latency in microseconds.
+         */
+        public double getLatencyUs(double percentile)
+        {
+            if (sortedLatencies.length == 0)
+            {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))] / 1000.0;
+        }
+
+        /**
+         * Format result as a single report line.
+         * 
+         * @param label
+         *            - a {@link String} label of the run.
+         * @return - a formatted report line.
+         */
+        public String format(String label)
+        {
+            return String.format("%-24s %12.0f msg/s   p50 %8.1f us   p90 %8.1f us   p99 %8.1f us   p99.9 %8.1f us   "
+                + "max %8.1f us", label, getThroughput(), getLatencyUs(50), getLatencyUs(90), getLatencyUs(99),
+                getLatencyUs(99.9), getLatencyUs(100));
+        }
+    }
+
+    /**
+     * Bridge provider exposing bind and connect operations to benchmarks. Each instance owns its own event loops.
+     */
+    public static class BenchmarkProvider extends AbstractBridgeProvider
+    {
+        /**
+         * Ctor.
+         * 
+         * @param workerGroupSize
+         *            - number of threads in event I/O processing group.
+         * @param transportType
+         *            - a preferred {@link ETransportType}.
+         */
+        public BenchmarkProvider(int workerGroupSize, ETransportType transportType)
+        {
+            super(workerGroupSize, transportType);
+        }
+
+        /**
+         * Ctor.
+         * 
+         * @param workerGroupSize
+         *            - number of threads in event I/O processing group.
+         * @param transportType
+         *            - a preferred {@link ETransportType}.
+         * @param cpuAffinity
+         *            - an {@link ICpuAffinity} to pin loop threads with or null.
+         */
+        public BenchmarkProvider(int workerGroupSize, ETransportType transportType, ICpuAffinity cpuAffinity)
+        {
+            super(workerGroupSize, TransportFactory.resolve(transportType), cpuAffinity);
+        }
+
+        /**
+         * Bind a service handler on a wild-card port.
+         * 
+         * @param serviceHandler
+         *            - a service {@link AbstractNettyBridgeAdapter}.
+         * @param options
+         *            - service {@link BridgeOptions}.
+         * @return - bound port.
+         * @throws BridgeException
+         *             - throws {@link BridgeException} on bind failure.
+         */
+        public int bindService(AbstractNettyBridgeAdapter serviceHandler, BridgeOptions options)
+            throws BridgeException
+        {
+            return provideServiceBridge(0, new PlatformPipelineInitializer(serviceHandler), options);
+        }
+
+        /**
+         * Connect a client handler with remote address.
+         * 
+         * @param remoteAddress
+         *            - a remote {@link InetSocketAddress}.
+         * @param clientHandler
+         *            - a client {@link AbstractNettyBridgeAdapter}.
+         * @param options
+         *            - client {@link BridgeOptions}.
+         * @return - a connect {@link ChannelFuture}.
+         */
+        public ChannelFuture connectClient(InetSocketAddress remoteAddress, AbstractNettyBridgeAdapter clientHandler,
+            BridgeOptions options)
+        {
+            return connectClientBridge(remoteAddress, new PlatformPipelineInitializer(clientHandler), options);
+        }
+
+        /**
+         * Close all echo workload channels.
+         */
+        public void releaseAll()
+        {
+            release(ECHO_CLIENT_NAME);
+            release(ECHO_SERVICE_NAME);
+        }
+
+        /**
+         * Close all channels of given proxy.
+         * 
+         * @param proxyName
+         *            - a {@link String} proxy name.
+         */
+        public void release(String proxyName)
+        {
+            releaseBridge(proxyName);
+        }
+
+        /**
+         * Close all channels and release event loops.
+         * 
+         * @throws BridgeException
+         *             - throws {@link BridgeException} on error.
+         */
+        public void shutdown() throws BridgeException
+        {
+            doShutdown();
+        }
+    }
+
+    /**
+     * Echo packet carrying its send time and a payload.
+     */
+    public static class EchoPacket extends AbstractPacket
+    {
+        private long sendTimeNanos;
+        private byte[] payload;
+
+        /**
+         * Ctor.
+         */
+        public EchoPacket()
+        {}
+
+        /**
+         * Ctor.
+         * 
+         * @param sendTimeNanos
+         *            - packet send time.
+         * @param payload
+         *            - packet payload.
+         */
+        public EchoPacket(long sendTimeNanos, byte[] payload)
+        {
+            this.sendTimeNanos = sendTimeNanos;
+            this.payload = payload;
+        }
+
+        @Override
+        public void write(ByteBuf buf)
+        {
+            buf.writeLong(sendTimeNanos);
+            buf.writeBytes(payload);
+        }
+
+        @Override
+        public void read(ByteBuf buf)
+        {
+            sendTimeNanos = buf.readLong();
+            payload = new byte[buf.readableBytes()];
+            buf.readBytes(payload);
+        }
+
+        public long getSendTimeNanos()
+        {
+            return sendTimeNanos;
+        }
+    }
+
+    /**
+     * Echo protocol.
+     */
+    public static class EchoProtocol extends AbstractPlatformProtocol
+    {
+        /**
+         * Register echo packet.
+         */
+        public EchoProtocol()
+        {
+            registerPacket(1, EchoPacket.class);
+        }
+    }
+
+    /**
+     * Echo service handler writes every received packet back and flushes once per read cycle.
+     */
+    @Sharable
+    public static class EchoServiceHandler extends AbstractNettyBridgeAdapter
+    {
+        private final BridgeOptions options;
+        private final EchoProtocol protocol = new EchoProtocol();
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - service {@link BridgeOptions}.
+         */
+        public EchoServiceHandler(BridgeOptions options)
+        {
+            this.options = options;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+        {
+            ctx.write(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception
+        {
+            ctx.flush();
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return ECHO_SERVICE_NAME;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+    }
+
+    /**
+     * Client handler that does nothing, used by connection benchmarks.
+     */
+    @Sharable
+    public static class NoopClientHandler extends AbstractNettyBridgeAdapter
+    {
+        private final BridgeOptions options;
+        private final String name;
+        private final EchoProtocol protocol = new EchoProtocol();
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - client {@link BridgeOptions}.
+         * @param name
+         *            - a {@link String} proxy name.
+         */
+        public NoopClientHandler(BridgeOptions options, String name)
+        {
+            this.options = options;
+            this.name = name;
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return name;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+    }
+
+    /**
+     * Echo client handler keeps a window of packets in flight and records round trip latency of each.
+     */
+    public static class EchoClientHandler extends AbstractNettyBridgeAdapter
+    {
+        private final BridgeOptions options;
+        private final EchoProtocol protocol = new EchoProtocol();
+        private final WorkloadConfig config;
+        private final CountDownLatch startLatch;
+        private final CountDownLatch doneLatch;
+        private final byte[] payload;
+        private final long[] latencies;
+
+        private int sent;
+        private int received;
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - client {@link BridgeOptions}.
+         * @param config
+         *            - a {@link WorkloadConfig}.
+         * @param startLatch
+         *            - latch released once all clients are connected.
+         * @param doneLatch
+         *            - latch counted down once all round trips completed.
+         */
+        public EchoClientHandler(BridgeOptions options, WorkloadConfig config, CountDownLatch startLatch,
+            CountDownLatch doneLatch)
+        {
+            this.options = options;
+            this.config = config;
+            this.startLatch = startLatch;
+            this.doneLatch = doneLatch;
+            this.payload = new byte[config.payloadSize];
+            this.latencies = new long[config.messagesPerConnection];
+        }
+
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) throws Exception
+        {
+            // Wait for all connections off the event loop, then start the window on it.
+            new Thread(new Runnable() {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        startLatch.await();
+                    }
+                    catch (InterruptedException ie)
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    ctx.executor().execute(new Runnable() {
+                        @Override
+                        public void run()
+                        {
+                            int initial = Math.min(config.window, config.messagesPerConnection);
+                            for (int i = 0; i < initial; i++)
+                            {
+                                sendNext(ctx);
+                            }
+                            ctx.flush();
+                        }
+                    });
+                }
+            }).start();
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+        {
+            latencies[received++] = System.nanoTime() - ((EchoPacket) msg).getSendTimeNanos();
+            if (sent < config.messagesPerConnection)
+            {
+                sendNext(ctx);
+            }
+            else if (received == config.messagesPerConnection)
+            {
+                doneLatch.countDown();
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception
+        {
+            ctx.flush();
+        }
+
+        /**
+         * Write next echo packet without flushing.
+         * 
+         * @param ctx
+         *            - a {@link ChannelHandlerContext}.
+         */
+        private void sendNext(ChannelHandlerContext ctx)
+        {
+            sent++;
+            ctx.write(new EchoPacket(System.nanoTime(), payload));
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return ECHO_CLIENT_NAME;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * @file BroadcastBenchmark.java
+ * @brief Compares fan-out throughput of an encode-once broadcast against sending to each client in a loop.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.BenchmarkProvider;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoPacket;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoProtocol;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.proxy.AbstractNettyBridgeAdapter;
+import platform.bridge.base.proxy.service.ClientActivity;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+import platform.bridge.base.transport.ETransportType;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Compares fan-out throughput of {@link NettyServiceProxy#broadcast} against calling
+ * {@link NettyServiceProxy#sendPacket(AbstractPacket, String)} for each client. Service sends rounds of one packet to
+ * all connected clients from an application thread and a round completes once every client received it. Reported are
+ * packet deliveries per second and time the sending thread spent per round. Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.BroadcastBenchmark [clients] [rounds] [payloadSize] [transport]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class BroadcastBenchmark
+{
+    // Benchmark proxy names.
+    private static final String FANOUT_SERVICE_NAME = "benchmarkFanoutService";
+    private static final String FANOUT_CLIENT_NAME = "benchmarkFanoutClient";
+
+    // Default workload.
+    private static final int DEFAULT_CLIENTS = 500;
+    private static final int DEFAULT_ROUNDS = 2000;
+    private static final int DEFAULT_PAYLOAD_SIZE = 256;
+
+    // Maximum time to wait for a workload to complete in seconds.
+    private static final int WORKLOAD_TIMEOUT_SEC = 120;
+
+    /**
+     * Private constructor.
+     */
+    private BroadcastBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional clients, rounds, payload size and transport.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        int payloadSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PAYLOAD_SIZE;
+        ETransportType transportType = args.length > 3 ? ETransportType.valueOf(args[3]) : ETransportType.EPOLL;
+
+        BridgeOptions serviceOptions = new BridgeOptions();
+        serviceOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        FanoutListener listener = new FanoutListener(serviceOptions);
+        NettyServiceProxy serviceProxy = new NettyServiceProxy();
+        serviceProxy.initialize(0, listener);
+
+        BenchmarkProvider provider = new BenchmarkProvider(Runtime.getRuntime().availableProcessors(), transportType);
+        try
+        {
+            BridgeOptions clientOptions = new BridgeOptions();
+            clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+            CountingClientHandler client = new CountingClientHandler(clientOptions);
+            InetSocketAddress serviceAddress = new InetSocketAddress(Inet4Address.getLocalHost(), serviceProxy
+                .getActiveServicePort());
+            for (int i = 0; i < clients; i++)
+            {
+                ChannelFuture connectFuture = provider.connectClient(serviceAddress, client, clientOptions);
+                if (!connectFuture.await(5, TimeUnit.SECONDS) || !connectFuture.isSuccess())
+                {
+                    throw new BridgeException("Benchmark client failed to connect: " + connectFuture.cause());
+                }
+            }
+            while (serviceProxy.getClientActivity().size() < clients)
+            {
+                Thread.sleep(1);
+            }
+
+            List<String> senderIdentifiers = new ArrayList<String>(clients);
+            for (ClientActivity activity : serviceProxy.getClientActivity())
+            {
+                senderIdentifiers.add(activity.getSenderIdentifier());
+            }
+
+            System.out.println(String.format("Fan-out workload: %d clients x %d rounds, payload %d bytes over %s.",
+                clients, rounds, payloadSize, provider.getTransport().getType()));
+
+            // Warm up once, then measure.
+            byte[] payload = new byte[payloadSize];
+            for (int run = 0; run < 2; run++)
+            {
+                for (boolean broadcast : new boolean[] { false, true })
+                {
+                    String report = runFanout(serviceProxy, client, senderIdentifiers, rounds, payload, broadcast);
+                    if (run > 0)
+                    {
+                        System.out.println(report);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            provider.shutdown();
+            serviceProxy.release();
+        }
+    }
+
+    /**
+     * Run fan-out rounds either per client or by broadcast.
+     * 
+     * @return - a formatted report line.
+     */
+    private static String runFanout(NettyServiceProxy serviceProxy, CountingClientHandler client,
+        List<String> senderIdentifiers, int rounds, byte[] payload, boolean broadcast) throws Exception
+    {
+        long expected = client.received.get() + rounds * (long) senderIdentifiers.size();
+        long sendNanos = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++)
+        {
+            AbstractPacket packet = new EchoPacket(System.nanoTime(), payload);
+            long sendStart = System.nanoTime();
+            if (broadcast)
+            {
+                serviceProxy.broadcast(packet, senderIdentifiers);
+            }
+            else
+            {
+                for (String senderIdentifier : senderIdentifiers)
+                {
+                    serviceProxy.sendPacket(packet, senderIdentifier);
+                }
+            }
+            sendNanos += System.nanoTime() - sendStart;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WORKLOAD_TIMEOUT_SEC);
+        while (client.received.get() < expected)
+        {
+            if (System.nanoTime() > deadline)
+            {
+                throw new BridgeException("Benchmark workload timed out.");
+            }
+            Thread.sleep(1);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long deliveries = rounds * (long) senderIdentifiers.size();
+        return String.format("%-24s %12.0f deliveries/s   send %8.1f us/round", broadcast ? "broadcast"
+            : "per-client-loop", deliveries / (elapsedNanos / 1e9), sendNanos / 1000.0 / rounds);
+    }
+
+    /**
+     * Fan-out service response listener, ignores inbound packets.
+     */
+    private static class FanoutListener implements IResponseListener
+    {
+        private final BridgeOptions options;
+        private final EchoProtocol protocol = new EchoProtocol();
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - service {@link BridgeOptions}.
+         */
+        public FanoutListener(BridgeOptions options)
+        {
+            this.options = options;
+        }
+
+        @Override
+        public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+        {}
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return FANOUT_SERVICE_NAME;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Client handler shared by all fan-out clients, counts received packets.
+     */
+    @Sharable
+    private static class CountingClientHandler extends AbstractNettyBridgeAdapter
+    {
+        private final BridgeOptions options;
+        private final EchoProtocol protocol = new EchoProtocol();
+        private final AtomicLong received = new AtomicLong();
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - client {@link BridgeOptions}.
+         */
+        public CountingClientHandler(BridgeOptions options)
+        {
+            this.options = options;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+        {
+            received.incrementAndGet();
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return FANOUT_CLIENT_NAME;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+    }
+}
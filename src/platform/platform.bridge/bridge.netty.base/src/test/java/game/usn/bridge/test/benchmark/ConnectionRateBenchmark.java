@@ -0,0 +1,158 @@
+/**
+ * @file ConnectionRateBenchmark.java
+ * @brief Connection rate benchmark comparing single and multiple SO_REUSEPORT acceptors.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.BenchmarkProvider;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoServiceHandler;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.NoopClientHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import platform.bridge.api.observer.IConnectionObserver;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.transport.ETransportType;
+
+/**
+ * Connection rate benchmark comparing a single acceptor with several SO_REUSEPORT acceptors, each running on its own
+ * boss loop. Clients run on a separate provider, connect and close immediately while keeping a fixed number of
+ * connects in flight. Rate is measured as connections accepted by the service per second. Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.ConnectionRateBenchmark [connections] [inFlight] [acceptors] [transport]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class ConnectionRateBenchmark
+{
+    // Benchmark client proxy name.
+    private static final String CLIENT_NAME = "benchmarkConnectClient";
+
+    /**
+     * Private constructor.
+     */
+    private ConnectionRateBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional connections, connects in flight, acceptor count and transport.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int acceptors = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ETransportType transportType = args.length > 3 ? ETransportType.valueOf(args[3]) : ETransportType.EPOLL;
+
+        BenchmarkProvider serverProvider = new BenchmarkProvider(Runtime.getRuntime().availableProcessors(),
+            transportType);
+        BenchmarkProvider clientProvider = new BenchmarkProvider(Runtime.getRuntime().availableProcessors(),
+            transportType);
+        try
+        {
+            System.out.println(String.format("Connect workload: %d connections, %d in flight over %s.", connections,
+                inFlight, serverProvider.getTransport().getType()));
+
+            for (int acceptorCount : new int[] { 1, acceptors })
+            {
+                // Warm up before measuring.
+                run(serverProvider, clientProvider, connections / 10, inFlight, acceptorCount);
+                double rate = run(serverProvider, clientProvider, connections, inFlight, acceptorCount);
+                System.out.println(String.format("%-24s %12.0f conn/s", acceptorCount + " acceptor(s)", rate));
+            }
+        }
+        finally
+        {
+            clientProvider.shutdown();
+            serverProvider.shutdown();
+        }
+    }
+
+    /**
+     * Run a single connect workload.
+     * 
+     * @param serverProvider
+     *            - a {@link BenchmarkProvider} binding the service.
+     * @param clientProvider
+     *            - a {@link BenchmarkProvider} connecting clients.
+     * @param connections
+     *            - number of connections to make.
+     * @param inFlight
+     *            - number of connects in flight.
+     * @param acceptorCount
+     *            - number of service acceptors.
+     * @return - connections accepted per second.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    private static double run(BenchmarkProvider serverProvider, BenchmarkProvider clientProvider, int connections,
+        int inFlight, int acceptorCount) throws Exception
+    {
+        final CountDownLatch acceptedLatch = new CountDownLatch(connections);
+        IConnectionObserver acceptObserver = new IConnectionObserver() {
+            @Override
+            public void notifyConnectionState(String clientChannelId, EConnectionState state)
+            {
+                if (state == EConnectionState.ONLINE)
+                {
+                    acceptedLatch.countDown();
+                }
+            }
+        };
+
+        BridgeOptions serviceOptions = new BridgeOptions();
+        serviceOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serviceOptions.set(BridgeOptions.KEY_ACCEPTOR_COUNT, acceptorCount);
+        serviceOptions.set(BridgeOptions.KEY_BOSS_GROUP_SIZE, acceptorCount);
+        serviceOptions.set(BridgeOptions.KEY_CONNECTION_LISTENER_SET, Collections.singleton(acceptObserver));
+        EchoServiceHandler serviceHandler = new EchoServiceHandler(serviceOptions);
+        int port = serverProvider.bindService(serviceHandler, serviceOptions);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        NoopClientHandler clientHandler = new NoopClientHandler(clientOptions, CLIENT_NAME);
+        InetSocketAddress serviceAddress = new InetSocketAddress(Inet4Address.getLocalHost(), port);
+
+        final Semaphore inFlightSemaphore = new Semaphore(inFlight);
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++)
+        {
+            inFlightSemaphore.acquire();
+            ChannelFuture connectFuture = clientProvider.connectClient(serviceAddress, clientHandler, clientOptions);
+            connectFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception
+                {
+                    future.channel().close();
+                    inFlightSemaphore.release();
+                }
+            });
+        }
+        boolean completed = acceptedLatch.await(60, TimeUnit.SECONDS);
+        long elapsedNanos = System.nanoTime() - start;
+
+        clientProvider.release(CLIENT_NAME);
+        serverProvider.release(serviceHandler.getName());
+        if (!completed)
+        {
+            throw new IllegalStateException("Connections not accepted in time: " + acceptedLatch.getCount());
+        }
+        return connections / (elapsedNanos / 1e9);
+    }
+}
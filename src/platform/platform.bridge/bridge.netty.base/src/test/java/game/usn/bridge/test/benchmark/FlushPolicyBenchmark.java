@@ -0,0 +1,368 @@
+/**
+ * @file FlushPolicyBenchmark.java
+ * @brief Compares write syscalls and push latency of server initiated sends under each flush policy.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.BenchmarkProvider;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoPacket;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoProtocol;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.WorkloadResult;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.EFlushPolicy;
+import platform.bridge.base.proxy.AbstractNettyBridgeAdapter;
+import platform.bridge.base.transport.ETransportType;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Compares write syscalls and push latency of server initiated sends under each flush policy. Service pushes bursts of
+ * packets to idle clients from tasks on its event loops, requesting a flush with every packet as the service proxy
+ * does for every policy but {@link EFlushPolicy#READ_CYCLE}. That policy is not measured, as pushes on the loop are
+ * only flushed by a read cycle which never comes to an idle client. Reported are flushes reaching the socket, write
+ * syscalls of the process as counted by Linux /proc/self/io, and send to receive latency. Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.FlushPolicyBenchmark [connections] [bursts] [burstSize] [transport]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class FlushPolicyBenchmark
+{
+    // Benchmark proxy names.
+    private static final String PUSH_SERVICE_NAME = "benchmarkPushService";
+    private static final String PUSH_CLIENT_NAME = "benchmarkPushClient";
+
+    // Default workload.
+    private static final int DEFAULT_CONNECTIONS = 8;
+    private static final int DEFAULT_BURSTS = 2000;
+    private static final int DEFAULT_BURST_SIZE = 8;
+
+    // Interval between bursts and payload size.
+    private static final long BURST_INTERVAL_US = 250;
+    private static final int PAYLOAD_SIZE = 64;
+
+    // Consolidated flush writes and time bounded flush delay.
+    private static final int FLUSH_MAX_WRITES = 16;
+    private static final int FLUSH_DELAY_US = 100;
+
+    // Maximum time to wait for a workload to complete in seconds.
+    private static final int WORKLOAD_TIMEOUT_SEC = 120;
+
+    // Linux per process I/O counters.
+    private static final Path PROC_SELF_IO = Paths.get("/proc/self/io");
+    private static final String SYSCW = "syscw:";
+
+    /**
+     * Private constructor.
+     */
+    private FlushPolicyBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional connections, bursts per connection, burst size and transport.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CONNECTIONS;
+        int bursts = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BURSTS;
+        int burstSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BURST_SIZE;
+        ETransportType transportType = args.length > 3 ? ETransportType.valueOf(args[3]) : ETransportType.EPOLL;
+
+        BenchmarkProvider provider = new BenchmarkProvider(2, transportType);
+        try
+        {
+            System.out.println(String.format(
+                "Push workload: %d connections x %d bursts of %d packets every %d us over %s.", connections, bursts,
+                burstSize, BURST_INTERVAL_US, provider.getTransport().getType()));
+            if (readWriteSyscalls() < 0)
+            {
+                System.out.println("Write syscalls are not available on this host, reported as -1.");
+            }
+
+            // Warm up once, then measure.
+            for (int run = 0; run < 2; run++)
+            {
+                for (EFlushPolicy policy : EFlushPolicy.values())
+                {
+                    if (policy != EFlushPolicy.READ_CYCLE)
+                    {
+                        String report = runPushWorkload(provider, policy, connections, bursts, burstSize);
+                        if (run > 0)
+                        {
+                            System.out.println(report);
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            provider.shutdown();
+        }
+    }
+
+    /**
+     * Run push workload under given flush policy.
+     * 
+     * @return - a formatted report line.
+     */
+    private static String runPushWorkload(BenchmarkProvider provider, EFlushPolicy policy, int connections,
+        int bursts, int burstSize) throws Exception
+    {
+        BridgeOptions serviceOptions = new BridgeOptions();
+        serviceOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serviceOptions.set(BridgeOptions.KEY_FLUSH_POLICY, policy);
+        serviceOptions.set(BridgeOptions.KEY_FLUSH_MAX_WRITES, FLUSH_MAX_WRITES);
+        serviceOptions.set(BridgeOptions.KEY_FLUSH_DELAY_US, FLUSH_DELAY_US);
+        PushServiceHandler service = new PushServiceHandler(serviceOptions);
+        int port = provider.bindService(service, serviceOptions);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        int packets = bursts * burstSize;
+        CountDownLatch doneLatch = new CountDownLatch(connections);
+        List<PushClientHandler> clients = new ArrayList<PushClientHandler>(connections);
+        InetSocketAddress serviceAddress = new InetSocketAddress(Inet4Address.getLocalHost(), port);
+        for (int i = 0; i < connections; i++)
+        {
+            PushClientHandler client = new PushClientHandler(clientOptions, packets, doneLatch);
+            clients.add(client);
+            ChannelFuture connectFuture = provider.connectClient(serviceAddress, client, clientOptions);
+            if (!connectFuture.await(5, TimeUnit.SECONDS) || !connectFuture.isSuccess())
+            {
+                throw new BridgeException("Benchmark client failed to connect: " + connectFuture.cause());
+            }
+        }
+        while (service.contexts.size() < connections)
+        {
+            Thread.sleep(1);
+        }
+
+        long syscallsBefore = readWriteSyscalls();
+        long start = System.nanoTime();
+        for (ChannelHandlerContext ctx : service.contexts)
+        {
+            startPushing(ctx, bursts, burstSize);
+        }
+        if (!doneLatch.await(WORKLOAD_TIMEOUT_SEC, TimeUnit.SECONDS))
+        {
+            throw new BridgeException("Benchmark workload timed out.");
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long syscallsAfter = readWriteSyscalls();
+
+        provider.release(PUSH_CLIENT_NAME);
+        provider.release(PUSH_SERVICE_NAME);
+
+        long[] samples = new long[connections * packets];
+        int offset = 0;
+        for (PushClientHandler client : clients)
+        {
+            System.arraycopy(client.latencies, 0, samples, offset, packets);
+            offset += packets;
+        }
+        WorkloadResult result = new WorkloadResult(samples.length, elapsedNanos, samples);
+        return String.format("%s   flushes %8d   write syscalls %8d", result.format(policy.name()),
+            service.flushCounter.flushes.sum(), syscallsBefore >= 0 && syscallsAfter >= 0 ? syscallsAfter
+                - syscallsBefore : -1);
+    }
+
+    /**
+     * Push bursts to a client from a task on its event loop.
+     */
+    private static void startPushing(final ChannelHandlerContext ctx, final int bursts, final int burstSize)
+    {
+        final byte[] payload = new byte[PAYLOAD_SIZE];
+        ctx.executor().execute(new Runnable() {
+            private int burst;
+
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < burstSize; i++)
+                {
+                    ctx.channel().writeAndFlush(new EchoPacket(System.nanoTime(), payload));
+                }
+                if (++burst < bursts)
+                {
+                    ctx.executor().schedule(this, BURST_INTERVAL_US, TimeUnit.MICROSECONDS);
+                }
+            }
+        });
+    }
+
+    /**
+     * Read number of write syscalls made by this process so far.
+     * 
+     * @return - number of write syscalls or -1 if not available.
+     */
+    private static long readWriteSyscalls()
+    {
+        try
+        {
+            for (String line : Files.readAllLines(PROC_SELF_IO, StandardCharsets.US_ASCII))
+            {
+                if (line.startsWith(SYSCW))
+                {
+                    return Long.parseLong(line.substring(SYSCW.length()).trim());
+                }
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // Not Linux or not permitted.
+        }
+        return -1;
+    }
+
+    /**
+     * Counts flushes reaching the socket.
+     */
+    @Sharable
+    private static class FlushCounter extends ChannelOutboundHandlerAdapter
+    {
+        private final LongAdder flushes = new LongAdder();
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception
+        {
+            flushes.increment();
+            ctx.flush();
+        }
+    }
+
+    /**
+     * Push service handler collects client contexts and counts their socket flushes.
+     */
+    @Sharable
+    private static class PushServiceHandler extends AbstractNettyBridgeAdapter
+    {
+        private final BridgeOptions options;
+        private final EchoProtocol protocol = new EchoProtocol();
+        private final FlushCounter flushCounter = new FlushCounter();
+        private final List<ChannelHandlerContext> contexts = new CopyOnWriteArrayList<ChannelHandlerContext>();
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - service {@link BridgeOptions}.
+         */
+        public PushServiceHandler(BridgeOptions options)
+        {
+            this.options = options;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception
+        {
+            // Below the flush handler, so only flushes it lets through are counted.
+            ctx.pipeline().addFirst(flushCounter);
+            contexts.add(ctx);
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return PUSH_SERVICE_NAME;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+    }
+
+    /**
+     * Push client handler records send to receive latency of each pushed packet.
+     */
+    private static class PushClientHandler extends AbstractNettyBridgeAdapter
+    {
+        private final BridgeOptions options;
+        private final EchoProtocol protocol = new EchoProtocol();
+        private final CountDownLatch doneLatch;
+        private final long[] latencies;
+
+        private int received;
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - client {@link BridgeOptions}.
+         * @param packets
+         *            - number of packets to receive.
+         * @param doneLatch
+         *            - latch counted down once all packets have been received.
+         */
+        public PushClientHandler(BridgeOptions options, int packets, CountDownLatch doneLatch)
+        {
+            this.options = options;
+            this.doneLatch = doneLatch;
+            this.latencies = new long[packets];
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+        {
+            latencies[received++] = System.nanoTime() - ((EchoPacket) msg).getSendTimeNanos();
+            if (received == latencies.length)
+            {
+                doneLatch.countDown();
+            }
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return PUSH_CLIENT_NAME;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+    }
+}
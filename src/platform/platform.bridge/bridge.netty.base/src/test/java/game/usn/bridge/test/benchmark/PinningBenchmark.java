@@ -0,0 +1,89 @@
+/**
+ * @file PinningBenchmark.java
+ * @brief Tail latency benchmark comparing pinned and unpinned event loop threads.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.BenchmarkProvider;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.WorkloadConfig;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.WorkloadResult;
+import platform.bridge.base.loop.ICpuAffinity;
+import platform.bridge.base.loop.LinuxCpuAffinity;
+import platform.bridge.base.transport.ETransportType;
+
+/**
+ * Tail latency benchmark comparing pinned and unpinned event loop threads. Runs the echo workload once with a regular
+ * provider and once in thread-per-core mode, with loop count equal to core count in both cases. Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.PinningBenchmark [connections] [messagesPerConnection] [window]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class PinningBenchmark
+{
+    /**
+     * Private constructor.
+     */
+    private PinningBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional connections, messages per connection and window.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        WorkloadConfig config = new WorkloadConfig();
+        config.connections = args.length > 0 ? Integer.parseInt(args[0]) : config.connections;
+        config.messagesPerConnection = args.length > 1 ? Integer.parseInt(args[1]) : config.messagesPerConnection;
+        config.window = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        ICpuAffinity cpuAffinity = new LinuxCpuAffinity();
+        if (!cpuAffinity.isSupported())
+        {
+            System.out.println("CPU affinity is not supported on this host.");
+            return;
+        }
+
+        int cores = cpuAffinity.getCoreCount();
+        System.out.println(String.format("Echo workload: %d connections x %d messages, window %d, %d loops.",
+            config.connections, config.messagesPerConnection, config.window, cores));
+
+        run("unpinned", new BenchmarkProvider(cores, ETransportType.EPOLL, null), config);
+        run("thread-per-core", new BenchmarkProvider(cores, ETransportType.EPOLL, cpuAffinity), config);
+    }
+
+    /**
+     * Run warm up and measured workload with given provider and shut it down.
+     * 
+     * @param label
+     *            - a {@link String} label of the run.
+     * @param provider
+     *            - a {@link BenchmarkProvider}.
+     * @param config
+     *            - a {@link WorkloadConfig}.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    private static void run(String label, BenchmarkProvider provider, WorkloadConfig config) throws Exception
+    {
+        try
+        {
+            BenchmarkSupport.runEchoWorkload(provider, config);
+            WorkloadResult result = BenchmarkSupport.runEchoWorkload(provider, config);
+            System.out.println(result.format(label));
+        }
+        finally
+        {
+            provider.shutdown();
+        }
+    }
+}
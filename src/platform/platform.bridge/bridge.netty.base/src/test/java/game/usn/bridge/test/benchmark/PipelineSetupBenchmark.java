@@ -0,0 +1,81 @@
+/**
+ * @file PipelineSetupBenchmark.java
+ * @brief Measures per connection pipeline setup cost of the platform pipeline initializer.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoServiceHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.pipeline.PlatformPipelineInitializer;
+
+/**
+ * Measures per connection pipeline setup cost of the platform pipeline initializer. Channels are embedded so the
+ * result excludes socket and accept overhead and shows how many connections per second a single loop can initialize.
+ * An empty embedded channel is measured as baseline. See {@link ConnectionRateBenchmark} for end to end accept rate.
+ * Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.PipelineSetupBenchmark [channels]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class PipelineSetupBenchmark
+{
+    /**
+     * Private constructor.
+     */
+    private PipelineSetupBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional number of channels to initialize.
+     */
+    public static void main(String[] args)
+    {
+        int channels = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+
+        BridgeOptions serviceOptions = new BridgeOptions();
+        serviceOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serviceOptions.set(BridgeOptions.KEY_READ_TIMEOUT_SEC, 30);
+        PlatformPipelineInitializer initializer = new PlatformPipelineInitializer(new EchoServiceHandler(
+            serviceOptions), serviceOptions);
+
+        for (int round = 0; round < 3; round++)
+        {
+            long baselineNanos = run(channels, null);
+            long initializerNanos = run(channels, initializer);
+            System.out.println(String.format("round %d: baseline %6.0f ns/conn, platform pipeline %6.0f ns/conn, "
+                + "setup %6.0f ns/conn (%.0f conn/s)", round, baselineNanos / (double) channels, initializerNanos
+                / (double) channels, (initializerNanos - baselineNanos) / (double) channels, channels
+                / (initializerNanos / 1e9)));
+        }
+    }
+
+    /**
+     * Create, initialize and close embedded channels.
+     * 
+     * @param channels
+     *            - number of channels.
+     * @param handler
+     *            - a {@link ChannelHandler} to initialize channels with or null for empty channels.
+     * @return - elapsed time in nanoseconds.
+     */
+    private static long run(int channels, ChannelHandler handler)
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < channels; i++)
+        {
+            EmbeddedChannel channel = handler != null ? new EmbeddedChannel(handler) : new EmbeddedChannel();
+            channel.finishAndReleaseAll();
+        }
+        return System.nanoTime() - start;
+    }
+}
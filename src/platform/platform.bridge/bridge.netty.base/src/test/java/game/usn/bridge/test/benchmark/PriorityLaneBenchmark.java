@@ -0,0 +1,372 @@
+/**
+ * @file PriorityLaneBenchmark.java
+ * @brief Measures head-of-line latency of control packets sent over a connection saturated with bulk packets.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.BenchmarkProvider;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.EchoPacket;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.WorkloadResult;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.protocol.EPacketPriority;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.proxy.AbstractNettyBridgeAdapter;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+import platform.bridge.base.transport.ETransportType;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Measures head-of-line latency of control packets sent over a connection saturated with bulk packets, with priority
+ * lanes disabled and enabled. Service sends rounds of low priority bulk packets followed by a single high priority
+ * control packet to one client, which spends a fixed time on every bulk packet to emulate a constrained link, so the
+ * outbound buffer of the service backs up. Reported are one way latencies of control packets. Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.PriorityLaneBenchmark [rounds] [bulkPerRound] [bulkCostUs] [transport]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class PriorityLaneBenchmark
+{
+    // Benchmark proxy names.
+    private static final String LANE_SERVICE_NAME = "benchmarkLaneService";
+    private static final String LANE_CLIENT_NAME = "benchmarkLaneClient";
+
+    // Default workload.
+    private static final int DEFAULT_ROUNDS = 500;
+    private static final int DEFAULT_BULK_PER_ROUND = 64;
+    private static final int DEFAULT_BULK_COST_US = 5;
+
+    // Bulk payload size, close to the platform frame limit.
+    private static final int BULK_PAYLOAD_SIZE = 960;
+
+    // Pause between rounds in microseconds.
+    private static final int ROUND_PAUSE_US = 200;
+
+    // Maximum time to wait for a workload to complete in seconds.
+    private static final int WORKLOAD_TIMEOUT_SEC = 120;
+
+    /**
+     * Private constructor.
+     */
+    private PriorityLaneBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional rounds, bulk packets per round, client cost per bulk packet and transport.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROUNDS;
+        int bulkPerRound = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BULK_PER_ROUND;
+        int bulkCostUs = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BULK_COST_US;
+        ETransportType transportType = args.length > 3 ? ETransportType.valueOf(args[3]) : ETransportType.EPOLL;
+
+        BenchmarkProvider provider = new BenchmarkProvider(2, transportType);
+        try
+        {
+            System.out.println(String.format("Lane workload: %d rounds x %d bulk packets of %d bytes, client cost %d "
+                + "us per bulk packet over %s.", rounds, bulkPerRound, BULK_PAYLOAD_SIZE, bulkCostUs, provider
+                .getTransport().getType()));
+
+            // Warm up once, then measure.
+            for (int run = 0; run < 2; run++)
+            {
+                for (boolean lanes : new boolean[] { false, true })
+                {
+                    WorkloadResult result = runLanes(provider, rounds, bulkPerRound, bulkCostUs, lanes);
+                    if (run > 0)
+                    {
+                        System.out.println(result.format(lanes ? "priority-lanes" : "single-lane"));
+                    }
+                }
+            }
+        }
+        finally
+        {
+            provider.shutdown();
+        }
+    }
+
+    /**
+     * Run lane workload with priority lanes disabled or enabled.
+     * 
+     * @return - a {@link WorkloadResult} of control packet latencies.
+     */
+    private static WorkloadResult runLanes(BenchmarkProvider provider, int rounds, int bulkPerRound, int bulkCostUs,
+        boolean lanes) throws Exception
+    {
+        BridgeOptions serviceOptions = new BridgeOptions();
+        serviceOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serviceOptions.set(BridgeOptions.KEY_PRIORITY_LANES, lanes);
+        NettyServiceProxy serviceProxy = new NettyServiceProxy();
+        serviceProxy.initialize(0, new LaneListener(serviceOptions));
+        try
+        {
+            BridgeOptions clientOptions = new BridgeOptions();
+            clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+            LaneClientHandler client = new LaneClientHandler(clientOptions, rounds, bulkCostUs);
+            InetSocketAddress serviceAddress = new InetSocketAddress(Inet4Address.getLocalHost(), serviceProxy
+                .getActiveServicePort());
+            ChannelFuture connectFuture = provider.connectClient(serviceAddress, client, clientOptions);
+            if (!connectFuture.await(5, TimeUnit.SECONDS) || !connectFuture.isSuccess())
+            {
+                throw new BridgeException("Benchmark client failed to connect: " + connectFuture.cause());
+            }
+            while (serviceProxy.getClientActivity().isEmpty())
+            {
+                Thread.sleep(1);
+            }
+            String senderIdentifier = serviceProxy.getClientActivity().get(0).getSenderIdentifier();
+
+            byte[] bulkPayload = new byte[BULK_PAYLOAD_SIZE];
+            byte[] controlPayload = new byte[0];
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++)
+            {
+                for (int i = 0; i < bulkPerRound; i++)
+                {
+                    serviceProxy.sendPacket(new BulkPacket(System.nanoTime(), bulkPayload), senderIdentifier);
+                }
+                serviceProxy.sendPacket(new ControlPacket(System.nanoTime(), controlPayload), senderIdentifier);
+                long pauseEnd = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(ROUND_PAUSE_US);
+                while (System.nanoTime() < pauseEnd)
+                {
+                    // Spin.
+                }
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WORKLOAD_TIMEOUT_SEC);
+            while (client.controlReceived < rounds)
+            {
+                if (System.nanoTime() > deadline)
+                {
+                    throw new BridgeException("Benchmark workload timed out.");
+                }
+                Thread.sleep(1);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            return new WorkloadResult(rounds, elapsedNanos, Arrays.copyOf(client.latencies, rounds));
+        }
+        finally
+        {
+            provider.release(LANE_CLIENT_NAME);
+            serviceProxy.release();
+        }
+    }
+
+    /**
+     * Low priority bulk packet.
+     */
+    public static class BulkPacket extends EchoPacket
+    {
+        /**
+         * Ctor.
+         */
+        public BulkPacket()
+        {}
+
+        /**
+         * Ctor.
+         * 
+         * @param sendTimeNanos
+         *            - packet send time.
+         * @param payload
+         *            - packet payload.
+         */
+        public BulkPacket(long sendTimeNanos, byte[] payload)
+        {
+            super(sendTimeNanos, payload);
+        }
+
+        @Override
+        public EPacketPriority getPriority()
+        {
+            return EPacketPriority.LOW;
+        }
+    }
+
+    /**
+     * High priority control packet.
+     */
+    public static class ControlPacket extends EchoPacket
+    {
+        /**
+         * Ctor.
+         */
+        public ControlPacket()
+        {}
+
+        /**
+         * Ctor.
+         * 
+         * @param sendTimeNanos
+         *            - packet send time.
+         * @param payload
+         *            - packet payload.
+         */
+        public ControlPacket(long sendTimeNanos, byte[] payload)
+        {
+            super(sendTimeNanos, payload);
+        }
+
+        @Override
+        public EPacketPriority getPriority()
+        {
+            return EPacketPriority.HIGH;
+        }
+    }
+
+    /**
+     * Lane protocol.
+     */
+    public static class LaneProtocol extends AbstractPlatformProtocol
+    {
+        /**
+         * Register bulk and control packets.
+         */
+        public LaneProtocol()
+        {
+            registerPacket(1, BulkPacket.class);
+            registerPacket(2, ControlPacket.class);
+        }
+    }
+
+    /**
+     * Lane service response listener, ignores inbound packets.
+     */
+    private static class LaneListener implements IResponseListener
+    {
+        private final BridgeOptions options;
+        private final LaneProtocol protocol = new LaneProtocol();
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - service {@link BridgeOptions}.
+         */
+        public LaneListener(BridgeOptions options)
+        {
+            this.options = options;
+        }
+
+        @Override
+        public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+        {}
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return LANE_SERVICE_NAME;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Lane client handler, spends a fixed time on every bulk packet and records control packet latencies.
+     */
+    @Sharable
+    private static class LaneClientHandler extends AbstractNettyBridgeAdapter
+    {
+        private final BridgeOptions options;
+        private final LaneProtocol protocol = new LaneProtocol();
+        private final long bulkCostNanos;
+        private final long[] latencies;
+        private volatile int controlReceived;
+
+        /**
+         * Ctor.
+         * 
+         * @param options
+         *            - client {@link BridgeOptions}.
+         * @param rounds
+         *            - number of expected control packets.
+         * @param bulkCostUs
+         *            - time spent on every bulk packet in microseconds.
+         */
+        public LaneClientHandler(BridgeOptions options, int rounds, int bulkCostUs)
+        {
+            this.options = options;
+            this.bulkCostNanos = TimeUnit.MICROSECONDS.toNanos(bulkCostUs);
+            this.latencies = new long[rounds];
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+        {
+            if (msg instanceof ControlPacket)
+            {
+                int received = controlReceived;
+                if (received < latencies.length)
+                {
+                    latencies[received] = System.nanoTime() - ((ControlPacket) msg).getSendTimeNanos();
+                    controlReceived = received + 1;
+                }
+                return;
+            }
+            long costEnd = System.nanoTime() + bulkCostNanos;
+            while (System.nanoTime() < costEnd)
+            {
+                // Spin.
+            }
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return options;
+        }
+
+        @Override
+        public String getName()
+        {
+            return LANE_CLIENT_NAME;
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return protocol;
+        }
+    }
+}
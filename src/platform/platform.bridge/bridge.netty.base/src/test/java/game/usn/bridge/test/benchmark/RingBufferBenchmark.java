@@ -0,0 +1,272 @@
+/**
+ * @file RingBufferBenchmark.java
+ * @brief Throughput benchmark of inbound handoff from several producers to a single consumer thread.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.e2e.testdata.PingPacket;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.EOverflowPolicy;
+import platform.bridge.api.proxy.EWaitStrategy;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.inbound.InboundRingBuffer;
+
+/**
+ * Throughput benchmark of inbound handoff from several producers, standing in for event loops, to a single consumer
+ * thread, standing in for a game simulation thread. Compares the inbound ring buffer under each wait strategy against a
+ * lock guarded queue and a {@link ConcurrentLinkedQueue}. Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.RingBufferBenchmark [producers] [packetsPerProducer] [ringSize]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class RingBufferBenchmark
+{
+    // Default workload.
+    private static final int DEFAULT_PRODUCERS = 4;
+    private static final int DEFAULT_PACKETS_PER_PRODUCER = 2000000;
+    private static final int DEFAULT_RING_SIZE = 65536;
+
+    // Consumer drain batch.
+    private static final int DRAIN_BATCH = 256;
+
+    // Packet handed off by all producers, so that only handoff cost is measured.
+    private static final AbstractPacket PACKET = new PingPacket();
+
+    /**
+     * Private constructor.
+     */
+    private RingBufferBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional producers, packets per producer and ring size.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PRODUCERS;
+        int packets = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PACKETS_PER_PRODUCER;
+        int ringSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_RING_SIZE;
+
+        System.out.println(String.format("Handoff workload: %d producers x %d packets, ring size %d.", producers,
+            packets, ringSize));
+
+        // Warm up once, then measure.
+        for (int run = 0; run < 2; run++)
+        {
+            boolean report = run > 0;
+            for (EWaitStrategy waitStrategy : EWaitStrategy.values())
+            {
+                report("ring-" + waitStrategy, runRing(waitStrategy, producers, packets, ringSize), producers
+                    * (long) packets, report);
+            }
+            report("locked-queue", runQueue(new ArrayDeque<AbstractPacket>(), true, producers, packets), producers
+                * (long) packets, report);
+            report("clq", runQueue(new ConcurrentLinkedQueue<AbstractPacket>(), false, producers, packets), producers
+                * (long) packets, report);
+        }
+    }
+
+    /**
+     * Run workload through an inbound ring buffer. Producers retry packets dropped on a full ring.
+     * 
+     * @return - elapsed time in nanoseconds.
+     */
+    private static long runRing(EWaitStrategy waitStrategy, int producers, final int packets, int ringSize)
+        throws Exception
+    {
+        final CountingListener listener = new CountingListener();
+        final InboundRingBuffer ringBuffer = new InboundRingBuffer("benchmark", listener, ringSize, waitStrategy,
+            EOverflowPolicy.DISCONNECT);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        for (int p = 0; p < producers; p++)
+        {
+            final String session = "session-" + p;
+            startProducer(start, new Runnable() {
+                @Override
+                public void run()
+                {
+                    for (int i = 0; i < packets; i++)
+                    {
+                        while (!ringBuffer.dispatch(PACKET, session))
+                        {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+        }
+
+        long total = producers * (long) packets;
+        long begin = System.nanoTime();
+        start.countDown();
+        while (listener.count < total)
+        {
+            ringBuffer.drain(DRAIN_BATCH, 1, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        ringBuffer.shutdown();
+        return elapsed;
+    }
+
+    /**
+     * Run workload through a queue, either guarded by its monitor or a concurrent one.
+     * 
+     * @return - elapsed time in nanoseconds.
+     */
+    private static long runQueue(final Queue<AbstractPacket> queue, final boolean locked, int producers,
+        final int packets) throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++)
+        {
+            startProducer(start, new Runnable() {
+                @Override
+                public void run()
+                {
+                    for (int i = 0; i < packets; i++)
+                    {
+                        if (locked)
+                        {
+                            synchronized (queue)
+                            {
+                                queue.offer(PACKET);
+                            }
+                        }
+                        else
+                        {
+                            queue.offer(PACKET);
+                        }
+                    }
+                }
+            });
+        }
+
+        long total = producers * (long) packets;
+        long consumed = 0;
+        long begin = System.nanoTime();
+        start.countDown();
+        while (consumed < total)
+        {
+            AbstractPacket packet = null;
+            if (locked)
+            {
+                synchronized (queue)
+                {
+                    packet = queue.poll();
+                }
+            }
+            else
+            {
+                packet = queue.poll();
+            }
+
+            if (packet != null)
+            {
+                consumed++;
+            }
+            else
+            {
+                Thread.yield();
+            }
+        }
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * Start a producer thread waiting for start signal.
+     */
+    private static void startProducer(final CountDownLatch start, final Runnable producer)
+    {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    start.await();
+                    producer.run();
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Print result of a run.
+     */
+    private static void report(String label, long elapsedNanos, long total, boolean report)
+    {
+        if (report)
+        {
+            System.out.println(String.format("%-16s time=%.1fms throughput=%.2fM packets/s", label,
+                elapsedNanos / 1e6, total * 1e3 / elapsedNanos));
+        }
+    }
+
+    /**
+     * Listener counting delivered packets. Called from the consumer thread only.
+     */
+    private static final class CountingListener implements IResponseListener
+    {
+        // Delivered packets.
+        private long count;
+
+        @Override
+        public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+        {
+            count++;
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return new BridgeOptions();
+        }
+
+        @Override
+        public String getName()
+        {
+            return "ringBufferBenchmark";
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return null;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return null;
+        }
+    }
+}
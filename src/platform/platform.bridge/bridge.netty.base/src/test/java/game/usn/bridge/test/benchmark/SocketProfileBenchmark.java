@@ -0,0 +1,75 @@
+/**
+ * @file SocketProfileBenchmark.java
+ * @brief Loopback latency benchmark comparing socket profiles.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.BenchmarkProvider;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.WorkloadConfig;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.WorkloadResult;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.ESocketProfile;
+import platform.bridge.base.transport.ETransportType;
+
+/**
+ * Loopback latency benchmark comparing socket profiles. Each connection keeps a single packet in flight so reported
+ * percentiles are pure round trip latencies. Epoll specific options are only in effect when epoll is available. Run
+ * manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.SocketProfileBenchmark [connections] [messagesPerConnection] [transport]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class SocketProfileBenchmark
+{
+    /**
+     * Private constructor.
+     */
+    private SocketProfileBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional connections, messages per connection and transport.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        WorkloadConfig config = new WorkloadConfig();
+        config.connections = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        config.messagesPerConnection = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        config.window = 1;
+        ETransportType transportType = args.length > 2 ? ETransportType.valueOf(args[2]) : ETransportType.EPOLL;
+
+        BenchmarkProvider provider = new BenchmarkProvider(2, transportType);
+        try
+        {
+            System.out.println(String.format("Ping-pong workload: %d connections x %d messages over %s.",
+                config.connections, config.messagesPerConnection, provider.getTransport().getType()));
+
+            for (ESocketProfile profile : ESocketProfile.values())
+            {
+                config.serviceOptions = new BridgeOptions();
+                config.serviceOptions.set(BridgeOptions.KEY_SOCKET_PROFILE, profile);
+                config.clientOptions = new BridgeOptions();
+                config.clientOptions.set(BridgeOptions.KEY_SOCKET_PROFILE, profile);
+
+                // Warm up before measuring.
+                BenchmarkSupport.runEchoWorkload(provider, config);
+                WorkloadResult result = BenchmarkSupport.runEchoWorkload(provider, config);
+                System.out.println(result.format(profile.name()));
+            }
+        }
+        finally
+        {
+            provider.shutdown();
+        }
+    }
+}
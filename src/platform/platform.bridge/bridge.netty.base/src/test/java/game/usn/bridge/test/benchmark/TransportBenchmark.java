@@ -0,0 +1,73 @@
+/**
+ * @file TransportBenchmark.java
+ * @brief Runs the same echo workload over every transport available on the host.
+ */
+
+package game.usn.bridge.test.benchmark;
+
+import game.usn.bridge.test.benchmark.BenchmarkSupport.BenchmarkProvider;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.WorkloadConfig;
+import game.usn.bridge.test.benchmark.BenchmarkSupport.WorkloadResult;
+import platform.bridge.base.transport.ETransportType;
+
+/**
+ * Runs the same echo workload over every transport available on the host and reports throughput and round trip latency
+ * percentiles. Transports not supported by the host are reported and skipped. Run manually:
+ * 
+ * <pre>
+ * java game.usn.bridge.test.benchmark.TransportBenchmark [connections] [messagesPerConnection] [window] [threads]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class TransportBenchmark
+{
+    /**
+     * Private constructor.
+     */
+    private TransportBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional connections, messages per connection, window and worker thread count.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        WorkloadConfig config = new WorkloadConfig();
+        config.connections = args.length > 0 ? Integer.parseInt(args[0]) : config.connections;
+        config.messagesPerConnection = args.length > 1 ? Integer.parseInt(args[1]) : config.messagesPerConnection;
+        config.window = args.length > 2 ? Integer.parseInt(args[2]) : config.window;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println(String.format("Echo workload: %d connections x %d messages, window %d, %d threads.",
+            config.connections, config.messagesPerConnection, config.window, threads));
+
+        for (ETransportType type : ETransportType.values())
+        {
+            BenchmarkProvider provider = new BenchmarkProvider(threads, type);
+            try
+            {
+                if (provider.getTransport().getType() != type)
+                {
+                    System.out.println(String.format("%-24s not available on this host, skipped.", type));
+                    continue;
+                }
+
+                // Warm up before measuring.
+                BenchmarkSupport.runEchoWorkload(provider, config);
+                WorkloadResult result = BenchmarkSupport.runEchoWorkload(provider, config);
+                System.out.println(result.format(type.name()));
+            }
+            finally
+            {
+                provider.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * @file BridgeAsyncSendTest.java
+ * @brief Send completion test.
+ */
+
+package game.usn.bridge.test.e2e;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.PingPacket;
+import game.usn.bridge.test.e2e.testdata.PongPacket;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.TestService;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Send completion test. Verifies sends with completion complete once written, also for packets buffered during a lazy
+ * connect, and complete exceptionally if packet cannot be sent.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class BridgeAsyncSendTest implements ITestTransportObserver, IChannelObserver
+{
+    // Test proxy names.
+    private static final String SERVICE_NAME = "asyncSendTestService";
+    private static final String CLIENT_NAME = "asyncSendTestClient";
+
+    // Test service and client.
+    private TestService testService;
+    private TestClient testClient;
+
+    private final CountDownLatch bindCDLatch = new CountDownLatch(1);
+    private final CountDownLatch connectCDLatch = new CountDownLatch(1);
+    private final CountDownLatch serverReceive = new CountDownLatch(2);
+    private final CountDownLatch clientReceive = new CountDownLatch(1);
+
+    private volatile String senderIdentifier;
+    private volatile int servicePort;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        if (testClient != null)
+        {
+            testClient.release();
+        }
+        if (testService != null)
+        {
+            testService.release();
+        }
+    }
+
+    /**
+     * Test completions of client and service sends.
+     */
+    @Test
+    public void testSendCompletion() throws Exception
+    {
+        BridgeOptions serverOptions = new BridgeOptions();
+        serverOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        clientOptions.set(BridgeOptions.KEY_LAZY_CONNECT, Boolean.TRUE);
+
+        testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+        testService.initialize(0);
+        Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+
+        testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME);
+        testClient.initialize(servicePort, new InetSocketAddress(Inet4Address.getLocalHost(), 0).getHostName());
+
+        // First send is buffered until lazy connect completes, second one is written right away.
+        testClient.getClientProxy().sendPacketAsync(new PingPacket()).toCompletableFuture().get(2, TimeUnit.SECONDS);
+        Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+        testClient.getClientProxy().sendPacketAsync(new PingPacket()).toCompletableFuture().get(2, TimeUnit.SECONDS);
+        Assert.assertTrue(serverReceive.await(2, TimeUnit.SECONDS));
+
+        // Service send completes once written, send to an unknown client fails.
+        testService.getServiceProxy().sendPacketAsync(new PongPacket(), senderIdentifier).toCompletableFuture().get(
+            2, TimeUnit.SECONDS);
+        Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+
+        Exception ex = null;
+        try
+        {
+            testService.getServiceProxy().sendPacketAsync(new PongPacket(), "unknownClient").toCompletableFuture()
+                .get(2, TimeUnit.SECONDS);
+        }
+        catch (ExecutionException ee)
+        {
+            ex = ee;
+        }
+        Assert.assertNotNull(ex);
+        Assert.assertTrue(ex.getCause() instanceof BridgeException);
+    }
+
+    @Override
+    public void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress)
+    {
+        if (SERVICE_NAME.equals(proxyName) && isChannelUp)
+        {
+            servicePort = inetSocketAddress.getPort();
+            bindCDLatch.countDown();
+        }
+        else if (CLIENT_NAME.equals(proxyName) && isChannelUp)
+        {
+            connectCDLatch.countDown();
+        }
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {
+        clientReceive.countDown();
+    }
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {
+        this.senderIdentifier = senderIdentifier;
+        serverReceive.countDown();
+    }
+}
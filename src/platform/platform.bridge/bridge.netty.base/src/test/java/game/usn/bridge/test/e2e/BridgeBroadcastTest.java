@@ -0,0 +1,162 @@
+/**
+ * @file BridgeBroadcastTest.java
+ * @brief Encode-once broadcast test.
+ */
+
+package game.usn.bridge.test.e2e;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.PongPacket;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.TestService;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+
+/**
+ * Encode-once broadcast test. Connects several clients to a two loop service and broadcasts a single packet to all of
+ * them, verifying each client receives it once and unknown identifiers are skipped.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class BridgeBroadcastTest implements ITestTransportObserver, IChannelObserver
+{
+    // Test proxy and group names.
+    private static final String SERVICE_NAME = "broadcastTestService";
+    private static final String CLIENT_NAME = "broadcastTestClient";
+    private static final String SERVICE_GROUP = "broadcastTestServiceLoops";
+
+    // Number of test clients.
+    private static final int CLIENTS = 3;
+
+    // Test service and clients.
+    private TestService testService;
+    private final List<TestClient> testClientList = new ArrayList<TestClient>();
+
+    private final CountDownLatch bindCDLatch = new CountDownLatch(1);
+    private final CountDownLatch connectCDLatch = new CountDownLatch(CLIENTS);
+    private final CountDownLatch serverReceive = new CountDownLatch(CLIENTS);
+    private volatile CountDownLatch clientReceive = new CountDownLatch(CLIENTS);
+
+    private final Set<String> senderIdentifierSet = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private volatile int servicePort;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        for (TestClient testClient : testClientList)
+        {
+            testClient.release();
+        }
+        if (testService != null)
+        {
+            testService.release();
+        }
+    }
+
+    /**
+     * Test a broadcast packet reaches every listed client once.
+     */
+    @Test
+    public void testBroadcast() throws Exception
+    {
+        BridgeOptions serverOptions = new BridgeOptions();
+        serverOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serverOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP, SERVICE_GROUP);
+        serverOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP_SIZE, 2);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+
+        testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+        testService.initialize(0);
+        Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+
+        InetSocketAddress address = new InetSocketAddress(Inet4Address.getLocalHost(), 0);
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            TestClient testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+                Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME + i);
+            testClientList.add(testClient);
+            testClient.initialize(servicePort, address.getHostName());
+        }
+        Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+
+        // Ping from each client to learn its identifier, pongs are counted as well.
+        for (TestClient testClient : testClientList)
+        {
+            testClient.send();
+        }
+        Assert.assertTrue(serverReceive.await(2, TimeUnit.SECONDS));
+        Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+        Assert.assertEquals(CLIENTS, senderIdentifierSet.size());
+
+        clientReceive = new CountDownLatch(CLIENTS);
+        List<String> recipients = new ArrayList<String>(senderIdentifierSet);
+        recipients.add("unknownClient");
+        Assert.assertEquals(CLIENTS, testService.getServiceProxy().broadcast(new PongPacket(), recipients));
+        Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+
+        // Nothing to send to, nothing sent.
+        Assert.assertEquals(0, testService.getServiceProxy().broadcast(new PongPacket(),
+            Arrays.asList(new String[] { "unknownClient" })));
+    }
+
+    @Override
+    public void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress)
+    {
+        if (SERVICE_NAME.equals(proxyName) && isChannelUp)
+        {
+            servicePort = inetSocketAddress.getPort();
+            bindCDLatch.countDown();
+        }
+        else if (proxyName.startsWith(CLIENT_NAME) && isChannelUp)
+        {
+            connectCDLatch.countDown();
+        }
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {
+        clientReceive.countDown();
+    }
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {
+        senderIdentifierSet.add(senderIdentifier);
+        serverReceive.countDown();
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * @file BridgeEventLoopGroupTest.java
+ * @brief Per-proxy event loop group test.
+ */
+
+package game.usn.bridge.test.e2e;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.TestService;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.PlatformBridgeManager;
+import platform.bridge.base.loop.EventLoopGroupStats;
+
+/**
+ * Per-proxy event loop group test. Registers a service on a dedicated group with its own boss group and a client on a
+ * named group, and verifies groups are reported while in use and released with their proxies.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class BridgeEventLoopGroupTest implements ITestTransportObserver, IChannelObserver
+{
+    // Test proxy and group names.
+    private static final String SERVICE_NAME = "groupTestService";
+    private static final String CLIENT_NAME = "groupTestClient";
+    private static final String SERVICE_GROUP = "groupTestServiceLoops";
+    private static final String CLIENT_GROUP = "groupTestClientLoops";
+
+    // Test service and client.
+    private TestService testService;
+    private TestClient testClient;
+
+    private final CountDownLatch bindCDLatch = new CountDownLatch(1);
+    private final CountDownLatch connectCDLatch = new CountDownLatch(1);
+    private final CountDownLatch clientReceive = new CountDownLatch(1);
+
+    private volatile int servicePort;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        if (testClient != null)
+        {
+            testClient.release();
+        }
+        if (testService != null)
+        {
+            testService.release();
+        }
+    }
+
+    /**
+     * Test proxies run on their own groups and groups are released with proxies.
+     */
+    @Test
+    public void testDedicatedGroups() throws Exception
+    {
+        BridgeOptions serverOptions = new BridgeOptions();
+        serverOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serverOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP, SERVICE_GROUP);
+        serverOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP_SIZE, 2);
+        serverOptions.set(BridgeOptions.KEY_BOSS_GROUP_SIZE, 1);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        clientOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP, CLIENT_GROUP);
+        clientOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP_SIZE, 1);
+
+        testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+        testService.initialize(0);
+        Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+
+        InetSocketAddress address = new InetSocketAddress(Inet4Address.getLocalHost(), 0);
+        testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME);
+        testClient.initialize(servicePort, address.getHostName());
+        Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+
+        testClient.send();
+        Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+
+        Map<String, EventLoopGroupStats> statsMap = sampleGroups();
+        Assert.assertEquals(2, statsMap.get(SERVICE_GROUP).getThreadCount());
+        Assert.assertEquals(1, statsMap.get(SERVICE_GROUP).getProxyCount());
+        Assert.assertEquals(1, statsMap.get(SERVICE_NAME + "-boss").getThreadCount());
+        Assert.assertEquals(1, statsMap.get(CLIENT_GROUP).getThreadCount());
+
+        testClient.release();
+        testClient = null;
+        testService.release();
+        testService = null;
+
+        statsMap = sampleGroups();
+        Assert.assertFalse(statsMap.containsKey(SERVICE_GROUP));
+        Assert.assertFalse(statsMap.containsKey(SERVICE_NAME + "-boss"));
+        Assert.assertFalse(statsMap.containsKey(CLIENT_GROUP));
+    }
+
+    /**
+     * Sample bridge event loop groups.
+     * 
+     * @return - group name to stats map.
+     */
+    private Map<String, EventLoopGroupStats> sampleGroups()
+    {
+        Map<String, EventLoopGroupStats> statsMap = new HashMap<String, EventLoopGroupStats>();
+        for (EventLoopGroupStats stats : PlatformBridgeManager.getInstance().getEventLoopGroupStats())
+        {
+            statsMap.put(stats.getName(), stats);
+        }
+        return statsMap;
+    }
+
+    @Override
+    public void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress)
+    {
+        if (SERVICE_NAME.equals(proxyName) && isChannelUp)
+        {
+            servicePort = inetSocketAddress.getPort();
+            bindCDLatch.countDown();
+        }
+        else if (CLIENT_NAME.equals(proxyName) && isChannelUp)
+        {
+            connectCDLatch.countDown();
+        }
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {
+        clientReceive.countDown();
+    }
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+}
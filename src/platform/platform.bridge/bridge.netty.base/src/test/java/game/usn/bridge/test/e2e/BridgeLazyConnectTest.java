@@ -0,0 +1,221 @@
+/**
+ * @file BridgeLazyConnectTest.java
+ * @brief Client proxy lazy connect and idle disconnect test.
+ */
+
+package game.usn.bridge.test.e2e;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.TestService;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+
+/**
+ * Client proxy lazy connect and idle disconnect test.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class BridgeLazyConnectTest implements ITestTransportObserver, IChannelObserver
+{
+    // Test proxy names.
+    private static final String SERVICE_NAME = "lazyTestService";
+    private static final String CLIENT_NAME = "lazyTestClient";
+
+    // Exception.
+    private Exception ex;
+
+    // Test service and client.
+    private TestService testService;
+    private TestClient testClient;
+
+    private CountDownLatch bindCDLatch;
+    private volatile CountDownLatch connectCDLatch;
+    private volatile CountDownLatch disconnectCDLatch;
+    private volatile CountDownLatch clientReceive;
+    private CountDownLatch connectFailedCDLatch;
+
+    private volatile int servicePort;
+    private volatile int discardedOnConnectFailure;
+
+    /**
+     * Reset before each test.
+     */
+    @Before
+    public void before()
+    {
+        ex = null;
+        bindCDLatch = new CountDownLatch(1);
+        connectCDLatch = new CountDownLatch(1);
+        disconnectCDLatch = new CountDownLatch(1);
+        clientReceive = new CountDownLatch(1);
+        connectFailedCDLatch = new CountDownLatch(1);
+    }
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        if (testClient != null)
+        {
+            testClient.release();
+        }
+        if (testService != null)
+        {
+            testService.release();
+        }
+    }
+
+    /**
+     * Test client connects on first send, disconnects when idle and connects again on next send.
+     */
+    @Test
+    public void testLazyConnectAndIdleDisconnect()
+    {
+        BridgeOptions serverOptions = new BridgeOptions();
+        serverOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        clientOptions.set(BridgeOptions.KEY_LAZY_CONNECT, Boolean.TRUE);
+        clientOptions.set(BridgeOptions.KEY_IDLE_DISCONNECT_SEC, 1);
+
+        try
+        {
+            testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+                Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+            testService.initialize(0);
+            Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+
+            InetSocketAddress address = new InetSocketAddress(Inet4Address.getLocalHost(), 0);
+            testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+                Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME);
+            testClient.initialize(servicePort, address.getHostName());
+
+            // Nothing should be connected before first send.
+            Assert.assertFalse(connectCDLatch.await(500, TimeUnit.MILLISECONDS));
+
+            testClient.send();
+            Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+            Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+
+            // Channel should be closed once idle.
+            Assert.assertTrue(disconnectCDLatch.await(3, TimeUnit.SECONDS));
+
+            // And re-opened on next send.
+            connectCDLatch = new CountDownLatch(1);
+            clientReceive = new CountDownLatch(1);
+            testClient.send();
+            Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+            Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertNull(ex);
+    }
+
+    /**
+     * Test observers learn of packets discarded once an on demand connect fails without reconnect.
+     */
+    @Test
+    public void testLazyConnectFailed()
+    {
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        clientOptions.set(BridgeOptions.KEY_LAZY_CONNECT, Boolean.TRUE);
+
+        try
+        {
+            // Port nothing listens on.
+            int closedPort = 0;
+            try (ServerSocket serverSocket = new ServerSocket(0))
+            {
+                closedPort = serverSocket.getLocalPort();
+            }
+
+            InetSocketAddress address = new InetSocketAddress(Inet4Address.getLocalHost(), 0);
+            testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+                Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME);
+            testClient.initialize(closedPort, address.getHostName());
+
+            testClient.send();
+            Assert.assertTrue(connectFailedCDLatch.await(2, TimeUnit.SECONDS));
+            Assert.assertEquals(1, discardedOnConnectFailure);
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertNull(ex);
+    }
+
+    @Override
+    public void notifyChannelConnectFailed(String proxyName, InetSocketAddress inetSocketAddress, int discarded)
+    {
+        if (CLIENT_NAME.equals(proxyName))
+        {
+            discardedOnConnectFailure = discarded;
+            connectFailedCDLatch.countDown();
+        }
+    }
+
+    @Override
+    public void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress)
+    {
+        if (SERVICE_NAME.equals(proxyName) && isChannelUp)
+        {
+            servicePort = inetSocketAddress.getPort();
+            bindCDLatch.countDown();
+        }
+        else if (CLIENT_NAME.equals(proxyName))
+        {
+            if (isChannelUp)
+            {
+                connectCDLatch.countDown();
+            }
+            else
+            {
+                disconnectCDLatch.countDown();
+            }
+        }
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {
+        clientReceive.countDown();
+    }
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+}
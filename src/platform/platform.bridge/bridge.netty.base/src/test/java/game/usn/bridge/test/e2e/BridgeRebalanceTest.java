@@ -0,0 +1,224 @@
+/**
+ * @file BridgeRebalanceTest.java
+ * @brief Service loop rebalance test.
+ */
+
+package game.usn.bridge.test.e2e;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.TestService;
+import io.netty.channel.EventLoop;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.balance.LoopLoad;
+import platform.bridge.base.balance.LoopRebalancer;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+
+/**
+ * Service loop rebalance test. Moves all clients of a two loop service to one loop, keeps that loop busy and verifies
+ * the rebalancer moves an unpinned client to the idle loop, leaves the pinned client in place and does not move
+ * clients back once loops are quiet.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class BridgeRebalanceTest implements ITestTransportObserver, IChannelObserver
+{
+    // Test proxy and group names.
+    private static final String SERVICE_NAME = "rebalanceTestService";
+    private static final String CLIENT_NAME = "rebalanceTestClient";
+    private static final String SERVICE_GROUP = "rebalanceTestServiceLoops";
+
+    // Number of test clients, cpu time hot loop is kept busy for and the longest it may take.
+    private static final int CLIENT_COUNT = 3;
+    private static final long BUSY_MS = 1000;
+    private static final long BUSY_MAX_MS = 5000;
+
+    // Test service and clients.
+    private TestService testService;
+    private final List<TestClient> testClientList = new ArrayList<TestClient>();
+
+    private final CountDownLatch bindCDLatch = new CountDownLatch(1);
+    private final CountDownLatch connectCDLatch = new CountDownLatch(CLIENT_COUNT);
+    private volatile CountDownLatch clientReceive;
+
+    private volatile int servicePort;
+    private final Set<String> senderIdentifierSet = Collections
+        .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        for (TestClient testClient : testClientList)
+        {
+            testClient.release();
+        }
+        if (testService != null)
+        {
+            testService.release();
+        }
+    }
+
+    /**
+     * Test hot loop gives an unpinned client to the idle loop.
+     */
+    @Test
+    public void testRebalance() throws Exception
+    {
+        BridgeOptions serverOptions = new BridgeOptions();
+        serverOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serverOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP, SERVICE_GROUP);
+        serverOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP_SIZE, 2);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+
+        testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+        testService.initialize(0);
+        Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+        NettyServiceProxy serviceProxy = testService.getServiceProxy();
+        Assert.assertNull(serviceProxy.getLoopRebalancer());
+
+        InetSocketAddress address = new InetSocketAddress(Inet4Address.getLocalHost(), 0);
+        for (int i = 0; i < CLIENT_COUNT; i++)
+        {
+            TestClient testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+                Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME + i);
+            testClient.initialize(servicePort, address.getHostName());
+            testClientList.add(testClient);
+        }
+        Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+        sendAll();
+        Assert.assertEquals(CLIENT_COUNT, senderIdentifierSet.size());
+
+        // Gather all clients on one loop and pin one of them.
+        List<String> senderIdentifierList = new ArrayList<String>(senderIdentifierSet);
+        String pinnedIdentifier = senderIdentifierList.get(0);
+        EventLoop hotLoop = serviceProxy.getClientEventLoop(pinnedIdentifier);
+        for (String senderIdentifier : senderIdentifierList)
+        {
+            Assert.assertTrue(serviceProxy.migrateClient(senderIdentifier, hotLoop).await(2, TimeUnit.SECONDS));
+        }
+        serviceProxy.setClientPinned(pinnedIdentifier, true);
+
+        LoopRebalancer loopRebalancer = new LoopRebalancer(serviceProxy, 0.5, 0.2, 0, CLIENT_COUNT);
+        Assert.assertEquals(0, loopRebalancer.rebalance());
+        Assert.assertEquals(2, loopRebalancer.getLoopLoad().size());
+
+        // Read from every client and keep hot loop busy.
+        sendAll();
+        Assert.assertTrue(hotLoop.submit(new Runnable() {
+            @Override
+            public void run()
+            {
+                // Spins on loop thread cpu time, as on a single cpu other threads, e.g. the JIT, take part of the wall
+                // time and the loop would then not appear hot.
+                ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+                long cpuEnd = threadBean.getCurrentThreadCpuTime() + TimeUnit.MILLISECONDS.toNanos(BUSY_MS);
+                long wallEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BUSY_MAX_MS);
+                while (threadBean.getCurrentThreadCpuTime() < cpuEnd && System.nanoTime() < wallEnd)
+                {
+                    // Spin.
+                }
+            }
+        }).await(BUSY_MAX_MS * 2, TimeUnit.MILLISECONDS));
+
+        Assert.assertTrue(loopRebalancer.rebalance() > 0);
+        LoopLoad hotLoad = loopRebalancer.getLoopLoad().get(hotLoop);
+        Assert.assertEquals(CLIENT_COUNT, hotLoad.getChannelCount());
+        Assert.assertEquals(1, hotLoad.getPinnedCount());
+        Assert.assertTrue(hotLoad.getUtilisation() >= 0.5);
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (loopRebalancer.getMigrationCount() == 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(loopRebalancer.getMigrationCount() > 0);
+        Assert.assertSame(hotLoop, serviceProxy.getClientEventLoop(pinnedIdentifier));
+
+        int movedCount = 0;
+        for (String senderIdentifier : senderIdentifierList)
+        {
+            movedCount += serviceProxy.getClientEventLoop(senderIdentifier) != hotLoop ? 1 : 0;
+        }
+        Assert.assertEquals(loopRebalancer.getMigrationCount(), movedCount);
+
+        // Moved clients keep working and quiet loops are left alone.
+        sendAll();
+        Assert.assertEquals(0, loopRebalancer.rebalance());
+    }
+
+    /**
+     * Send a request from every client and wait for all responses.
+     */
+    private void sendAll() throws Exception
+    {
+        clientReceive = new CountDownLatch(CLIENT_COUNT);
+        for (TestClient testClient : testClientList)
+        {
+            testClient.send();
+        }
+        Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+    }
+
+    @Override
+    public void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress)
+    {
+        if (SERVICE_NAME.equals(proxyName) && isChannelUp)
+        {
+            servicePort = inetSocketAddress.getPort();
+            bindCDLatch.countDown();
+        }
+        else if (proxyName.startsWith(CLIENT_NAME) && isChannelUp)
+        {
+            connectCDLatch.countDown();
+        }
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {
+        clientReceive.countDown();
+    }
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {
+        senderIdentifierSet.add(senderIdentifier);
+    }
+}
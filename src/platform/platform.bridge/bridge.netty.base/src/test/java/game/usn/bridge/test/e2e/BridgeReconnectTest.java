@@ -0,0 +1,220 @@
+/**
+ * @file BridgeReconnectTest.java
+ * @brief Client proxy reconnect test.
+ */
+
+package game.usn.bridge.test.e2e;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.TestService;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+
+/**
+ * Client proxy reconnect test. Kills and restarts a local service and verifies the client re-establishes the channel
+ * and delivers packets buffered during the outage.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class BridgeReconnectTest implements ITestTransportObserver, IChannelObserver
+{
+    // Test proxy names.
+    private static final String SERVICE_NAME = "reconnectTestService";
+    private static final String CLIENT_NAME = "reconnectTestClient";
+
+    // Exception.
+    private Exception ex;
+
+    // Server and client options.
+    private BridgeOptions serverOptions;
+    private BridgeOptions clientOptions;
+
+    // Test service and client.
+    private TestService testService;
+    private TestClient testClient;
+
+    private volatile CountDownLatch bindCDLatch;
+    private CountDownLatch connectCDLatch;
+    private CountDownLatch disconnectCDLatch;
+    private CountDownLatch reconnectingCDLatch;
+    private CountDownLatch reconnectCDLatch;
+    private CountDownLatch serverReceive;
+    private CountDownLatch clientReceive;
+
+    private volatile int servicePort;
+    private volatile int connectCnt;
+
+    /**
+     * Reset before each test.
+     */
+    @Before
+    public void before()
+    {
+        ex = null;
+        connectCnt = 0;
+        servicePort = 0;
+
+        serverOptions = new BridgeOptions();
+        serverOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+
+        clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        clientOptions.set(BridgeOptions.KEY_RECONNECT_ENABLED, Boolean.TRUE);
+        clientOptions.set(BridgeOptions.KEY_RECONNECT_INITIAL_DELAY_MS, 50);
+        clientOptions.set(BridgeOptions.KEY_RECONNECT_MAX_DELAY_MS, 400);
+        clientOptions.set(BridgeOptions.KEY_SEND_BUFFER_SIZE, 16);
+
+        bindCDLatch = new CountDownLatch(1);
+        connectCDLatch = new CountDownLatch(1);
+        disconnectCDLatch = new CountDownLatch(1);
+        reconnectingCDLatch = new CountDownLatch(2);
+        reconnectCDLatch = new CountDownLatch(1);
+        serverReceive = new CountDownLatch(1);
+        clientReceive = new CountDownLatch(1);
+    }
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        if (testClient != null)
+        {
+            testClient.release();
+        }
+        if (testService != null)
+        {
+            testService.release();
+        }
+    }
+
+    /**
+     * Test client reconnects after service restart and delivers buffered packets.
+     */
+    @Test
+    public void testReconnectAfterServiceRestart()
+    {
+        try
+        {
+            testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+                Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+            testService.initialize(0);
+            Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+
+            InetSocketAddress address = new InetSocketAddress(Inet4Address.getLocalHost(), 0);
+            testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+                Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME);
+            testClient.initialize(servicePort, address.getHostName());
+            Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+
+            // Kill the service.
+            testService.release();
+            testService = null;
+            Assert.assertTrue(disconnectCDLatch.await(2, TimeUnit.SECONDS));
+            Assert.assertTrue(reconnectingCDLatch.await(5, TimeUnit.SECONDS));
+
+            // Send while service is down. Packet should be buffered.
+            testClient.send();
+            Assert.assertTrue(testClient.sent);
+
+            // Restart the service on the same port.
+            bindCDLatch = new CountDownLatch(1);
+            testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+                Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+            testService.initialize(servicePort);
+            Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+
+            // Client should reconnect and flush buffered packet.
+            Assert.assertTrue(reconnectCDLatch.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(serverReceive.await(2, TimeUnit.SECONDS));
+            Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertNull(ex);
+    }
+
+    @Override
+    public void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress)
+    {
+        if (SERVICE_NAME.equals(proxyName) && isChannelUp)
+        {
+            servicePort = inetSocketAddress.getPort();
+            bindCDLatch.countDown();
+        }
+        else if (CLIENT_NAME.equals(proxyName))
+        {
+            if (isChannelUp)
+            {
+                if (++connectCnt == 1)
+                {
+                    connectCDLatch.countDown();
+                }
+                else
+                {
+                    reconnectCDLatch.countDown();
+                }
+            }
+            else
+            {
+                disconnectCDLatch.countDown();
+            }
+        }
+    }
+
+    @Override
+    public void notifyChannelReconnecting(String proxyName, InetSocketAddress inetSocketAddress, int attempt,
+        long delayMs)
+    {
+        if (CLIENT_NAME.equals(proxyName) && delayMs <= 400)
+        {
+            reconnectingCDLatch.countDown();
+        }
+    }
+
+    @Override
+    public void notifyChannelReconnectAbandoned(String proxyName, InetSocketAddress inetSocketAddress, int attempts)
+    {
+        ex = new IllegalStateException();
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {
+        clientReceive.countDown();
+    }
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {
+        serverReceive.countDown();
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * @file BridgeRoomTest.java
+ * @brief Room placement and channel pinning test.
+ */
+
+package game.usn.bridge.test.e2e;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.TestService;
+import io.netty.channel.EventLoop;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.proxy.service.NettyServiceProxy;
+import platform.bridge.base.room.Room;
+import platform.bridge.base.room.RoomManager;
+
+/**
+ * Room placement and channel pinning test. Creates rooms on a two loop service, verifies they are spread across loops
+ * and that a joining client channel is moved to its room loop and keeps working.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class BridgeRoomTest implements ITestTransportObserver, IChannelObserver
+{
+    // Test proxy and group names.
+    private static final String SERVICE_NAME = "roomTestService";
+    private static final String CLIENT_NAME = "roomTestClient";
+    private static final String SERVICE_GROUP = "roomTestServiceLoops";
+
+    // Test service and client.
+    private TestService testService;
+    private TestClient testClient;
+
+    private final CountDownLatch bindCDLatch = new CountDownLatch(1);
+    private final CountDownLatch connectCDLatch = new CountDownLatch(1);
+    private volatile CountDownLatch clientReceive = new CountDownLatch(1);
+
+    private volatile int servicePort;
+    private volatile String senderIdentifier;
+    private volatile EventLoop receiveLoop;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        if (testClient != null)
+        {
+            testClient.release();
+        }
+        if (testService != null)
+        {
+            testService.release();
+        }
+    }
+
+    /**
+     * Test rooms are balanced across loops and joining moves client channel to room loop.
+     */
+    @Test
+    public void testRoomPinning() throws Exception
+    {
+        BridgeOptions serverOptions = new BridgeOptions();
+        serverOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serverOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP, SERVICE_GROUP);
+        serverOptions.set(BridgeOptions.KEY_EVENT_LOOP_GROUP_SIZE, 2);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+
+        testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+        testService.initialize(0);
+        Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+
+        NettyServiceProxy serviceProxy = testService.getServiceProxy();
+        RoomManager roomManager = new RoomManager(serviceProxy);
+        Room firstRoom = roomManager.createRoom("first");
+        Room secondRoom = roomManager.createRoom("second");
+        Assert.assertNotSame(firstRoom.getEventLoop(), secondRoom.getEventLoop());
+
+        InetSocketAddress address = new InetSocketAddress(Inet4Address.getLocalHost(), 0);
+        testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME);
+        testClient.initialize(servicePort, address.getHostName());
+        Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+
+        testClient.send();
+        Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+        Assert.assertNotNull(senderIdentifier);
+
+        // Join each room in turn, channel must follow and keep serving requests.
+        for (Room room : new Room[] { firstRoom, secondRoom })
+        {
+            Assert.assertTrue(room.join(senderIdentifier).await(2, TimeUnit.SECONDS));
+            Assert.assertSame(room.getEventLoop(), serviceProxy.getClientEventLoop(senderIdentifier));
+            Assert.assertEquals(1, room.getMemberCount());
+
+            clientReceive = new CountDownLatch(1);
+            testClient.send();
+            Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+            Assert.assertSame(room.getEventLoop(), receiveLoop);
+
+            room.leave(senderIdentifier);
+        }
+
+        // Wait for leave to run on room loop, each loop then carries one empty room.
+        Assert.assertTrue(secondRoom.getEventLoop().submit(new Runnable() {
+            @Override
+            public void run()
+            {}
+        }).await(2, TimeUnit.SECONDS));
+        Assert.assertEquals(0, secondRoom.getMemberCount());
+        Map<EventLoop, Integer> loadMap = roomManager.getLoopLoad();
+        Assert.assertEquals(Integer.valueOf(1), loadMap.get(firstRoom.getEventLoop()));
+        Assert.assertEquals(Integer.valueOf(1), loadMap.get(secondRoom.getEventLoop()));
+
+        // Closing first room makes its loop the least loaded one.
+        firstRoom.close();
+        Assert.assertNull(roomManager.getRoom("first"));
+        Assert.assertSame(firstRoom.getEventLoop(), roomManager.createRoom("third").getEventLoop());
+    }
+
+    @Override
+    public void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress)
+    {
+        if (SERVICE_NAME.equals(proxyName) && isChannelUp)
+        {
+            servicePort = inetSocketAddress.getPort();
+            bindCDLatch.countDown();
+        }
+        else if (CLIENT_NAME.equals(proxyName) && isChannelUp)
+        {
+            connectCDLatch.countDown();
+        }
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {
+        clientReceive.countDown();
+    }
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {
+        this.senderIdentifier = senderIdentifier;
+        EventLoop loop = testService.getServiceProxy().getClientEventLoop(senderIdentifier);
+        receiveLoop = loop != null && loop.inEventLoop() ? loop : null;
+    }
+}
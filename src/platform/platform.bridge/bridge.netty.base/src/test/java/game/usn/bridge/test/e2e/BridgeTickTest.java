@@ -0,0 +1,191 @@
+/**
+ * @file BridgeTickTest.java
+ * @brief Tick driven service test.
+ */
+
+package game.usn.bridge.test.e2e;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.TestService;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.base.tick.ITickListener;
+import platform.bridge.base.tick.TickScheduler;
+import platform.bridge.base.tick.TickStats;
+
+/**
+ * Tick driven service test. Verifies requests are delivered on the tick thread, responses are flushed at the end of
+ * the tick and an overrunning tick is counted.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class BridgeTickTest implements ITestTransportObserver, IChannelObserver, ITickListener
+{
+    // Test proxy names.
+    private static final String SERVICE_NAME = "tickTestService";
+    private static final String CLIENT_NAME = "tickTestClient";
+
+    // Tick rate and time an overrunning tick takes.
+    private static final int TICK_RATE_HZ = 50;
+    private static final long OVERRUN_MS = 60;
+
+    // Test service and client.
+    private TestService testService;
+    private TestClient testClient;
+
+    private final CountDownLatch bindCDLatch = new CountDownLatch(1);
+    private final CountDownLatch connectCDLatch = new CountDownLatch(1);
+    private final CountDownLatch clientReceive = new CountDownLatch(1);
+    private final CountDownLatch tickCDLatch = new CountDownLatch(1);
+    private volatile CountDownLatch overrunCDLatch;
+
+    private volatile int servicePort;
+    private volatile boolean receivedOnTick;
+    private volatile TickScheduler tickScheduler;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        if (testClient != null)
+        {
+            testClient.release();
+        }
+        if (testService != null)
+        {
+            testService.release();
+        }
+    }
+
+    /**
+     * Test request and response of a tick driven service.
+     */
+    @Test
+    public void testTick() throws Exception
+    {
+        BridgeOptions serverOptions = new BridgeOptions();
+        serverOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.TRUE);
+        serverOptions.set(BridgeOptions.KEY_TICK_RATE_HZ, TICK_RATE_HZ);
+
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+
+        testService = new TestService(serverOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), SERVICE_NAME);
+        testService.initialize(0);
+        Assert.assertTrue(bindCDLatch.await(2, TimeUnit.SECONDS));
+
+        tickScheduler = testService.getServiceProxy().getTickScheduler();
+        Assert.assertNotNull(tickScheduler);
+        Assert.assertNotNull(testService.getServiceProxy().getInboundRingBuffer());
+        tickScheduler.addTickListener(this);
+        Assert.assertTrue(tickCDLatch.await(2, TimeUnit.SECONDS));
+
+        InetSocketAddress address = new InetSocketAddress(Inet4Address.getLocalHost(), 0);
+        testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(
+            Arrays.asList(new IChannelObserver[] { this })), CLIENT_NAME);
+        testClient.initialize(servicePort, address.getHostName());
+        Assert.assertTrue(connectCDLatch.await(2, TimeUnit.SECONDS));
+
+        testClient.send();
+        Assert.assertTrue(clientReceive.await(2, TimeUnit.SECONDS));
+        Assert.assertTrue(receivedOnTick);
+
+        // Flushed channels are counted once the flush phase returns, which may be after the client received.
+        long deadline = System.currentTimeMillis() + 2000;
+        while (tickScheduler.getStats().getFlushed() == 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        TickStats stats = tickScheduler.getStats();
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(1) / TICK_RATE_HZ, stats.getPeriodNanos());
+        Assert.assertEquals(1, stats.getDrained());
+        Assert.assertTrue(stats.getFlushed() >= 1);
+        Assert.assertEquals(0, stats.getOverrunCount());
+
+        // Overrun a tick.
+        overrunCDLatch = new CountDownLatch(1);
+        Assert.assertTrue(overrunCDLatch.await(2, TimeUnit.SECONDS));
+        deadline = System.currentTimeMillis() + 2000;
+        while (tickScheduler.getStats().getSkippedCount() == 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        stats = tickScheduler.getStats();
+        Assert.assertEquals(1, stats.getOverrunCount());
+        Assert.assertTrue(stats.getSkippedCount() >= 1);
+        Assert.assertTrue(stats.getMaxTickNanos() >= TimeUnit.MILLISECONDS.toNanos(OVERRUN_MS));
+    }
+
+    @Override
+    public void onTick(long tick, long deltaNanos)
+    {
+        tickCDLatch.countDown();
+
+        CountDownLatch latch = overrunCDLatch;
+        if (latch != null && latch.getCount() > 0)
+        {
+            try
+            {
+                Thread.sleep(OVERRUN_MS);
+            }
+            catch (InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+            latch.countDown();
+        }
+    }
+
+    @Override
+    public void notifyChannelStateChanged(boolean isChannelUp, String proxyName, InetSocketAddress inetSocketAddress)
+    {
+        if (SERVICE_NAME.equals(proxyName) && isChannelUp)
+        {
+            servicePort = inetSocketAddress.getPort();
+            bindCDLatch.countDown();
+        }
+        else if (CLIENT_NAME.equals(proxyName) && isChannelUp)
+        {
+            connectCDLatch.countDown();
+        }
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {
+        clientReceive.countDown();
+    }
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {
+        receivedOnTick = tickScheduler != null && tickScheduler.inTickThread();
+    }
+}
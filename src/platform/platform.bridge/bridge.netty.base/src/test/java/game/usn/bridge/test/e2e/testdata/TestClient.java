@@ -30,6 +30,9 @@ public class TestClient implements IResponseListener
     // Bridge options
     private BridgeOptions bridgeOptions;
 
+    // Proxy name.
+    private String name;
+
     // Channel observer set.
     private Set<IChannelObserver> channelObserverSet;
 
@@ -52,6 +55,27 @@ public class TestClient implements IResponseListener
         this.channelObserverSet = channelObserverSet;
 
         clientProxyBase = new NettyClientProxy();
+        name = getClass().getName();
+    }
+
+    /**
+     * Ctor.
+     */
+    public TestClient(BridgeOptions clientOptions, ITestTransportObserver testBridgeObserver,
+        Set<IChannelObserver> channelObserverSet, String name) throws BridgeException
+    {
+        this(clientOptions, testBridgeObserver, channelObserverSet);
+        this.name = name;
+    }
+
+    /**
+     * Release test client.
+     * 
+     * @throws BridgeException
+     */
+    public void release() throws BridgeException
+    {
+        clientProxyBase.release();
     }
 
     /**
@@ -66,6 +90,16 @@ public class TestClient implements IResponseListener
         clientProxyBase.initialize(address, port, this);
     }
 
+    /**
+     * Retrieve underlying client proxy.
+     * 
+     * @return - an {@link IClientProxyBase}.
+     */
+    public IClientProxyBase getClientProxy()
+    {
+        return clientProxyBase;
+    }
+
     public void send() throws BridgeException
     {
         try
@@ -99,7 +133,7 @@ public class TestClient implements IResponseListener
     @Override
     public String getName()
     {
-        return getClass().getName();
+        return name;
     }
 
     @Override
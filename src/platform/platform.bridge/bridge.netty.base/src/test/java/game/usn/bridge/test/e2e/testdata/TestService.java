@@ -36,6 +36,9 @@ public class TestService implements IResponseListener
     // Bridge options
     private BridgeOptions bridgeOptions;
 
+    // Proxy name.
+    private String name;
+
     // Testing ping pong.
     public boolean received = false;
     public boolean sent = false;
@@ -52,6 +55,27 @@ public class TestService implements IResponseListener
         this.testBridgeObserver = testBridgeObserver;
 
         serviceProxyBase = new NettyServiceProxy();
+        name = getClass().getName();
+    }
+
+    /**
+     * Ctor.
+     */
+    public TestService(BridgeOptions serverOptions, ITestTransportObserver testBridgeObserver,
+        Set<IChannelObserver> channelObserverSet, String name)
+    {
+        this(serverOptions, testBridgeObserver, channelObserverSet);
+        this.name = name;
+    }
+
+    /**
+     * Release test service.
+     * 
+     * @throws BridgeException
+     */
+    public void release() throws BridgeException
+    {
+        serviceProxyBase.release();
     }
 
     /**
@@ -65,6 +89,16 @@ public class TestService implements IResponseListener
         serviceProxyBase.initialize(port, this);
     }
 
+    /**
+     * Retrieve underlying netty service proxy.
+     * 
+     * @return - a {@link NettyServiceProxy}.
+     */
+    public NettyServiceProxy getServiceProxy()
+    {
+        return (NettyServiceProxy) serviceProxyBase;
+    }
+
     @Override
     public void receive(AbstractPacket abstractPacket, String senderIdentifier)
     {
@@ -94,7 +128,7 @@ public class TestService implements IResponseListener
     @Override
     public String getName()
     {
-        return getClass().getName();
+        return name;
     }
 
     @Override
@@ -0,0 +1,336 @@
+/**
+ * @file TestCreditFlowControl.java
+ * @brief Test credit gate policies and credit grantor batching.
+ */
+
+package game.usn.bridge.test.flow;
+
+import game.usn.bridge.test.e2e.testdata.PingPacket;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.protocol.CreditPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.EFlowControlPolicy;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.flow.CreditGate;
+import platform.bridge.base.flow.CreditGrantor;
+import platform.bridge.base.flow.PendingSend;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Test credit gate policies and credit grantor batching.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestCreditFlowControl
+{
+    // Test credit window.
+    private static final int WINDOW = 4;
+
+    // Test channel.
+    private EmbeddedChannel channel;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after()
+    {
+        if (channel != null)
+        {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * Test instantiation with invalid arguments.
+     */
+    @Test
+    public void testInstantiation()
+    {
+        Exception ex = null;
+        try
+        {
+            new CreditGate(0, EFlowControlPolicy.FAIL, 0, 0);
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertTrue(ex instanceof IllegalArgumentException);
+
+        Assert.assertNull(CreditGate.fromBridgeOptions(new BridgeOptions()));
+        BridgeOptions options = new BridgeOptions();
+        options.set(BridgeOptions.KEY_FLOW_CONTROL_CREDITS, WINDOW);
+        CreditGate gate = CreditGate.fromBridgeOptions(options);
+        Assert.assertEquals(WINDOW, gate.getWindow());
+        Assert.assertEquals(CreditGate.DEFAULT_POLICY, gate.getPolicy());
+    }
+
+    /**
+     * Test sends fail once credits run out and succeed again once credits are granted.
+     */
+    @Test
+    public void testFail() throws Exception
+    {
+        CreditGate gate = new CreditGate(WINDOW, EFlowControlPolicy.FAIL, 0, 0);
+        for (int i = 0; i < WINDOW; i++)
+        {
+            Assert.assertTrue(gate.acquire(new PingPacket(), true));
+        }
+        Assert.assertEquals(0, gate.getCredits());
+
+        Exception ex = null;
+        try
+        {
+            gate.acquire(new PingPacket(), true);
+        }
+        catch (BridgeException be)
+        {
+            ex = be;
+        }
+        Assert.assertNotNull(ex);
+        Assert.assertEquals(1, gate.getFailed());
+
+        Assert.assertTrue(gate.grant(1).isEmpty());
+        Assert.assertTrue(gate.acquire(new PingPacket(), true));
+        Assert.assertEquals(1, gate.getGranted());
+    }
+
+    /**
+     * Test packets are queued once credits run out and released in order by grants, up to the queue size.
+     */
+    @Test
+    public void testQueue() throws Exception
+    {
+        CreditGate gate = new CreditGate(1, EFlowControlPolicy.QUEUE, 0, 2);
+        Assert.assertTrue(gate.acquire(new PingPacket(), true));
+        PingPacket queued1 = new PingPacket();
+        PingPacket queued2 = new PingPacket();
+        Assert.assertFalse(gate.acquire(queued1, true));
+        Assert.assertFalse(gate.acquire(queued2, true));
+        Assert.assertEquals(2, gate.getQueued());
+        Assert.assertEquals(1, gate.getStalls());
+
+        Exception ex = null;
+        try
+        {
+            gate.acquire(new PingPacket(), true);
+        }
+        catch (BridgeException be)
+        {
+            ex = be;
+        }
+        Assert.assertNotNull(ex);
+
+        List<PendingSend> released = gate.grant(1);
+        Assert.assertEquals(1, released.size());
+        Assert.assertSame(queued1, released.get(0).getPacket());
+
+        // Queued packets are sent before new ones even if credits are available.
+        released = gate.reset();
+        Assert.assertEquals(1, released.size());
+        Assert.assertSame(queued2, released.get(0).getPacket());
+        Assert.assertEquals(0, gate.getCredits());
+        Assert.assertEquals(0, gate.getQueued());
+        Assert.assertTrue(gate.getStallNanos() > 0);
+    }
+
+    /**
+     * Test the same packet queued twice keeps the completion of each send, and closing the gate hands back both.
+     */
+    @Test
+    public void testQueueSamePacket() throws Exception
+    {
+        CreditGate gate = new CreditGate(1, EFlowControlPolicy.QUEUE, 0, 2);
+        Assert.assertTrue(gate.acquire(new PingPacket(), true));
+        PingPacket packet = new PingPacket();
+        CompletableFuture<Void> completion1 = new CompletableFuture<Void>();
+        CompletableFuture<Void> completion2 = new CompletableFuture<Void>();
+        Assert.assertFalse(gate.acquire(packet, completion1, true));
+        Assert.assertFalse(gate.acquire(packet, completion2, true));
+
+        List<PendingSend> discarded = gate.close();
+        Assert.assertEquals(2, discarded.size());
+        Assert.assertSame(packet, discarded.get(0).getPacket());
+        Assert.assertSame(completion1, discarded.get(0).getCompletion());
+        Assert.assertSame(packet, discarded.get(1).getPacket());
+        Assert.assertSame(completion2, discarded.get(1).getCompletion());
+        Assert.assertEquals(0, gate.getQueued());
+    }
+
+    /**
+     * Test sending thread waits for credits, times out without them and never waits on the I/O event loop.
+     */
+    @Test
+    public void testBlock() throws Exception
+    {
+        final CreditGate gate = new CreditGate(1, EFlowControlPolicy.BLOCK, 5000, 0);
+        Assert.assertTrue(gate.acquire(new PingPacket(), true));
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    gate.acquire(new PingPacket(), true);
+                    acquired.countDown();
+                }
+                catch (BridgeException be)
+                {
+                    // Latch is not counted down.
+                }
+            }
+        });
+        sender.start();
+
+        // Stall is timed from when the sender starts waiting, which may be well after it is started.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gate.getStalls() == 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(1);
+        }
+        Assert.assertFalse(acquired.await(50, TimeUnit.MILLISECONDS));
+        gate.grant(1);
+        Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, gate.getStalls());
+        Assert.assertTrue(gate.getStallNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        Exception ex = null;
+        try
+        {
+            gate.acquire(new PingPacket(), false);
+        }
+        catch (BridgeException be)
+        {
+            ex = be;
+        }
+        Assert.assertNotNull(ex);
+
+        CreditGate timingOut = new CreditGate(1, EFlowControlPolicy.BLOCK, 10, 0);
+        timingOut.acquire(new PingPacket(), true);
+        ex = null;
+        try
+        {
+            timingOut.acquire(new PingPacket(), true);
+        }
+        catch (BridgeException be)
+        {
+            ex = be;
+        }
+        Assert.assertNotNull(ex);
+        Assert.assertEquals(1, timingOut.getFailed());
+    }
+
+    /**
+     * Test grantor grants credits of processed packets in batches of half the window, also if listener fails.
+     */
+    @Test
+    public void testGrantor()
+    {
+        channel = new EmbeddedChannel();
+        TestListener listener = new TestListener();
+        CreditGrantor grantor = new CreditGrantor(listener, WINDOW);
+        Assert.assertEquals(WINDOW / 2, grantor.getBatch());
+
+        grantor.track("session", channel);
+        grantor.receive(new PingPacket(), "session");
+        Assert.assertNull(channel.readOutbound());
+
+        listener.fail.set(true);
+        try
+        {
+            grantor.receive(new PingPacket(), "session");
+        }
+        catch (IllegalStateException ise)
+        {
+            // Expected.
+        }
+        CreditPacket credit = channel.readOutbound();
+        Assert.assertEquals(WINDOW / 2, credit.getCredits());
+        Assert.assertEquals(WINDOW / 2, grantor.getGranted());
+
+        // Closed sessions are no longer granted.
+        listener.fail.set(false);
+        grantor.removeSession("session");
+        grantor.receive(new PingPacket(), "session");
+        grantor.receive(new PingPacket(), "session");
+        Assert.assertNull(channel.readOutbound());
+    }
+
+    /**
+     * Test grantor counts a batch of packets delivered in one read cycle at once.
+     */
+    @Test
+    public void testGrantorBatch()
+    {
+        channel = new EmbeddedChannel();
+        CreditGrantor grantor = new CreditGrantor(new TestListener(), WINDOW);
+        grantor.track("session", channel);
+        grantor.receiveBatch(Arrays.asList(new AbstractPacket[] { new PingPacket(), new PingPacket(),
+            new PingPacket() }), "session");
+        CreditPacket credit = channel.readOutbound();
+        Assert.assertEquals(3, credit.getCredits());
+        Assert.assertEquals(3, grantor.getGranted());
+    }
+
+    /**
+     * Listener which may fail on receive.
+     */
+    private static class TestListener implements IResponseListener
+    {
+        private final AtomicBoolean fail = new AtomicBoolean();
+
+        @Override
+        public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+        {
+            if (fail.get())
+            {
+                throw new IllegalStateException();
+            }
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return new BridgeOptions();
+        }
+
+        @Override
+        public String getName()
+        {
+            return "creditTestListener";
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return null;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * @file TestBatchDelivery.java
+ * @brief Test batched inbound delivery to batch response listeners per read cycle.
+ */
+
+package game.usn.bridge.test.inbound;
+
+import game.usn.bridge.test.e2e.testdata.PingPacket;
+import game.usn.bridge.test.e2e.testdata.PongPacket;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.protocol.CreditPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.IBatchResponseListener;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.proxy.AbstractNettyBridgeAdapter;
+
+/**
+ * Test batched inbound delivery to batch response listeners per read cycle.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestBatchDelivery
+{
+    // Test session identifier.
+    private static final String SESSION = "session";
+
+    // Test channel.
+    private EmbeddedChannel channel;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after()
+    {
+        if (channel != null)
+        {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * Test packets of a read cycle are delivered in order as a single batch in a reused list.
+     */
+    @Test
+    public void testBatchPerReadCycle()
+    {
+        BatchListener listener = new BatchListener();
+        channel = new EmbeddedChannel(new TestAdapter(listener));
+
+        PingPacket first = new PingPacket();
+        PongPacket second = new PongPacket();
+        channel.writeInbound(first, second, new CreditPacket(1));
+        Assert.assertEquals(1, listener.batchList.size());
+        Assert.assertEquals(0, listener.received);
+        Assert.assertEquals(2, listener.batchList.get(0).size());
+        Assert.assertSame(first, listener.batchList.get(0).get(0));
+        Assert.assertSame(second, listener.batchList.get(0).get(1));
+
+        // Next read cycle is a new batch in the same list.
+        channel.writeInbound(new PingPacket());
+        Assert.assertEquals(2, listener.batchList.size());
+        Assert.assertEquals(1, listener.batchList.get(1).size());
+        Assert.assertSame(listener.lastList, listener.firstList);
+        Assert.assertTrue(listener.lastList.isEmpty());
+
+        // Read cycle without packets is not delivered.
+        channel.pipeline().fireChannelReadComplete();
+        Assert.assertEquals(2, listener.batchList.size());
+    }
+
+    /**
+     * Test a failing batch listener does not leave packets behind for next read cycle.
+     */
+    @Test
+    public void testFailedBatch()
+    {
+        BatchListener listener = new BatchListener();
+        listener.fail = true;
+        channel = new EmbeddedChannel(new TestAdapter(listener));
+
+        try
+        {
+            channel.writeInbound(new PingPacket());
+        }
+        catch (IllegalStateException ise)
+        {
+            // Expected.
+        }
+        listener.fail = false;
+        channel.writeInbound(new PongPacket());
+        Assert.assertEquals(2, listener.batchList.size());
+        Assert.assertEquals(1, listener.batchList.get(1).size());
+    }
+
+    /**
+     * Test per packet listeners keep receiving packets one by one.
+     */
+    @Test
+    public void testPerPacketListener()
+    {
+        PacketListener listener = new PacketListener();
+        channel = new EmbeddedChannel(new TestAdapter(listener));
+
+        channel.writeInbound(new PingPacket(), new PongPacket());
+        Assert.assertEquals(2, listener.received);
+    }
+
+    /**
+     * Test adapter delivering received packets like platform proxies do.
+     */
+    private static class TestAdapter extends AbstractNettyBridgeAdapter
+    {
+        /**
+         * Ctor.
+         * 
+         * @param responseListener
+         *            - an {@link IResponseListener} to deliver to.
+         */
+        public TestAdapter(IResponseListener responseListener)
+        {
+            this.responseListener = responseListener;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception
+        {
+            deliverInbound(ctx, AbstractPacket.class.cast(msg), SESSION);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception
+        {
+            completeInbound(ctx);
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return responseListener.getBridgeOptions();
+        }
+
+        @Override
+        public String getName()
+        {
+            return responseListener.getName();
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return responseListener.getProtocol();
+        }
+    }
+
+    /**
+     * Per packet listener counting received packets.
+     */
+    private static class PacketListener implements IResponseListener
+    {
+        protected int received;
+
+        @Override
+        public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+        {
+            Assert.assertEquals(SESSION, senderIdentifier);
+            received++;
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return new BridgeOptions();
+        }
+
+        @Override
+        public String getName()
+        {
+            return "batchTestListener";
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return null;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Batch listener recording copies of received batches, which may fail on receive.
+     */
+    private static class BatchListener extends PacketListener implements IBatchResponseListener
+    {
+        private final List<List<AbstractPacket>> batchList = new ArrayList<List<AbstractPacket>>();
+        private List<AbstractPacket> firstList;
+        private List<AbstractPacket> lastList;
+        private boolean fail;
+
+        @Override
+        public void receiveBatch(List<AbstractPacket> abstractPackets, String senderIdentifier)
+        {
+            Assert.assertEquals(SESSION, senderIdentifier);
+            if (firstList == null)
+            {
+                firstList = abstractPackets;
+            }
+            lastList = abstractPackets;
+            batchList.add(new ArrayList<AbstractPacket>(abstractPackets));
+            if (fail)
+            {
+                throw new IllegalStateException();
+            }
+        }
+    }
+}
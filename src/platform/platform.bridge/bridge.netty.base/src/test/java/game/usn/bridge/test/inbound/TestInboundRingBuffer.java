@@ -0,0 +1,225 @@
+/**
+ * @file TestInboundRingBuffer.java
+ * @brief Inbound ring buffer ordering, overflow and wait strategy test.
+ */
+
+package game.usn.bridge.test.inbound;
+
+import game.usn.bridge.test.e2e.testdata.PingPacket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.EOverflowPolicy;
+import platform.bridge.api.proxy.EWaitStrategy;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.inbound.InboundRingBuffer;
+
+/**
+ * Inbound ring buffer ordering, overflow and wait strategy test.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestInboundRingBuffer
+{
+    // Test producers and packets per producer.
+    private static final int PRODUCER_COUNT = 4;
+    private static final int PACKET_COUNT = 10000;
+
+    /**
+     * Listener recording received packet sequence per session. Called from the consumer thread only.
+     */
+    private static class RecordingListener implements IResponseListener
+    {
+        // Received sequences per session.
+        private final Map<String, List<Integer>> receivedMap = new ConcurrentHashMap<String, List<Integer>>();
+
+        @Override
+        public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+        {
+            List<Integer> sequence = receivedMap.get(senderIdentifier);
+            if (sequence == null)
+            {
+                sequence = new ArrayList<Integer>();
+                receivedMap.put(senderIdentifier, sequence);
+            }
+            sequence.add(Integer.valueOf(((PingPacket) abstractPacket).getTestString()));
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return new BridgeOptions();
+        }
+
+        @Override
+        public String getName()
+        {
+            return "ringTestListener";
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return null;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Test packets of concurrent producers are all delivered, each producer in publish order.
+     */
+    @Test
+    public void testMultiProducerOrdering() throws Exception
+    {
+        for (EWaitStrategy waitStrategy : EWaitStrategy.values())
+        {
+            RecordingListener listener = new RecordingListener();
+            final InboundRingBuffer ringBuffer = new InboundRingBuffer("ordering", listener, PRODUCER_COUNT
+                * PACKET_COUNT, waitStrategy, EOverflowPolicy.DISCONNECT);
+
+            final CountDownLatch start = new CountDownLatch(1);
+            for (int p = 0; p < PRODUCER_COUNT; p++)
+            {
+                final String session = "session-" + p;
+                new Thread(new Runnable() {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            start.await();
+                        }
+                        catch (InterruptedException ie)
+                        {
+                            return;
+                        }
+
+                        for (int i = 0; i < PACKET_COUNT; i++)
+                        {
+                            ringBuffer.dispatch(packet(i), session);
+                        }
+                    }
+                }).start();
+            }
+
+            start.countDown();
+            int received = 0;
+            long deadline = System.currentTimeMillis() + 10000;
+            while (received < PRODUCER_COUNT * PACKET_COUNT && System.currentTimeMillis() < deadline)
+            {
+                received += ringBuffer.drain(256, 100, TimeUnit.MILLISECONDS);
+            }
+
+            Assert.assertEquals(PRODUCER_COUNT * PACKET_COUNT, received);
+            Assert.assertEquals(PRODUCER_COUNT, listener.receivedMap.size());
+            for (List<Integer> sequence : listener.receivedMap.values())
+            {
+                for (int i = 0; i < PACKET_COUNT; i++)
+                {
+                    Assert.assertEquals(i, sequence.get(i).intValue());
+                }
+            }
+            Assert.assertEquals(0, ringBuffer.getStats().getDropped());
+            ringBuffer.shutdown();
+        }
+    }
+
+    /**
+     * Test full ring buffer drops or signals a disconnect depending on overflow policy.
+     */
+    @Test
+    public void testOverflow()
+    {
+        InboundRingBuffer dropRing = new InboundRingBuffer("drop", new RecordingListener(), 3, EWaitStrategy.YIELD,
+            EOverflowPolicy.DROP_NEWEST);
+        Assert.assertEquals(4, dropRing.capacity());
+        for (int i = 0; i < 6; i++)
+        {
+            Assert.assertTrue(dropRing.dispatch(packet(i), "session"));
+        }
+        Assert.assertEquals(2, dropRing.getStats().getDropped());
+        Assert.assertEquals(4, dropRing.drain(10));
+
+        // Drained slots are reusable.
+        Assert.assertTrue(dropRing.dispatch(packet(6), "session"));
+        Assert.assertEquals(1, dropRing.size());
+
+        InboundRingBuffer disconnectRing = new InboundRingBuffer("disconnect", new RecordingListener(), 4,
+            EWaitStrategy.YIELD, EOverflowPolicy.DISCONNECT);
+        for (int i = 0; i < 4; i++)
+        {
+            Assert.assertTrue(disconnectRing.dispatch(packet(i), "session"));
+        }
+        Assert.assertFalse(disconnectRing.dispatch(packet(4), "session"));
+        Assert.assertEquals(1, disconnectRing.getStats().getDisconnects());
+    }
+
+    /**
+     * Test a blocked consumer is woken up by a producer and returns on timeout when idle.
+     */
+    @Test
+    public void testBlockingConsumer() throws Exception
+    {
+        final InboundRingBuffer ringBuffer = new InboundRingBuffer("block", new RecordingListener(), 16,
+            EWaitStrategy.BLOCK, EOverflowPolicy.DISCONNECT);
+
+        long start = System.nanoTime();
+        Assert.assertEquals(0, ringBuffer.drain(16, 50, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        new Thread(new Runnable() {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(100);
+                }
+                catch (InterruptedException ie)
+                {
+                    return;
+                }
+                ringBuffer.dispatch(packet(0), "session");
+            }
+        }).start();
+
+        start = System.nanoTime();
+        Assert.assertEquals(1, ringBuffer.drain(16, 5, TimeUnit.SECONDS));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        Assert.assertEquals(1, ringBuffer.getStats().getDelivered());
+    }
+
+    /**
+     * Create a packet carrying a sequence number.
+     * 
+     * @param sequence
+     *            - a sequence number.
+     * @return - a new {@link PingPacket}.
+     */
+    private static PingPacket packet(int sequence)
+    {
+        PingPacket packet = new PingPacket();
+        packet.setTestString(String.valueOf(sequence));
+        return packet;
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * @file TestOrderedSessionExecutor.java
+ * @brief Ordered session executor ordering, overflow and statistics test.
+ */
+
+package game.usn.bridge.test.inbound;
+
+import game.usn.bridge.test.e2e.testdata.PingPacket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.EOverflowPolicy;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.base.inbound.InboundStats;
+import platform.bridge.base.inbound.OrderedSessionExecutor;
+
+/**
+ * Ordered session executor ordering, overflow and statistics test.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestOrderedSessionExecutor
+{
+    // Test sessions and packets per session.
+    private static final int SESSION_COUNT = 8;
+    private static final int PACKET_COUNT = 1000;
+
+    // Executor under test.
+    private OrderedSessionExecutor executor;
+
+    /**
+     * Listener recording received packet sequence per session. Delivery may be held on a gate to fill session queues.
+     */
+    private static class RecordingListener implements IResponseListener
+    {
+        // Received sequences per session.
+        private final Map<String, List<Integer>> receivedMap = new ConcurrentHashMap<String, List<Integer>>();
+
+        // Gate holding delivery and latch counting deliveries.
+        private final CountDownLatch gate;
+        private final CountDownLatch received;
+
+        // Sessions currently being delivered to, used to detect concurrent delivery of one session.
+        private final Set<String> activeSessionSet = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        private volatile boolean concurrentDelivery;
+
+        private RecordingListener(CountDownLatch gate, int expected)
+        {
+            this.gate = gate;
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void receive(AbstractPacket abstractPacket, String senderIdentifier)
+        {
+            if (!activeSessionSet.add(senderIdentifier))
+            {
+                concurrentDelivery = true;
+            }
+
+            try
+            {
+                gate.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            List<Integer> sequence = receivedMap.get(senderIdentifier);
+            if (sequence == null)
+            {
+                sequence = Collections.synchronizedList(new ArrayList<Integer>());
+                receivedMap.put(senderIdentifier, sequence);
+            }
+            sequence.add(Integer.valueOf(((PingPacket) abstractPacket).getTestString()));
+
+            activeSessionSet.remove(senderIdentifier);
+            received.countDown();
+        }
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return new BridgeOptions();
+        }
+
+        @Override
+        public String getName()
+        {
+            return "inboundTestListener";
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return null;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after()
+    {
+        if (executor != null)
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test packets of each session are delivered in dispatch order and never concurrently, across multiple workers.
+     */
+    @Test
+    public void testPerSessionOrdering() throws Exception
+    {
+        RecordingListener listener = new RecordingListener(new CountDownLatch(0), SESSION_COUNT * PACKET_COUNT);
+        executor = new OrderedSessionExecutor("ordering", listener, 4, PACKET_COUNT, EOverflowPolicy.DISCONNECT);
+
+        for (int i = 0; i < PACKET_COUNT; i++)
+        {
+            for (int s = 0; s < SESSION_COUNT; s++)
+            {
+                Assert.assertTrue(executor.dispatch(packet(i), "session-" + s));
+            }
+        }
+
+        Assert.assertTrue(listener.received.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse(listener.concurrentDelivery);
+        Assert.assertEquals(SESSION_COUNT, listener.receivedMap.size());
+        for (List<Integer> sequence : listener.receivedMap.values())
+        {
+            Assert.assertEquals(PACKET_COUNT, sequence.size());
+            for (int i = 0; i < PACKET_COUNT; i++)
+            {
+                Assert.assertEquals(i, sequence.get(i).intValue());
+            }
+        }
+
+        InboundStats stats = executor.getStats();
+        Assert.assertEquals(SESSION_COUNT * PACKET_COUNT, stats.getDispatched());
+        Assert.assertEquals(SESSION_COUNT * PACKET_COUNT, stats.getDelivered());
+        Assert.assertEquals(0, stats.getQueued());
+        Assert.assertEquals(0, stats.getDropped());
+        Assert.assertTrue(stats.getMaxLatencyNanos() >= stats.getP99LatencyNanos());
+    }
+
+    /**
+     * Test drop newest policy keeps the queued packets and drops overflowing ones.
+     */
+    @Test
+    public void testDropNewest() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(gate, 3);
+        executor = new OrderedSessionExecutor("dropNewest", listener, 1, 2, EOverflowPolicy.DROP_NEWEST);
+
+        // First packet is held by the listener, next two fill the queue.
+        Assert.assertTrue(executor.dispatch(packet(0), "session"));
+        awaitQueued(0);
+        for (int i = 1; i < 5; i++)
+        {
+            Assert.assertTrue(executor.dispatch(packet(i), "session"));
+        }
+
+        gate.countDown();
+        Assert.assertTrue(listener.received.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(0, 1, 2), listener.receivedMap.get("session"));
+        Assert.assertEquals(2, executor.getStats().getDropped());
+    }
+
+    /**
+     * Test drop oldest policy keeps the most recent packets.
+     */
+    @Test
+    public void testDropOldest() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(gate, 3);
+        executor = new OrderedSessionExecutor("dropOldest", listener, 1, 2, EOverflowPolicy.DROP_OLDEST);
+
+        Assert.assertTrue(executor.dispatch(packet(0), "session"));
+        awaitQueued(0);
+        for (int i = 1; i < 5; i++)
+        {
+            Assert.assertTrue(executor.dispatch(packet(i), "session"));
+        }
+
+        gate.countDown();
+        Assert.assertTrue(listener.received.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(0, 3, 4), listener.receivedMap.get("session"));
+        Assert.assertEquals(2, executor.getStats().getDropped());
+    }
+
+    /**
+     * Test disconnect policy signals a disconnect on overflow without affecting other sessions.
+     */
+    @Test
+    public void testDisconnect() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(gate, 1);
+        executor = new OrderedSessionExecutor("disconnect", listener, 2, 1, EOverflowPolicy.DISCONNECT);
+
+        Assert.assertTrue(executor.dispatch(packet(0), "slow"));
+        awaitQueued(0);
+        Assert.assertTrue(executor.dispatch(packet(1), "slow"));
+        Assert.assertFalse(executor.dispatch(packet(2), "slow"));
+        Assert.assertTrue(executor.dispatch(packet(0), "other"));
+
+        Assert.assertEquals(1, executor.getStats().getDisconnects());
+        gate.countDown();
+    }
+
+    /**
+     * Wait until executor queue holds given amount of packets.
+     * 
+     * @param queued
+     *            - expected queued packet count.
+     */
+    private void awaitQueued(long queued) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getStats().getQueued() != queued && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(queued, executor.getStats().getQueued());
+    }
+
+    /**
+     * Create a packet carrying a sequence number.
+     * 
+     * @param sequence
+     *            - a sequence number.
+     * @return - a new {@link PingPacket}.
+     */
+    private static PingPacket packet(int sequence)
+    {
+        PingPacket packet = new PingPacket();
+        packet.setTestString(String.valueOf(sequence));
+        return packet;
+    }
+}
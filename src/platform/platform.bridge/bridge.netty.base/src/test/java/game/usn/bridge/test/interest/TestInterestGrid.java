@@ -0,0 +1,138 @@
+/**
+ * @file TestInterestGrid.java
+ * @brief Test interest grid.
+ */
+
+package game.usn.bridge.test.interest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import platform.bridge.base.interest.InterestGrid;
+
+/**
+ * Test interest grid.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestInterestGrid
+{
+    // Cell size.
+    private static final double CELL_SIZE = 10;
+
+    // Test grid.
+    private InterestGrid grid;
+
+    /**
+     * Reset before each test.
+     */
+    @Before
+    public void beforeTest()
+    {
+        grid = new InterestGrid(CELL_SIZE, 1);
+    }
+
+    /**
+     * Test instantiation with invalid arguments.
+     */
+    @Test
+    public void testInstantiation()
+    {
+        Exception ex = null;
+        try
+        {
+            new InterestGrid(0, 1);
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertTrue(ex instanceof IllegalArgumentException);
+
+        ex = null;
+        try
+        {
+            new InterestGrid(CELL_SIZE, -1);
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertTrue(ex instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Test recipients are members of neighbouring cells only, including negative coordinates.
+     */
+    @Test
+    public void testRecipients()
+    {
+        grid.update("a", 5, 5);
+        grid.update("b", 15, 15);
+        grid.update("c", -5, -5);
+        grid.update("d", 35, 5);
+
+        Assert.assertEquals(set("a", "b", "c"), grid.getRecipients("a"));
+        Assert.assertEquals(set("a", "b"), grid.getRecipients("b"));
+        Assert.assertEquals(set("d"), grid.getRecipients("d"));
+        Assert.assertEquals(set("b", "d"), grid.getRecipients(25, 5));
+        Assert.assertTrue(grid.getRecipients("unknown").isEmpty());
+        Assert.assertEquals(4, grid.getClientCount());
+    }
+
+    /**
+     * Test cached recipients are reused and refreshed when clients move between cells.
+     */
+    @Test
+    public void testIncrementalUpdate()
+    {
+        grid.update("a", 5, 5);
+        grid.update("b", 35, 5);
+        Set<String> recipients = grid.getRecipients("a");
+        Assert.assertEquals(set("a"), recipients);
+
+        // Moving within a cell keeps cached recipients.
+        grid.update("a", 6, 6);
+        Assert.assertSame(recipients, grid.getRecipients("a"));
+
+        // Entering a neighbouring cell refreshes them.
+        grid.update("b", 15, 5);
+        Assert.assertEquals(set("a", "b"), grid.getRecipients("a"));
+
+        Assert.assertTrue(grid.remove("b"));
+        Assert.assertFalse(grid.remove("b"));
+        Assert.assertEquals(set("a"), grid.getRecipients("a"));
+        Assert.assertEquals(1, grid.getCellCount());
+    }
+
+    /**
+     * Test range query filters by distance.
+     */
+    @Test
+    public void testQuery()
+    {
+        grid.update("a", 0, 0);
+        grid.update("b", 3, 4);
+        grid.update("c", 30, 40);
+
+        Assert.assertEquals(set("a", "b"), new HashSet<String>(grid.query(0, 0, 5)));
+        Assert.assertEquals(set("a"), new HashSet<String>(grid.query(-1, 0, 2)));
+        Assert.assertEquals(set("a", "b", "c"), new HashSet<String>(grid.query(0, 0, 50)));
+        Assert.assertTrue(grid.query(100, 100, 1).isEmpty());
+    }
+
+    /**
+     * Build a set of identifiers.
+     */
+    private static Set<String> set(String... senderIdentifiers)
+    {
+        return new HashSet<String>(Arrays.asList(senderIdentifiers));
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * @file TestPlatformThreadFactory.java
+ * @brief Platform thread factory naming and core assignment test.
+ */
+
+package game.usn.bridge.test.loop;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import platform.bridge.base.loop.ICpuAffinity;
+import platform.bridge.base.loop.PlatformThreadFactory;
+
+/**
+ * Platform thread factory naming and core assignment test.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestPlatformThreadFactory
+{
+    /**
+     * Affinity that records pin requests without pinning.
+     */
+    private static class RecordingCpuAffinity implements ICpuAffinity
+    {
+        @Override
+        public boolean isSupported()
+        {
+            return true;
+        }
+
+        @Override
+        public int getCoreCount()
+        {
+            return 2;
+        }
+
+        @Override
+        public boolean pinCurrentThread(int core)
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Test threads are named after group and cores are handed out round robin across factories sharing a counter.
+     */
+    @Test
+    public void testCoreAssignment() throws Exception
+    {
+        AtomicInteger nextCore = new AtomicInteger();
+        PlatformThreadFactory firstFactory = new PlatformThreadFactory("first", new RecordingCpuAffinity(), nextCore);
+        PlatformThreadFactory secondFactory = new PlatformThreadFactory("second", new RecordingCpuAffinity(), nextCore);
+
+        Assert.assertEquals(0, runAndGetCore(firstFactory, "first-loop-0"));
+        Assert.assertEquals(1, runAndGetCore(secondFactory, "second-loop-0"));
+        Assert.assertEquals(0, runAndGetCore(firstFactory, "first-loop-1"));
+    }
+
+    /**
+     * Test threads are not pinned without affinity.
+     */
+    @Test
+    public void testNoAffinity() throws Exception
+    {
+        PlatformThreadFactory factory = new PlatformThreadFactory("plain", null, null);
+        Assert.assertFalse(factory.isPinning());
+        Assert.assertEquals(PlatformThreadFactory.NO_CORE, runAndGetCore(factory, "plain-loop-0"));
+    }
+
+    /**
+     * Start a thread of given factory and retrieve its core while it is running.
+     * 
+     * @param factory
+     *            - a {@link PlatformThreadFactory}.
+     * @param expectedName
+     *            - expected thread name.
+     * @return - core of the thread.
+     */
+    private int runAndGetCore(final PlatformThreadFactory factory, String expectedName) throws Exception
+    {
+        final CountDownLatch runningLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        Thread thread = factory.newThread(new Runnable() {
+            @Override
+            public void run()
+            {
+                runningLatch.countDown();
+                try
+                {
+                    releaseLatch.await();
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Assert.assertEquals(expectedName, thread.getName());
+
+        thread.start();
+        Assert.assertTrue(runningLatch.await(2, TimeUnit.SECONDS));
+        int core = factory.getCore(thread);
+        releaseLatch.countDown();
+        thread.join();
+        return core;
+    }
+}
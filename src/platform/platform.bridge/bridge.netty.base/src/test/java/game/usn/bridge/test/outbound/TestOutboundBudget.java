@@ -0,0 +1,177 @@
+/**
+ * @file TestOutboundBudget.java
+ * @brief Test outbound budget accounting and pressure.
+ */
+
+package game.usn.bridge.test.outbound;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.nio.channels.ClosedChannelException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IBridgePressureObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.EPacketPriority;
+import platform.bridge.base.outbound.ConnectionRefusalHandler;
+import platform.bridge.base.outbound.OutboundBudget;
+import platform.bridge.base.outbound.OutboundBudgetHandler;
+
+/**
+ * Test outbound budget accounting and pressure.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestOutboundBudget implements IBridgePressureObserver
+{
+    // Test budget, resume level is three quarters of it.
+    private static final long BUDGET_BYTES = 100;
+
+    // Notified pressure changes.
+    private final List<Boolean> pressureList = new ArrayList<Boolean>();
+
+    // Test budget, a new one for each test.
+    private final OutboundBudget budget = new OutboundBudget(BUDGET_BYTES);
+
+    // Test channel.
+    private EmbeddedChannel channel;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after()
+    {
+        if (channel != null)
+        {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * Test pending bytes are accounted until written and pressure is entered over budget and left below resume level.
+     */
+    @Test
+    public void testPressure()
+    {
+        budget.addPressureObserver(this);
+        Assert.assertTrue(budget.isEnabled());
+        Assert.assertFalse(new OutboundBudget(0).isEnabled());
+        channel = new EmbeddedChannel(new OutboundBudgetHandler(budget));
+
+        channel.write(Unpooled.buffer(80).writeZero(80));
+        Assert.assertEquals(80, budget.getPendingBytes());
+        Assert.assertFalse(budget.isUnderPressure());
+
+        channel.write(Unpooled.buffer(40).writeZero(40));
+        Assert.assertTrue(budget.isUnderPressure());
+        Assert.assertEquals(1, pressureList.size());
+        Assert.assertEquals(Boolean.TRUE, pressureList.get(0));
+
+        // Droppable and low priority packets are shed and connections refused while under pressure.
+        Assert.assertTrue(budget.shed(new TestPacket(true, EPacketPriority.NORMAL)));
+        Assert.assertTrue(budget.shed(new TestPacket(false, EPacketPriority.LOW)));
+        Assert.assertFalse(budget.shed(new TestPacket(false, EPacketPriority.NORMAL)));
+        Assert.assertTrue(budget.refuseConnection());
+        Assert.assertEquals(2, budget.getShed());
+        Assert.assertEquals(1, budget.getRefused());
+
+        channel.flush();
+        Assert.assertEquals(0, budget.getPendingBytes());
+        Assert.assertFalse(budget.isUnderPressure());
+        Assert.assertEquals(2, pressureList.size());
+        Assert.assertEquals(Boolean.FALSE, pressureList.get(1));
+        Assert.assertFalse(budget.shed(new TestPacket(true, EPacketPriority.LOW)));
+        Assert.assertFalse(budget.refuseConnection());
+    }
+
+    /**
+     * Test bytes of writes failed on close are released.
+     */
+    @Test
+    public void testReleaseOnClose()
+    {
+        channel = new EmbeddedChannel(new OutboundBudgetHandler(budget));
+
+        ChannelFuture writeFuture = channel.write(Unpooled.buffer(40).writeZero(40));
+        Assert.assertEquals(40, budget.getPendingBytes());
+
+        channel.close();
+        Assert.assertTrue(writeFuture.cause() instanceof ClosedChannelException);
+        Assert.assertEquals(0, budget.getPendingBytes());
+    }
+
+    /**
+     * Test accepted connections are closed before initialisation while under pressure and passed on otherwise.
+     */
+    @Test
+    public void testRefuseConnection()
+    {
+        channel = new EmbeddedChannel(new OutboundBudgetHandler(budget), new ConnectionRefusalHandler(budget,
+            "budgetTestService"));
+        EmbeddedChannel accepted = new EmbeddedChannel();
+        channel.writeInbound(accepted);
+        Assert.assertSame(accepted, channel.readInbound());
+        Assert.assertEquals(0, budget.getRefused());
+
+        channel.write(Unpooled.buffer(120).writeZero(120));
+        Assert.assertTrue(budget.isUnderPressure());
+        EmbeddedChannel refused = new EmbeddedChannel();
+        channel.writeInbound(refused);
+        Assert.assertNull(channel.readInbound());
+        Assert.assertFalse(refused.isOpen());
+        Assert.assertEquals(1, budget.getRefused());
+        accepted.finishAndReleaseAll();
+    }
+
+    @Override
+    public void notifyPressureChanged(boolean underPressure, long pendingBytes, long budgetBytes)
+    {
+        pressureList.add(underPressure);
+    }
+
+    /**
+     * Test packet with configurable droppability and priority.
+     */
+    private static class TestPacket extends AbstractPacket
+    {
+        private final boolean droppable;
+        private final EPacketPriority priority;
+
+        /**
+         * Ctor.
+         * 
+         * @param droppable
+         *            - whether packet may be dropped.
+         * @param priority
+         *            - packet priority.
+         */
+        public TestPacket(boolean droppable, EPacketPriority priority)
+        {
+            this.droppable = droppable;
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean isDroppable()
+        {
+            return droppable;
+        }
+
+        @Override
+        public EPacketPriority getPriority()
+        {
+            return priority;
+        }
+    }
+}
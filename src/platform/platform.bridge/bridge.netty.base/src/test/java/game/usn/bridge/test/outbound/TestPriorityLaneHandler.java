@@ -0,0 +1,316 @@
+/**
+ * @file TestPriorityLaneHandler.java
+ * @brief Test priority lane handler.
+ */
+
+package game.usn.bridge.test.outbound;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.nio.channels.ClosedChannelException;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.protocol.EPacketPriority;
+import platform.bridge.api.proxy.ESlowConsumerPolicy;
+import platform.bridge.base.outbound.OutboundBudget;
+import platform.bridge.base.outbound.PriorityLaneHandler;
+import platform.bridge.base.outbound.SlowConsumerCounters;
+
+/**
+ * Test priority lane handler.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestPriorityLaneHandler
+{
+    // Write buffer watermarks, well above the per message overhead of the outbound buffer, and size of a write
+    // exceeding them.
+    private static final int LOW_WATERMARK = 1024;
+    private static final int HIGH_WATERMARK = 2048;
+    private static final int BLOCKING_WRITE_SIZE = 4096;
+
+    // Test packet id and encoded size of a test packet, its id and tag.
+    private static final int TEST_PACKET_ID = 1;
+    private static final int ENCODED_SIZE = 2;
+
+    // Test budget, large enough to never be exceeded.
+    private static final long BUDGET_BYTES = 1 << 20;
+
+    // Slow consumer policy counters.
+    private final SlowConsumerCounters counters = new SlowConsumerCounters();
+
+    // Test budget, a new one for each test.
+    private final OutboundBudget budget = new OutboundBudget(BUDGET_BYTES);
+
+    // Tested handler.
+    private PriorityLaneHandler handler;
+
+    // Test channel.
+    private EmbeddedChannel channel;
+
+    /**
+     * Cleanup after each test. Releases messages still held by the channel, messages read from it are released by the
+     * tests.
+     */
+    @After
+    public void after()
+    {
+        if (channel != null)
+        {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * Test packets are written in order of writes while channel is writable.
+     */
+    @Test
+    public void testWritable()
+    {
+        createChannel(null);
+        TestPacket low = new TestPacket(EPacketPriority.LOW, 1);
+        TestPacket normal = new TestPacket(EPacketPriority.NORMAL, 2);
+        TestPacket high = new TestPacket(EPacketPriority.HIGH, 3);
+        channel.write(low);
+        channel.write(normal);
+        channel.write(high);
+        Assert.assertEquals(0, handler.getQueued());
+
+        channel.flush();
+        Assert.assertSame(low, channel.readOutbound());
+        Assert.assertSame(normal, channel.readOutbound());
+        Assert.assertSame(high, channel.readOutbound());
+        Assert.assertNull(channel.readOutbound());
+    }
+
+    /**
+     * Test high priority packets overtake queued ones and lanes are drained by priority once channel is writable again.
+     */
+    @Test
+    public void testLanes()
+    {
+        createChannel(null);
+        ByteBuf blocking = blockChannel();
+
+        TestPacket high = new TestPacket(EPacketPriority.HIGH, 3);
+        channel.write(new TestPacket(EPacketPriority.LOW, 1));
+        channel.write(new TestPacket(EPacketPriority.NORMAL, 2));
+        channel.write(high);
+        channel.write(new TestPacket(EPacketPriority.LOW, 4));
+        Assert.assertEquals(3, handler.getQueued());
+        Assert.assertEquals(3 * ENCODED_SIZE, handler.getQueuedBytes());
+
+        channel.flush();
+        Assert.assertSame(blocking, channel.readOutbound());
+        Assert.assertSame(high, channel.readOutbound());
+        assertEncoded(2, channel.readOutbound());
+        assertEncoded(1, channel.readOutbound());
+        assertEncoded(4, channel.readOutbound());
+        Assert.assertNull(channel.readOutbound());
+        Assert.assertEquals(0, handler.getQueued());
+        Assert.assertEquals(0, handler.getQueuedBytes());
+        blocking.release();
+    }
+
+    /**
+     * Test queued packets are failed once channel is closed.
+     */
+    @Test
+    public void testClose()
+    {
+        createChannel(null);
+        ByteBuf blocking = blockChannel();
+        ChannelFuture future = channel.write(new TestPacket(EPacketPriority.LOW, 1));
+        Assert.assertFalse(future.isDone());
+
+        channel.close();
+        Assert.assertTrue(future.cause() instanceof ClosedChannelException);
+        Assert.assertEquals(0, handler.getQueued());
+        Assert.assertEquals(0, handler.getQueuedBytes());
+        Assert.assertEquals(0, blocking.refCnt());
+    }
+
+    /**
+     * Test droppable packets are dropped once lanes hold more than the high watermark under drop policy.
+     */
+    @Test
+    public void testOverflowDrop()
+    {
+        createChannel(ESlowConsumerPolicy.DROP);
+        blockChannel();
+        fillLanes();
+
+        TestPacket droppable = new TestPacket(EPacketPriority.NORMAL, 1);
+        droppable.droppable = true;
+        ChannelFuture future = channel.write(droppable);
+        Assert.assertTrue(future.isSuccess());
+        Assert.assertEquals(1, counters.getDropped());
+
+        // Packets which cannot be dropped are still queued.
+        int queued = handler.getQueued();
+        channel.write(new TestPacket(EPacketPriority.NORMAL, 2));
+        Assert.assertEquals(queued + 1, handler.getQueued());
+    }
+
+    /**
+     * Test channel is closed once lanes hold more than the high watermark under disconnect policy.
+     */
+    @Test
+    public void testOverflowDisconnect()
+    {
+        createChannel(ESlowConsumerPolicy.DISCONNECT);
+        blockChannel();
+        fillLanes();
+
+        ChannelFuture future = channel.write(new TestPacket(EPacketPriority.LOW, 1));
+        Assert.assertTrue(future.cause() instanceof ClosedChannelException);
+        Assert.assertFalse(channel.isActive());
+        Assert.assertEquals(1, counters.getDisconnected());
+        Assert.assertEquals(0, handler.getQueuedBytes());
+    }
+
+    /**
+     * Test queued bytes are reserved with outbound budget until packets leave their lanes.
+     */
+    @Test
+    public void testBudget()
+    {
+        createChannel(null);
+        ByteBuf blocking = blockChannel();
+
+        channel.write(new TestPacket(EPacketPriority.NORMAL, 1));
+        channel.write(new TestPacket(EPacketPriority.LOW, 2));
+        Assert.assertEquals(2 * ENCODED_SIZE, budget.getPendingBytes());
+
+        channel.flush();
+        Assert.assertEquals(0, budget.getPendingBytes());
+        Assert.assertSame(blocking, channel.readOutbound());
+        blocking.release();
+    }
+
+    /**
+     * Create test channel with small write buffer watermarks.
+     * 
+     * @param policy
+     *            - an {@link ESlowConsumerPolicy} applied once lanes overflow or null.
+     */
+    private void createChannel(ESlowConsumerPolicy policy)
+    {
+        handler = new PriorityLaneHandler(new LaneProtocol(), policy, counters, budget);
+        channel = new EmbeddedChannel(handler);
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(LOW_WATERMARK, HIGH_WATERMARK));
+    }
+
+    /**
+     * Make test channel non writable with an unflushed write over the high watermark.
+     */
+    private ByteBuf blockChannel()
+    {
+        ByteBuf blocking = Unpooled.buffer(BLOCKING_WRITE_SIZE).writeZero(BLOCKING_WRITE_SIZE);
+        channel.write(blocking);
+        Assert.assertFalse(channel.isWritable());
+        return blocking;
+    }
+
+    /**
+     * Queue normal packets until lanes hold the high watermark.
+     */
+    private void fillLanes()
+    {
+        for (int i = 0; i < HIGH_WATERMARK / ENCODED_SIZE; i++)
+        {
+            channel.write(new TestPacket(EPacketPriority.NORMAL, i));
+        }
+        Assert.assertEquals(HIGH_WATERMARK, handler.getQueuedBytes());
+    }
+
+    /**
+     * Assert a queued packet has been written encoded, and release it.
+     * 
+     * @param tag
+     *            - expected tag of the packet.
+     * @param msg
+     *            - a written message.
+     */
+    private static void assertEncoded(int tag, Object msg)
+    {
+        ByteBuf encoded = (ByteBuf) msg;
+        try
+        {
+            Assert.assertEquals(TEST_PACKET_ID, AbstractPacket.readInt(encoded));
+            Assert.assertEquals(tag, encoded.readByte());
+            Assert.assertFalse(encoded.isReadable());
+        }
+        finally
+        {
+            encoded.release();
+        }
+    }
+
+    /**
+     * Test protocol with test packet registered.
+     */
+    private static class LaneProtocol extends AbstractPlatformProtocol
+    {
+        /**
+         * Ctor.
+         */
+        public LaneProtocol()
+        {
+            registerPacket(TEST_PACKET_ID, TestPacket.class);
+        }
+    }
+
+    /**
+     * Test packet of given priority, encoded as its tag.
+     */
+    private static class TestPacket extends AbstractPacket
+    {
+        private final EPacketPriority priority;
+        private final int tag;
+        private boolean droppable;
+
+        /**
+         * Ctor.
+         * 
+         * @param priority
+         *            - packet priority.
+         * @param tag
+         *            - a tag identifying the packet once encoded.
+         */
+        public TestPacket(EPacketPriority priority, int tag)
+        {
+            this.priority = priority;
+            this.tag = tag;
+        }
+
+        @Override
+        public void write(ByteBuf buf)
+        {
+            buf.writeByte(tag);
+        }
+
+        @Override
+        public boolean isDroppable()
+        {
+            return droppable;
+        }
+
+        @Override
+        public EPacketPriority getPriority()
+        {
+            return priority;
+        }
+    }
+}
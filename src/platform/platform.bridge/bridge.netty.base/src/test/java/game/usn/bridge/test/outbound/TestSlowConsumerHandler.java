@@ -0,0 +1,206 @@
+/**
+ * @file TestSlowConsumerHandler.java
+ * @brief Test slow consumer handler.
+ */
+
+package game.usn.bridge.test.outbound;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.ESlowConsumerPolicy;
+import platform.bridge.base.outbound.SlowConsumerCounters;
+import platform.bridge.base.outbound.SlowConsumerHandler;
+
+/**
+ * Test slow consumer handler.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestSlowConsumerHandler
+{
+    // Write buffer watermarks and size of a write exceeding them.
+    private static final int LOW_WATERMARK = 8;
+    private static final int HIGH_WATERMARK = 16;
+    private static final int BLOCKING_WRITE_SIZE = 64;
+
+    // Disconnect grace period.
+    private static final long GRACE_MS = 20;
+
+    // Counters of the tested handler.
+    private final SlowConsumerCounters counters = new SlowConsumerCounters();
+
+    // Test channel.
+    private EmbeddedChannel channel;
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after()
+    {
+        if (channel != null)
+        {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * Test instantiation with invalid arguments.
+     */
+    @Test
+    public void testInstantiation()
+    {
+        Exception ex = null;
+        try
+        {
+            new SlowConsumerHandler(null, GRACE_MS, counters);
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertTrue(ex instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Test droppable packets are dropped only while channel is not writable.
+     */
+    @Test
+    public void testDrop()
+    {
+        createChannel(ESlowConsumerPolicy.DROP);
+        TestPacket writableDroppable = new TestPacket(true, null);
+        channel.write(writableDroppable);
+
+        ByteBuf blocking = blockChannel();
+        Assert.assertTrue(channel.write(new TestPacket(true, null)).isSuccess());
+        TestPacket kept = new TestPacket(false, null);
+        channel.write(kept);
+        Assert.assertEquals(1, counters.getDropped());
+        Assert.assertEquals(1, counters.getUnwritable());
+
+        channel.flush();
+        Assert.assertSame(writableDroppable, channel.readOutbound());
+        Assert.assertSame(blocking, channel.readOutbound());
+        Assert.assertSame(kept, channel.readOutbound());
+        Assert.assertNull(channel.readOutbound());
+        blocking.release();
+    }
+
+    /**
+     * Test only the latest packet per conflation key is written once channel is writable again.
+     */
+    @Test
+    public void testConflate()
+    {
+        createChannel(ESlowConsumerPolicy.CONFLATE);
+        ByteBuf blocking = blockChannel();
+
+        channel.write(new TestPacket(false, "a"));
+        TestPacket latestA = new TestPacket(false, "a");
+        channel.write(latestA);
+        TestPacket latestB = new TestPacket(false, "b");
+        channel.write(latestB);
+        TestPacket unkeyed = new TestPacket(false, null);
+        channel.write(unkeyed);
+        Assert.assertEquals(1, counters.getConflated());
+
+        // Unkeyed packet has been written right away, keyed ones follow once buffer drains.
+        channel.flush();
+        Assert.assertSame(blocking, channel.readOutbound());
+        Assert.assertSame(unkeyed, channel.readOutbound());
+        Assert.assertSame(latestA, channel.readOutbound());
+        Assert.assertSame(latestB, channel.readOutbound());
+        Assert.assertNull(channel.readOutbound());
+        blocking.release();
+    }
+
+    /**
+     * Test channel is closed once it stays non writable for grace period, but not if it recovers.
+     */
+    @Test
+    public void testDisconnect() throws Exception
+    {
+        createChannel(ESlowConsumerPolicy.DISCONNECT);
+        ByteBuf blocking = blockChannel();
+        channel.flush();
+        Assert.assertSame(blocking, channel.readOutbound());
+        blocking.release();
+
+        Thread.sleep(GRACE_MS * 2);
+        channel.runPendingTasks();
+        Assert.assertTrue(channel.isActive());
+        Assert.assertEquals(0, counters.getDisconnected());
+
+        blockChannel();
+        Thread.sleep(GRACE_MS * 2);
+        channel.runPendingTasks();
+        Assert.assertFalse(channel.isActive());
+        Assert.assertEquals(1, counters.getDisconnected());
+    }
+
+    /**
+     * Create test channel with small write buffer watermarks.
+     */
+    private void createChannel(ESlowConsumerPolicy policy)
+    {
+        channel = new EmbeddedChannel(new SlowConsumerHandler(policy, GRACE_MS, counters));
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(LOW_WATERMARK, HIGH_WATERMARK));
+    }
+
+    /**
+     * Make test channel non writable with an unflushed write over the high watermark.
+     */
+    private ByteBuf blockChannel()
+    {
+        ByteBuf blocking = Unpooled.buffer(BLOCKING_WRITE_SIZE).writeZero(BLOCKING_WRITE_SIZE);
+        channel.write(blocking);
+        Assert.assertFalse(channel.isWritable());
+        return blocking;
+    }
+
+    /**
+     * Test packet with configurable slow consumer handling.
+     */
+    private static class TestPacket extends AbstractPacket
+    {
+        private final boolean droppable;
+        private final Object conflationKey;
+
+        /**
+         * Ctor.
+         * 
+         * @param droppable
+         *            - whether packet may be dropped.
+         * @param conflationKey
+         *            - conflation key or null.
+         */
+        public TestPacket(boolean droppable, Object conflationKey)
+        {
+            this.droppable = droppable;
+            this.conflationKey = conflationKey;
+        }
+
+        @Override
+        public boolean isDroppable()
+        {
+            return droppable;
+        }
+
+        @Override
+        public Object getConflationKey()
+        {
+            return conflationKey;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * @file TestVoidPromiseSends.java
+ * @brief Test fire-and-forget sends with void promises allocate nothing per send and report failed writes.
+ */
+
+package game.usn.bridge.test.outbound;
+
+import com.sun.management.ThreadMXBean;
+
+import game.usn.bridge.test.e2e.testdata.ITestTransportObserver;
+import game.usn.bridge.test.e2e.testdata.PingPacket;
+import game.usn.bridge.test.e2e.testdata.TestClient;
+import game.usn.bridge.test.e2e.testdata.UnknownPacket;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetector.Level;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.ESlowConsumerPolicy;
+import platform.bridge.base.outbound.OutboundBudget;
+import platform.bridge.base.pipeline.PlatformPipelineInitializer;
+import platform.bridge.base.proxy.client.NettyClientProxy;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Test fire-and-forget sends with void promises allocate nothing per send and report failed writes through the
+ * pipeline exception path. Packets are sent with a client proxy through the platform pipeline, with outbound budget,
+ * priority lanes and slow consumer policy enabled, on an embedded channel whose writes complete inline. Allocations
+ * are measured with allocated bytes counters of the sending thread.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestVoidPromiseSends implements ITestTransportObserver
+{
+    // Test client name and lazily connected service address, never connected to.
+    private static final String CLIENT_NAME = "voidPromiseTestClient";
+    private static final String SERVICE_ADDRESS = "127.0.0.1";
+    private static final int SERVICE_PORT = 1;
+
+    // Sends before and during measurement.
+    private static final int WARMUP_SENDS = 200000;
+    private static final int MEASURED_SENDS = 100000;
+
+    // Allowed average allocation per void promise send in bytes, covers counter and JIT noise only.
+    private static final long MAX_VOID_SEND_BYTES = 8;
+
+    // Test budget, large enough to never be exceeded.
+    private static final long BUDGET_BYTES = 1 << 20;
+
+    // Test client and channel.
+    private TestClient testClient;
+    private EmbeddedChannel channel;
+
+    // Exceptions reaching the pipeline.
+    private final List<Throwable> exceptionList = new ArrayList<Throwable>();
+
+    /**
+     * Cleanup after each test.
+     */
+    @After
+    public void after() throws Exception
+    {
+        releaseClient();
+    }
+
+    /**
+     * Test sends with void promises do not allocate per send, while sends with a promise do.
+     */
+    @Test
+    public void testAllocationPerSend() throws Exception
+    {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        NettyClientProxy proxy = createClient(true);
+        long voidSendBytes = allocatedBytesPerSend(threadBean, proxy, new PingPacket());
+        Assert.assertTrue("Void promise send allocated: " + voidSendBytes + " bytes.",
+            voidSendBytes <= MAX_VOID_SEND_BYTES);
+
+        releaseClient();
+        proxy = createClient(false);
+        long promiseSendBytes = allocatedBytesPerSend(threadBean, proxy, new PingPacket());
+        Assert.assertTrue("Promise send allocated: " + promiseSendBytes + " bytes.",
+            promiseSendBytes > voidSendBytes);
+    }
+
+    /**
+     * Test failed writes of void promise sends reach the pipeline exception path.
+     */
+    @Test
+    public void testFailedWrite() throws Exception
+    {
+        // Packet unknown to the protocol fails in the packet encoder.
+        NettyClientProxy proxy = createClient(true);
+        proxy.sendPacket(new UnknownPacket());
+        proxy.sendPacket(new UnknownPacket());
+        Assert.assertEquals(2, exceptionList.size());
+
+        // Failed writes of promise sends are logged by the send and never reach the pipeline.
+        releaseClient();
+        exceptionList.clear();
+        proxy = createClient(false);
+        proxy.sendPacket(new UnknownPacket());
+        Assert.assertTrue(exceptionList.isEmpty());
+    }
+
+    /**
+     * Create a lazily connected test client and an embedded channel with platform pipeline as its connection.
+     * 
+     * @param voidPromiseSends
+     *            - true to send with void promises.
+     * @return - a {@link NettyClientProxy} of the test client, connected to the embedded channel.
+     */
+    private NettyClientProxy createClient(boolean voidPromiseSends) throws BridgeException
+    {
+        BridgeOptions clientOptions = new BridgeOptions();
+        clientOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        clientOptions.set(BridgeOptions.KEY_LAZY_CONNECT, Boolean.TRUE);
+        clientOptions.set(BridgeOptions.KEY_PRIORITY_LANES, Boolean.TRUE);
+        clientOptions.set(BridgeOptions.KEY_SLOW_CONSUMER_POLICY, ESlowConsumerPolicy.DROP);
+        clientOptions.set(BridgeOptions.KEY_VOID_PROMISE_SENDS, voidPromiseSends);
+
+        testClient = new TestClient(clientOptions, this, new HashSet<IChannelObserver>(), CLIENT_NAME);
+        NettyClientProxy proxy = (NettyClientProxy) testClient.getClientProxy();
+        proxy.setOutboundBudget(new OutboundBudget(BUDGET_BYTES));
+        testClient.initialize(SERVICE_PORT, SERVICE_ADDRESS);
+
+        channel = new EmbeddedChannel(new PlatformPipelineInitializer(proxy));
+        channel.pipeline().addFirst(new ExceptionRecorder());
+        return proxy;
+    }
+
+    /**
+     * Release test client and its channel.
+     */
+    private void releaseClient() throws BridgeException
+    {
+        if (channel != null)
+        {
+            channel.finishAndReleaseAll();
+            channel = null;
+        }
+        if (testClient != null)
+        {
+            testClient.release();
+            testClient = null;
+        }
+    }
+
+    /**
+     * Measure average bytes allocated by the calling thread per send, after a warm up.
+     * 
+     * @return - average allocated bytes per send.
+     */
+    private long allocatedBytesPerSend(ThreadMXBean threadBean, NettyClientProxy proxy, AbstractPacket packet)
+        throws BridgeException
+    {
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_SENDS; i++)
+        {
+            sendAndDiscard(proxy, packet);
+        }
+
+        // Sampled leak records of pooled buffers are a test time cost, not a cost of the send.
+        Level level = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(Level.DISABLED);
+        try
+        {
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_SENDS; i++)
+            {
+                sendAndDiscard(proxy, packet);
+            }
+            long after = threadBean.getThreadAllocatedBytes(threadId);
+            return (after - before) / MEASURED_SENDS;
+        }
+        finally
+        {
+            ResourceLeakDetector.setLevel(level);
+        }
+    }
+
+    /**
+     * Send a packet and discard the frames it has been written as.
+     */
+    private void sendAndDiscard(NettyClientProxy proxy, AbstractPacket packet) throws BridgeException
+    {
+        proxy.sendPacket(packet);
+        Object msg = null;
+        while ((msg = channel.readOutbound()) != null)
+        {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /**
+     * Inbound handler at the head of the pipeline recording exceptions fired through the pipeline.
+     */
+    private class ExceptionRecorder extends ChannelInboundHandlerAdapter
+    {
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception
+        {
+            exceptionList.add(cause);
+            ctx.fireExceptionCaught(cause);
+        }
+    }
+
+    @Override
+    public void clientSent(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void clientReceived(AbstractPacket abstractPacket)
+    {}
+
+    @Override
+    public void serverSent(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+
+    @Override
+    public void serverReceived(AbstractPacket abstractPacket, String senderIdentifier)
+    {}
+}
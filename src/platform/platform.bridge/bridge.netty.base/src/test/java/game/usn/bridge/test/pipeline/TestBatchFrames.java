@@ -0,0 +1,171 @@
+/**
+ * @file TestBatchFrames.java
+ * @brief Test packing of batch sends into batch frames and their unpacking.
+ */
+
+package game.usn.bridge.test.pipeline;
+
+import game.usn.bridge.test.e2e.testdata.UnknownPacket;
+import game.usn.bridge.test.pipeline.data.TestPacket;
+import game.usn.bridge.test.pipeline.data.TestPacket2;
+import game.usn.bridge.test.pipeline.data.TestServiceProtocol;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.ws.ProtocolException;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.base.pipeline.PlatformPipelineInitializer;
+import platform.bridge.base.pipeline.decoder.PlatformPacketDecoder;
+import platform.bridge.base.pipeline.encoder.PlatformPacketEncoder;
+
+/**
+ * Test packing of batch sends into batch frames and their unpacking.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestBatchFrames
+{
+    // Frame length used by tests, fits about three test packets.
+    private static final int MAX_FRAME_LENGTH = 48;
+
+    // Reusable fields.
+    private List<Object> outObjectList = new ArrayList<Object>();
+    private List<ByteBuf> frameList;
+    private TestServiceProtocol protocol;
+    private PlatformPacketDecoder decoder;
+
+    /**
+     * Reset before each test.
+     */
+    @Before
+    public void beforeTest()
+    {
+        this.outObjectList.clear();
+        this.frameList = null;
+        this.protocol = new TestServiceProtocol();
+        this.decoder = new PlatformPacketDecoder(this.protocol);
+    }
+
+    /**
+     * Release encoded frames after each test.
+     */
+    @After
+    public void afterTest()
+    {
+        if (this.frameList != null)
+        {
+            for (ByteBuf frame : this.frameList)
+            {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * Test a small batch is packed into a single frame and unpacked in order.
+     */
+    @Test
+    public void testSingleFrame() throws Exception
+    {
+        List<AbstractPacket> packets = Arrays.asList(new AbstractPacket[] { testPacket("a"), new TestPacket2(),
+            testPacket("b") });
+        this.frameList = PlatformPacketEncoder.encodeBatch(this.protocol, packets, UnpooledByteBufAllocator.DEFAULT,
+            PlatformPipelineInitializer.MAX_FRAME_LENGTH);
+        Assert.assertEquals(1, this.frameList.size());
+
+        decodeAll();
+        Assert.assertEquals(3, this.outObjectList.size());
+        Assert.assertEquals("a", ((TestPacket) this.outObjectList.get(0)).getTestString());
+        Assert.assertTrue(this.outObjectList.get(1) instanceof TestPacket2);
+        Assert.assertEquals("b", ((TestPacket) this.outObjectList.get(2)).getTestString());
+    }
+
+    /**
+     * Test a batch is split into frames within frame length and a packet too large for a batch frame is sent alone.
+     */
+    @Test
+    public void testSplit() throws Exception
+    {
+        List<AbstractPacket> packets = new ArrayList<AbstractPacket>();
+        for (int i = 0; i < 10; i++)
+        {
+            packets.add(testPacket("packet" + i));
+        }
+        char[] large = new char[MAX_FRAME_LENGTH - 4];
+        Arrays.fill(large, 'x');
+        packets.add(5, testPacket(new String(large)));
+
+        this.frameList = PlatformPacketEncoder.encodeBatch(this.protocol, packets, UnpooledByteBufAllocator.DEFAULT,
+            MAX_FRAME_LENGTH);
+        Assert.assertTrue(this.frameList.size() > 2);
+        Assert.assertTrue(this.frameList.size() < packets.size());
+        for (ByteBuf frame : this.frameList)
+        {
+            Assert.assertTrue(frame.readableBytes() <= MAX_FRAME_LENGTH);
+        }
+
+        decodeAll();
+        Assert.assertEquals(packets.size(), this.outObjectList.size());
+        for (int i = 0; i < packets.size(); i++)
+        {
+            Assert.assertEquals(((TestPacket) packets.get(i)).getTestString(),
+                ((TestPacket) this.outObjectList.get(i)).getTestString());
+        }
+    }
+
+    /**
+     * Test an unknown packet fails the whole batch.
+     */
+    @Test
+    public void testUnknownPacket()
+    {
+        Exception ex = null;
+        try
+        {
+            PlatformPacketEncoder.encodeBatch(this.protocol, Arrays.asList(new AbstractPacket[] { testPacket("a"),
+                new UnknownPacket() }), UnpooledByteBufAllocator.DEFAULT, MAX_FRAME_LENGTH);
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertTrue(ex instanceof ProtocolException);
+    }
+
+    /**
+     * Decode all encoded frames.
+     */
+    private void decodeAll() throws Exception
+    {
+        for (ByteBuf frame : this.frameList)
+        {
+            this.decoder.decode(null, frame, this.outObjectList);
+        }
+    }
+
+    /**
+     * Create a test packet.
+     * 
+     * @param testString
+     *            - a {@link String} test value.
+     * @return - a new {@link TestPacket}.
+     */
+    private static TestPacket testPacket(String testString)
+    {
+        TestPacket testPacket = new TestPacket();
+        testPacket.setTestString(testString);
+        return testPacket;
+    }
+}
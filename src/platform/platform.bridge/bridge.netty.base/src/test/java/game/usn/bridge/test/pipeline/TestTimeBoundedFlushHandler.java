@@ -0,0 +1,116 @@
+/**
+ * @file TestTimeBoundedFlushHandler.java
+ * @brief Test time bounded flush handler.
+ */
+
+package game.usn.bridge.test.pipeline;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import platform.bridge.base.pipeline.flush.TimeBoundedFlushHandler;
+
+/**
+ * Test time bounded flush handler.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public class TestTimeBoundedFlushHandler
+{
+    // Flush delay.
+    private static final long DELAY_MS = 50;
+
+    // Flushes reaching the channel.
+    private int flushes;
+
+    // Test channel.
+    private EmbeddedChannel channel;
+
+    /**
+     * Reset before each test.
+     */
+    @Before
+    public void beforeTest()
+    {
+        flushes = 0;
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void flush(ChannelHandlerContext ctx) throws Exception
+            {
+                flushes++;
+                ctx.flush();
+            }
+        }, new TimeBoundedFlushHandler(DELAY_MS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Test instantiation with invalid arguments.
+     */
+    @Test
+    public void testInstantiation()
+    {
+        Exception ex = null;
+        try
+        {
+            new TimeBoundedFlushHandler(-1, TimeUnit.MILLISECONDS);
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertTrue(ex instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Test a burst of flushes is merged into a single flush once delay elapses.
+     */
+    @Test
+    public void testFlushMerged() throws Exception
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            channel.writeAndFlush(Integer.valueOf(i));
+        }
+        channel.runPendingTasks();
+        Assert.assertEquals(0, flushes);
+        Assert.assertNull(channel.readOutbound());
+
+        Thread.sleep(DELAY_MS * 2);
+        channel.runPendingTasks();
+        Assert.assertEquals(1, flushes);
+        for (int i = 0; i < 3; i++)
+        {
+            Assert.assertEquals(Integer.valueOf(i), channel.readOutbound());
+        }
+
+        // Next flush schedules again.
+        channel.writeAndFlush(Integer.valueOf(3));
+        Thread.sleep(DELAY_MS * 2);
+        channel.runPendingTasks();
+        Assert.assertEquals(2, flushes);
+        Assert.assertEquals(Integer.valueOf(3), channel.readOutbound());
+    }
+
+    /**
+     * Test pending flush is done before channel closes.
+     */
+    @Test
+    public void testFlushOnClose()
+    {
+        channel.writeAndFlush(Integer.valueOf(1));
+        Assert.assertEquals(0, flushes);
+
+        channel.close();
+        Assert.assertEquals(1, flushes);
+        Assert.assertEquals(Integer.valueOf(1), channel.readOutbound());
+    }
+}
@@ -8,18 +8,25 @@ package platform.bridge.proxy.client;
 import game.core.util.ArgsChecker;
 
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import platform.bridge.api.protocol.AbstractPacket;
 import platform.bridge.api.proxy.IClientProxyBase;
 import platform.bridge.api.proxy.IResponseListener;
 import platform.bridge.api.proxy.transport.ITransportIdentifiable;
+import platform.bridge.proxy.execution.EExecutionMode;
+import platform.bridge.proxy.execution.ProxyExecutors;
 import platform.core.api.exception.BridgeException;
 
 /**
  * Abstract platform client proxy provides a basic platform client proxy functionality for interacting with remote
- * service. It provides a synchronous and asynchronous data transmission with remote service.
+ * service. It provides a synchronous and asynchronous data transmission with remote service. Request handlers issuing
+ * blocking synchronous requests may be run on the proxy executor, which uses platform or virtual threads depending on
+ * the {@link EExecutionMode} of the proxy.
  * 
  * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
  *
@@ -31,6 +38,8 @@ public abstract class AbstractPlatformClientProxy implements IResponseListener
     private static final String ARG_RESPONSE_WAIT_TIME = "responseWaitTimeSec";
     private static final String ARG_SERVICE_IP = "serviceIPv4";
     private static final String ARG_SERVICE_PORT = "servicePort";
+    private static final String ARG_EXECUTION_MODE = "executionMode";
+    private static final String ARG_HANDLER = "handler";
 
     // Default wait time for a synchronous response in seconds.
     private static final int DEFAULT_RESPONSE_WAIT_TIME_SEC = 2;
@@ -44,6 +53,10 @@ public abstract class AbstractPlatformClientProxy implements IResponseListener
     // Amount of seconds to block waiting for response to synchronous request.
     private int responseWaitTimeSec;
 
+    // Execution mode of request handlers and their executor, created on first use.
+    private final EExecutionMode executionMode;
+    private volatile ExecutorService handlerExecutor;
+
     /**
      * Constructor.
      * 
@@ -64,12 +77,31 @@ public abstract class AbstractPlatformClientProxy implements IResponseListener
      *            - a time amount to wait for responses to synchronous requests.
      */
     protected AbstractPlatformClientProxy(IClientProxyBase clientProxyBase, int responseWaitTimeSec)
+    {
+        this(clientProxyBase, responseWaitTimeSec, EExecutionMode.PLATFORM);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param clientProxyBase
+     *            - a {@link IClientProxyBase} client proxy base implementation.
+     * @param responseWaitTimeSec
+     *            - a time amount to wait for responses to synchronous requests.
+     * @param executionMode
+     *            - an {@link EExecutionMode} of request handlers submitted with {@link #execute(Callable)}. Virtual mode
+     *            falls back to platform threads on runtimes older than Java 21.
+     */
+    protected AbstractPlatformClientProxy(IClientProxyBase clientProxyBase, int responseWaitTimeSec,
+        EExecutionMode executionMode)
     {
         ArgsChecker.errorOnNull(clientProxyBase, ARG_CLIENT_PROXY_BASE);
         ArgsChecker.errorOnLessThan0(responseWaitTimeSec, ARG_RESPONSE_WAIT_TIME);
+        ArgsChecker.errorOnNull(executionMode, ARG_EXECUTION_MODE);
 
         this.clientProxyBase = clientProxyBase;
         this.responseWaitTimeSec = responseWaitTimeSec;
+        this.executionMode = ProxyExecutors.resolve(executionMode);
 
         requestFutureMap = new ConcurrentHashMap<UUID, RequestFuture>();
     }
@@ -106,6 +138,13 @@ public abstract class AbstractPlatformClientProxy implements IResponseListener
             requestFuture.cancel();
         }
         requestFutureMap.clear();
+
+        ExecutorService executor = handlerExecutor;
+        handlerExecutor = null;
+        if (executor != null)
+        {
+            executor.shutdown();
+        }
     }
 
     /**
@@ -139,10 +178,50 @@ public abstract class AbstractPlatformClientProxy implements IResponseListener
         }
         finally
         {
-            requestFutureMap.remove(requestFuture);
+            requestFutureMap.remove(packetTransportId);
         }
     }
 
+    /**
+     * Run a request handler on the proxy executor. Handler may freely block on {@link #send} calls: in virtual mode a
+     * blocked handler releases its carrier thread while waiting for a response, so thousands of outstanding requests
+     * do not hold thousands of platform threads.
+     * 
+     * @param handler
+     *            - a {@link Callable} request handler.
+     * @return - a {@link Future} of the handler result.
+     */
+    protected final <V> Future<V> execute(Callable<V> handler)
+    {
+        ArgsChecker.errorOnNull(handler, ARG_HANDLER);
+
+        ExecutorService executor = handlerExecutor;
+        if (executor == null)
+        {
+            synchronized (this)
+            {
+                executor = handlerExecutor;
+                if (executor == null)
+                {
+                    executor = ProxyExecutors.newExecutor(executionMode, getName());
+                    handlerExecutor = executor;
+                }
+            }
+        }
+
+        return executor.submit(handler);
+    }
+
+    /**
+     * Retrieve execution mode of request handlers.
+     * 
+     * @return - an {@link EExecutionMode} supported by the runtime.
+     */
+    public EExecutionMode getExecutionMode()
+    {
+        return executionMode;
+    }
+
     /**
      * Asynchronously send data to remote service. This call is purely asynchronous and will not block.
      * 
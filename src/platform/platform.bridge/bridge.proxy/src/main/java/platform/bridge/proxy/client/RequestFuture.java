@@ -12,7 +12,9 @@ import platform.bridge.api.protocol.AbstractPacket;
 import platform.core.api.exception.BridgeException;
 
 /**
- * Request future represents a result of an asynchronous request to a remote service.
+ * Request future represents a result of an asynchronous request to a remote service. Waiting parks the caller on a
+ * latch rather than a monitor, so a virtual thread waiting for a result, with or without timeout, unmounts from its
+ * carrier thread instead of pinning it.
  * 
  * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
  *
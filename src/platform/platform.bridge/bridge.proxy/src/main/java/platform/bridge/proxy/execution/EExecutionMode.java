@@ -0,0 +1,19 @@
+/**
+ * @file EExecutionMode.java
+ * @brief Execution modes of proxy request handlers.
+ */
+
+package platform.bridge.proxy.execution;
+
+/**
+ * Execution modes of proxy request handlers. A handler typically issues blocking synchronous requests, so each
+ * outstanding handler occupies its thread until a response arrives.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public enum EExecutionMode
+{
+    PLATFORM, // Each handler runs on a pooled platform thread.
+    VIRTUAL // Each handler runs on its own virtual thread. Requires a Java 21 or newer runtime.
+}
@@ -0,0 +1,159 @@
+/**
+ * @file ProxyExecutors.java
+ * @brief Proxy executors create executors running proxy request handlers in a given execution mode.
+ */
+
+package platform.bridge.proxy.execution;
+
+import game.core.log.Logger;
+import game.core.log.LoggerFactory;
+import game.core.util.ArgsChecker;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proxy executors create executors running proxy request handlers in a given execution mode. Virtual thread API is
+ * resolved reflectively so that the module still builds for and runs on older Java targets, where
+ * {@link EExecutionMode#VIRTUAL} falls back to {@link EExecutionMode#PLATFORM}. When built with the java21 profile the
+ * same code runs natively on a Java 21 target.
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class ProxyExecutors
+{
+    // Logger.
+    private static final Logger LOG = LoggerFactory.getLogger(ProxyExecutors.class);
+
+    // Errors, args, messages.
+    private static final String ARG_EXECUTION_MODE = "executionMode";
+    private static final String ARG_NAME = "name";
+    private static final String ERROR_VIRTUAL_EXECUTOR = "Creating virtual thread executor failed.";
+    private static final String WARN_VIRTUAL_UNSUPPORTED = "Virtual threads are not supported by this runtime. Proxy: [%s] falls back to platform threads.";
+
+    // Virtual thread API, or null if runtime does not support virtual threads.
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static
+    {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try
+        {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            ofVirtual = null;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    /**
+     * Private constructor.
+     */
+    private ProxyExecutors()
+    {}
+
+    /**
+     * Check whether runtime supports virtual threads.
+     * 
+     * @return - true if virtual threads are supported, false otherwise.
+     */
+    public static boolean isVirtualSupported()
+    {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Resolve execution mode to one supported by the runtime.
+     * 
+     * @param executionMode
+     *            - a preferred {@link EExecutionMode}.
+     * @return - an {@link EExecutionMode} supported by the runtime.
+     */
+    public static EExecutionMode resolve(EExecutionMode executionMode)
+    {
+        ArgsChecker.errorOnNull(executionMode, ARG_EXECUTION_MODE);
+        return executionMode == EExecutionMode.VIRTUAL && !isVirtualSupported() ? EExecutionMode.PLATFORM
+            : executionMode;
+    }
+
+    /**
+     * Create an executor for given execution mode. Platform executor starts a thread per concurrently outstanding
+     * handler and reuses idle threads, virtual executor starts a new virtual thread per handler.
+     * 
+     * @param executionMode
+     *            - an {@link EExecutionMode} of the executor.
+     * @param name
+     *            - a {@link String} name used as thread name prefix.
+     * @return - a new {@link ExecutorService}.
+     */
+    public static ExecutorService newExecutor(EExecutionMode executionMode, String name)
+    {
+        ArgsChecker.errorOnNull(executionMode, ARG_EXECUTION_MODE);
+        ArgsChecker.errorOnNull(name, ARG_NAME);
+
+        EExecutionMode resolvedMode = resolve(executionMode);
+        if (resolvedMode != executionMode)
+        {
+            LOG.warn(String.format(WARN_VIRTUAL_UNSUPPORTED, name));
+        }
+
+        if (resolvedMode == EExecutionMode.VIRTUAL)
+        {
+            try
+            {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name + "-vt-", 0L);
+                ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+            }
+            catch (ReflectiveOperationException roe)
+            {
+                throw new IllegalStateException(ERROR_VIRTUAL_EXECUTOR, roe);
+            }
+        }
+
+        return Executors.newCachedThreadPool(newPlatformThreadFactory(name));
+    }
+
+    /**
+     * Create a daemon platform thread factory naming threads after given name.
+     * 
+     * @param name
+     *            - a {@link String} thread name prefix.
+     * @return - a new {@link ThreadFactory}.
+     */
+    private static ThreadFactory newPlatformThreadFactory(final String name)
+    {
+        return new ThreadFactory() {
+            // Next thread index.
+            private final AtomicInteger nextIndex = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, name + "-pt-" + nextIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
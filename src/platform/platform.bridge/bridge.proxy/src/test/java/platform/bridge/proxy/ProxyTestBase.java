@@ -27,6 +27,7 @@ import platform.bridge.api.proxy.BridgeOptions;
 import platform.bridge.api.proxy.IClientProxyBase;
 import platform.bridge.api.proxy.transport.ITransportIdentifiable;
 import platform.bridge.proxy.client.AbstractPlatformClientProxy;
+import platform.bridge.proxy.execution.EExecutionMode;
 
 /**
  * Proxy test base functionality. Provides test data and utility methods for running platform proxy tests.
@@ -102,7 +103,15 @@ public class ProxyTestBase
         public TestClientProxy(BridgeOptions channelOptions, String name, AbstractPlatformProtocol protocol,
             Set<IChannelObserver> channelObserverSet, IClientProxyBase clientProxyBase, int timeToBlock)
         {
-            super(clientProxyBase, timeToBlock);
+            this(channelOptions, name, protocol, channelObserverSet, clientProxyBase, timeToBlock,
+                EExecutionMode.PLATFORM);
+        }
+
+        public TestClientProxy(BridgeOptions channelOptions, String name, AbstractPlatformProtocol protocol,
+            Set<IChannelObserver> channelObserverSet, IClientProxyBase clientProxyBase, int timeToBlock,
+            EExecutionMode executionMode)
+        {
+            super(clientProxyBase, timeToBlock, executionMode);
 
             this.channelOptions = channelOptions;
             this.name = name;
@@ -0,0 +1,311 @@
+/**
+ * @file BlockingSendBenchmark.java
+ * @brief Benchmark of concurrent blocking client proxy sends on platform and virtual threads.
+ */
+
+package platform.bridge.proxy.benchmark;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import platform.bridge.api.observer.IChannelObserver;
+import platform.bridge.api.protocol.AbstractPacket;
+import platform.bridge.api.protocol.AbstractPlatformProtocol;
+import platform.bridge.api.proxy.BridgeOptions;
+import platform.bridge.api.proxy.IClientProxyBase;
+import platform.bridge.api.proxy.IResponseListener;
+import platform.bridge.api.proxy.transport.ITransportIdentifiable;
+import platform.bridge.proxy.client.AbstractPlatformClientProxy;
+import platform.bridge.proxy.execution.EExecutionMode;
+import platform.bridge.proxy.execution.ProxyExecutors;
+import platform.core.api.exception.BridgeException;
+
+/**
+ * Benchmark of concurrent blocking client proxy sends on platform and virtual threads. Each handler issues one
+ * synchronous send against a simulated remote service answering after a fixed latency, so all handlers are outstanding
+ * at the same time. Reports wall time, throughput and peak live thread count per execution mode. Run manually:
+ * 
+ * <pre>
+ * java platform.bridge.proxy.benchmark.BlockingSendBenchmark [concurrentSends] [responseLatencyMs]
+ * </pre>
+ * 
+ * @author Bostjan Lasnik (bostjan.lasnik@hotmail.com)
+ *
+ */
+public final class BlockingSendBenchmark
+{
+    // Default workload.
+    private static final int DEFAULT_CONCURRENT_SENDS = 10000;
+    private static final int DEFAULT_RESPONSE_LATENCY_MS = 50;
+
+    // Response wait time of benchmark proxies.
+    private static final int RESPONSE_WAIT_TIME_SEC = 30;
+
+    /**
+     * Private constructor.
+     */
+    private BlockingSendBenchmark()
+    {}
+
+    /**
+     * Benchmark entry point.
+     * 
+     * @param args
+     *            - optional concurrent sends and response latency in milliseconds.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int sends = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CONCURRENT_SENDS;
+        int latencyMs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RESPONSE_LATENCY_MS;
+
+        System.out.println(String.format("Blocking send workload: %d concurrent sends, %d ms response latency.", sends,
+            latencyMs));
+
+        // Warm up both modes before measuring.
+        run(EExecutionMode.PLATFORM, Math.min(sends, 1000), latencyMs, false);
+        run(EExecutionMode.PLATFORM, sends, latencyMs, true);
+
+        if (!ProxyExecutors.isVirtualSupported())
+        {
+            System.out.println("Virtual threads are not supported by this runtime. Run on Java 21 or newer.");
+            return;
+        }
+        run(EExecutionMode.VIRTUAL, Math.min(sends, 1000), latencyMs, false);
+        run(EExecutionMode.VIRTUAL, sends, latencyMs, true);
+    }
+
+    /**
+     * Run a workload in given execution mode.
+     * 
+     * @param executionMode
+     *            - an {@link EExecutionMode} to run handlers in.
+     * @param sends
+     *            - number of concurrent sends.
+     * @param latencyMs
+     *            - simulated response latency in milliseconds.
+     * @param report
+     *            - true to print results.
+     * @throws Exception
+     *             - throws {@link Exception} on benchmark failure.
+     */
+    private static void run(EExecutionMode executionMode, int sends, int latencyMs, boolean report) throws Exception
+    {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        DelayedEchoProxyBase proxyBase = new DelayedEchoProxyBase(latencyMs);
+        BenchmarkClientProxy proxy = new BenchmarkClientProxy(proxyBase, executionMode);
+        proxy.initialize("127.0.0.1", 0);
+
+        try
+        {
+            threadMXBean.resetPeakThreadCount();
+            long start = System.nanoTime();
+
+            List<Future<AbstractPacket>> futures = new ArrayList<Future<AbstractPacket>>(sends);
+            for (int i = 0; i < sends; i++)
+            {
+                futures.add(proxy.call());
+            }
+
+            int failed = 0;
+            for (Future<AbstractPacket> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (Exception e)
+                {
+                    failed++;
+                }
+            }
+
+            long elapsedNanos = System.nanoTime() - start;
+            if (report)
+            {
+                System.out.println(String.format(
+                    "%-8s sends=%d failed=%d time=%.1fms throughput=%.0f/s peakThreads=%d", executionMode, sends,
+                    failed, elapsedNanos / 1e6, sends * 1e9 / elapsedNanos, threadMXBean.getPeakThreadCount()));
+            }
+        }
+        finally
+        {
+            proxy.release();
+        }
+    }
+
+    /**
+     * Client proxy base simulating a remote service that echoes each packet back after a fixed latency.
+     */
+    private static final class DelayedEchoProxyBase implements IClientProxyBase
+    {
+        // Simulated response latency.
+        private final int latencyMs;
+
+        // Response scheduler.
+        private final ScheduledExecutorService scheduler;
+
+        // Listener to deliver responses to.
+        private volatile IResponseListener responseListener;
+
+        private DelayedEchoProxyBase(int latencyMs)
+        {
+            this.latencyMs = latencyMs;
+            this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        }
+
+        @Override
+        public void sendPacket(final AbstractPacket packet) throws BridgeException
+        {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run()
+                {
+                    responseListener.receive(packet, null);
+                }
+            }, latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public CompletionStage<Void> sendPacketAsync(AbstractPacket packet)
+        {
+            try
+            {
+                sendPacket(packet);
+            }
+            catch (BridgeException be)
+            {
+                CompletableFuture<Void> failed = new CompletableFuture<Void>();
+                failed.completeExceptionally(be);
+                return failed;
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void sendPackets(Collection<? extends AbstractPacket> packets) throws BridgeException
+        {
+            for (AbstractPacket packet : packets)
+            {
+                sendPacket(packet);
+            }
+        }
+
+        @Override
+        public void release() throws BridgeException
+        {
+            scheduler.shutdownNow();
+        }
+
+        @Override
+        public void initialize(String serviceIPv4Address, Integer servicePort, IResponseListener responseListener)
+            throws BridgeException
+        {
+            this.responseListener = responseListener;
+        }
+    }
+
+    /**
+     * Client proxy issuing blocking sends from handlers on its executor.
+     */
+    private static final class BenchmarkClientProxy extends AbstractPlatformClientProxy
+    {
+        // Bridge options.
+        private final BridgeOptions bridgeOptions;
+
+        private BenchmarkClientProxy(IClientProxyBase clientProxyBase, EExecutionMode executionMode)
+        {
+            super(clientProxyBase, RESPONSE_WAIT_TIME_SEC, executionMode);
+            bridgeOptions = new BridgeOptions();
+            bridgeOptions.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        }
+
+        /**
+         * Submit a handler issuing one blocking send.
+         * 
+         * @return - a {@link Future} of the response.
+         */
+        private Future<AbstractPacket> call()
+        {
+            return execute(new Callable<AbstractPacket>() {
+                @Override
+                public AbstractPacket call() throws Exception
+                {
+                    return send(new BenchmarkPacket());
+                }
+            });
+        }
+
+        @Override
+        protected void receivePacket(AbstractPacket abstractPacket)
+        {}
+
+        @Override
+        public BridgeOptions getBridgeOptions()
+        {
+            return bridgeOptions;
+        }
+
+        @Override
+        public String getName()
+        {
+            return "blockingSendBenchmark";
+        }
+
+        @Override
+        public AbstractPlatformProtocol getProtocol()
+        {
+            return null;
+        }
+
+        @Override
+        public Set<IChannelObserver> getChannelObserverSet()
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Benchmark request packet.
+     */
+    public static final class BenchmarkPacket extends AbstractPacket implements ITransportIdentifiable
+    {
+        // Transport id.
+        private UUID transportId;
+
+        @Override
+        public void read(ByteBuf buf)
+        {}
+
+        @Override
+        public void write(ByteBuf buf)
+        {}
+
+        @Override
+        public void setTransportId(UUID id)
+        {
+            transportId = id;
+        }
+
+        @Override
+        public UUID getTransportId()
+        {
+            return transportId;
+        }
+    }
+}
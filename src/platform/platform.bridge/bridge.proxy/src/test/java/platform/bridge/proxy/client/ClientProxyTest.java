@@ -6,6 +6,9 @@
 package platform.bridge.proxy.client;
 
 import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.Assert;
 
@@ -20,6 +23,8 @@ import platform.bridge.api.protocol.AbstractPacket;
 import platform.bridge.api.proxy.BridgeOptions;
 import platform.bridge.api.proxy.IClientProxyBase;
 import platform.bridge.proxy.ProxyTestBase;
+import platform.bridge.proxy.execution.EExecutionMode;
+import platform.bridge.proxy.execution.ProxyExecutors;
 import platform.core.api.exception.BridgeException;
 
 /**
@@ -269,4 +274,49 @@ public class ClientProxyTest extends ProxyTestBase
         Assert.assertNull(ex);
         ex = null;
     }
+
+    /**
+     * Test blocking request handlers run on the proxy executor in virtual mode, or platform mode on older runtimes.
+     */
+    @Test
+    public void testVirtualExecution() throws Exception
+    {
+        IClientProxyBase clientProxyBase = Mockito.mock(IClientProxyBase.class);
+
+        BridgeOptions bo = new BridgeOptions();
+        bo.set(BridgeOptions.KEY_IS_SERVER, Boolean.FALSE);
+        final TestClientProxy testProxy = new TestClientProxy(bo, "virtualTestProxy", PROT1,
+            new HashSet<IChannelObserver>(), clientProxyBase, 3, EExecutionMode.VIRTUAL);
+
+        // Respond immediately from the sending thread.
+        Mockito.doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Exception
+            {
+                testProxy.receive((AbstractPacket) invocation.getArguments()[0], null);
+                return null;
+            }
+        }).when(clientProxyBase).sendPacket(Mockito.any(AbstractPacket.class));
+
+        Assert.assertEquals(ProxyExecutors.isVirtualSupported() ? EExecutionMode.VIRTUAL : EExecutionMode.PLATFORM,
+            testProxy.getExecutionMode());
+
+        try
+        {
+            testProxy.initialize(remoteHostIPv4, remoteHostPort);
+            Future<AbstractPacket> response = testProxy.execute(new Callable<AbstractPacket>() {
+                @Override
+                public AbstractPacket call() throws Exception
+                {
+                    return testProxy.send(new PacketP1());
+                }
+            });
+            Assert.assertTrue(response.get(3, TimeUnit.SECONDS) instanceof PacketP1);
+            testProxy.release();
+        }
+        catch (Exception e)
+        {
+            ex = e;
+        }
+        Assert.assertNull(ex);
+    }
 }